@@ -20,6 +20,7 @@ import java.io.Serializable;
 
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.analysis.solvers.UnivariateSolverUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -304,5 +305,113 @@ implements RealDistribution, Serializable {
     public double logDensity(double x) {
         return FastMath.log(density(x));
     }
+
+    /**
+     * Evaluates the probability density function at several points.
+     * <p>
+     * The result is the same as calling {@link #density(double)} for each
+     * element of {@code x}, but implementations may hoist the computations
+     * that do not depend on the point out of the loop. The default
+     * implementation simply loops over the points.
+     * </p>
+     *
+     * @param x Points at which the PDF is evaluated.
+     * @param out Array in which the densities are stored; it may be
+     * the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out}
+     * do not have the same length.
+     * @since 3.3
+     */
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        for (int i = 0; i < x.length; i++) {
+            out[i] = density(x[i]);
+        }
+    }
+
+    /**
+     * Evaluates the cumulative distribution function at several points.
+     * <p>
+     * The result is the same as calling {@link #cumulativeProbability(double)}
+     * for each element of {@code x}, but implementations may hoist the
+     * computations that do not depend on the point out of the loop. The
+     * default implementation simply loops over the points.
+     * </p>
+     *
+     * @param x Points at which the CDF is evaluated.
+     * @param out Array in which the probabilities are stored; it may be
+     * the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out}
+     * do not have the same length.
+     * @since 3.3
+     */
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        for (int i = 0; i < x.length; i++) {
+            out[i] = cumulativeProbability(x[i]);
+        }
+    }
+
+    /**
+     * Evaluates the inverse cumulative distribution function at several
+     * probabilities.
+     * <p>
+     * The result is the same as calling {@link #inverseCumulativeProbability(double)}
+     * for each element of {@code p}, but implementations may hoist the
+     * computations that do not depend on the probability out of the loop.
+     * All probabilities are checked before any result is stored. The
+     * default implementation simply loops over the probabilities.
+     * </p>
+     *
+     * @param p Cumulative probabilities.
+     * @param out Array in which the quantiles are stored; it may be
+     * the same array as {@code p}.
+     * @throws DimensionMismatchException if {@code p} and {@code out}
+     * do not have the same length.
+     * @throws OutOfRangeException if one of the probabilities is not in
+     * the {@code [0, 1]} range.
+     * @since 3.3
+     */
+    public void inverseCumulativeProbability(final double[] p, final double[] out)
+        throws DimensionMismatchException, OutOfRangeException {
+        checkBatchLength(p, out);
+        checkProbabilities(p);
+        for (int i = 0; i < p.length; i++) {
+            out[i] = inverseCumulativeProbability(p[i]);
+        }
+    }
+
+    /**
+     * Checks that the input and output arrays of a batch evaluation have
+     * the same length.
+     *
+     * @param in Input array.
+     * @param out Output array.
+     * @throws DimensionMismatchException if the lengths differ.
+     */
+    static void checkBatchLength(final double[] in, final double[] out)
+        throws DimensionMismatchException {
+        if (in.length != out.length) {
+            throw new DimensionMismatchException(out.length, in.length);
+        }
+    }
+
+    /**
+     * Checks that all elements of an array are probabilities.
+     *
+     * @param p Array to check.
+     * @throws OutOfRangeException if one of the elements is not in
+     * the {@code [0, 1]} range.
+     */
+    static void checkProbabilities(final double[] p)
+        throws OutOfRangeException {
+        for (final double pi : p) {
+            if (pi < 0.0 || pi > 1.0) {
+                throw new OutOfRangeException(pi, 0, 1);
+            }
+        }
+    }
 }
 
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.special.Gamma;
@@ -174,6 +175,55 @@ public class BetaDistribution extends AbstractRealDistribution {
         }
     }
 
+    /** {@inheritDoc}
+     * <p>
+     * All points are checked before any density is stored, so {@code out}
+     * is left untouched if one of them is at a singular end of the support.
+     * </p>
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException, NumberIsTooSmallException {
+        checkBatchLength(x, out);
+        recomputeZ();
+        final double a = alpha;
+        final double b = beta;
+        final double c = z;
+        for (final double xi : x) {
+            if (xi == 0 && a < 1) {
+                throw new NumberIsTooSmallException(LocalizedFormats.CANNOT_COMPUTE_BETA_DENSITY_AT_0_FOR_SOME_ALPHA, a, 1, false);
+            }
+            if (xi == 1 && b < 1) {
+                throw new NumberIsTooSmallException(LocalizedFormats.CANNOT_COMPUTE_BETA_DENSITY_AT_1_FOR_SOME_BETA, b, 1, false);
+            }
+        }
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (xi <= 0 || xi >= 1) {
+                out[i] = 0;
+            } else {
+                out[i] = FastMath.exp((a - 1) * FastMath.log(xi) + (b - 1) * FastMath.log1p(-xi) - c);
+            }
+        }
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        for (int i = 0; i < x.length; i++) {
+            // I(0, a, b) = 0 and I(1, a, b) = 1, which handles
+            // points outside of the support
+            final double xi = x[i];
+            out[i] = xi <= 0 ? 0 : (xi >= 1 ? 1 : xi);
+        }
+        Beta.regularizedBeta(out, alpha, beta, out);
+    }
+
     /**
      * Return the absolute accuracy setting of the solver used to estimate
      * inverse cumulative probabilities.
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.random.Well19937c;
 
@@ -119,6 +120,24 @@ public class ChiSquaredDistribution extends AbstractRealDistribution {
         return gamma.cumulativeProbability(x);
     }
 
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        gamma.density(x, out);
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        gamma.cumulativeProbability(x, out);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected double getSolverAbsoluteAccuracy() {
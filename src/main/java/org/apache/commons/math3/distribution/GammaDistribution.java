@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.special.Gamma;
@@ -345,6 +346,57 @@ public class GammaDistribution extends AbstractRealDistribution {
         return ret;
     }
 
+    /** {@inheritDoc}
+     *
+     * See documentation of {@link #density(double)} for computation details.
+     *
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double a       = shape;
+        final double b       = scale;
+        final double ss      = shiftedShape;
+        final double yMin    = minY;
+        final double logYMax = maxLogY;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (xi < 0) {
+                out[i] = 0;
+                continue;
+            }
+            final double y = xi / b;
+            if ((y <= yMin) || (FastMath.log(y) >= logYMax)) {
+                // overflow
+                final double aux1 = (y - ss) / ss;
+                final double aux2 = a * (FastMath.log1p(aux1) - aux1);
+                final double aux3 = -y * (Gamma.LANCZOS_G + 0.5) / ss + Gamma.LANCZOS_G + aux2;
+                out[i] = densityPrefactor2 / xi * FastMath.exp(aux3);
+            } else {
+                // natural calculation
+                out[i] = densityPrefactor1 * FastMath.exp(-y) * FastMath.pow(y, a - 1);
+            }
+        }
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double b = scale;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            // P(a, 0) = 0, which handles non-positive points
+            out[i] = xi <= 0 ? 0 : xi / b;
+        }
+        Gamma.regularizedGammaP(shape, out, out);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected double getSolverAbsoluteAccuracy() {
@@ -17,6 +17,7 @@
 
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
@@ -234,6 +235,52 @@ public class LogNormalDistribution extends AbstractRealDistribution {
         return 0.5 + 0.5 * Erf.erf(dev / (shape * SQRT2));
     }
 
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double m = scale;
+        final double s = shape;
+        final double f = shape * SQRT2PI;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (xi <= 0) {
+                out[i] = 0;
+            } else {
+                final double x1 = (FastMath.log(xi) - m) / s;
+                out[i] = FastMath.exp(-0.5 * x1 * x1) / (f * xi);
+            }
+        }
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double m     = scale;
+        final double limit = 40 * shape;
+        final double denom = shape * SQRT2;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (xi <= 0) {
+                out[i] = 0;
+            } else {
+                final double dev = FastMath.log(xi) - m;
+                if (FastMath.abs(dev) > limit) {
+                    out[i] = dev < 0 ? 0.0d : 1.0d;
+                } else {
+                    out[i] = 0.5 + 0.5 * Erf.erf(dev / denom);
+                }
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
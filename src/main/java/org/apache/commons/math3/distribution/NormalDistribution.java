@@ -17,6 +17,7 @@
 
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -185,6 +186,57 @@ public class NormalDistribution extends AbstractRealDistribution {
         return mean + standardDeviation * SQRT2 * Erf.erfInv(2 * p - 1);
     }
 
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double sd = standardDeviation;
+        final double m  = mean;
+        final double c  = logStandardDeviationPlusHalfLog2Pi;
+        for (int i = 0; i < x.length; i++) {
+            final double x1 = (x[i] - m) / sd;
+            out[i] = FastMath.exp(-0.5 * x1 * x1 - c);
+        }
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        final double m     = mean;
+        final double limit = 40 * standardDeviation;
+        final double denom = standardDeviation * SQRT2;
+        for (int i = 0; i < x.length; i++) {
+            final double dev = x[i] - m;
+            if (FastMath.abs(dev) > limit) {
+                out[i] = dev < 0 ? 0.0d : 1.0d;
+            } else {
+                out[i] = 0.5 * (1 + Erf.erf(dev / denom));
+            }
+        }
+    }
+
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void inverseCumulativeProbability(final double[] p, final double[] out)
+        throws DimensionMismatchException, OutOfRangeException {
+        checkBatchLength(p, out);
+        checkProbabilities(p);
+        final double m = mean;
+        final double f = standardDeviation * SQRT2;
+        for (int i = 0; i < p.length; i++) {
+            out[i] = m + f * Erf.erfInv(2 * p[i] - 1);
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.special.Beta;
@@ -156,6 +157,61 @@ public class TDistribution extends AbstractRealDistribution {
         return ret;
     }
 
+    /** {@inheritDoc}
+     * @since 3.3
+     */
+    @Override
+    public void density(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        // the normalization constant is computed only once for all points
+        final double n = degreesOfFreedom;
+        final double nPlus1Over2 = (n + 1) / 2;
+        final double logC = Gamma.logGamma(nPlus1Over2) -
+                            0.5 * (FastMath.log(FastMath.PI) +
+                                   FastMath.log(n)) -
+                            Gamma.logGamma(n / 2);
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            out[i] = FastMath.exp(logC - nPlus1Over2 * FastMath.log(1 + xi * xi / n));
+        }
+    }
+
+    /** {@inheritDoc}
+     * <p>
+     * The arguments of the regularized beta function are stored in
+     * {@code out}, which is then evaluated in place. When {@code out}
+     * is the same array as {@code x}, the signs of the points would be
+     * lost, so each point is evaluated on its own instead.
+     * </p>
+     * @since 3.3
+     */
+    @Override
+    public void cumulativeProbability(final double[] x, final double[] out)
+        throws DimensionMismatchException {
+        checkBatchLength(x, out);
+        if (x == out) {
+            for (int i = 0; i < x.length; i++) {
+                out[i] = cumulativeProbability(x[i]);
+            }
+            return;
+        }
+        final double n = degreesOfFreedom;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            out[i] = n / (n + (xi * xi));
+        }
+        Beta.regularizedBeta(out, 0.5 * n, 0.5, out);
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (xi == 0) {
+                out[i] = 0.5;
+            } else {
+                out[i] = xi < 0.0 ? 0.5 * out[i] : 1.0 - 0.5 * out[i];
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     protected double getSolverAbsoluteAccuracy() {
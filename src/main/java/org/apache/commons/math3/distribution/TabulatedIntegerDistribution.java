@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.distribution;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Integer distribution whose cumulative probabilities are precomputed.
+ * <p>
+ * This class wraps another {@link IntegerDistribution}, typically one whose
+ * cumulative distribution function is expensive to evaluate such as
+ * {@link BinomialDistribution}, {@link PoissonDistribution} or
+ * {@link HypergeometricDistribution}. The first time a cumulative
+ * probability or a quantile is requested, the values of the cumulative
+ * distribution function over the bulk of the support are computed and
+ * stored, together with a guide table (Chen and Asau method) indexing the
+ * table by probability. Afterwards:
+ * </p>
+ * <ul>
+ *  <li>{@link #cumulativeProbability(int)} is a table lookup,</li>
+ *  <li>{@link #inverseCumulativeProbability(double)} and hence
+ *  {@link #sample()} take a constant expected time.</li>
+ * </ul>
+ * <p>
+ * The size of the table is bounded: it starts at the smallest point whose
+ * cumulative probability exceeds {@link Precision#EPSILON} and stops when
+ * the cumulative probability reaches 1, when the upper bound of the
+ * support is reached or when the maximal number of entries is reached,
+ * whichever comes first. Requests falling outside of the table are
+ * delegated to the wrapped distribution, so the results are always those
+ * of the wrapped distribution.
+ * </p>
+ * <p>
+ * Building the table costs one evaluation of the cumulative distribution
+ * function of the wrapped distribution per entry; it is therefore only
+ * worth it when many evaluations are performed.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class TabulatedIntegerDistribution extends AbstractIntegerDistribution {
+
+    /** Default maximal number of entries of the table. */
+    public static final int DEFAULT_MAX_TABLE_SIZE = 1 << 16;
+
+    /** Serializable version identifier. */
+    private static final long serialVersionUID = 20131019L;
+
+    /** Wrapped distribution. */
+    private final IntegerDistribution distribution;
+
+    /** Maximal number of entries of the table. */
+    private final int maxTableSize;
+
+    /** Table, lazily built. */
+    private transient volatile Table table;
+
+    /**
+     * Creates a tabulated version of a distribution, using the
+     * {@link #DEFAULT_MAX_TABLE_SIZE default maximal table size}.
+     *
+     * @param distribution Distribution to tabulate.
+     */
+    public TabulatedIntegerDistribution(IntegerDistribution distribution) {
+        this(new Well19937c(), distribution, DEFAULT_MAX_TABLE_SIZE);
+    }
+
+    /**
+     * Creates a tabulated version of a distribution.
+     *
+     * @param rng Random number generator.
+     * @param distribution Distribution to tabulate.
+     * @param maxTableSize Maximal number of entries of the table.
+     * @throws NotStrictlyPositiveException if {@code maxTableSize <= 0}.
+     */
+    public TabulatedIntegerDistribution(RandomGenerator rng,
+                                        IntegerDistribution distribution,
+                                        int maxTableSize)
+        throws NotStrictlyPositiveException {
+        super(rng);
+        if (maxTableSize <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NUMBER_OF_ELEMENTS_SHOULD_BE_POSITIVE,
+                                                   maxTableSize);
+        }
+        this.distribution = distribution;
+        this.maxTableSize = maxTableSize;
+    }
+
+    /**
+     * Get the wrapped distribution.
+     *
+     * @return the wrapped distribution.
+     */
+    public IntegerDistribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * Get the maximal number of entries of the table.
+     *
+     * @return the maximal number of entries of the table.
+     */
+    public int getMaxTableSize() {
+        return maxTableSize;
+    }
+
+    /** {@inheritDoc} */
+    public double probability(int x) {
+        return distribution.probability(x);
+    }
+
+    /** {@inheritDoc} */
+    public double cumulativeProbability(int x) {
+        final Table t = getTable();
+        final long index = (long) x - t.start;
+        if (index < 0 || index >= t.cdf.length) {
+            return distribution.cumulativeProbability(x);
+        }
+        return t.cdf[(int) index];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Quantiles lying in the table are found using the guide table; the
+     * other ones are computed by the wrapped distribution.
+     */
+    @Override
+    public int inverseCumulativeProbability(final double p) throws OutOfRangeException {
+        if (p < 0.0 || p > 1.0) {
+            throw new OutOfRangeException(p, 0, 1);
+        }
+        if (p == 0.0) {
+            return getSupportLowerBound();
+        }
+        if (p == 1.0) {
+            return getSupportUpperBound();
+        }
+
+        final Table t = getTable();
+        final double[] cdf = t.cdf;
+        final int last = cdf.length - 1;
+        if (p <= t.below || p > cdf[last]) {
+            return distribution.inverseCumulativeProbability(p);
+        }
+
+        // start from the guide table entry and walk up to the quantile
+        final int[] guide = t.guide;
+        int i = guide[FastMath.min((int) (p * guide.length), guide.length - 1)];
+        while (cdf[i] < p) {
+            ++i;
+        }
+        return t.start + i;
+    }
+
+    /** {@inheritDoc} */
+    public double getNumericalMean() {
+        return distribution.getNumericalMean();
+    }
+
+    /** {@inheritDoc} */
+    public double getNumericalVariance() {
+        return distribution.getNumericalVariance();
+    }
+
+    /** {@inheritDoc} */
+    public int getSupportLowerBound() {
+        return distribution.getSupportLowerBound();
+    }
+
+    /** {@inheritDoc} */
+    public int getSupportUpperBound() {
+        return distribution.getSupportUpperBound();
+    }
+
+    /** {@inheritDoc} */
+    public boolean isSupportConnected() {
+        return distribution.isSupportConnected();
+    }
+
+    /**
+     * Get the table, building it if needed.
+     *
+     * @return the table.
+     */
+    private Table getTable() {
+        Table t = table;
+        if (t == null) {
+            // concurrent threads may build the table simultaneously,
+            // which is harmless as all of them build the same table
+            t = new Table(distribution, maxTableSize);
+            table = t;
+        }
+        return t;
+    }
+
+    /** Tabulated cumulative probabilities, with their guide table. */
+    private static class Table {
+
+        /** First tabulated point. */
+        private final int start;
+
+        /** Cumulative probability of {@code start - 1}. */
+        private final double below;
+
+        /** Cumulative probabilities of {@code start}, {@code start + 1}... */
+        private final double[] cdf;
+
+        /**
+         * Guide table: entry {@code j} is the smallest index {@code i} such
+         * that {@code cdf[i] >= j / guide.length}, or the last index if
+         * there is no such index.
+         */
+        private final int[] guide;
+
+        /**
+         * Builds the table.
+         *
+         * @param distribution Distribution to tabulate.
+         * @param maxSize Maximal number of entries.
+         */
+        Table(final IntegerDistribution distribution, final int maxSize) {
+
+            // skip the negligible lower tail
+            start = distribution.inverseCumulativeProbability(Precision.EPSILON);
+            below = start == Integer.MIN_VALUE ?
+                    0.0 : distribution.cumulativeProbability(start - 1);
+
+            // tabulate until the distribution is exhausted
+            final long end = FastMath.min((long) distribution.getSupportUpperBound(),
+                                          (long) start + maxSize - 1);
+            final double[] values = new double[(int) (end - start + 1)];
+            int n = 0;
+            for (long x = start; x <= end; ++x) {
+                values[n] = distribution.cumulativeProbability((int) x);
+                if (values[n++] >= 1.0) {
+                    break;
+                }
+            }
+            if (n < values.length) {
+                cdf = new double[n];
+                System.arraycopy(values, 0, cdf, 0, n);
+            } else {
+                cdf = values;
+            }
+
+            guide = new int[cdf.length];
+            int i = 0;
+            for (int j = 0; j < guide.length; ++j) {
+                final double pj = ((double) j) / guide.length;
+                while (i < cdf.length - 1 && cdf[i] < pj) {
+                    ++i;
+                }
+                guide[j] = i;
+            }
+
+        }
+
+    }
+
+}
@@ -17,9 +17,11 @@
 package org.apache.commons.math3.fitting;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
 import org.apache.commons.math3.analysis.ParametricUnivariateFunction;
+import org.apache.commons.math3.fitting.leastsquares.ChunkedModelFunction;
 import org.apache.commons.math3.optim.PointVectorValuePair;
 import org.apache.commons.math3.optim.AbstractOptimizer;
 
@@ -75,12 +77,19 @@ public abstract class AbstractCurveFitter<OPTIM extends AbstractOptimizer<PointV
 
     /**
      * Vector function for computing function theoretical values.
+     * <p>
+     * The observations can be split into chunks evaluated concurrently by
+     * an {@link ExecutorService}; the function to fit must then be
+     * thread-safe.
+     * </p>
      */
     protected static class TheoreticalValuesFunction {
         /** Function to fit. */
         private final ParametricUnivariateFunction f;
         /** Observations. */
         private final double[] points;
+        /** Evaluation of the observations by chunks. */
+        private final ChunkedModelFunction model;
 
         /**
          * @param f function to fit.
@@ -88,6 +97,18 @@ public abstract class AbstractCurveFitter<OPTIM extends AbstractOptimizer<PointV
          */
         public TheoreticalValuesFunction(final ParametricUnivariateFunction f,
                                          final Collection<WeightedObservedPoint> observations) {
+            this(f, observations, null);
+        }
+
+        /**
+         * @param f function to fit.
+         * @param observations Observations.
+         * @param executor Executor evaluating chunks of observations (if
+         * {@code null}, the function is evaluated in the calling thread).
+         */
+        public TheoreticalValuesFunction(final ParametricUnivariateFunction f,
+                                         final Collection<WeightedObservedPoint> observations,
+                                         final ExecutorService executor) {
             this.f = f;
 
             final int len = observations.size();
@@ -96,40 +117,38 @@ public abstract class AbstractCurveFitter<OPTIM extends AbstractOptimizer<PointV
             for (WeightedObservedPoint obs : observations) {
                 this.points[i++] = obs.getX();
             }
-        }
 
-        /**
-         * @return the model function values.
-         */
-        public MultivariateVectorFunction getModelFunction() {
-            return new MultivariateVectorFunction() {
+            this.model = new ChunkedModelFunction(len, executor) {
                 /** {@inheritDoc} */
-                public double[] value(double[] p) {
-                    final int len = points.length;
-                    final double[] values = new double[len];
-                    for (int i = 0; i < len; i++) {
-                        values[i] = f.value(points[i], p);
+                @Override
+                protected void value(double[] p, int first, int last, double[] values) {
+                    for (int k = first; k < last; k++) {
+                        values[k] = TheoreticalValuesFunction.this.f.value(points[k], p);
                     }
+                }
 
-                    return values;
+                /** {@inheritDoc} */
+                @Override
+                protected void jacobian(double[] p, int first, int last, double[][] jacobian) {
+                    for (int k = first; k < last; k++) {
+                        jacobian[k] = TheoreticalValuesFunction.this.f.gradient(points[k], p);
+                    }
                 }
             };
         }
 
+        /**
+         * @return the model function values.
+         */
+        public MultivariateVectorFunction getModelFunction() {
+            return model.getModelFunction();
+        }
+
         /**
          * @return the model function Jacobian.
          */
         public MultivariateMatrixFunction getModelFunctionJacobian() {
-            return new MultivariateMatrixFunction() {
-                public double[][] value(double[] p) {
-                    final int len = points.length;
-                    final double[][] jacobian = new double[len][];
-                    for (int i = 0; i < len; i++) {
-                        jacobian[i] = f.gradient(points[i], p);
-                    }
-                    return jacobian;
-                }
-            };
+            return model.getModelFunctionJacobian();
         }
     }
 }
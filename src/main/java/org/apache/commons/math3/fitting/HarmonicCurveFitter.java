@@ -17,6 +17,7 @@
 package org.apache.commons.math3.fitting;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
 import java.util.List;
 import java.util.ArrayList;
 import org.apache.commons.math3.analysis.function.HarmonicOscillator;
@@ -56,6 +57,8 @@ public class HarmonicCurveFitter extends AbstractCurveFitter<LevenbergMarquardtO
     private final double[] initialGuess;
     /** Maximum number of iterations of the optimization algorithm. */
     private final int maxIter;
+    /** Executor evaluating the model ({@code null} for the calling thread). */
+    private final ExecutorService executor;
 
     /**
      * Contructor used by the factory methods.
@@ -63,38 +66,63 @@ public class HarmonicCurveFitter extends AbstractCurveFitter<LevenbergMarquardtO
      * @param initialGuess Initial guess. If set to {@code null}, the initial guess
      * will be estimated using the {@link ParameterGuesser}.
      * @param maxIter Maximum number of iterations of the optimization algorithm.
+     * @param executor Executor evaluating the model, or {@code null}.
      */
     private HarmonicCurveFitter(double[] initialGuess,
-                                int maxIter) {
+                                int maxIter,
+                                ExecutorService executor) {
         this.initialGuess = initialGuess;
         this.maxIter = maxIter;
+        this.executor = executor;
     }
 
     /**
      * Creates a default curve fitter.
      * The initial guess for the parameters will be {@link ParameterGuesser}
      * computed automatically, and the maximum number of iterations of the
-     * optimization algorithm is set to {@link Integer#MAX_VALUE}.
+     * optimization algorithm is set to {@link Integer#MAX_VALUE}; the model
+     * is evaluated in the calling thread.
      *
      * @return a curve fitter.
      *
      * @see #withStartPoint(double[])
      * @see #withMaxIterations(int)
+     * @see #withExecutor(ExecutorService)
      */
     public static HarmonicCurveFitter create() {
-        return new HarmonicCurveFitter(null, Integer.MAX_VALUE);
+        return new HarmonicCurveFitter(null, Integer.MAX_VALUE, null);
     }
 
     /** {@inheritDoc} */
     public HarmonicCurveFitter withStartPoint(double[] start) {
         return new HarmonicCurveFitter(start.clone(),
-                                       maxIter);
+                                       maxIter,
+                                       executor);
     }
 
     /** {@inheritDoc} */
     public HarmonicCurveFitter withMaxIterations(int max) {
         return new HarmonicCurveFitter(initialGuess,
-                                       max);
+                                       max,
+                                       executor);
+    }
+
+    /**
+     * Configure the executor evaluating the model.
+     * <p>
+     * The observations are split into chunks whose values and gradients
+     * are computed concurrently, which speeds up the fit of large samples.
+     * The fitted parameters do not depend on the executor.
+     * </p>
+     *
+     * @param newExecutor Executor evaluating the model (if {@code null},
+     * the model is evaluated in the calling thread).
+     * @return a new instance.
+     */
+    public HarmonicCurveFitter withExecutor(ExecutorService newExecutor) {
+        return new HarmonicCurveFitter(initialGuess,
+                                       maxIter,
+                                       newExecutor);
     }
 
     /** {@inheritDoc} */
@@ -114,7 +142,8 @@ public class HarmonicCurveFitter extends AbstractCurveFitter<LevenbergMarquardtO
 
         final AbstractCurveFitter.TheoreticalValuesFunction model
             = new AbstractCurveFitter.TheoreticalValuesFunction(FUNCTION,
-                                                                observations);
+                                                                observations,
+                                                                executor);
 
         final double[] startPoint = initialGuess != null ?
             initialGuess :
@@ -17,8 +17,10 @@
 package org.apache.commons.math3.fitting.leastsquares;
 
 import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.DiagonalMatrix;
@@ -33,6 +35,15 @@ import org.apache.commons.math3.util.FastMath;
 /**
  * Base class for implementing least-squares optimizers.
  * It provides methods for error estimation.
+ * <p>
+ * Diagonal weight matrices, whether given as a {@link DiagonalMatrix} or as
+ * any matrix whose off-diagonal elements are zero, are stored as arrays:
+ * weighting the residuals and the Jacobian then costs a time and a memory
+ * proportional to the number of observations. Models whose components
+ * depend on a few parameters each can provide a {@link SparseJacobianFunction
+ * sparse Jacobian}, which optimizers solving the normal equations, such as
+ * {@link GaussNewtonOptimizer}, use without ever storing the full Jacobian.
+ * </p>
  *
  * @param <OPTIM> Concrete optimizer.
  *
@@ -55,6 +66,12 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
     private MultivariateMatrixFunction jacobian;
     /** Square-root of the weight matrix. */
     private RealMatrix weightSqrt;
+    /** Diagonal of the weight matrix ({@code null} if it is not diagonal). */
+    private double[] weightDiagonal;
+    /** Square-root of the diagonal of the weight matrix ({@code null} if it is not diagonal). */
+    private double[] weightSqrtDiagonal;
+    /** Sparse Jacobian of the model function ({@code null} if it is dense). */
+    private SparseJacobianFunction sparseJacobian;
     /** Initial guess. */
     private double[] start;
 
@@ -75,8 +92,11 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
         start = other.start == null ? null : other.start.clone();
         weight = other.weight == null ? null : other.weight.copy();
         weightSqrt = other.weightSqrt == null ? null : other.weightSqrt.copy();
+        weightDiagonal = other.weightDiagonal == null ? null : other.weightDiagonal.clone();
+        weightSqrtDiagonal = other.weightSqrtDiagonal == null ? null : other.weightSqrtDiagonal.clone();
         model = other.model; // XXX Not thread-safe
         jacobian = other.jacobian; // XXX Not thread-safe
+        sparseJacobian = other.sparseJacobian; // XXX Not thread-safe
     }
 
     /** {@inheritDoc} */
@@ -85,10 +105,43 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
         return self();
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the off-diagonal elements of the weight matrix are all zero, it is
+     * replaced by a {@link DiagonalMatrix}.
+     * </p>
+     */
     public OPTIM withWeight(RealMatrix newWeight) {
-        this.weight = newWeight; // XXX Not thread-safe
-        weightSqrt = squareRoot(newWeight);
+        final double[] diagonal = diagonal(newWeight);
+        if (diagonal == null) {
+            this.weight = newWeight; // XXX Not thread-safe
+            weightSqrt = new EigenDecomposition(newWeight).getSquareRoot();
+            weightDiagonal = null;
+            weightSqrtDiagonal = null;
+            return self();
+        }
+        return withDiagonalWeight(diagonal);
+    }
+
+    /**
+     * Configures the optimizer with a diagonal weight matrix.
+     * <p>
+     * This is equivalent to {@code withWeight(new DiagonalMatrix(newWeights))}.
+     * </p>
+     *
+     * @param newWeights Weights of the observations (diagonal of the weight
+     * matrix).
+     * @return this instance.
+     */
+    public OPTIM withDiagonalWeight(double[] newWeights) {
+        weightDiagonal = newWeights.clone();
+        weightSqrtDiagonal = new double[weightDiagonal.length];
+        for (int i = 0; i < weightDiagonal.length; i++) {
+            weightSqrtDiagonal[i] = FastMath.sqrt(weightDiagonal[i]);
+        }
+        weight = new DiagonalMatrix(weightDiagonal, false);
+        weightSqrt = new DiagonalMatrix(weightSqrtDiagonal, false);
         return self();
     }
 
@@ -97,6 +150,42 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
                                       MultivariateMatrixFunction newJacobian) {
         this.model = newModel; // XXX Not thread-safe
         this.jacobian = newJacobian; // XXX Not thread-safe
+        this.sparseJacobian = null;
+        return self();
+    }
+
+    /**
+     * Configures the optimizer with a model whose Jacobian is sparse.
+     * <p>
+     * The {@link #getJacobian() Jacobian} is then a function expanding the
+     * sparse Jacobian into a full matrix, but the optimizers which only
+     * need the normal equations of the problem use the non-zero elements
+     * directly.
+     * </p>
+     *
+     * @param newModel Model function.
+     * @param newJacobian Sparse Jacobian of the model function.
+     * @return this instance.
+     */
+    public OPTIM withModelAndSparseJacobian(MultivariateVectorFunction newModel,
+                                            final SparseJacobianFunction newJacobian) {
+        this.model = newModel; // XXX Not thread-safe
+        this.sparseJacobian = newJacobian; // XXX Not thread-safe
+        this.jacobian = new MultivariateMatrixFunction() {
+            /** {@inheritDoc} */
+            public double[][] value(double[] point) {
+                final int[][] pattern = newJacobian.getSparsityPattern();
+                final double[][] values = newJacobian.value(point);
+                checkSparseJacobian(pattern, values, point.length);
+                final double[][] dense = new double[pattern.length][point.length];
+                for (int i = 0; i < pattern.length; i++) {
+                    for (int k = 0; k < pattern[i].length; k++) {
+                        dense[i][pattern[i][k]] = values[i][k];
+                    }
+                }
+                return dense;
+            }
+        };
         return self();
     }
 
@@ -151,6 +240,16 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
         return jacobian;
     }
 
+    /**
+     * Gets the model function's sparse Jacobian.
+     *
+     * @return the sparse Jacobian, or {@code null} if the model was given
+     * a dense Jacobian.
+     */
+    public SparseJacobianFunction getSparseJacobian() {
+        return sparseJacobian;
+    }
+
     /**
      * Get the covariance matrix of the optimized parameters.
      * <br/>
@@ -169,11 +268,10 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
      */
     public double[][] computeCovariances(double[] params,
                                          double threshold) {
-        // Set up the Jacobian.
-        final RealMatrix j = computeWeightedJacobian(params);
-
-        // Compute transpose(J)J.
-        final RealMatrix jTj = j.transpose().multiply(j);
+        // Compute transpose(J)J, with the weighted Jacobian J.
+        final double[][] a = new double[params.length][params.length];
+        computeNormalEquations(params, null, a, null);
+        final RealMatrix jTj = new Array2DRowRealMatrix(a, false);
 
         // Compute the covariances matrix.
         final DecompositionSolver solver
@@ -253,7 +351,130 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
      * match problem dimension.
      */
     protected RealMatrix computeWeightedJacobian(double[] params) {
-        return weightSqrt.multiply(MatrixUtils.createRealMatrix(computeJacobian(params)));
+        final double[][] j = computeJacobian(params);
+        if (weightSqrtDiagonal == null) {
+            return weightSqrt.multiply(MatrixUtils.createRealMatrix(j));
+        }
+
+        if (j.length != weightSqrtDiagonal.length) {
+            throw new DimensionMismatchException(j.length, weightSqrtDiagonal.length);
+        }
+        final double[][] weighted = new double[j.length][];
+        for (int i = 0; i < j.length; i++) {
+            final double w = weightSqrtDiagonal[i];
+            final double[] row = j[i];
+            weighted[i] = new double[row.length];
+            for (int k = 0; k < row.length; k++) {
+                weighted[i][k] = w * row[k];
+            }
+        }
+        return new Array2DRowRealMatrix(weighted, false);
+    }
+
+    /**
+     * Computes the weighted residuals.
+     *
+     * @param residuals Residuals.
+     * @return the weighted residuals: W<sup>1/2</sup> r.
+     * @throws DimensionMismatchException if the number of residuals does
+     * not match the dimension of the weight matrix.
+     */
+    protected double[] computeWeightedResiduals(double[] residuals) {
+        if (weightSqrtDiagonal == null) {
+            return weightSqrt.operate(residuals);
+        }
+        if (residuals.length != weightSqrtDiagonal.length) {
+            throw new DimensionMismatchException(residuals.length, weightSqrtDiagonal.length);
+        }
+        final double[] weighted = new double[residuals.length];
+        for (int i = 0; i < residuals.length; i++) {
+            weighted[i] = weightSqrtDiagonal[i] * residuals[i];
+        }
+        return weighted;
+    }
+
+    /**
+     * Computes the normal equations of the problem linearized at a point.
+     * <p>
+     * The normal equations are (J<sup>T</sup> J) dX = J<sup>T</sup> r, where
+     * J is the weighted Jacobian W<sup>1/2</sup> J<sub>model</sub> and r the
+     * weighted residuals W<sup>1/2</sup> r<sub>model</sub>. With a diagonal
+     * weight matrix, the rows of the Jacobian are weighted as they are
+     * accumulated; with a {@link SparseJacobianFunction sparse Jacobian},
+     * only the non-zero elements are accumulated, so that the full Jacobian
+     * is never stored.
+     * </p>
+     *
+     * @param params Model parameters at which to compute the Jacobian.
+     * @param weightedResiduals Weighted residuals, or {@code null} if only
+     * the matrix of the normal equations is needed.
+     * @param a Array where J<sup>T</sup> J is added (square, of the
+     * dimension of {@code params}).
+     * @param b Array where J<sup>T</sup> r is added, or {@code null} if only
+     * the matrix of the normal equations is needed.
+     * @throws DimensionMismatchException if the Jacobian dimensions do not
+     * match the problem dimensions.
+     * @throws OutOfRangeException if an index of the sparsity pattern of
+     * the Jacobian is out of range.
+     */
+    protected void computeNormalEquations(double[] params, double[] weightedResiduals,
+                                          double[][] a, double[] b)
+        throws DimensionMismatchException, OutOfRangeException {
+
+        final int nC = params.length;
+        if (sparseJacobian == null || weightSqrtDiagonal == null) {
+            // dense rows
+            final RealMatrix weightedJacobian = computeWeightedJacobian(params);
+            if (weightedJacobian.getColumnDimension() != nC) {
+                throw new DimensionMismatchException(weightedJacobian.getColumnDimension(), nC);
+            }
+            for (int i = 0; i < weightedJacobian.getRowDimension(); ++i) {
+                final double[] grad = weightedJacobian.getRow(i);
+                if (b != null) {
+                    final double r = weightedResiduals[i];
+                    for (int j = 0; j < nC; ++j) {
+                        b[j] += r * grad[j];
+                    }
+                }
+                for (int k = 0; k < nC; ++k) {
+                    final double[] ak = a[k];
+                    final double gk = grad[k];
+                    for (int l = 0; l < nC; ++l) {
+                        ak[l] += gk * grad[l];
+                    }
+                }
+            }
+            return;
+        }
+
+        // sparse rows, weighted on the fly
+        final int[][] pattern = sparseJacobian.getSparsityPattern();
+        final double[][] values = sparseJacobian.value(params);
+        checkSparseJacobian(pattern, values, nC);
+        if (pattern.length != weightSqrtDiagonal.length) {
+            throw new DimensionMismatchException(pattern.length, weightSqrtDiagonal.length);
+        }
+        final double[] grad = new double[nC];
+        for (int i = 0; i < pattern.length; ++i) {
+            final int[] columns = pattern[i];
+            final double w = weightSqrtDiagonal[i];
+            for (int k = 0; k < columns.length; ++k) {
+                grad[k] = w * values[i][k];
+            }
+            if (b != null) {
+                final double r = weightedResiduals[i];
+                for (int k = 0; k < columns.length; ++k) {
+                    b[columns[k]] += r * grad[k];
+                }
+            }
+            for (int k = 0; k < columns.length; ++k) {
+                final double[] ak = a[columns[k]];
+                final double gk = grad[k];
+                for (int l = 0; l < columns.length; ++l) {
+                    ak[columns[l]] += gk * grad[l];
+                }
+            }
+        }
     }
 
     /**
@@ -274,6 +495,16 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
      * @see #computeResiduals(double[])
      */
     protected double computeCost(double[] residuals) {
+        if (weightDiagonal != null) {
+            if (residuals.length != weightDiagonal.length) {
+                throw new DimensionMismatchException(residuals.length, weightDiagonal.length);
+            }
+            double sum = 0;
+            for (int i = 0; i < residuals.length; i++) {
+                sum += residuals[i] * (weightDiagonal[i] * residuals[i]);
+            }
+            return FastMath.sqrt(sum);
+        }
         final ArrayRealVector r = new ArrayRealVector(residuals);
         return FastMath.sqrt(r.dotProduct(weight.operate(r)));
     }
@@ -308,22 +539,57 @@ public abstract class AbstractLeastSquaresOptimizer<OPTIM extends AbstractLeastS
     }
 
     /**
-     * Computes the square-root of the weight matrix.
+     * Checks a sparse Jacobian.
      *
-     * @param m Symmetric, positive-definite (weight) matrix.
-     * @return the square-root of the weight matrix.
+     * @param pattern Sparsity pattern.
+     * @param values Non-zero elements.
+     * @param nC Number of parameters.
+     * @throws DimensionMismatchException if the dimensions of the pattern
+     * and of the values do not match.
+     * @throws OutOfRangeException if an index of the pattern is out of range.
      */
-    private RealMatrix squareRoot(RealMatrix m) {
-        if (m instanceof DiagonalMatrix) {
-            final int dim = m.getRowDimension();
-            final RealMatrix sqrtM = new DiagonalMatrix(dim);
+    private static void checkSparseJacobian(int[][] pattern, double[][] values, int nC)
+        throws DimensionMismatchException, OutOfRangeException {
+        if (values.length != pattern.length) {
+            throw new DimensionMismatchException(values.length, pattern.length);
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (values[i].length != pattern[i].length) {
+                throw new DimensionMismatchException(values[i].length, pattern[i].length);
+            }
+            for (final int column : pattern[i]) {
+                if (column < 0 || column >= nC) {
+                    throw new OutOfRangeException(column, 0, nC - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts the diagonal of a diagonal matrix.
+     *
+     * @param m Square matrix.
+     * @return the diagonal elements of {@code m}, or {@code null} if
+     * {@code m} has non-zero off-diagonal elements.
+     */
+    private static double[] diagonal(RealMatrix m) {
+        final int dim = m.getRowDimension();
+        if (!(m instanceof DiagonalMatrix)) {
+            if (m.getColumnDimension() != dim) {
+                return null;
+            }
             for (int i = 0; i < dim; i++) {
-                sqrtM.setEntry(i, i, FastMath.sqrt(m.getEntry(i, i)));
+                for (int j = 0; j < dim; j++) {
+                    if (i != j && m.getEntry(i, j) != 0) {
+                        return null;
+                    }
+                }
             }
-            return sqrtM;
-        } else {
-            final EigenDecomposition dec = new EigenDecomposition(m);
-            return dec.getSquareRoot();
         }
+        final double[] d = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            d[i] = m.getEntry(i, i);
+        }
+        return d;
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Model of a least-squares problem evaluated by chunks of observations.
+ * <p>
+ * In most fitting problems, each component of the model and each row of
+ * its Jacobian depend on one observation only. Subclasses implement the
+ * evaluation of a contiguous range of observations, and this class splits
+ * the observations into chunks which are evaluated by the tasks of an
+ * {@link ExecutorService}. The {@link #getModelFunction() model} and
+ * {@link #getModelFunctionJacobian() Jacobian} functions can then be
+ * given to the optimizers, as with
+ * {@link AbstractLeastSquaresOptimizer#withModelAndJacobian(
+ * MultivariateVectorFunction, MultivariateMatrixFunction)
+ * withModelAndJacobian}.
+ * </p>
+ * <p>
+ * Each observation is evaluated by exactly one task, which stores its
+ * results in slots no other task writes to: the values are therefore the
+ * same, bit for bit, whatever the executor and the number of threads. As
+ * the chunks are evaluated concurrently, the {@code value} and
+ * {@code jacobian} methods of subclasses must be thread-safe; they usually
+ * only read the observations and the parameters.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public abstract class ChunkedModelFunction {
+
+    /** Minimal number of observations evaluated by a task. */
+    private static final int MIN_CHUNK = 512;
+
+    /** Number of observations. */
+    private final int size;
+
+    /** Executor running the tasks ({@code null} for the calling thread). */
+    private final ExecutorService executor;
+
+    /**
+     * Creates a model.
+     *
+     * @param size Number of observations.
+     * @param executor Executor evaluating the chunks of observations (if
+     * {@code null}, the model is evaluated in the calling thread).
+     * @throws NotPositiveException if {@code size} is negative.
+     */
+    protected ChunkedModelFunction(final int size, final ExecutorService executor)
+        throws NotPositiveException {
+        if (size < 0) {
+            throw new NotPositiveException(LocalizedFormats.NUMBER_OF_SAMPLES, size);
+        }
+        this.size     = size;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the number of observations.
+     *
+     * @return the number of observations.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Evaluates the model for a range of observations.
+     *
+     * @param point Parameters.
+     * @param first Index of the first observation of the range.
+     * @param last Index after the last observation of the range.
+     * @param values Array where the value of the model for observation
+     * {@code i} must be stored at index {@code i}.
+     */
+    protected abstract void value(double[] point, int first, int last, double[] values);
+
+    /**
+     * Evaluates the Jacobian of the model for a range of observations.
+     *
+     * @param point Parameters.
+     * @param first Index of the first observation of the range.
+     * @param last Index after the last observation of the range.
+     * @param jacobian Array where the row of the Jacobian for observation
+     * {@code i} (partial derivatives with respect to each parameter) must be
+     * stored at index {@code i}.
+     */
+    protected abstract void jacobian(double[] point, int first, int last, double[][] jacobian);
+
+    /**
+     * Gets the model function.
+     *
+     * @return a function computing the values of the model for all the
+     * observations.
+     * @throws MathIllegalStateException (when the function is called) if the
+     * calling thread is interrupted.
+     */
+    public MultivariateVectorFunction getModelFunction() {
+        return new MultivariateVectorFunction() {
+            /** {@inheritDoc} */
+            public double[] value(final double[] point) {
+                final double[] values = new double[size];
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                final int n = getNumberOfTasks();
+                for (int t = 0; t < n; ++t) {
+                    final int first = (int) (((long) size * t) / n);
+                    final int last  = (int) (((long) size * (t + 1)) / n);
+                    tasks.add(new Callable<Void>() {
+                        /** {@inheritDoc} */
+                        public Void call() {
+                            ChunkedModelFunction.this.value(point, first, last, values);
+                            return null;
+                        }
+                    });
+                }
+                ConcurrencyUtils.invokeAll(executor, tasks);
+                return values;
+            }
+        };
+    }
+
+    /**
+     * Gets the Jacobian of the model function.
+     *
+     * @return a function computing the rows of the Jacobian for all the
+     * observations.
+     * @throws MathIllegalStateException (when the function is called) if the
+     * calling thread is interrupted.
+     */
+    public MultivariateMatrixFunction getModelFunctionJacobian() {
+        return new MultivariateMatrixFunction() {
+            /** {@inheritDoc} */
+            public double[][] value(final double[] point) {
+                final double[][] jacobian = new double[size][];
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                final int n = getNumberOfTasks();
+                for (int t = 0; t < n; ++t) {
+                    final int first = (int) (((long) size * t) / n);
+                    final int last  = (int) (((long) size * (t + 1)) / n);
+                    tasks.add(new Callable<Void>() {
+                        /** {@inheritDoc} */
+                        public Void call() {
+                            ChunkedModelFunction.this.jacobian(point, first, last, jacobian);
+                            return null;
+                        }
+                    });
+                }
+                ConcurrencyUtils.invokeAll(executor, tasks);
+                return jacobian;
+            }
+        };
+    }
+
+    /**
+     * Get the number of tasks evaluating the observations.
+     *
+     * @return the number of tasks.
+     */
+    private int getNumberOfTasks() {
+        if (executor == null) {
+            return 1;
+        }
+        final int chunks = (size + MIN_CHUNK - 1) / MIN_CHUNK;
+        return FastMath.max(1, FastMath.min(chunks, 4 * ConcurrencyUtils.getDefaultParallelism()));
+    }
+
+}
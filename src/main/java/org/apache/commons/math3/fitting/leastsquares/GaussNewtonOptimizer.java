@@ -40,6 +40,12 @@ import org.apache.commons.math3.optim.PointVectorValuePair;
  * QR decomposition can be used to solve the normal equations. LU decomposition
  * is faster but QR decomposition is more robust for difficult problems.
  * </p>
+ * <p>
+ * The normal equations are accumulated observation by observation, so that
+ * with a diagonal weight matrix and a {@link SparseJacobianFunction sparse
+ * Jacobian}, the memory used does not depend on the number of observations
+ * beyond the model values and residuals.
+ * </p>
  *
  * @version $Id$
  * @since 3.3
@@ -122,12 +128,6 @@ public class GaussNewtonOptimizer extends AbstractLeastSquaresOptimizer<GaussNew
             throw new DimensionMismatchException(weightMatrix.getColumnDimension(), nR);
         }
 
-        // Diagonal of the weight matrix.
-        final double[] residualsWeights = new double[nR];
-        for (int i = 0; i < nR; i++) {
-            residualsWeights[i] = weightMatrix.getEntry(i, i);
-        }
-
         final double[] currentPoint = getStart();
         final int nC = currentPoint.length;
 
@@ -141,33 +141,12 @@ public class GaussNewtonOptimizer extends AbstractLeastSquaresOptimizer<GaussNew
             // Value of the objective function at "currentPoint".
             final double[] currentObjective = computeObjectiveValue(currentPoint);
             final double[] currentResiduals = computeResiduals(currentObjective);
-            final RealMatrix weightedJacobian = computeWeightedJacobian(currentPoint);
             current = new PointVectorValuePair(currentPoint, currentObjective);
 
             // build the linear problem
             final double[]   b = new double[nC];
             final double[][] a = new double[nC][nC];
-            for (int i = 0; i < nR; ++i) {
-
-                final double[] grad   = weightedJacobian.getRow(i);
-                final double weight   = residualsWeights[i];
-                final double residual = currentResiduals[i];
-
-                // compute the normal equation
-                final double wr = weight * residual;
-                for (int j = 0; j < nC; ++j) {
-                    b[j] += wr * grad[j];
-                }
-
-                // build the contribution matrix for measurement i
-                for (int k = 0; k < nC; ++k) {
-                    double[] ak = a[k];
-                    double wgk = weight * grad[k];
-                    for (int l = 0; l < nC; ++l) {
-                        ak[l] += wgk * grad[l];
-                    }
-                }
-            }
+            computeNormalEquations(currentPoint, computeWeightedResiduals(currentResiduals), a, b);
 
             // Check convergence.
             if (previous != null) {
@@ -313,8 +313,6 @@ public class LevenbergMarquardtOptimizer extends AbstractLeastSquaresOptimizer<L
         double[] work2   = new double[nC];
         double[] work3   = new double[nC];
 
-        final RealMatrix weightMatrixSqrt = getWeightSquareRoot();
-
         // Evaluate the function at the starting point and calculate its norm.
         double[] currentObjective = computeObjectiveValue(currentPoint);
         double[] currentResiduals = computeResiduals(currentObjective);
@@ -337,7 +335,7 @@ public class LevenbergMarquardtOptimizer extends AbstractLeastSquaresOptimizer<L
             final double[] diagR = internalData.diagR;
             final double[] jacNorm = internalData.jacNorm;
 
-            double[] weightedResidual = weightMatrixSqrt.operate(currentResiduals);
+            double[] weightedResidual = computeWeightedResiduals(currentResiduals);
             for (int i = 0; i < nR; i++) {
                 qtf[i] = weightedResidual[i];
             }
@@ -924,7 +922,12 @@ public class LevenbergMarquardtOptimizer extends AbstractLeastSquaresOptimizer<L
                                          int solvedCols) throws ConvergenceException {
         // Code in this class assumes that the weighted Jacobian is -(W^(1/2) J),
         // hence the multiplication by -1.
-        final double[][] weightedJacobian = jacobian.scalarMultiply(-1).getData();
+        final double[][] weightedJacobian = jacobian.getData();
+        for (final double[] row : weightedJacobian) {
+            for (int j = 0; j < row.length; ++j) {
+                row[j] = -row[j];
+            }
+        }
 
         final int nR = weightedJacobian.length;
         final int nC = weightedJacobian[0].length;
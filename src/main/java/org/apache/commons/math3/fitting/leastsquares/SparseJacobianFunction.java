@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.fitting.leastsquares;
+
+/**
+ * Jacobian of a model whose components each depend on a few parameters.
+ * <p>
+ * Large problems, such as fitting many independent curves sharing some
+ * parameters or bundle adjustment, often have Jacobians whose rows contain
+ * mostly zeros. Such a Jacobian is described by a fixed <em>sparsity
+ * pattern</em>, giving for each component of the model the indices of the
+ * parameters on which it depends, and by the values of the corresponding
+ * partial derivatives, which are the only ones computed at each point.
+ * </p>
+ * <p>
+ * For example, a model with components {@code f0(a, b)} and
+ * {@code f1(b, c)} of the parameters {@code (a, b, c)} has the pattern
+ * {@code {{0, 1}, {1, 2}}}, and its values are
+ * {@code {{df0/da, df0/db}, {df1/db, df1/dc}}}.
+ * </p>
+ *
+ * @see AbstractLeastSquaresOptimizer#withModelAndSparseJacobian(
+ * org.apache.commons.math3.analysis.MultivariateVectorFunction, SparseJacobianFunction)
+ * @version $Id$
+ * @since 3.3
+ */
+public interface SparseJacobianFunction {
+
+    /**
+     * Gets the sparsity pattern of the Jacobian.
+     * <p>
+     * Row {@code i} of the returned array contains the distinct indices of
+     * the parameters on which component {@code i} of the model depends. The
+     * pattern must not change during an optimization.
+     * </p>
+     *
+     * @return the sparsity pattern.
+     */
+    int[][] getSparsityPattern();
+
+    /**
+     * Computes the non-zero elements of the Jacobian.
+     *
+     * @param point Point at which the Jacobian must be evaluated.
+     * @return the partial derivatives, row {@code i} containing the
+     * derivatives of component {@code i} of the model with respect to the
+     * parameters listed in row {@code i} of the {@link #getSparsityPattern()
+     * sparsity pattern}, in the same order.
+     */
+    double[][] value(double[] point);
+
+}
@@ -18,16 +18,15 @@ package org.apache.commons.math3.ml.clustering;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.ml.distance.DistanceMeasure;
 import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.neighbors.KDTree;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
 import org.apache.commons.math3.util.MathUtils;
 
 /**
@@ -126,6 +125,15 @@ public class DBSCANClusterer<T extends Clusterable> extends Clusterer<T> {
 
     /**
      * Performs DBSCAN cluster analysis.
+     * <p>
+     * For the {@link org.apache.commons.math3.ml.distance.EuclideanDistance
+     * Euclidean}, {@link org.apache.commons.math3.ml.distance.ManhattanDistance
+     * Manhattan} and {@link org.apache.commons.math3.ml.distance.ChebyshevDistance
+     * Chebyshev} distances, the neighborhoods are found with a {@link KDTree},
+     * so that the analysis usually costs {@code O(n log n)} distance
+     * computations instead of {@code O(n<sup>2</sup>)}. The points are told
+     * apart by their position in the collection, not by {@link
+     * Object#equals(Object) equals}.
      *
      * @param points the points to cluster
      * @return the list of clusters
@@ -137,20 +145,25 @@ public class DBSCANClusterer<T extends Clusterable> extends Clusterer<T> {
         // sanity checks
         MathUtils.checkNotNull(points);
 
+        final Neighborhoods neighborhoods = new Neighborhoods(points);
+        final int n = neighborhoods.points.size();
+
         final List<Cluster<T>> clusters = new ArrayList<Cluster<T>>();
-        final Map<Clusterable, PointStatus> visited = new HashMap<Clusterable, PointStatus>();
+        final PointStatus[] visited = new PointStatus[n];
+        final int[] seeded = new int[n];
 
-        for (final T point : points) {
-            if (visited.get(point) != null) {
+        for (int i = 0; i < n; ++i) {
+            if (visited[i] != null) {
                 continue;
             }
-            final List<T> neighbors = getNeighbors(point, points);
-            if (neighbors.size() >= minPts) {
+            final int[] neighbors = neighborhoods.get(i);
+            if (neighbors.length >= minPts) {
                 // DBSCAN does not care about center points
                 final Cluster<T> cluster = new Cluster<T>();
-                clusters.add(expandCluster(cluster, point, neighbors, points, visited));
+                clusters.add(expandCluster(cluster, i, neighbors, neighborhoods,
+                                           visited, seeded, clusters.size() + 1));
             } else {
-                visited.put(point, PointStatus.NOISE);
+                visited[i] = PointStatus.NOISE;
             }
         }
 
@@ -161,74 +174,119 @@ public class DBSCANClusterer<T extends Clusterable> extends Clusterer<T> {
      * Expands the cluster to include density-reachable items.
      *
      * @param cluster Cluster to expand
-     * @param point Point to add to cluster
-     * @param neighbors List of neighbors
-     * @param points the data set
-     * @param visited the set of already visited points
+     * @param point Index of the point to add to cluster
+     * @param neighbors Indices of the neighbors
+     * @param neighborhoods the neighborhoods of the data set
+     * @param visited the status of the points
+     * @param seeded for each point, the number of the last cluster it was a seed of
+     * @param number number of the cluster
      * @return the expanded cluster
      */
     private Cluster<T> expandCluster(final Cluster<T> cluster,
-                                     final T point,
-                                     final List<T> neighbors,
-                                     final Collection<T> points,
-                                     final Map<Clusterable, PointStatus> visited) {
-        cluster.addPoint(point);
-        visited.put(point, PointStatus.PART_OF_CLUSTER);
-
-        List<T> seeds = new ArrayList<T>(neighbors);
-        int index = 0;
-        while (index < seeds.size()) {
-            final T current = seeds.get(index);
-            PointStatus pStatus = visited.get(current);
+                                     final int point,
+                                     final int[] neighbors,
+                                     final Neighborhoods neighborhoods,
+                                     final PointStatus[] visited,
+                                     final int[] seeded,
+                                     final int number) {
+        cluster.addPoint(neighborhoods.points.get(point));
+        visited[point] = PointStatus.PART_OF_CLUSTER;
+        seeded[point]  = number;
+
+        int[] seeds = new int[FastMath.max(16, neighbors.length)];
+        int size = 0;
+        for (final int neighbor : neighbors) {
+            seeds[size++] = neighbor;
+            seeded[neighbor] = number;
+        }
+
+        for (int index = 0; index < size; ++index) {
+            final int current = seeds[index];
+            final PointStatus pStatus = visited[current];
             // only check non-visited points
             if (pStatus == null) {
-                final List<T> currentNeighbors = getNeighbors(current, points);
-                if (currentNeighbors.size() >= minPts) {
-                    seeds = merge(seeds, currentNeighbors);
+                final int[] currentNeighbors = neighborhoods.get(current);
+                if (currentNeighbors.length >= minPts) {
+                    // merge the new neighbors into the seeds
+                    for (final int neighbor : currentNeighbors) {
+                        if (seeded[neighbor] != number) {
+                            if (size == seeds.length) {
+                                seeds = MathArrays.copyOf(seeds, 2 * size);
+                            }
+                            seeds[size++] = neighbor;
+                            seeded[neighbor] = number;
+                        }
+                    }
                 }
             }
 
             if (pStatus != PointStatus.PART_OF_CLUSTER) {
-                visited.put(current, PointStatus.PART_OF_CLUSTER);
-                cluster.addPoint(current);
+                visited[current] = PointStatus.PART_OF_CLUSTER;
+                cluster.addPoint(neighborhoods.points.get(current));
             }
-
-            index++;
         }
         return cluster;
     }
 
-    /**
-     * Returns a list of density-reachable neighbors of a {@code point}.
-     *
-     * @param point the point to look for
-     * @param points possible neighbors
-     * @return the List of neighbors
-     */
-    private List<T> getNeighbors(final T point, final Collection<T> points) {
-        final List<T> neighbors = new ArrayList<T>();
-        for (final T neighbor : points) {
-            if (point != neighbor && distance(neighbor, point) <= eps) {
-                neighbors.add(neighbor);
+    /** Neighborhoods of the points of a data set. */
+    private class Neighborhoods {
+
+        /** Points, in the order of the data set. */
+        private final List<T> points;
+
+        /** Coordinates of the points. */
+        private final double[][] coordinates;
+
+        /** Spatial index ({@code null} if the distance measure is not supported). */
+        private final KDTree<T> tree;
+
+        /**
+         * @param points the data set
+         */
+        Neighborhoods(final Collection<T> points) {
+            this.points = new ArrayList<T>(points);
+            coordinates = new double[this.points.size()][];
+            for (int i = 0; i < coordinates.length; ++i) {
+                coordinates[i] = this.points.get(i).getPoint();
             }
+            tree = KDTree.supports(getDistanceMeasure()) ?
+                   new KDTree<T>(this.points, getDistanceMeasure()) :
+                   null;
         }
-        return neighbors;
-    }
 
-    /**
-     * Merges two lists together.
-     *
-     * @param one first list
-     * @param two second list
-     * @return merged lists
-     */
-    private List<T> merge(final List<T> one, final List<T> two) {
-        final Set<T> oneSet = new HashSet<T>(one);
-        for (T item : two) {
-            if (!oneSet.contains(item)) {
-                one.add(item);
+        /**
+         * Returns the density-reachable neighbors of a point.
+         *
+         * @param point index of the point to look for
+         * @return the indices of the neighbors, in increasing order
+         */
+        int[] get(final int point) {
+            final DistanceMeasure measure = getDistanceMeasure();
+            final double[] p = coordinates[point];
+            if (tree != null) {
+                final int[] found = tree.rangeIndices(p, eps);
+                // remove the point itself
+                int size = 0;
+                for (final int neighbor : found) {
+                    if (neighbor != point) {
+                        found[size++] = neighbor;
+                    }
+                }
+                return size == found.length ? found : MathArrays.copyOf(found, size);
             }
+
+            int[] neighbors = new int[16];
+            int size = 0;
+            for (int neighbor = 0; neighbor < coordinates.length; ++neighbor) {
+                if (neighbor != point && measure.compute(coordinates[neighbor], p) <= eps) {
+                    if (size == neighbors.length) {
+                        neighbors = MathArrays.copyOf(neighbors, 2 * size);
+                    }
+                    neighbors[size++] = neighbor;
+                }
+            }
+            return MathArrays.copyOf(neighbors, size);
         }
-        return one;
+
     }
 }
@@ -0,0 +1,1018 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ml.clustering;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.ConvergenceException;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.MathInternalError;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.ml.distance.ChebyshevDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * K-means++ clustering working on primitive arrays.
+ * <p>
+ * This clusterer runs the same algorithm as {@link KMeansPlusPlusClusterer},
+ * with the same initialization and the same {@link EmptyClusterStrategy
+ * empty cluster strategies}, but is designed for large data sets. The
+ * coordinates of the points are copied once into a dense array, the
+ * assignment of each point is kept in an {@code int} array, and the new
+ * centroids are accumulated in place while points are assigned, so that
+ * iterations neither call {@link Clusterable#getPoint()} nor allocate
+ * objects. When the distance measure is the {@link EuclideanDistance}, the
+ * squared distance is computed inline.
+ * </p>
+ * <p>
+ * Besides the {@link #cluster(Collection)} method of the {@link Clusterer}
+ * API, the {@code computeCenters} methods cluster points given directly
+ * as a {@code double[][]} array or as a flat row-major {@code double[]}
+ * array, and return the centers and the assignments without creating any
+ * {@link Cluster}.
+ * </p>
+ * <p>
+ * The most expensive steps, the choice of the initial centers and the
+ * assignment of the points to their nearest centers, can be distributed
+ * among the threads of an {@link ExecutorService}. When the distance
+ * measure is the {@link EuclideanDistance}, the {@link ManhattanDistance}
+ * or the {@link ChebyshevDistance}, the triangle inequality is used to
+ * skip the distance computations that cannot change the assignment of a
+ * point; once the clusters start to stabilize, most points are assigned
+ * after computing a single distance, or none.
+ * </p>
+ * <p>
+ * As this class extends {@link KMeansPlusPlusClusterer}, it can be used
+ * by {@link MultiKMeansPlusPlusClusterer}.
+ * </p>
+ * @param <T> type of the points to cluster
+ * @version $Id$
+ * @since 3.3
+ */
+public class DenseKMeansPlusPlusClusterer<T extends Clusterable> extends KMeansPlusPlusClusterer<T> {
+
+    /** Build a clusterer.
+     * <p>
+     * The default strategy for handling empty clusters that may appear during
+     * algorithm iterations is to split the cluster with largest distance variance.
+     * <p>
+     * The euclidean distance will be used as default distance measure.
+     *
+     * @param k the number of clusters to split the data into
+     */
+    public DenseKMeansPlusPlusClusterer(final int k) {
+        this(k, -1);
+    }
+
+    /** Build a clusterer.
+     * <p>
+     * The default strategy for handling empty clusters that may appear during
+     * algorithm iterations is to split the cluster with largest distance variance.
+     * <p>
+     * The euclidean distance will be used as default distance measure.
+     *
+     * @param k the number of clusters to split the data into
+     * @param maxIterations the maximum number of iterations to run the algorithm for.
+     *   If negative, no maximum will be used.
+     */
+    public DenseKMeansPlusPlusClusterer(final int k, final int maxIterations) {
+        this(k, maxIterations, new EuclideanDistance());
+    }
+
+    /** Build a clusterer.
+     * <p>
+     * The default strategy for handling empty clusters that may appear during
+     * algorithm iterations is to split the cluster with largest distance variance.
+     *
+     * @param k the number of clusters to split the data into
+     * @param maxIterations the maximum number of iterations to run the algorithm for.
+     *   If negative, no maximum will be used.
+     * @param measure the distance measure to use
+     */
+    public DenseKMeansPlusPlusClusterer(final int k, final int maxIterations,
+                                        final DistanceMeasure measure) {
+        this(k, maxIterations, measure, new JDKRandomGenerator());
+    }
+
+    /** Build a clusterer.
+     * <p>
+     * The default strategy for handling empty clusters that may appear during
+     * algorithm iterations is to split the cluster with largest distance variance.
+     *
+     * @param k the number of clusters to split the data into
+     * @param maxIterations the maximum number of iterations to run the algorithm for.
+     *   If negative, no maximum will be used.
+     * @param measure the distance measure to use
+     * @param random random generator to use for choosing initial centers
+     */
+    public DenseKMeansPlusPlusClusterer(final int k, final int maxIterations,
+                                        final DistanceMeasure measure,
+                                        final RandomGenerator random) {
+        this(k, maxIterations, measure, random, EmptyClusterStrategy.LARGEST_VARIANCE);
+    }
+
+    /** Build a clusterer.
+     *
+     * @param k the number of clusters to split the data into
+     * @param maxIterations the maximum number of iterations to run the algorithm for.
+     *   If negative, no maximum will be used.
+     * @param measure the distance measure to use
+     * @param random random generator to use for choosing initial centers
+     * @param emptyStrategy strategy to use for handling empty clusters that
+     * may appear during algorithm iterations
+     */
+    public DenseKMeansPlusPlusClusterer(final int k, final int maxIterations,
+                                        final DistanceMeasure measure,
+                                        final RandomGenerator random,
+                                        final EmptyClusterStrategy emptyStrategy) {
+        super(k, maxIterations, measure, random, emptyStrategy);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DenseKMeansPlusPlusClusterer<T> withRandomGenerator(final RandomGenerator generator) {
+        return new DenseKMeansPlusPlusClusterer<T>(getK(), getMaxIterations(), getDistanceMeasure(),
+                                                   generator, getEmptyClusterStrategy());
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm.
+     * <p>
+     * The coordinates of the points are copied into a dense array before
+     * clustering; the returned clusters contain the original points.
+     * </p>
+     *
+     * @param points the points to cluster
+     * @return a list of clusters containing the points
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     */
+    @Override
+    public List<CentroidCluster<T>> cluster(final Collection<T> points)
+        throws MathIllegalArgumentException, ConvergenceException {
+        return cluster(points, null);
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm, using an executor.
+     * <p>
+     * The coordinates of the points are copied into a dense array before
+     * clustering; the returned clusters contain the original points.
+     * </p>
+     *
+     * @param points the points to cluster
+     * @param executor executor running the tasks (if {@code null}, the
+     * clustering is performed in the calling thread)
+     * @return a list of clusters containing the points
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     * @see #computeCenters(double[], int, int[], ExecutorService)
+     */
+    public List<CentroidCluster<T>> cluster(final Collection<T> points,
+                                            final ExecutorService executor)
+        throws MathIllegalArgumentException, ConvergenceException, MathIllegalStateException {
+
+        // sanity checks
+        MathUtils.checkNotNull(points);
+        if (points.size() < getK()) {
+            throw new NumberIsTooSmallException(points.size(), getK(), false);
+        }
+        final List<CentroidCluster<T>> clusters = new ArrayList<CentroidCluster<T>>();
+        if (points.isEmpty()) {
+            return clusters;
+        }
+
+        // copy the coordinates once
+        final List<T> pointList = new ArrayList<T>(points);
+        final int dimension = pointList.get(0).getPoint().length;
+        final double[] data = new double[pointList.size() * dimension];
+        for (int i = 0; i < pointList.size(); ++i) {
+            final double[] point = pointList.get(i).getPoint();
+            if (point.length != dimension) {
+                throw new DimensionMismatchException(point.length, dimension);
+            }
+            System.arraycopy(point, 0, data, i * dimension, dimension);
+        }
+
+        final int[] assignments = new int[pointList.size()];
+        final double[][] centers = computeCenters(data, dimension, assignments, executor);
+        for (final double[] center : centers) {
+            clusters.add(new CentroidCluster<T>(new DoublePoint(center)));
+        }
+        for (int i = 0; i < assignments.length; ++i) {
+            clusters.get(assignments[i]).addPoint(pointList.get(i));
+        }
+        return clusters;
+
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm on points stored as rows of
+     * an array.
+     *
+     * @param points the points to cluster (one point per row)
+     * @param assignments array where the index of the cluster of each point
+     * is stored (its length must be the number of points)
+     * @return the centers of the clusters, one per row
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws DimensionMismatchException if the rows do not all have the
+     * same length, or if {@code assignments} does not have one element per
+     * point
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     */
+    public double[][] computeCenters(final double[][] points, final int[] assignments)
+        throws MathIllegalArgumentException, ConvergenceException {
+        return computeCenters(points, assignments, null);
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm on points stored as rows of
+     * an array, using an executor.
+     *
+     * @param points the points to cluster (one point per row)
+     * @param assignments array where the index of the cluster of each point
+     * is stored (its length must be the number of points)
+     * @param executor executor running the tasks (if {@code null}, the
+     * clustering is performed in the calling thread)
+     * @return the centers of the clusters, one per row
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws DimensionMismatchException if the rows do not all have the
+     * same length, or if {@code assignments} does not have one element per
+     * point
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     * @see #computeCenters(double[], int, int[], ExecutorService)
+     */
+    public double[][] computeCenters(final double[][] points, final int[] assignments,
+                                     final ExecutorService executor)
+        throws MathIllegalArgumentException, ConvergenceException, MathIllegalStateException {
+        MathUtils.checkNotNull(points);
+        final int dimension = points.length == 0 ? 0 : points[0].length;
+        for (final double[] point : points) {
+            if (point.length != dimension) {
+                throw new DimensionMismatchException(point.length, dimension);
+            }
+        }
+        return new Engine(points, null, dimension, points.length, assignments, executor).run();
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm on points stored in a flat
+     * array.
+     *
+     * @param data the coordinates of the points to cluster, in row-major order
+     * @param dimension the dimension of the points
+     * @param assignments array where the index of the cluster of each point
+     * is stored (its length must be the number of points)
+     * @return the centers of the clusters, one per row
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws NotStrictlyPositiveException if {@code dimension <= 0}
+     * @throws DimensionMismatchException if the length of {@code data} is
+     * not a multiple of {@code dimension}, or if {@code assignments} does not
+     * have one element per point
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     * @see #computeCenters(double[], int, int[], ExecutorService)
+     */
+    public double[][] computeCenters(final double[] data, final int dimension,
+                                     final int[] assignments)
+        throws MathIllegalArgumentException, ConvergenceException {
+        return computeCenters(data, dimension, assignments, null);
+    }
+
+    /**
+     * Runs the K-means++ clustering algorithm on points stored in a flat
+     * array, using an executor.
+     * <p>
+     * Point {@code i} has coordinates {@code data[i * dimension]} to
+     * {@code data[(i + 1) * dimension - 1]}.
+     * </p>
+     * <p>
+     * The points are split into ranges, which are handled by tasks submitted
+     * to the executor both when choosing the initial centers and when
+     * assigning the points to the clusters; the distance measure must then
+     * be thread-safe. The tasks compute the assignments of independent
+     * points, and the centroids are accumulated in the calling thread, so
+     * that the result does not depend on the executor.
+     * </p>
+     *
+     * @param data the coordinates of the points to cluster, in row-major order
+     * @param dimension the dimension of the points
+     * @param assignments array where the index of the cluster of each point
+     * is stored (its length must be the number of points)
+     * @param executor executor running the tasks (if {@code null}, the
+     * clustering is performed in the calling thread)
+     * @return the centers of the clusters, one per row
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws NotStrictlyPositiveException if {@code dimension <= 0}
+     * @throws DimensionMismatchException if the length of {@code data} is
+     * not a multiple of {@code dimension}, or if {@code assignments} does not
+     * have one element per point
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     * empty cluster strategy is set to {@code ERROR}
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     */
+    public double[][] computeCenters(final double[] data, final int dimension,
+                                     final int[] assignments, final ExecutorService executor)
+        throws MathIllegalArgumentException, ConvergenceException, MathIllegalStateException {
+        MathUtils.checkNotNull(data);
+        if (dimension <= 0) {
+            throw new NotStrictlyPositiveException(dimension);
+        }
+        final int n = data.length / dimension;
+        if (n * dimension != data.length) {
+            throw new DimensionMismatchException(data.length, n * dimension);
+        }
+        return new Engine(null, data, dimension, n, assignments, executor).run();
+    }
+
+    /** Operation on a range of points. */
+    private interface RangeOperation {
+
+        /**
+         * Processes a range of points.
+         *
+         * @param first index of the first point
+         * @param last index after the last point
+         * @param scratch work array of the dimension of the points
+         * @return a count depending on the operation
+         */
+        int apply(int first, int last, double[] scratch);
+
+    }
+
+    /** State of one run of the algorithm. */
+    private class Engine {
+
+        /** Points stored as rows (null if stored in {@link #flat}). */
+        private final double[][] rows;
+
+        /** Points stored in a flat array (null if stored in {@link #rows}). */
+        private final double[] flat;
+
+        /** Dimension of the points. */
+        private final int dimension;
+
+        /** Number of points. */
+        private final int n;
+
+        /** Number of clusters. */
+        private final int k;
+
+        /** Indicator for the inline Euclidean distance. */
+        private final boolean euclidean;
+
+        /** Indicator for the pruning of distance computations (metric distance measures). */
+        private final boolean pruning;
+
+        /** Distance measure. */
+        private final DistanceMeasure measure;
+
+        /** Executor running the tasks (may be null). */
+        private final ExecutorService executor;
+
+        /** Number of ranges of points. */
+        private final int ranges;
+
+        /** Index of the cluster of each point (-1 for points taken as new centers). */
+        private final int[] assignments;
+
+        /** Centers used for the current assignment. */
+        private double[][] centers;
+
+        /** Centers being computed. */
+        private double[][] newCenters;
+
+        /** Sums of the coordinates of the points of each cluster. */
+        private final double[][] sums;
+
+        /** Number of points of each cluster. */
+        private final int[] counts;
+
+        /** Upper bounds of the distance of each point to its center. */
+        private final double[] upper;
+
+        /** Lower bounds of the distance of each point to the other centers. */
+        private final double[] lower;
+
+        /** Half the distance of each center to the nearest other center. */
+        private final double[] halfGap;
+
+        /** Distance moved by each center at the last update. */
+        private final double[] moved;
+
+        /** Index of the center which moved farthest at the last update. */
+        private int farthestMove;
+
+        /** Largest distance moved by a center at the last update. */
+        private double maxMove;
+
+        /** Largest distance moved by the other centers at the last update. */
+        private double secondMove;
+
+        /** Indicator for valid bounds. */
+        private boolean boundsValid;
+
+        /** Work array for the calling thread. */
+        private final double[] scratch;
+
+        /**
+         * @param rows Points stored as rows.
+         * @param flat Points stored in a flat array.
+         * @param dimension Dimension of the points.
+         * @param n Number of points.
+         * @param assignments Array where the assignments are stored.
+         * @param executor Executor running the tasks (may be null).
+         * @throws NumberIsTooSmallException if there are less points than clusters.
+         * @throws DimensionMismatchException if {@code assignments} does not
+         * have one element per point.
+         */
+        Engine(final double[][] rows, final double[] flat, final int dimension, final int n,
+               final int[] assignments, final ExecutorService executor)
+            throws NumberIsTooSmallException, DimensionMismatchException {
+            k = getK();
+            if (n < k) {
+                throw new NumberIsTooSmallException(n, k, false);
+            }
+            if (assignments.length != n) {
+                throw new DimensionMismatchException(assignments.length, n);
+            }
+            this.rows        = rows;
+            this.flat        = flat;
+            this.dimension   = dimension;
+            this.n           = n;
+            this.assignments = assignments;
+            this.executor    = executor;
+            ranges           = executor == null ?
+                               1 : FastMath.max(1, FastMath.min(n, 4 * ConcurrencyUtils.getDefaultParallelism()));
+            measure          = getDistanceMeasure();
+            euclidean        = measure.getClass() == EuclideanDistance.class;
+            pruning          = euclidean ||
+                               measure.getClass() == ManhattanDistance.class ||
+                               measure.getClass() == ChebyshevDistance.class;
+            centers          = new double[k][dimension];
+            newCenters       = new double[k][dimension];
+            sums             = new double[k][dimension];
+            counts           = new int[k];
+            upper            = pruning ? new double[n] : null;
+            lower            = pruning ? new double[n] : null;
+            halfGap          = pruning ? new double[k] : null;
+            moved            = pruning ? new double[k] : null;
+            scratch          = new double[dimension];
+        }
+
+        /**
+         * Runs the algorithm.
+         *
+         * @return the final centers.
+         * @throws ConvergenceException if an empty cluster is encountered and the
+         * empty cluster strategy is set to {@code ERROR}
+         * @throws MathIllegalStateException if the calling thread is interrupted
+         */
+        double[][] run() throws ConvergenceException, MathIllegalStateException {
+            if (n == 0) {
+                return new double[0][];
+            }
+            chooseInitialCenters();
+            assignPointsToClusters();
+
+            final int max = (getMaxIterations() < 0) ? Integer.MAX_VALUE : getMaxIterations();
+            for (int count = 0; count < max; count++) {
+                final boolean emptyCluster = updateCenters();
+                final int changes = assignPointsToClusters();
+
+                // if there were no more changes in the point-to-cluster assignment
+                // and there are no empty clusters left, return the current clusters
+                if (changes == 0 && !emptyCluster) {
+                    break;
+                }
+            }
+            return centers;
+        }
+
+        /**
+         * Applies an operation to all points, split into ranges.
+         *
+         * @param operation operation to apply
+         * @return the sum of the counts returned for all ranges
+         * @throws MathIllegalStateException if the calling thread is interrupted
+         */
+        private int forAllPoints(final RangeOperation operation)
+            throws MathIllegalStateException {
+            if (ranges == 1) {
+                return operation.apply(0, n, scratch);
+            }
+            final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(ranges);
+            for (int r = 0; r < ranges; ++r) {
+                final int first = (int) (((long) n * r) / ranges);
+                final int last  = (int) (((long) n * (r + 1)) / ranges);
+                tasks.add(new Callable<Integer>() {
+                    /** {@inheritDoc} */
+                    public Integer call() {
+                        return operation.apply(first, last, new double[dimension]);
+                    }
+                });
+            }
+            int total = 0;
+            for (final Integer count : ConcurrencyUtils.invokeAll(executor, tasks)) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Use K-means++ to choose the initial centers.
+         * <p>
+         * The random generator is used exactly as in {@link KMeansPlusPlusClusterer}.
+         * </p>
+         */
+        private void chooseInitialCenters() {
+            final RandomGenerator random = getRandomGenerator();
+            final boolean[] taken = new boolean[n];
+            final double[] minDistSquared = new double[n];
+
+            // Choose one center uniformly at random from among the data points.
+            final int firstPointIndex = random.nextInt(n);
+            copyPoint(firstPointIndex, centers[0]);
+            taken[firstPointIndex] = true;
+            updateMinDistances(centers[0], taken, minDistSquared, true);
+
+            int chosen = 1;
+            while (chosen < k) {
+
+                double distSqSum = 0.0;
+                for (int i = 0; i < n; i++) {
+                    if (!taken[i]) {
+                        distSqSum += minDistSquared[i];
+                    }
+                }
+
+                // Add one new data point as a center. Each point x is chosen with
+                // probability proportional to D(x)2
+                final double r = random.nextDouble() * distSqSum;
+                int nextPointIndex = -1;
+                double sum = 0.0;
+                for (int i = 0; i < n; i++) {
+                    if (!taken[i]) {
+                        sum += minDistSquared[i];
+                        if (sum >= r) {
+                            nextPointIndex = i;
+                            break;
+                        }
+                    }
+                }
+
+                // distances may be extremely small, pick the last available point
+                if (nextPointIndex == -1) {
+                    for (int i = n - 1; i >= 0; i--) {
+                        if (!taken[i]) {
+                            nextPointIndex = i;
+                            break;
+                        }
+                    }
+                }
+
+                final double[] center = centers[chosen++];
+                copyPoint(nextPointIndex, center);
+                taken[nextPointIndex] = true;
+                if (chosen < k) {
+                    updateMinDistances(center, taken, minDistSquared, false);
+                }
+            }
+        }
+
+        /**
+         * Updates the squared distances of the points to the nearest chosen center.
+         *
+         * @param center new center
+         * @param taken indicators for the points already chosen as centers
+         * @param minDistSquared squared distances to update
+         * @param first if true, the distances are initialized rather than updated
+         */
+        private void updateMinDistances(final double[] center, final boolean[] taken,
+                                        final double[] minDistSquared, final boolean first) {
+            forAllPoints(new RangeOperation() {
+                /** {@inheritDoc} */
+                public int apply(final int start, final int end, final double[] work) {
+                    for (int i = start; i < end; i++) {
+                        if (!taken[i]) {
+                            final double r  = rank(i, center, work);
+                            final double d2 = euclidean ? r : r * r;
+                            if (first || d2 < minDistSquared[i]) {
+                                minDistSquared[i] = d2;
+                            }
+                        }
+                    }
+                    return 0;
+                }
+            });
+        }
+
+        /**
+         * Assigns each point to its nearest center, and accumulates the
+         * coordinates of the points of each cluster.
+         *
+         * @return the number of points assigned to different clusters as the iteration before
+         */
+        private int assignPointsToClusters() {
+            if (boundsValid) {
+                // half distances between centers, for the triangle inequality
+                for (int c = 0; c < k; ++c) {
+                    halfGap[c] = Double.POSITIVE_INFINITY;
+                }
+                for (int c = 0; c < k; ++c) {
+                    for (int c2 = c + 1; c2 < k; ++c2) {
+                        final double half = 0.5 * centerDistance(centers[c], centers[c2]);
+                        halfGap[c]  = FastMath.min(halfGap[c], half);
+                        halfGap[c2] = FastMath.min(halfGap[c2], half);
+                    }
+                }
+            }
+
+            final int assignedDifferently = forAllPoints(new RangeOperation() {
+                /** {@inheritDoc} */
+                public int apply(final int first, final int last, final double[] work) {
+                    return assignRange(first, last, work);
+                }
+            });
+
+            // accumulate the coordinates in a fixed order
+            for (int c = 0; c < k; ++c) {
+                counts[c] = 0;
+                final double[] sum = sums[c];
+                for (int j = 0; j < dimension; ++j) {
+                    sum[j] = 0;
+                }
+            }
+            for (int i = 0; i < n; ++i) {
+                final int c = assignments[i];
+                counts[c]++;
+                addPoint(i, sums[c], 1.0);
+            }
+            boundsValid = pruning;
+
+            return assignedDifferently;
+        }
+
+        /**
+         * Assigns a range of points to their nearest centers.
+         * <p>
+         * When the distance measure is a metric, Hamerly's bounds are used:
+         * a point keeps its center without computing any distance when an
+         * upper bound of its distance to its center is smaller than both a
+         * lower bound of its distances to the other centers and half the
+         * distance between its center and the nearest other center (G. Hamerly,
+         * <em>Making k-means even faster</em>, SIAM International Conference
+         * on Data Mining, 2010).
+         * </p>
+         *
+         * @param first index of the first point
+         * @param last index after the last point
+         * @param work work array of the dimension of the points
+         * @return the number of points assigned to different clusters as the iteration before
+         */
+        private int assignRange(final int first, final int last, final double[] work) {
+            int assignedDifferently = 0;
+            for (int i = first; i < last; ++i) {
+                final int current = assignments[i];
+                if (boundsValid && current >= 0) {
+                    // account for the moves of the centers
+                    upper[i] += moved[current];
+                    lower[i] -= current == farthestMove ? secondMove : maxMove;
+                    final double bound = FastMath.max(halfGap[current], lower[i]);
+                    if (upper[i] < bound) {
+                        continue;
+                    }
+                    upper[i] = toDistance(rank(i, centers[current], work));
+                    if (upper[i] < bound) {
+                        continue;
+                    }
+                }
+
+                double minDistance = Double.MAX_VALUE;
+                double secondDistance = Double.MAX_VALUE;
+                int minCluster = 0;
+                for (int c = 0; c < k; ++c) {
+                    final double distance = rank(i, centers[c], work);
+                    if (distance < minDistance) {
+                        secondDistance = minDistance;
+                        minDistance    = distance;
+                        minCluster     = c;
+                    } else if (distance < secondDistance) {
+                        secondDistance = distance;
+                    }
+                }
+                if (pruning) {
+                    upper[i] = toDistance(minDistance);
+                    lower[i] = toDistance(secondDistance);
+                }
+                if (minCluster != current) {
+                    assignedDifferently++;
+                }
+                assignments[i] = minCluster;
+            }
+            return assignedDifferently;
+        }
+
+        /**
+         * Computes the centroids of the clusters, replacing empty clusters.
+         * <p>
+         * Clusters are processed in order; when a cluster is empty, a point
+         * is removed from another cluster according to the empty cluster
+         * strategy and becomes the new center. As in {@link
+         * KMeansPlusPlusClusterer}, removing a point from a cluster whose
+         * centroid has not been computed yet changes this centroid.
+         * </p>
+         *
+         * @return true if an empty cluster was encountered
+         * @throws ConvergenceException if an empty cluster is encountered and the
+         * empty cluster strategy is set to {@code ERROR}
+         */
+        private boolean updateCenters() throws ConvergenceException {
+            boolean emptyCluster = false;
+            for (int c = 0; c < k; ++c) {
+                final double[] center = newCenters[c];
+                if (counts[c] == 0) {
+                    final int p;
+                    switch (getEmptyClusterStrategy()) {
+                        case LARGEST_VARIANCE :
+                            p = getPointFromLargestVarianceCluster();
+                            break;
+                        case LARGEST_POINTS_NUMBER :
+                            p = getPointFromLargestNumberCluster();
+                            break;
+                        case FARTHEST_POINT :
+                            p = getFarthestPoint();
+                            break;
+                        default :
+                            throw new ConvergenceException(LocalizedFormats.EMPTY_CLUSTER_IN_K_MEANS);
+                    }
+                    final int owner = assignments[p];
+                    counts[owner]--;
+                    addPoint(p, sums[owner], -1.0);
+                    assignments[p] = -1;
+                    copyPoint(p, center);
+                    emptyCluster = true;
+                } else {
+                    final double[] sum = sums[c];
+                    for (int j = 0; j < dimension; ++j) {
+                        center[j] = sum[j] / counts[c];
+                    }
+                }
+            }
+
+            if (pruning) {
+                maxMove      = 0;
+                secondMove   = 0;
+                farthestMove = -1;
+                for (int c = 0; c < k; ++c) {
+                    moved[c] = centerDistance(centers[c], newCenters[c]);
+                    if (moved[c] > maxMove) {
+                        secondMove   = maxMove;
+                        maxMove      = moved[c];
+                        farthestMove = c;
+                    } else if (moved[c] > secondMove) {
+                        secondMove = moved[c];
+                    }
+                }
+            }
+
+            final double[][] tmp = centers;
+            centers    = newCenters;
+            newCenters = tmp;
+            return emptyCluster;
+        }
+
+        /**
+         * Get a random point from the cluster with the largest distance variance.
+         *
+         * @return the index of a random point from the selected cluster
+         * @throws ConvergenceException if clusters are all empty
+         */
+        private int getPointFromLargestVarianceCluster() throws ConvergenceException {
+
+            // distance variance of each cluster, using Welford's algorithm
+            final double[] mean = new double[k];
+            final double[] m2   = new double[k];
+            final int[] number  = new int[k];
+            for (int i = 0; i < n; ++i) {
+                final int c = assignments[i];
+                if (c >= 0) {
+                    final double d = toDistance(rank(i, centers[c], scratch));
+                    final double delta = d - mean[c];
+                    mean[c] += delta / ++number[c];
+                    m2[c]   += delta * (d - mean[c]);
+                }
+            }
+
+            double maxVariance = Double.NEGATIVE_INFINITY;
+            int selected = -1;
+            for (int c = 0; c < k; ++c) {
+                if (counts[c] > 0) {
+                    final double variance = counts[c] > 1 ? m2[c] / (counts[c] - 1) : 0.0;
+                    if (variance > maxVariance) {
+                        maxVariance = variance;
+                        selected    = c;
+                    }
+                }
+            }
+
+            // did we find at least one non-empty cluster ?
+            if (selected < 0) {
+                throw new ConvergenceException(LocalizedFormats.EMPTY_CLUSTER_IN_K_MEANS);
+            }
+            return randomPoint(selected);
+
+        }
+
+        /**
+         * Get a random point from the cluster with the largest number of points.
+         *
+         * @return the index of a random point from the selected cluster
+         * @throws ConvergenceException if clusters are all empty
+         */
+        private int getPointFromLargestNumberCluster() throws ConvergenceException {
+            int maxNumber = 0;
+            int selected = -1;
+            for (int c = 0; c < k; ++c) {
+                if (counts[c] > maxNumber) {
+                    maxNumber = counts[c];
+                    selected  = c;
+                }
+            }
+
+            // did we find at least one non-empty cluster ?
+            if (selected < 0) {
+                throw new ConvergenceException(LocalizedFormats.EMPTY_CLUSTER_IN_K_MEANS);
+            }
+            return randomPoint(selected);
+        }
+
+        /**
+         * Get the point farthest to its cluster center.
+         *
+         * @return the index of the point farthest to its cluster center
+         * @throws ConvergenceException if clusters are all empty
+         */
+        private int getFarthestPoint() throws ConvergenceException {
+            double maxDistance = Double.NEGATIVE_INFINITY;
+            int selected = -1;
+            for (int i = 0; i < n; ++i) {
+                final int c = assignments[i];
+                if (c >= 0) {
+                    final double distance = rank(i, centers[c], scratch);
+                    if (distance > maxDistance) {
+                        maxDistance = distance;
+                        selected    = i;
+                    }
+                }
+            }
+
+            // did we find at least one non-empty cluster ?
+            if (selected < 0) {
+                throw new ConvergenceException(LocalizedFormats.EMPTY_CLUSTER_IN_K_MEANS);
+            }
+            return selected;
+        }
+
+        /**
+         * Get a random point from a cluster.
+         *
+         * @param cluster index of the (non-empty) cluster
+         * @return the index of a random point from the cluster
+         */
+        private int randomPoint(final int cluster) {
+            int remaining = getRandomGenerator().nextInt(counts[cluster]);
+            for (int i = 0; i < n; ++i) {
+                if (assignments[i] == cluster && remaining-- == 0) {
+                    return i;
+                }
+            }
+            // unreachable, as the cluster has counts[cluster] points
+            throw new MathInternalError();
+        }
+
+        /**
+         * Computes a quantity increasing with the distance between a point and a center.
+         *
+         * @param i index of the point
+         * @param center the center
+         * @param work work array of the dimension of the points
+         * @return the squared distance for the Euclidean distance, the distance otherwise
+         */
+        private double rank(final int i, final double[] center, final double[] work) {
+            final double[] a = rows == null ? flat : rows[i];
+            final int offset = rows == null ? i * dimension : 0;
+            if (euclidean) {
+                double sum = 0;
+                for (int j = 0; j < dimension; ++j) {
+                    final double d = a[offset + j] - center[j];
+                    sum += d * d;
+                }
+                return sum;
+            }
+            if (rows != null) {
+                return measure.compute(a, center);
+            }
+            System.arraycopy(a, offset, work, 0, dimension);
+            return measure.compute(work, center);
+        }
+
+        /**
+         * Converts the result of {@link #rank(int, double[], double[])} to a distance.
+         *
+         * @param rank value returned by {@link #rank(int, double[], double[])}
+         * @return the corresponding distance
+         */
+        private double toDistance(final double rank) {
+            return euclidean ? FastMath.sqrt(rank) : rank;
+        }
+
+        /**
+         * Computes the distance between two centers.
+         *
+         * @param c1 first center
+         * @param c2 second center
+         * @return the distance between the centers
+         */
+        private double centerDistance(final double[] c1, final double[] c2) {
+            return measure.compute(c1, c2);
+        }
+
+        /**
+         * Copies the coordinates of a point.
+         *
+         * @param i index of the point
+         * @param destination array where the coordinates are copied
+         */
+        private void copyPoint(final int i, final double[] destination) {
+            if (rows == null) {
+                System.arraycopy(flat, i * dimension, destination, 0, dimension);
+            } else {
+                System.arraycopy(rows[i], 0, destination, 0, dimension);
+            }
+        }
+
+        /**
+         * Adds a multiple of the coordinates of a point to a sum.
+         *
+         * @param i index of the point
+         * @param sum sum to update
+         * @param factor multiplication factor (1 or -1)
+         */
+        private void addPoint(final int i, final double[] sum, final double factor) {
+            final double[] a = rows == null ? flat : rows[i];
+            final int offset = rows == null ? i * dimension : 0;
+            for (int j = 0; j < dimension; ++j) {
+                sum[j] += factor * a[offset + j];
+            }
+        }
+
+    }
+
+}
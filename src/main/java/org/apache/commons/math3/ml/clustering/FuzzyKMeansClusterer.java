@@ -20,16 +20,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.ml.distance.DistanceMeasure;
 import org.apache.commons.math3.ml.distance.EuclideanDistance;
 import org.apache.commons.math3.random.JDKRandomGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.ConcurrencyUtils;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathArrays;
 import org.apache.commons.math3.util.MathUtils;
@@ -61,6 +65,11 @@ import org.apache.commons.math3.util.MathUtils;
  * <p>
  * The fuzzy variant of the K-Means algorithm is more robust with regard to the selection
  * of the initial cluster centers.
+ * <p>
+ * Each iteration computes the distances between a point and the cluster centers only
+ * once, and the memberships are stored in a single array. The updates of the centers
+ * and of the memberships can be distributed among the threads of an
+ * {@link ExecutorService}, see {@link #cluster(Collection, ExecutorService)}.
  *
  * @param <T> type of the points to cluster
  * @version $Id$
@@ -86,8 +95,8 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
     /** Random generator for choosing initial centers. */
     private final RandomGenerator random;
 
-    /** The membership matrix. */
-    private double[][] membershipMatrix;
+    /** The membership matrix, stored row by row ({@code n * k} elements). */
+    private double[] membershipMatrix;
 
     /** The list of points used in the last call to {@link #cluster(Collection)}. */
     private List<T> points;
@@ -211,7 +220,38 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
         if (membershipMatrix == null) {
             throw new MathIllegalStateException();
         }
-        return MatrixUtils.createRealMatrix(membershipMatrix);
+        final int n = points.size();
+        final double[][] matrix = new double[n][k];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(membershipMatrix, i * k, matrix[i], 0, k);
+        }
+        return MatrixUtils.createRealMatrix(matrix);
+    }
+
+    /**
+     * Returns the membership value of a data point to a cluster.
+     * <p>
+     * Contrary to {@link #getMembershipMatrix()}, this method does not copy
+     * the memberships of all points.
+     *
+     * @param point the index of the data point in {@link #getDataPoints()}
+     * @param cluster the index of the cluster in {@link #getClusters()}
+     * @return the membership value U<sub>point,cluster</sub>
+     * @throws MathIllegalStateException if {@link #cluster(Collection)} has not been called before
+     * @throws OutOfRangeException if one of the indices is out of range
+     */
+    public double getMembership(final int point, final int cluster)
+        throws MathIllegalStateException, OutOfRangeException {
+        if (membershipMatrix == null) {
+            throw new MathIllegalStateException();
+        }
+        if (point < 0 || point >= points.size()) {
+            throw new OutOfRangeException(point, 0, points.size() - 1);
+        }
+        if (cluster < 0 || cluster >= k) {
+            throw new OutOfRangeException(cluster, 0, k - 1);
+        }
+        return membershipMatrix[point * k + cluster];
     }
 
     /**
@@ -249,7 +289,7 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
             int j = 0;
             for (final CentroidCluster<T> cluster : clusters) {
                 final double dist = distance(point, cluster.getCenter());
-                objFunction += (dist * dist) * FastMath.pow(membershipMatrix[i][j], fuzziness);
+                objFunction += (dist * dist) * FastMath.pow(membershipMatrix[i * k + j], fuzziness);
                 j++;
             }
             i++;
@@ -268,6 +308,28 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
     @Override
     public List<CentroidCluster<T>> cluster(final Collection<T> dataPoints)
             throws MathIllegalArgumentException {
+        return cluster(dataPoints, null);
+    }
+
+    /**
+     * Performs Fuzzy K-Means cluster analysis, using an executor.
+     * <p>
+     * At each iteration, the centers are updated in parallel, cluster by cluster, and
+     * the memberships of the points are updated in parallel by ranges of points. The
+     * sums are computed in the same order whatever the executor, so the results do
+     * not depend on it.
+     *
+     * @param dataPoints the points to cluster
+     * @param executor executor running the updates (if {@code null}, they are run in
+     *     the calling thread)
+     * @return the list of clusters
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     */
+    public List<CentroidCluster<T>> cluster(final Collection<T> dataPoints,
+                                            final ExecutorService executor)
+            throws MathIllegalArgumentException, MathIllegalStateException {
 
         // sanity checks
         MathUtils.checkNotNull(dataPoints);
@@ -282,8 +344,7 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
         // copy the input collection to an unmodifiable list with indexed access
         points = Collections.unmodifiableList(new ArrayList<T>(dataPoints));
         clusters = new ArrayList<CentroidCluster<T>>();
-        membershipMatrix = new double[size][k];
-        final double[][] oldMatrix = new double[size][k];
+        membershipMatrix = new double[size * k];
 
         // if no points are provided, return an empty list of clusters
         if (size == 0) {
@@ -303,10 +364,8 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
         double difference = 0.0;
 
         do {
-            saveMembershipMatrix(oldMatrix);
-            updateClusterCenters();
-            updateMembershipMatrix();
-            difference = calculateMaxMembershipChange(oldMatrix);
+            updateClusterCenters(executor);
+            difference = updateMembershipMatrix(executor);
         } while (difference > epsilon && ++iteration < max);
 
         return clusters;
@@ -314,27 +373,45 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
 
     /**
      * Update the cluster centers.
+     *
+     * @param executor executor running the updates (may be {@code null})
      */
-    private void updateClusterCenters() {
-        int j = 0;
-        final List<CentroidCluster<T>> newClusters = new ArrayList<CentroidCluster<T>>(k);
-        for (final CentroidCluster<T> cluster : clusters) {
-            final Clusterable center = cluster.getCenter();
-            int i = 0;
-            double[] arr = new double[center.getPoint().length];
-            double sum = 0.0;
-            for (final T point : points) {
-                final double u = FastMath.pow(membershipMatrix[i][j], fuzziness);
-                final double[] pointArr = point.getPoint();
-                for (int idx = 0; idx < arr.length; idx++) {
-                    arr[idx] += u * pointArr[idx];
+    private void updateClusterCenters(final ExecutorService executor) {
+        final int dimension = clusters.get(0).getCenter().getPoint().length;
+        final double[][] centers = new double[k][];
+        final int tasks = executor == null ? 1 : FastMath.min(k, 4 * ConcurrencyUtils.getDefaultParallelism());
+        final List<Callable<Void>> list = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; ++t) {
+            final int first = (k * t) / tasks;
+            final int last  = (k * (t + 1)) / tasks;
+            list.add(new Callable<Void>() {
+                /** {@inheritDoc} */
+                public Void call() {
+                    for (int j = first; j < last; j++) {
+                        final double[] arr = new double[dimension];
+                        double sum = 0.0;
+                        int i = 0;
+                        for (final T point : points) {
+                            final double u = FastMath.pow(membershipMatrix[i * k + j], fuzziness);
+                            final double[] pointArr = point.getPoint();
+                            for (int idx = 0; idx < arr.length; idx++) {
+                                arr[idx] += u * pointArr[idx];
+                            }
+                            sum += u;
+                            i++;
+                        }
+                        MathArrays.scaleInPlace(1.0 / sum, arr);
+                        centers[j] = arr;
+                    }
+                    return null;
                 }
-                sum += u;
-                i++;
-            }
-            MathArrays.scaleInPlace(1.0 / sum, arr);
-            newClusters.add(new CentroidCluster<T>(new DoublePoint(arr)));
-            j++;
+            });
+        }
+        ConcurrencyUtils.invokeAll(executor, list);
+
+        final List<CentroidCluster<T>> newClusters = new ArrayList<CentroidCluster<T>>(k);
+        for (final double[] center : centers) {
+            newClusters.add(new CentroidCluster<T>(new DoublePoint(center)));
         }
         clusters.clear();
         clusters = newClusters;
@@ -343,70 +420,119 @@ public class FuzzyKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
     /**
      * Updates the membership matrix and assigns the points to the cluster with
      * the highest membership.
+     *
+     * @param executor executor running the updates (may be {@code null})
+     * @return the maximum element-by-element change of the membership matrix
      */
-    private void updateMembershipMatrix() {
-        for (int i = 0; i < points.size(); i++) {
-            final T point = points.get(i);
-            double maxMembership = 0.0;
-            int newCluster = -1;
-            for (int j = 0; j < clusters.size(); j++) {
-                double sum = 0.0;
-                final double distA = FastMath.abs(distance(point, clusters.get(j).getCenter()));
-
-                for (final CentroidCluster<T> c : clusters) {
-                    final double distB = FastMath.abs(distance(point, c.getCenter()));
-                    sum += FastMath.pow(distA / distB, 2.0 / (fuzziness - 1.0));
+    private double updateMembershipMatrix(final ExecutorService executor) {
+        final int n = points.size();
+        final double[][] centers = new double[k][];
+        for (int j = 0; j < k; j++) {
+            centers[j] = clusters.get(j).getCenter().getPoint();
+        }
+        final int[] assignments = new int[n];
+
+        final int tasks = executor == null ? 1 : FastMath.min(n, 4 * ConcurrencyUtils.getDefaultParallelism());
+        final List<Callable<Double>> list = new ArrayList<Callable<Double>>(tasks);
+        for (int t = 0; t < tasks; ++t) {
+            final int first = (int) (((long) n * t) / tasks);
+            final int last  = (int) (((long) n * (t + 1)) / tasks);
+            list.add(new Callable<Double>() {
+                /** {@inheritDoc} */
+                public Double call() {
+                    return updateMemberships(first, last, centers, assignments, new double[k]);
                 }
+            });
+        }
+        double maxChange = 0.0;
+        for (final Double change : ConcurrencyUtils.invokeAll(executor, list)) {
+            maxChange = FastMath.max(maxChange, change);
+        }
 
-                membershipMatrix[i][j] = 1.0 / sum;
-
-                if (membershipMatrix[i][j] > maxMembership) {
-                    maxMembership = membershipMatrix[i][j];
-                    newCluster = j;
-                }
-            }
-            clusters.get(newCluster).addPoint(point);
+        for (int i = 0; i < n; i++) {
+            clusters.get(assignments[i]).addPoint(points.get(i));
         }
+        return maxChange;
     }
 
     /**
-     * Initialize the membership matrix with random values.
+     * Updates the memberships of a range of points.
+     * <p>
+     * The membership of point i to cluster j is
+     * 1 / &#8721;<sub>l</sub> (d<sub>ij</sub> / d<sub>il</sub>)<sup>2/(m-1)</sup>;
+     * it is computed from the k distances of the point to the centers, scaled by the
+     * smallest one to avoid overflows. A point located on some centers is shared
+     * equally between them.
+     *
+     * @param first index of the first point
+     * @param last index after the last point
+     * @param centers coordinates of the cluster centers
+     * @param assignments array where the clusters with the highest membership are stored
+     * @param work work array of length k
+     * @return the maximum change of the memberships of the points
      */
-    private void initializeMembershipMatrix() {
-        for (int i = 0; i < points.size(); i++) {
+    private double updateMemberships(final int first, final int last,
+                                     final double[][] centers, final int[] assignments,
+                                     final double[] work) {
+        final DistanceMeasure measure = getDistanceMeasure();
+        final double exponent = 2.0 / (fuzziness - 1.0);
+        double maxChange = 0.0;
+        for (int i = first; i < last; i++) {
+            final double[] point = points.get(i).getPoint();
+
+            // distances to the centers, computed once
+            double minDistance = Double.POSITIVE_INFINITY;
             for (int j = 0; j < k; j++) {
-                membershipMatrix[i][j] = random.nextDouble();
+                work[j] = FastMath.abs(measure.compute(point, centers[j]));
+                minDistance = FastMath.min(minDistance, work[j]);
             }
-            membershipMatrix[i] = MathArrays.normalizeArray(membershipMatrix[i], 1.0);
-        }
-    }
 
-    /**
-     * Calculate the maximum element-by-element change of the membership matrix
-     * for the current iteration.
-     *
-     * @param matrix the membership matrix of the previous iteration
-     * @return the maximum membership matrix change
-     */
-    private double calculateMaxMembershipChange(final double[][] matrix) {
-        double maxMembership = 0.0;
-        for (int i = 0; i < points.size(); i++) {
-            for (int j = 0; j < clusters.size(); j++) {
-                double v = FastMath.abs(membershipMatrix[i][j] - matrix[i][j]);
-                maxMembership = FastMath.max(v, maxMembership);
+            if (minDistance == 0) {
+                int zeros = 0;
+                for (int j = 0; j < k; j++) {
+                    if (work[j] == 0) {
+                        zeros++;
+                    }
+                }
+                for (int j = 0; j < k; j++) {
+                    work[j] = (work[j] == 0) ? 1.0 / zeros : 0.0;
+                }
+            } else {
+                double sum = 0.0;
+                for (int j = 0; j < k; j++) {
+                    final double ratio = work[j] / minDistance;
+                    work[j] = (exponent == 2.0) ? ratio * ratio : FastMath.pow(ratio, exponent);
+                    sum += 1.0 / work[j];
+                }
+                for (int j = 0; j < k; j++) {
+                    work[j] = 1.0 / (work[j] * sum);
+                }
+            }
+
+            int newCluster = 0;
+            for (int j = 0; j < k; j++) {
+                final double change = FastMath.abs(work[j] - membershipMatrix[i * k + j]);
+                maxChange = FastMath.max(change, maxChange);
+                membershipMatrix[i * k + j] = work[j];
+                if (work[j] > work[newCluster]) {
+                    newCluster = j;
+                }
             }
+            assignments[i] = newCluster;
         }
-        return maxMembership;
+        return maxChange;
     }
 
     /**
-     * Copy the membership matrix into the provided matrix.
-     *
-     * @param matrix the place to store the membership matrix
+     * Initialize the membership matrix with random values.
      */
-    private void saveMembershipMatrix(final double[][] matrix) {
+    private void initializeMembershipMatrix() {
+        final double[] row = new double[k];
         for (int i = 0; i < points.size(); i++) {
-            System.arraycopy(membershipMatrix[i], 0, matrix[i], 0, clusters.size());
+            for (int j = 0; j < k; j++) {
+                row[j] = random.nextDouble();
+            }
+            System.arraycopy(MathArrays.normalizeArray(row, 1.0), 0, membershipMatrix, i * k, k);
         }
     }
 
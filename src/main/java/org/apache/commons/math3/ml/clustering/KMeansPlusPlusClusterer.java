@@ -183,6 +183,25 @@ public class KMeansPlusPlusClusterer<T extends Clusterable> extends Clusterer<T>
         return emptyStrategy;
     }
 
+    /**
+     * Build a clusterer with the same settings as this instance, but
+     * another random generator.
+     * <p>
+     * This allows several clusterings of the same points to run
+     * concurrently, as random generators are generally not thread-safe.
+     * Subclasses should override this method to return an instance of
+     * their own class.
+     * </p>
+     *
+     * @param generator random generator to use for choosing initial centers
+     * @return a new clusterer
+     * @since 3.3
+     */
+    public KMeansPlusPlusClusterer<T> withRandomGenerator(final RandomGenerator generator) {
+        return new KMeansPlusPlusClusterer<T>(k, maxIterations, getDistanceMeasure(),
+                                              generator, emptyStrategy);
+    }
+
     /**
      * Runs the K-means++ clustering algorithm.
      *
@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ml.clustering;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.math3.exception.ConvergenceException;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Mini-batch k-means clustering, for data sets that do not fit in memory.
+ * <p>
+ * Instead of assigning all the points at each iteration, this clusterer
+ * updates the centers with one small batch of points at a time (D. Sculley,
+ * <em>Web-scale k-means clustering</em>, WWW 2010). The points of a batch
+ * are first assigned to their nearest centers; then each point moves its
+ * center towards itself with a learning rate of {@code 1 / n}, where
+ * {@code n} is the number of points the center has received so far. A
+ * center is thus the running mean of the points assigned to it, and moves
+ * less and less as it accumulates points.
+ * </p>
+ * <p>
+ * The centers are initialized by the k-means++ method on the first
+ * {@code k} points received (or more, if the first batch is larger).
+ * Batches are given either one at a time, by {@link #partialFit(Collection)},
+ * or as an {@link Iterator} which is consumed by {@link #fit(Iterator)};
+ * in both cases only one batch is held in memory. The {@link
+ * #cluster(Collection)} method of the {@link Clusterer} API draws random
+ * batches from an in-memory collection, and finally assigns all points
+ * to the resulting centers.
+ * </p>
+ * <p>
+ * Instances of this class hold the state of the clustering, and are
+ * <em>not</em> thread-safe.
+ * </p>
+ * @param <T> type of the points to cluster
+ * @version $Id$
+ * @since 3.3
+ */
+public class MiniBatchKMeansClusterer<T extends Clusterable> extends Clusterer<T> {
+
+    /** The number of clusters. */
+    private final int k;
+
+    /** The number of points per batch. */
+    private final int batchSize;
+
+    /** The number of batches drawn by {@link #cluster(Collection)}. */
+    private final int maxIterations;
+
+    /** Random generator for choosing initial centers and batches. */
+    private final RandomGenerator random;
+
+    /** Current centers (null before initialization). */
+    private double[][] centers;
+
+    /** Number of points received by each center. */
+    private long[] counts;
+
+    /** Points received before initialization. */
+    private final List<double[]> pending;
+
+    /** Dimension of the points (-1 until the first point is received). */
+    private int dimension;
+
+    /** Build a clusterer.
+     * <p>
+     * The euclidean distance will be used as default distance measure, and
+     * {@link #cluster(Collection)} will draw 100 batches.
+     *
+     * @param k the number of clusters to split the data into
+     * @param batchSize the number of points per batch
+     * @throws NotStrictlyPositiveException if {@code k} or {@code batchSize}
+     * is not strictly positive
+     */
+    public MiniBatchKMeansClusterer(final int k, final int batchSize)
+        throws NotStrictlyPositiveException {
+        this(k, batchSize, 100, new EuclideanDistance(), new JDKRandomGenerator());
+    }
+
+    /** Build a clusterer.
+     *
+     * @param k the number of clusters to split the data into
+     * @param batchSize the number of points per batch
+     * @param maxIterations the number of batches drawn by {@link #cluster(Collection)}
+     * @param measure the distance measure to use
+     * @param random random generator to use for choosing initial centers and batches
+     * @throws NotStrictlyPositiveException if {@code k}, {@code batchSize} or
+     * {@code maxIterations} is not strictly positive
+     */
+    public MiniBatchKMeansClusterer(final int k, final int batchSize, final int maxIterations,
+                                    final DistanceMeasure measure, final RandomGenerator random)
+        throws NotStrictlyPositiveException {
+        super(measure);
+        if (k <= 0) {
+            throw new NotStrictlyPositiveException(k);
+        }
+        if (batchSize <= 0) {
+            throw new NotStrictlyPositiveException(batchSize);
+        }
+        if (maxIterations <= 0) {
+            throw new NotStrictlyPositiveException(maxIterations);
+        }
+        this.k             = k;
+        this.batchSize     = batchSize;
+        this.maxIterations = maxIterations;
+        this.random        = random;
+        this.pending       = new ArrayList<double[]>();
+        this.dimension     = -1;
+    }
+
+    /**
+     * Return the number of clusters this instance will use.
+     * @return the number of clusters
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Return the number of points per batch.
+     * @return the number of points per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of batches drawn by {@link #cluster(Collection)}.
+     * @return the number of batches
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Returns the random generator this instance will use.
+     * @return the random generator
+     */
+    public RandomGenerator getRandomGenerator() {
+        return random;
+    }
+
+    /**
+     * Check whether the centers have been initialized.
+     * @return true if at least {@code k} points have been received
+     */
+    public boolean isInitialized() {
+        return centers != null;
+    }
+
+    /**
+     * Forgets all the points received so far.
+     */
+    public void reset() {
+        centers   = null;
+        counts    = null;
+        dimension = -1;
+        pending.clear();
+    }
+
+    /**
+     * Updates the centers with a batch of points.
+     * <p>
+     * Until {@code k} points have been received, the points are only kept;
+     * the centers are then initialized from these points by the k-means++
+     * method, and updated with them.
+     * </p>
+     *
+     * @param batch the points of the batch
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension
+     */
+    public void partialFit(final Collection<? extends T> batch)
+        throws DimensionMismatchException {
+        MathUtils.checkNotNull(batch);
+        final List<double[]> points = new ArrayList<double[]>(batch.size());
+        for (final T point : batch) {
+            points.add(checkDimension(point.getPoint()));
+        }
+
+        if (centers == null) {
+            for (final double[] point : points) {
+                pending.add(point.clone());
+            }
+            if (pending.size() < k) {
+                return;
+            }
+            initialize();
+            update(pending);
+            pending.clear();
+        } else {
+            update(points);
+        }
+    }
+
+    /**
+     * Updates the centers with all the points of an iterator, by batches.
+     * <p>
+     * The iterator is consumed, {@link #getBatchSize()} points at a time;
+     * only the current batch is held in memory.
+     * </p>
+     *
+     * @param points the points
+     * @return the clusters, whose point lists are empty
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension
+     * @throws MathIllegalStateException if less than {@code k} points have
+     * been received in total
+     */
+    public List<CentroidCluster<T>> fit(final Iterator<? extends T> points)
+        throws DimensionMismatchException, MathIllegalStateException {
+        final List<T> batch = new ArrayList<T>(batchSize);
+        while (points.hasNext()) {
+            batch.add(points.next());
+            if (batch.size() == batchSize) {
+                partialFit(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            partialFit(batch);
+        }
+        return getClusters();
+    }
+
+    /**
+     * Get the current clusters.
+     *
+     * @return the clusters, whose centers are copies of the current centers
+     * and whose point lists are empty
+     * @throws MathIllegalStateException if less than {@code k} points have
+     * been received
+     */
+    public List<CentroidCluster<T>> getClusters() throws MathIllegalStateException {
+        checkInitialized();
+        final List<CentroidCluster<T>> clusters = new ArrayList<CentroidCluster<T>>(k);
+        for (final double[] center : centers) {
+            clusters.add(new CentroidCluster<T>(new DoublePoint(center.clone())));
+        }
+        return clusters;
+    }
+
+    /**
+     * Get the number of points received by each cluster.
+     *
+     * @return the number of points received by each cluster
+     * @throws MathIllegalStateException if less than {@code k} points have
+     * been received
+     */
+    public long[] getCounts() throws MathIllegalStateException {
+        checkInitialized();
+        return counts.clone();
+    }
+
+    /**
+     * Returns the index of the cluster nearest to a point.
+     *
+     * @param point the point
+     * @return the index of the nearest cluster in the list returned by
+     * {@link #getClusters()}
+     * @throws MathIllegalStateException if less than {@code k} points have
+     * been received
+     * @throws DimensionMismatchException if the point does not have the
+     * dimension of the previous points
+     */
+    public int getNearestCluster(final Clusterable point)
+        throws MathIllegalStateException, DimensionMismatchException {
+        checkInitialized();
+        return nearest(checkDimension(point.getPoint()));
+    }
+
+    /**
+     * Runs the mini-batch k-means algorithm on an in-memory collection.
+     * <p>
+     * The state of this instance is first {@link #reset() reset}; then
+     * {@link #getMaxIterations()} batches are drawn at random (with
+     * replacement) from the points, and finally each point is assigned to
+     * its nearest center.
+     * </p>
+     *
+     * @param points the points to cluster
+     * @return a list of clusters containing the points
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *     of clusters is larger than the number of data points
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension
+     */
+    @Override
+    public List<CentroidCluster<T>> cluster(final Collection<T> points)
+        throws MathIllegalArgumentException, ConvergenceException {
+
+        // sanity checks
+        MathUtils.checkNotNull(points);
+        if (points.size() < k) {
+            throw new NumberIsTooSmallException(points.size(), k, false);
+        }
+
+        reset();
+        final List<T> pointList = new ArrayList<T>(points);
+
+        // the centers are initialized from a first batch of at least k points
+        final List<T> batch = new ArrayList<T>(batchSize);
+        for (int iteration = 0; iteration < maxIterations || centers == null; ++iteration) {
+            batch.clear();
+            final int size = centers == null ? FastMath.max(k, batchSize) : batchSize;
+            for (int i = 0; i < size; ++i) {
+                batch.add(pointList.get(random.nextInt(pointList.size())));
+            }
+            partialFit(batch);
+        }
+
+        final List<CentroidCluster<T>> clusters = getClusters();
+        for (final T point : pointList) {
+            clusters.get(getNearestCluster(point)).addPoint(point);
+        }
+        return clusters;
+
+    }
+
+    /**
+     * Initializes the centers from the pending points.
+     */
+    private void initialize() {
+        final double[][] rows = pending.toArray(new double[pending.size()][]);
+        final DenseKMeansPlusPlusClusterer<T> initializer =
+            new DenseKMeansPlusPlusClusterer<T>(k, 0, getDistanceMeasure(), random);
+        centers = initializer.computeCenters(rows, new int[rows.length]);
+        counts  = new long[k];
+    }
+
+    /**
+     * Updates the centers with a batch of points.
+     *
+     * @param batch the points of the batch
+     */
+    private void update(final List<double[]> batch) {
+
+        // assign all points to the centers before moving them
+        final int[] assignments = new int[batch.size()];
+        for (int i = 0; i < assignments.length; ++i) {
+            assignments[i] = nearest(batch.get(i));
+        }
+
+        // move each center towards its points, with a per-center learning rate
+        for (int i = 0; i < assignments.length; ++i) {
+            final int c = assignments[i];
+            final double eta = 1.0 / ++counts[c];
+            final double[] center = centers[c];
+            final double[] point  = batch.get(i);
+            for (int j = 0; j < dimension; ++j) {
+                center[j] += eta * (point[j] - center[j]);
+            }
+        }
+
+    }
+
+    /**
+     * Finds the center nearest to a point.
+     *
+     * @param point the coordinates of the point
+     * @return the index of the nearest center
+     */
+    private int nearest(final double[] point) {
+        final DistanceMeasure measure = getDistanceMeasure();
+        double minDistance = Double.MAX_VALUE;
+        int minCluster = 0;
+        for (int c = 0; c < k; ++c) {
+            final double distance = measure.compute(point, centers[c]);
+            if (distance < minDistance) {
+                minDistance = distance;
+                minCluster  = c;
+            }
+        }
+        return minCluster;
+    }
+
+    /**
+     * Checks the dimension of a point.
+     *
+     * @param point the coordinates of the point
+     * @return the coordinates of the point
+     * @throws DimensionMismatchException if the point does not have the
+     * dimension of the previous points
+     */
+    private double[] checkDimension(final double[] point) throws DimensionMismatchException {
+        if (dimension < 0) {
+            dimension = point.length;
+        } else if (point.length != dimension) {
+            throw new DimensionMismatchException(point.length, dimension);
+        }
+        return point;
+    }
+
+    /**
+     * Checks that the centers have been initialized.
+     *
+     * @throws MathIllegalStateException if less than {@code k} points have
+     * been received
+     */
+    private void checkInitialized() throws MathIllegalStateException {
+        if (centers == null) {
+            throw new MathIllegalStateException(LocalizedFormats.INSUFFICIENT_OBSERVED_POINTS_IN_SAMPLE,
+                                                pending.size(), k);
+        }
+    }
+
+}
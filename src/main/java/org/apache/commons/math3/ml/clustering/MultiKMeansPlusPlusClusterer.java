@@ -17,12 +17,19 @@
 
 package org.apache.commons.math3.ml.clustering;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.math3.exception.ConvergenceException;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.stat.descriptive.moment.Variance;
+import org.apache.commons.math3.util.ConcurrencyUtils;
 
 /**
  * A wrapper around a k-means++ clustering algorithm which performs multiple trials
@@ -92,20 +99,7 @@ public class MultiKMeansPlusPlusClusterer<T extends Clusterable> extends Cluster
             List<CentroidCluster<T>> clusters = clusterer.cluster(points);
 
             // compute the variance of the current list
-            double varianceSum = 0.0;
-            for (final CentroidCluster<T> cluster : clusters) {
-                if (!cluster.getPoints().isEmpty()) {
-
-                    // compute the distance variance of the current cluster
-                    final Clusterable center = cluster.getCenter();
-                    final Variance stat = new Variance();
-                    for (final T point : cluster.getPoints()) {
-                        stat.increment(distance(point, center));
-                    }
-                    varianceSum += stat.getResult();
-
-                }
-            }
+            final double varianceSum = varianceSum(clusters);
 
             if (varianceSum <= bestVarianceSum) {
                 // this one is the best we have found so far, remember it
@@ -120,4 +114,84 @@ public class MultiKMeansPlusPlusClusterer<T extends Clusterable> extends Cluster
 
     }
 
+    /**
+     * Runs the K-means++ clustering algorithm, performing the trials concurrently.
+     * <p>
+     * Each trial uses its own copy of the underlying clusterer, built by
+     * {@link KMeansPlusPlusClusterer#withRandomGenerator(RandomGenerator)}
+     * with a random generator seeded from the generator of the underlying
+     * clusterer. The result therefore only depends on the initial state of
+     * this generator, and not on the executor, but it differs from the
+     * result of {@link #cluster(Collection)}. Each trial runs in a single
+     * task.
+     * </p>
+     *
+     * @param points the points to cluster
+     * @param executor executor running the trials (if {@code null}, the
+     * trials are run one after the other in the calling thread)
+     * @return a list of clusters containing the points
+     * @throws MathIllegalArgumentException if the data points are null or the number
+     *   of clusters is larger than the number of data points
+     * @throws ConvergenceException if an empty cluster is encountered and the
+     *   underlying {@link KMeansPlusPlusClusterer} has its
+     *   {@link KMeansPlusPlusClusterer.EmptyClusterStrategy} is set to {@code ERROR}.
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     * @since 3.3
+     */
+    public List<CentroidCluster<T>> cluster(final Collection<T> points,
+                                            final ExecutorService executor)
+        throws MathIllegalArgumentException, ConvergenceException, MathIllegalStateException {
+
+        // the seeds are drawn beforehand, so that the trials are reproducible
+        final List<Callable<List<CentroidCluster<T>>>> trials =
+            new ArrayList<Callable<List<CentroidCluster<T>>>>(numTrials);
+        for (int i = 0; i < numTrials; ++i) {
+            final RandomGenerator generator = new JDKRandomGenerator();
+            generator.setSeed(clusterer.getRandomGenerator().nextLong());
+            final KMeansPlusPlusClusterer<T> trialClusterer = clusterer.withRandomGenerator(generator);
+            trials.add(new Callable<List<CentroidCluster<T>>>() {
+                /** {@inheritDoc} */
+                public List<CentroidCluster<T>> call() {
+                    return trialClusterer.cluster(points);
+                }
+            });
+        }
+
+        List<CentroidCluster<T>> best = null;
+        double bestVarianceSum = Double.POSITIVE_INFINITY;
+        for (final List<CentroidCluster<T>> clusters : ConcurrencyUtils.invokeAll(executor, trials)) {
+            final double varianceSum = varianceSum(clusters);
+            if (varianceSum <= bestVarianceSum) {
+                best            = clusters;
+                bestVarianceSum = varianceSum;
+            }
+        }
+        return best;
+
+    }
+
+    /**
+     * Computes the sum of the distance variances of clusters.
+     *
+     * @param clusters the clusters
+     * @return the sum of the distance variances of the non-empty clusters
+     */
+    private double varianceSum(final List<CentroidCluster<T>> clusters) {
+        double varianceSum = 0.0;
+        for (final CentroidCluster<T> cluster : clusters) {
+            if (!cluster.getPoints().isEmpty()) {
+
+                // compute the distance variance of the current cluster
+                final Clusterable center = cluster.getCenter();
+                final Variance stat = new Variance();
+                for (final T point : cluster.getPoints()) {
+                    stat.increment(distance(point, center));
+                }
+                varianceSum += stat.getResult();
+
+            }
+        }
+        return varianceSum;
+    }
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.ml.neighbors;
+
+import java.util.Collection;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.ml.clustering.Clusterable;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Ball tree answering neighborhood queries over a fixed set of points, for
+ * any distance measure which is a metric.
+ * <p>
+ * Each node of the tree stores a ball containing its points: the center
+ * of the ball is the centroid of the points, and its radius the largest
+ * distance between the centroid and a point. A node is split by choosing
+ * two distant points, the farthest one from the centroid and the farthest
+ * one from this first point, and assigning each point to the closest of
+ * them. By the triangle inequality, no point of a node is closer to a
+ * query center than the distance to the center of the ball minus its
+ * radius, so the queries skip the balls lying too far away.
+ * </p>
+ * <p>
+ * The distance measure must satisfy the triangle inequality, otherwise
+ * queries may miss points; all the measures of the {@link
+ * org.apache.commons.math3.ml.distance distance} package do. It is also
+ * computed between points and centroids, which must therefore be valid
+ * arguments. For the {@link org.apache.commons.math3.ml.distance.EuclideanDistance
+ * Euclidean}, {@link org.apache.commons.math3.ml.distance.ManhattanDistance
+ * Manhattan} and {@link org.apache.commons.math3.ml.distance.ChebyshevDistance
+ * Chebyshev} distances, a {@link KDTree} is usually faster in low dimension.
+ * </p>
+ *
+ * @param <T> Type of the points.
+ * @version $Id$
+ * @since 3.3
+ */
+public class BallTree<T extends Clusterable> extends SpatialIndex<T> {
+
+    /**
+     * Relative margin subtracted from the lower bounds, covering the
+     * rounding errors of the triangle inequality.
+     */
+    private static final double MARGIN = 1.0e-12;
+
+    /** Root of the tree ({@code null} if there are no points). */
+    private final Ball root;
+
+    /**
+     * Builds a tree.
+     *
+     * @param points Points to index.
+     * @param measure Distance measure, which must be a metric.
+     * @throws NullArgumentException if {@code points} or {@code measure} is
+     * {@code null}.
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension.
+     */
+    public BallTree(final Collection<T> points, final DistanceMeasure measure)
+        throws NullArgumentException, DimensionMismatchException {
+        super(points, measure);
+        root = size() == 0 ? null : build(0, size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Builds a subtree.
+     *
+     * @param start Index of the first point of the subtree.
+     * @param end Index after the last point of the subtree.
+     * @return the root of the subtree.
+     */
+    private Ball build(final int start, final int end) {
+
+        final DistanceMeasure measure = getDistanceMeasure();
+        final double[][] coordinates = getCoordinates();
+        final int dimension = getDimension();
+
+        // centroid, and farthest point from it
+        final double[] center = new double[dimension];
+        for (int i = start; i < end; ++i) {
+            for (int k = 0; k < dimension; ++k) {
+                center[k] += coordinates[i][k];
+            }
+        }
+        for (int k = 0; k < dimension; ++k) {
+            center[k] /= end - start;
+        }
+        double radius = 0;
+        int first = start;
+        for (int i = start; i < end; ++i) {
+            final double d = measure.compute(coordinates[i], center);
+            if (d > radius) {
+                radius = d;
+                first  = i;
+            }
+        }
+        if (end - start <= LEAF_SIZE || !(radius > 0)) {
+            return new Ball(start, end, center, radius, null, null);
+        }
+
+        // farthest point from the first one
+        final double[] a = coordinates[first];
+        double farthest = 0;
+        double[] b = a;
+        for (int i = start; i < end; ++i) {
+            final double d = measure.compute(coordinates[i], a);
+            if (d > farthest) {
+                farthest = d;
+                b = coordinates[i];
+            }
+        }
+
+        // points closer to the first point go to the left child
+        int middle = start;
+        for (int i = start; i < end; ++i) {
+            if (measure.compute(coordinates[i], a) <= measure.compute(coordinates[i], b)) {
+                swap(i, middle++);
+            }
+        }
+        if (middle == start || middle == end) {
+            // degenerate partition, split in halves
+            middle = (start + end) >>> 1;
+        }
+
+        return new Ball(start, end, center, radius, build(start, middle), build(middle, end));
+
+    }
+
+    /** Node of the tree, with a ball containing its points. */
+    private class Ball extends Node {
+
+        /** Center of the ball. */
+        private final double[] center;
+
+        /** Radius of the ball. */
+        private final double radius;
+
+        /**
+         * @param start Index of the first point of the node.
+         * @param end Index after the last point of the node.
+         * @param center Center of the ball.
+         * @param radius Radius of the ball.
+         * @param left Left child ({@code null} for leaves).
+         * @param right Right child ({@code null} for leaves).
+         */
+        Ball(final int start, final int end, final double[] center, final double radius,
+             final Ball left, final Ball right) {
+            super(start, end, left, right);
+            this.center = center;
+            this.radius = radius;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        double lowerBound(final double[] p) {
+            final double d = getDistanceMeasure().compute(p, center);
+            return FastMath.max(0, d - radius - MARGIN * (d + radius));
+        }
+
+    }
+
+}
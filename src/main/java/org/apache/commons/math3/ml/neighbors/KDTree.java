@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.ml.neighbors;
+
+import java.util.Collection;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.ml.clustering.Clusterable;
+import org.apache.commons.math3.ml.distance.ChebyshevDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * K-d tree answering neighborhood queries over a fixed set of points.
+ * <p>
+ * The tree is built in one pass: each node is split at the median of the
+ * coordinate having the largest spread, until the nodes contain only a few
+ * points. Each node stores the bounding box of its points, and a query
+ * skips the nodes whose box lies farther than the radius of the query from
+ * its center, so that it only computes the distances to the points close
+ * to the center. On typical data in low dimension, building the tree
+ * costs {@code O(n log n)} and a query {@code O(log n)} plus the number of
+ * points found.
+ * </p>
+ * <p>
+ * The lower bound of the distance to a box depends on the distance
+ * measure, hence only the {@link EuclideanDistance Euclidean}, {@link
+ * ManhattanDistance Manhattan} and {@link ChebyshevDistance Chebyshev}
+ * distances are {@link #supports(DistanceMeasure) supported}; the {@link
+ * BallTree} supports any metric.
+ * </p>
+ *
+ * @param <T> Type of the points.
+ * @version $Id$
+ * @since 3.3
+ */
+public class KDTree<T extends Clusterable> extends SpatialIndex<T> {
+
+    /** Lower bound of the distance to a box. */
+    private final Norm norm;
+
+    /** Root of the tree ({@code null} if there are no points). */
+    private final Box root;
+
+    /**
+     * Builds a tree.
+     *
+     * @param points Points to index.
+     * @param measure Distance measure.
+     * @throws NullArgumentException if {@code points} or {@code measure} is
+     * {@code null}.
+     * @throws MathIllegalArgumentException if the distance measure is not
+     * {@link #supports(DistanceMeasure) supported}.
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension.
+     */
+    public KDTree(final Collection<T> points, final DistanceMeasure measure)
+        throws NullArgumentException, MathIllegalArgumentException, DimensionMismatchException {
+        super(points, measure);
+        if (!supports(measure)) {
+            throw new MathIllegalArgumentException(LocalizedFormats.UNSUPPORTED_DISTANCE_MEASURE,
+                                                   measure.getClass().getName());
+        }
+        norm = Norm.of(measure);
+        root = size() == 0 ? null : build(0, size());
+    }
+
+    /**
+     * Checks whether a distance measure is supported.
+     * <p>
+     * Only the exact classes {@link EuclideanDistance}, {@link
+     * ManhattanDistance} and {@link ChebyshevDistance} are supported, as
+     * subclasses may compute different distances.
+     * </p>
+     *
+     * @param measure Distance measure.
+     * @return {@code true} if trees can be built for this distance measure.
+     */
+    public static boolean supports(final DistanceMeasure measure) {
+        return measure != null && Norm.of(measure) != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Builds a subtree.
+     *
+     * @param start Index of the first point of the subtree.
+     * @param end Index after the last point of the subtree.
+     * @return the root of the subtree.
+     */
+    private Box build(final int start, final int end) {
+
+        final double[][] coordinates = getCoordinates();
+        final int dimension = getDimension();
+
+        // bounding box
+        final double[] lower = coordinates[start].clone();
+        final double[] upper = coordinates[start].clone();
+        for (int i = start + 1; i < end; ++i) {
+            final double[] c = coordinates[i];
+            for (int k = 0; k < dimension; ++k) {
+                lower[k] = FastMath.min(lower[k], c[k]);
+                upper[k] = FastMath.max(upper[k], c[k]);
+            }
+        }
+
+        // split along the coordinate having the largest spread
+        int axis = 0;
+        double spread = 0;
+        for (int k = 0; k < dimension; ++k) {
+            if (upper[k] - lower[k] > spread) {
+                spread = upper[k] - lower[k];
+                axis   = k;
+            }
+        }
+        if (end - start <= LEAF_SIZE || !(spread > 0)) {
+            return new Box(start, end, lower, upper, null, null);
+        }
+
+        final int middle = (start + end) >>> 1;
+        select(start, end, middle, axis);
+        return new Box(start, end, lower, upper, build(start, middle), build(middle, end));
+
+    }
+
+    /**
+     * Partially sorts points along an axis.
+     * <p>
+     * When this method returns, no point before index {@code k} has a
+     * coordinate larger than the one of the point at index {@code k}, and
+     * no point after it a smaller coordinate.
+     * </p>
+     *
+     * @param start Index of the first point to sort.
+     * @param end Index after the last point to sort.
+     * @param k Index of the point to put at its sorted position.
+     * @param axis Index of the coordinate to sort.
+     */
+    private void select(final int start, final int end, final int k, final int axis) {
+        final double[][] coordinates = getCoordinates();
+        int left  = start;
+        int right = end - 1;
+        while (right > left) {
+            final double a = coordinates[left][axis];
+            final double b = coordinates[(left + right) >>> 1][axis];
+            final double c = coordinates[right][axis];
+            final double pivot = FastMath.max(FastMath.min(a, b), FastMath.min(FastMath.max(a, b), c));
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinates[i][axis] < pivot) {
+                    ++i;
+                }
+                while (coordinates[j][axis] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /** Lower bounds of the distance between a point and a box. */
+    private enum Norm {
+
+        /** Euclidean distance. */
+        L2 {
+            /** {@inheritDoc} */
+            @Override
+            double lowerBound(final double[] p, final double[] lower, final double[] upper) {
+                double sum = 0;
+                for (int k = 0; k < p.length; ++k) {
+                    final double d = gap(p[k], lower[k], upper[k]);
+                    sum += d * d;
+                }
+                return FastMath.sqrt(sum);
+            }
+        },
+
+        /** Manhattan distance. */
+        L1 {
+            /** {@inheritDoc} */
+            @Override
+            double lowerBound(final double[] p, final double[] lower, final double[] upper) {
+                double sum = 0;
+                for (int k = 0; k < p.length; ++k) {
+                    sum += gap(p[k], lower[k], upper[k]);
+                }
+                return sum;
+            }
+        },
+
+        /** Chebyshev distance. */
+        L_INF {
+            /** {@inheritDoc} */
+            @Override
+            double lowerBound(final double[] p, final double[] lower, final double[] upper) {
+                double max = 0;
+                for (int k = 0; k < p.length; ++k) {
+                    max = FastMath.max(max, gap(p[k], lower[k], upper[k]));
+                }
+                return max;
+            }
+        };
+
+        /**
+         * Computes a lower bound of the distance between a point and a box.
+         * <p>
+         * The bound never exceeds the distance computed by the measure
+         * between the point and any point of the box: the terms summed are
+         * the same, or smaller.
+         * </p>
+         *
+         * @param p Point.
+         * @param lower Lower corner of the box.
+         * @param upper Upper corner of the box.
+         * @return a lower bound of the distance.
+         */
+        abstract double lowerBound(double[] p, double[] lower, double[] upper);
+
+        /**
+         * Computes the distance between a coordinate and an interval.
+         *
+         * @param x Coordinate.
+         * @param lower Lower end of the interval.
+         * @param upper Upper end of the interval.
+         * @return the distance between {@code x} and the interval.
+         */
+        private static double gap(final double x, final double lower, final double upper) {
+            if (x < lower) {
+                return lower - x;
+            } else if (x > upper) {
+                return x - upper;
+            }
+            return 0;
+        }
+
+        /**
+         * Get the norm of a distance measure.
+         *
+         * @param measure Distance measure.
+         * @return the norm, or {@code null} if the measure is not supported.
+         */
+        static Norm of(final DistanceMeasure measure) {
+            final Class<?> c = measure.getClass();
+            if (c == EuclideanDistance.class) {
+                return L2;
+            } else if (c == ManhattanDistance.class) {
+                return L1;
+            } else if (c == ChebyshevDistance.class) {
+                return L_INF;
+            }
+            return null;
+        }
+
+    }
+
+    /** Node of the tree, with the bounding box of its points. */
+    private class Box extends Node {
+
+        /** Lower corner of the bounding box. */
+        private final double[] lower;
+
+        /** Upper corner of the bounding box. */
+        private final double[] upper;
+
+        /**
+         * @param start Index of the first point of the node.
+         * @param end Index after the last point of the node.
+         * @param lower Lower corner of the bounding box.
+         * @param upper Upper corner of the bounding box.
+         * @param left Left child ({@code null} for leaves).
+         * @param right Right child ({@code null} for leaves).
+         */
+        Box(final int start, final int end, final double[] lower, final double[] upper,
+            final Box left, final Box right) {
+            super(start, end, left, right);
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        double lowerBound(final double[] p) {
+            return norm.lowerBound(p, lower, upper);
+        }
+
+    }
+
+}
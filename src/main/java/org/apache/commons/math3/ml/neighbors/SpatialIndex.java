@@ -0,0 +1,736 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.ml.neighbors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.ml.clustering.Clusterable;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Base class for trees answering neighborhood queries over a fixed set of
+ * points.
+ * <p>
+ * The points are organized in a binary tree built once, when the index is
+ * created. Each node covers a contiguous range of points and knows a lower
+ * bound of the distance between any point and the points it covers, so
+ * that queries skip the nodes which cannot contain an answer. Two kinds
+ * of queries are available:
+ * </p>
+ * <ul>
+ *   <li>range queries, finding the points within a given distance of a
+ *   center,</li>
+ *   <li>nearest neighbors queries, finding the {@code k} points closest to
+ *   a center; they may be approximate, trading accuracy for speed.</li>
+ * </ul>
+ * <p>
+ * The points are identified by their index in the collection the index
+ * was built from. Results are deterministic: range queries return indices
+ * in increasing order, and nearest neighbors queries sort the points by
+ * increasing distance, then by increasing index. Batches of queries can be
+ * distributed among the threads of an {@link ExecutorService}.
+ * </p>
+ * <p>
+ * The coordinates of the points are copied when the index is built, so
+ * later changes of the points are not seen by the index. Instances are
+ * immutable, and can therefore be queried by several threads.
+ * </p>
+ *
+ * @param <T> Type of the points.
+ * @see KDTree
+ * @see BallTree
+ * @version $Id$
+ * @since 3.3
+ */
+public abstract class SpatialIndex<T extends Clusterable> {
+
+    /** Maximal number of points in a leaf. */
+    static final int LEAF_SIZE = 8;
+
+    /** Distance measure. */
+    private final DistanceMeasure measure;
+
+    /** Points, in their original order. */
+    private final List<T> points;
+
+    /** Coordinates of the points, in the order of the tree. */
+    private final double[][] coordinates;
+
+    /** Original indices of the points, in the order of the tree. */
+    private final int[] indices;
+
+    /** Dimension of the points. */
+    private final int dimension;
+
+    /**
+     * Copies the points to index.
+     * <p>
+     * Subclasses build the tree once this constructor returns.
+     * </p>
+     *
+     * @param points Points to index.
+     * @param measure Distance measure.
+     * @throws NullArgumentException if {@code points} or {@code measure} is
+     * {@code null}.
+     * @throws DimensionMismatchException if the points do not all have the
+     * same dimension.
+     */
+    SpatialIndex(final Collection<T> points, final DistanceMeasure measure)
+        throws NullArgumentException, DimensionMismatchException {
+        MathUtils.checkNotNull(points);
+        MathUtils.checkNotNull(measure);
+        this.measure = measure;
+        this.points  = new ArrayList<T>(points);
+
+        final int n = this.points.size();
+        coordinates = new double[n][];
+        indices     = new int[n];
+        for (int i = 0; i < n; ++i) {
+            coordinates[i] = this.points.get(i).getPoint().clone();
+            indices[i]     = i;
+            if (coordinates[i].length != coordinates[0].length) {
+                throw new DimensionMismatchException(coordinates[i].length, coordinates[0].length);
+            }
+        }
+        dimension = n == 0 ? 0 : coordinates[0].length;
+    }
+
+    /**
+     * Get the distance measure.
+     *
+     * @return the distance measure.
+     */
+    public DistanceMeasure getDistanceMeasure() {
+        return measure;
+    }
+
+    /**
+     * Get the number of points in the index.
+     *
+     * @return the number of points.
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Get a point.
+     *
+     * @param index Index of the point, in the collection the index was built
+     * from.
+     * @return the point.
+     */
+    public T getPoint(final int index) {
+        return points.get(index);
+    }
+
+    /**
+     * Finds the points within a distance of a center.
+     *
+     * @param center Center of the query.
+     * @param radius Radius of the query.
+     * @return the points whose distance to {@code center} is smaller than
+     * or equal to {@code radius}, in their original order.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    public List<T> range(final Clusterable center, final double radius)
+        throws DimensionMismatchException {
+        return toPoints(rangeIndices(center.getPoint(), radius));
+    }
+
+    /**
+     * Finds the indices of the points within a distance of a center.
+     * <p>
+     * A point is part of the result if {@code measure.compute(point, center)}
+     * is smaller than or equal to the radius, exactly as a linear scan of
+     * the points would decide.
+     * </p>
+     *
+     * @param center Coordinates of the center of the query.
+     * @param radius Radius of the query.
+     * @return the indices, in increasing order, of the points whose distance
+     * to {@code center} is smaller than or equal to {@code radius}; the
+     * indices refer to the order of the collection the index was built from.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    public int[] rangeIndices(final double[] center, final double radius)
+        throws DimensionMismatchException {
+        checkDimension(center);
+        final IndexList found = new IndexList();
+        if (getRoot() != null) {
+            range(getRoot(), center, radius, found);
+        }
+        final int[] result = MathArrays.copyOf(found.data, found.size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the indices of the points within a distance of several centers.
+     *
+     * @param centers Coordinates of the centers of the queries.
+     * @param radius Radius of the queries.
+     * @param executor Executor running the queries (if {@code null}, they
+     * are run in the calling thread).
+     * @return for each center, the result of {@link #rangeIndices(double[],
+     * double) rangeIndices}.
+     * @throws DimensionMismatchException if the dimension of a center is not
+     * the dimension of the points.
+     * @throws MathIllegalStateException if the calling thread is interrupted.
+     */
+    public int[][] rangeIndices(final double[][] centers, final double radius,
+                                final ExecutorService executor)
+        throws DimensionMismatchException, MathIllegalStateException {
+        for (final double[] center : centers) {
+            checkDimension(center);
+        }
+        final int[][] results = new int[centers.length][];
+        forAllQueries(centers.length, executor, new QueryRange() {
+            /** {@inheritDoc} */
+            public void run(final int first, final int last) {
+                for (int q = first; q < last; ++q) {
+                    results[q] = rangeIndices(centers[q], radius);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Finds the nearest neighbors of a point.
+     *
+     * @param center Center of the query.
+     * @param k Number of neighbors to find.
+     * @return the {@code k} points closest to {@code center} (or all points
+     * if there are less than {@code k}), by increasing distance.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    public List<T> nearest(final Clusterable center, final int k)
+        throws NotStrictlyPositiveException, DimensionMismatchException {
+        return toPoints(nearestIndices(center.getPoint(), k, 0));
+    }
+
+    /**
+     * Finds the indices of the nearest neighbors of a point.
+     *
+     * @param center Coordinates of the center of the query.
+     * @param k Number of neighbors to find.
+     * @return the indices of the {@code k} points closest to {@code center}
+     * (or of all points if there are less than {@code k}), by increasing
+     * distance, then by increasing index.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    public int[] nearestIndices(final double[] center, final int k)
+        throws NotStrictlyPositiveException, DimensionMismatchException {
+        return nearestIndices(center, k, 0);
+    }
+
+    /**
+     * Finds the indices of approximate nearest neighbors of a point.
+     * <p>
+     * With a strictly positive {@code epsilon}, the search skips the nodes
+     * which cannot contain points more than {@code 1 + epsilon} times closer
+     * than the {@code k}-th point found so far. The i-th point returned is
+     * then at most {@code 1 + epsilon} times farther from the center than
+     * the true i-th nearest neighbor, and much fewer distances are usually
+     * computed. With {@code epsilon = 0}, the search is exact.
+     * </p>
+     * <p>
+     * Points whose distance to the center is not a number are ignored.
+     * </p>
+     *
+     * @param center Coordinates of the center of the query.
+     * @param k Number of neighbors to find.
+     * @param epsilon Relative tolerance on the distances.
+     * @return the indices of the {@code k} points found (or of all points if
+     * there are less than {@code k}), by increasing distance, then by
+     * increasing index.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     * @throws NotPositiveException if {@code epsilon < 0}.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    public int[] nearestIndices(final double[] center, final int k, final double epsilon)
+        throws NotStrictlyPositiveException, NotPositiveException, DimensionMismatchException {
+        checkNearest(center, k, epsilon);
+        final Neighbors neighbors = new Neighbors(FastMath.min(k, size()));
+        if (getRoot() != null) {
+            nearest(getRoot(), getRoot().lowerBound(center), center, 1 + epsilon, neighbors);
+        }
+        return neighbors.sorted();
+    }
+
+    /**
+     * Finds the indices of approximate nearest neighbors of several points.
+     *
+     * @param centers Coordinates of the centers of the queries.
+     * @param k Number of neighbors to find.
+     * @param epsilon Relative tolerance on the distances (0 for exact
+     * searches).
+     * @param executor Executor running the queries (if {@code null}, they
+     * are run in the calling thread).
+     * @return for each center, the result of {@link #nearestIndices(double[],
+     * int, double) nearestIndices}.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     * @throws NotPositiveException if {@code epsilon < 0}.
+     * @throws DimensionMismatchException if the dimension of a center is not
+     * the dimension of the points.
+     * @throws MathIllegalStateException if the calling thread is interrupted.
+     */
+    public int[][] nearestIndices(final double[][] centers, final int k, final double epsilon,
+                                  final ExecutorService executor)
+        throws NotStrictlyPositiveException, NotPositiveException,
+               DimensionMismatchException, MathIllegalStateException {
+        for (final double[] center : centers) {
+            checkNearest(center, k, epsilon);
+        }
+        final int[][] results = new int[centers.length][];
+        forAllQueries(centers.length, executor, new QueryRange() {
+            /** {@inheritDoc} */
+            public void run(final int first, final int last) {
+                for (int q = first; q < last; ++q) {
+                    results[q] = nearestIndices(centers[q], k, epsilon);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Get the root of the tree.
+     *
+     * @return the root of the tree, or {@code null} if there are no points.
+     */
+    abstract Node getRoot();
+
+    /**
+     * Get the dimension of the points.
+     *
+     * @return the dimension of the points (0 if there are no points).
+     */
+    int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the coordinates of the points, in the order of the tree.
+     * <p>
+     * Subclasses reorder the coordinates while building the tree, using
+     * {@link #swap(int, int)}.
+     * </p>
+     *
+     * @return the coordinates of the points (not a copy).
+     */
+    double[][] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Swaps two points of the tree.
+     *
+     * @param i Index of the first point, in the order of the tree.
+     * @param j Index of the second point, in the order of the tree.
+     */
+    void swap(final int i, final int j) {
+        final double[] c = coordinates[i];
+        coordinates[i] = coordinates[j];
+        coordinates[j] = c;
+        final int index = indices[i];
+        indices[i] = indices[j];
+        indices[j] = index;
+    }
+
+    /**
+     * Finds the points of a subtree within a distance of a center.
+     *
+     * @param node Root of the subtree.
+     * @param center Coordinates of the center of the query.
+     * @param radius Radius of the query.
+     * @param found List where the indices of the points found are added.
+     */
+    private void range(final Node node, final double[] center, final double radius,
+                       final IndexList found) {
+        if (node.lowerBound(center) > radius) {
+            return;
+        }
+        if (node.left == null) {
+            for (int i = node.start; i < node.end; ++i) {
+                if (measure.compute(coordinates[i], center) <= radius) {
+                    found.add(indices[i]);
+                }
+            }
+        } else {
+            range(node.left,  center, radius, found);
+            range(node.right, center, radius, found);
+        }
+    }
+
+    /**
+     * Finds the nearest neighbors of a point in a subtree.
+     *
+     * @param node Root of the subtree.
+     * @param bound Lower bound of the distance between the center and the
+     * points of the subtree.
+     * @param center Coordinates of the center of the query.
+     * @param factor Factor applied to the lower bounds ({@code 1 + epsilon}).
+     * @param neighbors Nearest neighbors found so far.
+     */
+    private void nearest(final Node node, final double bound, final double[] center,
+                         final double factor, final Neighbors neighbors) {
+        if (neighbors.isFull() && bound * factor > neighbors.farthest()) {
+            return;
+        }
+        if (node.left == null) {
+            for (int i = node.start; i < node.end; ++i) {
+                neighbors.offer(measure.compute(coordinates[i], center), indices[i]);
+            }
+        } else {
+            // visit the closest child first, to shrink the neighborhood early
+            final double leftBound  = node.left.lowerBound(center);
+            final double rightBound = node.right.lowerBound(center);
+            if (leftBound <= rightBound) {
+                nearest(node.left,  leftBound,  center, factor, neighbors);
+                nearest(node.right, rightBound, center, factor, neighbors);
+            } else {
+                nearest(node.right, rightBound, center, factor, neighbors);
+                nearest(node.left,  leftBound,  center, factor, neighbors);
+            }
+        }
+    }
+
+    /**
+     * Checks the parameters of a nearest neighbors query.
+     *
+     * @param center Coordinates of the center of the query.
+     * @param k Number of neighbors to find.
+     * @param epsilon Relative tolerance on the distances.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     * @throws NotPositiveException if {@code epsilon < 0}.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    private void checkNearest(final double[] center, final int k, final double epsilon)
+        throws NotStrictlyPositiveException, NotPositiveException, DimensionMismatchException {
+        if (k <= 0) {
+            throw new NotStrictlyPositiveException(k);
+        }
+        if (epsilon < 0) {
+            throw new NotPositiveException(epsilon);
+        }
+        checkDimension(center);
+    }
+
+    /**
+     * Checks the dimension of the center of a query.
+     *
+     * @param center Coordinates of the center of the query.
+     * @throws DimensionMismatchException if the dimension of {@code center}
+     * is not the dimension of the points.
+     */
+    private void checkDimension(final double[] center) throws DimensionMismatchException {
+        if (!points.isEmpty() && center.length != dimension) {
+            throw new DimensionMismatchException(center.length, dimension);
+        }
+    }
+
+    /**
+     * Converts indices to points.
+     *
+     * @param found Indices of the points.
+     * @return the points.
+     */
+    private List<T> toPoints(final int[] found) {
+        final List<T> result = new ArrayList<T>(found.length);
+        for (final int i : found) {
+            result.add(points.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Runs queries, possibly in parallel.
+     *
+     * @param n Number of queries.
+     * @param executor Executor (may be {@code null}).
+     * @param range Queries to run.
+     * @throws MathIllegalStateException if the calling thread is interrupted.
+     */
+    private static void forAllQueries(final int n, final ExecutorService executor,
+                                      final QueryRange range)
+        throws MathIllegalStateException {
+        final int tasks = executor == null ?
+                          1 : FastMath.min(n, 4 * ConcurrencyUtils.getDefaultParallelism());
+        final List<Callable<Void>> list = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; ++t) {
+            final int first = (int) (((long) n * t) / tasks);
+            final int last  = (int) (((long) n * (t + 1)) / tasks);
+            list.add(new Callable<Void>() {
+                /** {@inheritDoc} */
+                public Void call() {
+                    range.run(first, last);
+                    return null;
+                }
+            });
+        }
+        ConcurrencyUtils.invokeAll(executor, list);
+    }
+
+    /** Queries on a range of centers. */
+    private interface QueryRange {
+
+        /**
+         * Runs the queries.
+         *
+         * @param first Index of the first query.
+         * @param last Index after the last query.
+         */
+        void run(int first, int last);
+
+    }
+
+    /** Node of the tree. */
+    abstract static class Node {
+
+        /** Index of the first point of the node, in the order of the tree. */
+        final int start;
+
+        /** Index after the last point of the node, in the order of the tree. */
+        final int end;
+
+        /** Left child ({@code null} for leaves). */
+        final Node left;
+
+        /** Right child ({@code null} for leaves). */
+        final Node right;
+
+        /**
+         * @param start Index of the first point of the node.
+         * @param end Index after the last point of the node.
+         * @param left Left child ({@code null} for leaves).
+         * @param right Right child ({@code null} for leaves).
+         */
+        Node(final int start, final int end, final Node left, final Node right) {
+            this.start = start;
+            this.end   = end;
+            this.left  = left;
+            this.right = right;
+        }
+
+        /**
+         * Computes a lower bound of the distance between a point and the
+         * points of the node.
+         * <p>
+         * The bound must never exceed the distance computed by the measure
+         * between the point and any point of the node, rounding errors
+         * included.
+         * </p>
+         *
+         * @param p Point.
+         * @return a lower bound of the distance.
+         */
+        abstract double lowerBound(double[] p);
+
+    }
+
+    /** Growable list of indices. */
+    private static class IndexList {
+
+        /** Indices. */
+        private int[] data = new int[16];
+
+        /** Number of indices. */
+        private int size;
+
+        /**
+         * Adds an index.
+         *
+         * @param index Index to add.
+         */
+        void add(final int index) {
+            if (size == data.length) {
+                data = MathArrays.copyOf(data, 2 * size);
+            }
+            data[size++] = index;
+        }
+
+    }
+
+    /**
+     * Bounded set of the nearest neighbors found so far.
+     * <p>
+     * The neighbors are kept in a binary max-heap ordered by distance, then
+     * by index, so that the farthest one is replaced first.
+     * </p>
+     */
+    private static class Neighbors {
+
+        /** Distances of the neighbors. */
+        private final double[] distances;
+
+        /** Indices of the neighbors. */
+        private final int[] indices;
+
+        /** Number of neighbors found. */
+        private int size;
+
+        /**
+         * @param capacity Number of neighbors to find.
+         */
+        Neighbors(final int capacity) {
+            distances = new double[capacity];
+            indices   = new int[capacity];
+        }
+
+        /**
+         * Checks whether the set is full.
+         *
+         * @return {@code true} if as many neighbors as required were found.
+         */
+        boolean isFull() {
+            return size == distances.length;
+        }
+
+        /**
+         * Get the distance of the farthest neighbor.
+         *
+         * @return the distance of the farthest neighbor.
+         */
+        double farthest() {
+            return distances[0];
+        }
+
+        /**
+         * Offers a candidate neighbor.
+         *
+         * @param distance Distance of the candidate.
+         * @param index Index of the candidate.
+         */
+        void offer(final double distance, final int index) {
+            if (Double.isNaN(distance)) {
+                return;
+            }
+            if (!isFull()) {
+                // sift up
+                int i = size++;
+                while (i > 0) {
+                    final int parent = (i - 1) / 2;
+                    if (!after(distance, index, parent)) {
+                        break;
+                    }
+                    distances[i] = distances[parent];
+                    indices[i]   = indices[parent];
+                    i = parent;
+                }
+                distances[i] = distance;
+                indices[i]   = index;
+            } else if (size > 0 && !after(distance, index, 0)) {
+                replaceTop(distance, index);
+            }
+        }
+
+        /**
+         * Returns the indices of the neighbors, empties the set.
+         *
+         * @return the indices, by increasing distance, then by increasing index.
+         */
+        int[] sorted() {
+            final int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = indices[0];
+                --size;
+                if (size > 0) {
+                    replaceTop(distances[size], indices[size]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Replaces the farthest neighbor and restores the heap.
+         *
+         * @param distance Distance of the new neighbor.
+         * @param index Index of the new neighbor.
+         */
+        private void replaceTop(final double distance, final int index) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && after(distances[child + 1], indices[child + 1], child)) {
+                    ++child;
+                }
+                if (!after(distances[child], indices[child], distance, index)) {
+                    break;
+                }
+                distances[i] = distances[child];
+                indices[i]   = indices[child];
+                i = child;
+            }
+            distances[i] = distance;
+            indices[i]   = index;
+        }
+
+        /**
+         * Compares a candidate with a neighbor of the heap.
+         *
+         * @param distance Distance of the candidate.
+         * @param index Index of the candidate.
+         * @param position Position of the neighbor in the heap.
+         * @return {@code true} if the candidate comes after the neighbor.
+         */
+        private boolean after(final double distance, final int index, final int position) {
+            return after(distance, index, distances[position], indices[position]);
+        }
+
+        /**
+         * Compares two candidates.
+         *
+         * @param d1 Distance of the first candidate.
+         * @param i1 Index of the first candidate.
+         * @param d2 Distance of the second candidate.
+         * @param i2 Index of the second candidate.
+         * @return {@code true} if the first candidate comes after the second one.
+         */
+        private static boolean after(final double d1, final int i1, final double d2, final int i2) {
+            return d1 > d2 || (d1 == d2 && i1 > i2);
+        }
+
+    }
+
+}
@@ -316,6 +316,7 @@ public abstract class AbstractIntegrator implements FirstOrderIntegrator {
 
             double previousT = interpolator.getGlobalPreviousTime();
             final double currentT = interpolator.getGlobalCurrentTime();
+            resetOccurred = false;
 
             // initialize the events states if needed
             if (! statesInitialized) {
@@ -326,24 +327,30 @@ public abstract class AbstractIntegrator implements FirstOrderIntegrator {
             }
 
             // search for next events that may occur during the step
+            // (the sorted set is built only if some event really occurs,
+            //  so steps without events do not allocate anything)
             final int orderingSign = interpolator.isForward() ? +1 : -1;
-            SortedSet<EventState> occurringEvents = new TreeSet<EventState>(new Comparator<EventState>() {
-
-                /** {@inheritDoc} */
-                public int compare(EventState es0, EventState es1) {
-                    return orderingSign * Double.compare(es0.getEventTime(), es1.getEventTime());
-                }
-
-            });
-
-            for (final EventState state : eventsStates) {
-                if (state.evaluateStep(interpolator)) {
-                    // the event occurs during the current step
-                    occurringEvents.add(state);
+            SortedSet<EventState> occurringEvents = null;
+            if (!eventsStates.isEmpty()) {
+                for (final EventState state : eventsStates) {
+                    if (state.evaluateStep(interpolator)) {
+                        // the event occurs during the current step
+                        if (occurringEvents == null) {
+                            occurringEvents = new TreeSet<EventState>(new Comparator<EventState>() {
+
+                                /** {@inheritDoc} */
+                                public int compare(EventState es0, EventState es1) {
+                                    return orderingSign * Double.compare(es0.getEventTime(), es1.getEventTime());
+                                }
+
+                            });
+                        }
+                        occurringEvents.add(state);
+                    }
                 }
             }
 
-            while (!occurringEvents.isEmpty()) {
+            while (occurringEvents != null && !occurringEvents.isEmpty()) {
 
                 // handle the chronologically first event
                 final Iterator<EventState> iterator = occurringEvents.iterator();
@@ -412,17 +419,19 @@ public abstract class AbstractIntegrator implements FirstOrderIntegrator {
 
             // last part of the step, after the last event
             interpolator.setInterpolatedTime(currentT);
-            final double[] currentY = new double[y.length];
-            expandable.getPrimaryMapper().insertEquationData(interpolator.getInterpolatedState(),
-                                                             currentY);
-            int index = 0;
-            for (EquationsMapper secondary : expandable.getSecondaryMappers()) {
-                secondary.insertEquationData(interpolator.getInterpolatedSecondaryState(index++),
-                                             currentY);
-            }
-            for (final EventState state : eventsStates) {
-                state.stepAccepted(currentT, currentY);
-                isLastStep = isLastStep || state.stop();
+            if (!eventsStates.isEmpty()) {
+                final double[] currentY = new double[y.length];
+                expandable.getPrimaryMapper().insertEquationData(interpolator.getInterpolatedState(),
+                                                                 currentY);
+                int index = 0;
+                for (EquationsMapper secondary : expandable.getSecondaryMappers()) {
+                    secondary.insertEquationData(interpolator.getInterpolatedSecondaryState(index++),
+                                                 currentY);
+                }
+                for (final EventState state : eventsStates) {
+                    state.stepAccepted(currentT, currentY);
+                    isLastStep = isLastStep || state.stop();
+                }
             }
             isLastStep = isLastStep || Precision.equals(currentT, tEnd, 1);
 
@@ -105,6 +105,13 @@ public class ExpandableStatefulODE {
     }
 
     /** Get the current time derivative of the complete state vector.
+     * <p>
+     * When no secondary equations have been added, the complete state is
+     * the primary state, so the arrays are handed directly to the primary
+     * equations without any intermediate copy; the state and its derivative
+     * are still saved so that {@link #getPrimaryState()} and {@link
+     * #getPrimaryStateDot()} remain up to date.
+     * </p>
      * @param t current value of the independent <I>time</I> variable
      * @param y array containing the current value of the complete state vector
      * @param yDot placeholder array where to put the time derivative of the complete state vector
@@ -114,12 +121,22 @@ public class ExpandableStatefulODE {
     public void computeDerivatives(final double t, final double[] y, final double[] yDot)
         throws MaxCountExceededException, DimensionMismatchException {
 
+        if (components.isEmpty() &&
+            y.length == primaryState.length && yDot.length == primaryStateDot.length) {
+            // the complete state is the primary state, no intermediate copy is needed
+            System.arraycopy(y, 0, primaryState, 0, y.length);
+            primary.computeDerivatives(t, y, yDot);
+            System.arraycopy(yDot, 0, primaryStateDot, 0, yDot.length);
+            return;
+        }
+
         // compute derivatives of the primary equations
         primaryMapper.extractEquationData(y, primaryState);
         primary.computeDerivatives(t, primaryState, primaryStateDot);
 
         // Add contribution for secondary equations
-        for (final SecondaryComponent component : components) {
+        for (int i = 0; i < components.size(); ++i) {
+            final SecondaryComponent component = components.get(i);
             component.mapper.extractEquationData(y, component.state);
             component.equation.computeDerivatives(t, primaryState, primaryStateDot,
                                                   component.state, component.stateDot);
@@ -230,7 +230,12 @@ public abstract class MultistepIntegrator extends AdaptiveStepsizeIntegrator {
         try {
 
             if (starter instanceof AbstractIntegrator) {
-                ((AbstractIntegrator) starter).integrate(getExpandable(), t);
+                // the starter integrator begins from the current time and state of the
+                // expandable equations, which are not updated during integration
+                final ExpandableStatefulODE expandable = getExpandable();
+                expandable.setTime(t0);
+                expandable.setCompleteState(y0);
+                ((AbstractIntegrator) starter).integrate(expandable, t);
             } else {
                 starter.integrate(new FirstOrderDifferentialEquations() {
 
@@ -219,6 +219,9 @@ class DormandPrince853StepInterpolator
     /** Initialization indicator for the interpolation vectors. */
     private boolean vectorsInitialized;
 
+    /** Work array for the last evaluations. */
+    private double[] yTmp;
+
   /** Simple constructor.
    * This constructor builds an instance that is not usable yet, the
    * {@link #reinitialize} method should be called before using the
@@ -290,14 +293,18 @@ class DormandPrince853StepInterpolator
 
     final int dimension = currentState.length;
 
-    yDotKLast = new double[3][];
-    for (int k = 0; k < yDotKLast.length; ++k) {
-      yDotKLast[k] = new double[dimension];
+    if (yDotKLast == null || yDotKLast[0] == null || yDotKLast[0].length != dimension) {
+      yDotKLast = new double[3][];
+      for (int k = 0; k < yDotKLast.length; ++k) {
+        yDotKLast[k] = new double[dimension];
+      }
     }
 
-    v = new double[7][];
-    for (int k = 0; k < v.length; ++k) {
-      v[k]  = new double[dimension];
+    if (v == null || v[0].length != dimension) {
+      v = new double[7][];
+      for (int k = 0; k < v.length; ++k) {
+        v[k]  = new double[dimension];
+      }
     }
 
     vectorsInitialized = false;
@@ -412,7 +419,9 @@ class DormandPrince853StepInterpolator
       }
 
       double s;
-      final double[] yTmp = new double[currentState.length];
+      if (yTmp == null || yTmp.length != currentState.length) {
+          yTmp = new double[currentState.length];
+      }
       final double pT = getGlobalPreviousTime();
 
       // k14
@@ -76,8 +76,8 @@ public abstract class EmbeddedRungeKuttaIntegrator
     /** External weights for the high order method from Butcher array. */
     private final double[] b;
 
-    /** Prototype of the step interpolator. */
-    private final RungeKuttaStepInterpolator prototype;
+    /** Reusable work arrays and step interpolator. */
+    private final RungeKuttaWorkspace workspace;
 
     /** Stepsize control exponent. */
     private final double exp;
@@ -120,7 +120,7 @@ public abstract class EmbeddedRungeKuttaIntegrator
     this.c         = c;
     this.a         = a;
     this.b         = b;
-    this.prototype = prototype;
+    this.workspace = new RungeKuttaWorkspace(prototype, c.length + 1);
 
     exp = -1.0 / getOrder();
 
@@ -158,7 +158,7 @@ public abstract class EmbeddedRungeKuttaIntegrator
     this.c         = c;
     this.a         = a;
     this.b         = b;
-    this.prototype = prototype;
+    this.workspace = new RungeKuttaWorkspace(prototype, c.length + 1);
 
     exp = -1.0 / getOrder();
 
@@ -198,19 +198,15 @@ public abstract class EmbeddedRungeKuttaIntegrator
     setEquations(equations);
     final boolean forward = t > equations.getTime();
 
-    // create some internal working arrays
+    // retrieve the internal working arrays, reused from one integration to the next
     final double[] y0  = equations.getCompleteState();
-    final double[] y = y0.clone();
-    final int stages = c.length + 1;
-    final double[][] yDotK = new double[stages][y.length];
-    final double[] yTmp    = y0.clone();
-    final double[] yDotTmp = new double[y.length];
-
-    // set up an interpolator sharing the integrator arrays
-    final RungeKuttaStepInterpolator interpolator = (RungeKuttaStepInterpolator) prototype.copy();
-    interpolator.reinitialize(this, yTmp, yDotK, forward,
-                              equations.getPrimaryMapper(), equations.getSecondaryMappers());
-    interpolator.storeTime(equations.getTime());
+    workspace.setUp(this, equations, y0, forward);
+    final double[] y       = workspace.getY();
+    final int stages       = c.length + 1;
+    final double[][] yDotK = workspace.getYDotK();
+    final double[] yTmp    = workspace.getYTmp();
+    final double[] yDotTmp = workspace.getYDotTmp();
+    final RungeKuttaStepInterpolator interpolator = workspace.getInterpolator();
 
     // set up integration control objects
     stepStart         = equations.getTime();
@@ -62,8 +62,8 @@ public abstract class RungeKuttaIntegrator extends AbstractIntegrator {
     /** External weights for the high order method from Butcher array. */
     private final double[] b;
 
-    /** Prototype of the step interpolator. */
-    private final RungeKuttaStepInterpolator prototype;
+    /** Reusable work arrays and step interpolator. */
+    private final RungeKuttaWorkspace workspace;
 
     /** Integration step. */
     private final double step;
@@ -86,7 +86,7 @@ public abstract class RungeKuttaIntegrator extends AbstractIntegrator {
     this.c          = c;
     this.a          = a;
     this.b          = b;
-    this.prototype  = prototype;
+    this.workspace  = new RungeKuttaWorkspace(prototype, c.length + 1);
     this.step       = FastMath.abs(step);
   }
 
@@ -100,22 +100,15 @@ public abstract class RungeKuttaIntegrator extends AbstractIntegrator {
     setEquations(equations);
     final boolean forward = t > equations.getTime();
 
-    // create some internal working arrays
+    // retrieve the internal working arrays, reused from one integration to the next
     final double[] y0      = equations.getCompleteState();
-    final double[] y       = y0.clone();
+    workspace.setUp(this, equations, y0, forward);
+    final double[] y       = workspace.getY();
     final int stages       = c.length + 1;
-    final double[][] yDotK = new double[stages][];
-    for (int i = 0; i < stages; ++i) {
-      yDotK [i] = new double[y0.length];
-    }
-    final double[] yTmp    = y0.clone();
-    final double[] yDotTmp = new double[y0.length];
-
-    // set up an interpolator sharing the integrator arrays
-    final RungeKuttaStepInterpolator interpolator = (RungeKuttaStepInterpolator) prototype.copy();
-    interpolator.reinitialize(this, yTmp, yDotK, forward,
-                              equations.getPrimaryMapper(), equations.getSecondaryMappers());
-    interpolator.storeTime(equations.getTime());
+    final double[][] yDotK = workspace.getYDotK();
+    final double[] yTmp    = workspace.getYTmp();
+    final double[] yDotTmp = workspace.getYDotTmp();
+    final RungeKuttaStepInterpolator interpolator = workspace.getInterpolator();
 
     // set up integration control objects
     stepStart = equations.getTime();
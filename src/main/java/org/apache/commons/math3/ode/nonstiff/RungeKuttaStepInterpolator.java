@@ -140,7 +140,12 @@ abstract class RungeKuttaStepInterpolator
   /** {@inheritDoc} */
   @Override
   public void shift() {
-    previousState = currentState.clone();
+    if (previousState == null || previousState.length != currentState.length) {
+      previousState = currentState.clone();
+    } else {
+      // reuse the array allocated at previous steps
+      System.arraycopy(currentState, 0, previousState, 0, currentState.length);
+    }
     super.shift();
   }
 
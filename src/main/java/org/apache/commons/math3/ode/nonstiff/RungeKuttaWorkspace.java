@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.nonstiff;
+
+import org.apache.commons.math3.ode.AbstractIntegrator;
+import org.apache.commons.math3.ode.ExpandableStatefulODE;
+
+/**
+ * Work arrays and step interpolator reused by Runge-Kutta integrators.
+ * <p>
+ * Integrators are often called many times in a row on small problems
+ * of the same dimension. This class keeps the arrays used by the step
+ * loop from one integration to the next, so they are allocated only
+ * when the dimension of the problem changes. The step interpolator is
+ * also kept and reinitialized at each integration, step handlers that
+ * need to preserve it after the step has been handled must copy it, as
+ * required by the {@link org.apache.commons.math3.ode.sampling.StepHandler
+ * StepHandler} contract.
+ * </p>
+ * <p>
+ * As the integrators themselves, instances of this class are <em>not</em>
+ * thread-safe.
+ * </p>
+ * @version $Id$
+ * @since 3.3
+ */
+class RungeKuttaWorkspace {
+
+    /** Prototype of the step interpolator. */
+    private final RungeKuttaStepInterpolator prototype;
+
+    /** Number of stages of the method. */
+    private final int stages;
+
+    /** Current state. */
+    private double[] y;
+
+    /** Intermediate and end of step state, shared with the interpolator. */
+    private double[] yTmp;
+
+    /** End of step derivative. */
+    private double[] yDotTmp;
+
+    /** Stages derivatives, shared with the interpolator. */
+    private double[][] yDotK;
+
+    /** Step interpolator sharing the work arrays. */
+    private RungeKuttaStepInterpolator interpolator;
+
+    /** Simple constructor.
+     * @param prototype prototype of the step interpolator
+     * @param stages number of stages of the method
+     */
+    RungeKuttaWorkspace(final RungeKuttaStepInterpolator prototype, final int stages) {
+        this.prototype = prototype;
+        this.stages    = stages;
+    }
+
+    /** Prepare the workspace for a new integration.
+     * <p>
+     * The arrays are allocated only if their dimension does not match
+     * the dimension of the equations, the current and intermediate
+     * states are initialized with the initial state.
+     * </p>
+     * @param integrator integrator using the workspace
+     * @param equations equations to integrate
+     * @param y0 initial complete state
+     * @param forward integration direction indicator
+     */
+    void setUp(final AbstractIntegrator integrator, final ExpandableStatefulODE equations,
+               final double[] y0, final boolean forward) {
+
+        if (y == null || y.length != y0.length) {
+            y       = new double[y0.length];
+            yTmp    = new double[y0.length];
+            yDotTmp = new double[y0.length];
+            yDotK   = new double[stages][y0.length];
+        }
+        System.arraycopy(y0, 0, y,    0, y0.length);
+        System.arraycopy(y0, 0, yTmp, 0, y0.length);
+
+        // set up an interpolator sharing the integrator arrays
+        if (interpolator == null) {
+            interpolator = (RungeKuttaStepInterpolator) prototype.copy();
+        }
+        interpolator.reinitialize(integrator, yTmp, yDotK, forward,
+                                  equations.getPrimaryMapper(), equations.getSecondaryMappers());
+        interpolator.storeTime(equations.getTime());
+
+    }
+
+    /** Get the current state array.
+     * @return current state array
+     */
+    double[] getY() {
+        return y;
+    }
+
+    /** Get the intermediate state array.
+     * @return intermediate state array
+     */
+    double[] getYTmp() {
+        return yTmp;
+    }
+
+    /** Get the end of step derivative array.
+     * @return end of step derivative array
+     */
+    double[] getYDotTmp() {
+        return yDotTmp;
+    }
+
+    /** Get the stages derivatives arrays.
+     * @return stages derivatives arrays
+     */
+    double[][] getYDotK() {
+        return yDotK;
+    }
+
+    /** Get the step interpolator.
+     * @return step interpolator sharing the workspace arrays
+     */
+    RungeKuttaStepInterpolator getInterpolator() {
+        return interpolator;
+    }
+
+}
@@ -258,10 +258,36 @@ public abstract class AbstractStepInterpolator
     this.dirtyState       = true;
     this.primaryMapper    = primary;
     this.secondaryMappers = secondary.clone();
-    allocateInterpolatedArrays(y.length);
+    if (!interpolatedArraysMatch(y.length)) {
+        allocateInterpolatedArrays(y.length);
+    }
 
   }
 
+  /** Check if the interpolated states arrays can be reused as is.
+   * @param dimension total dimension
+   * @return true if the already allocated arrays have the right dimensions
+   */
+  private boolean interpolatedArraysMatch(final int dimension) {
+      if (interpolatedState == null || interpolatedState.length != dimension ||
+          interpolatedPrimaryState.length != primaryMapper.getDimension()) {
+          return false;
+      }
+      if (secondaryMappers == null) {
+          return interpolatedSecondaryState == null;
+      }
+      if (interpolatedSecondaryState == null ||
+          interpolatedSecondaryState.length != secondaryMappers.length) {
+          return false;
+      }
+      for (int i = 0; i < secondaryMappers.length; ++i) {
+          if (interpolatedSecondaryState[i].length != secondaryMappers[i].getDimension()) {
+              return false;
+          }
+      }
+      return true;
+  }
+
   /** {@inheritDoc} */
    public StepInterpolator copy() throws MaxCountExceededException {
 
@@ -0,0 +1,577 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NoBracketingException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.ode.ExpandableStatefulODE;
+import org.apache.commons.math3.ode.nonstiff.AdaptiveStepsizeIntegrator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * This class implements a variable order backward differentiation formulas
+ * integrator for stiff Ordinary Differential Equations.
+ *
+ * <p>Backward differentiation formulas (BDF) are implicit multistep methods.
+ * At order k, the state y<sub>n+1</sub> is the solution of
+ * <pre>
+ *   &sum;<sub>j=1..k</sub> &nabla;<sup>j</sup>y<sub>n+1</sub> / j = h f(t<sub>n+1</sub>, y<sub>n+1</sub>)
+ * </pre>
+ * where &nabla; is the backward difference operator. This nonlinear system
+ * is solved by a simplified Newton method, starting from the extrapolation
+ * of the k+1 previous states. The order varies between 1 and a user
+ * specified maximal order (at most 5) and the local error is estimated from
+ * the difference between the predicted and the corrected states.</p>
+ *
+ * <p>The implementation follows the quasi-constant step size scheme of
+ * Shampine and Reichelt (<i>The MATLAB ODE Suite</i>, SIAM Journal on
+ * Scientific Computing, volume 18, no 1, 1997, pp. 1-22): the backward
+ * differences are interpolated on an evenly spaced grid each time the
+ * step size changes. In order to reuse the iteration matrix I - h J / &gamma;<sub>k</sub>
+ * across steps, the step size and the order are changed only after k+2
+ * successful steps with the same parameters, or after a failure. The LU
+ * decomposition of the iteration matrix is therefore computed again only
+ * when the step size or the order change, and the jacobian is evaluated
+ * again only when the Newton iterations fail to converge with an outdated
+ * one.</p>
+ *
+ * <p>The dense output uses the interpolating polynomial of the formula,
+ * so it does not need any additional derivatives evaluation.</p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+
+public class BDFIntegrator extends AdaptiveStepsizeIntegrator {
+
+    /** Integrator method name. */
+    private static final String METHOD_NAME = "BDF";
+
+    /** Maximal supported order. */
+    private static final int MAX_ORDER = 5;
+
+    /** Maximal number of Newton iterations per step. */
+    private static final int MAX_NEWTON_ITERATIONS = 4;
+
+    /** Convergence threshold of the Newton iterations, relative to the error tolerance. */
+    private static final double NEWTON_TOLERANCE = 0.1;
+
+    /** Sums &gamma;<sub>k</sub> = &sum;<sub>j=1..k</sub> 1/j of the formulas coefficients. */
+    private static final double[] G = {
+        1.0, 3.0 / 2.0, 11.0 / 6.0, 25.0 / 12.0, 137.0 / 60.0
+    };
+
+    /** Maximal order. */
+    private final int maxOrder;
+
+    /** Jacobian evaluator used by the last integration. */
+    private JacobianEvaluator evaluator;
+
+    /** Error tolerances of the current integration. */
+    private Tolerances tolerances;
+
+    /** Number of LU decompositions performed during the last integration. */
+    private int decompositions;
+
+    /** Simple constructor.
+     * Build a BDF integrator with the given step bounds and maximal order 5
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param scalAbsoluteTolerance allowed absolute error
+     * @param scalRelativeTolerance allowed relative error
+     */
+    public BDFIntegrator(final double minStep, final double maxStep,
+                         final double scalAbsoluteTolerance,
+                         final double scalRelativeTolerance) {
+        this(MAX_ORDER, minStep, maxStep, scalAbsoluteTolerance, scalRelativeTolerance);
+    }
+
+    /** Simple constructor.
+     * Build a BDF integrator with the given step bounds and maximal order 5
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param vecAbsoluteTolerance allowed absolute error
+     * @param vecRelativeTolerance allowed relative error
+     */
+    public BDFIntegrator(final double minStep, final double maxStep,
+                         final double[] vecAbsoluteTolerance,
+                         final double[] vecRelativeTolerance) {
+        this(MAX_ORDER, minStep, maxStep, vecAbsoluteTolerance, vecRelativeTolerance);
+    }
+
+    /** Build a BDF integrator with the given maximal order and step bounds.
+     * <p>Lower maximal orders are more stable: the formulas of order 1 and 2
+     * are A-stable whereas higher orders are only A(&alpha;)-stable, which may
+     * be a concern for problems with eigenvalues close to the imaginary axis.</p>
+     * @param maxOrder maximal order of the formulas (between 1 and 5)
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param scalAbsoluteTolerance allowed absolute error
+     * @param scalRelativeTolerance allowed relative error
+     * @exception OutOfRangeException if the maximal order is not between 1 and 5
+     */
+    public BDFIntegrator(final int maxOrder,
+                         final double minStep, final double maxStep,
+                         final double scalAbsoluteTolerance,
+                         final double scalRelativeTolerance)
+        throws OutOfRangeException {
+        super(METHOD_NAME, minStep, maxStep, scalAbsoluteTolerance, scalRelativeTolerance);
+        if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+            throw new OutOfRangeException(maxOrder, 1, MAX_ORDER);
+        }
+        this.maxOrder = maxOrder;
+    }
+
+    /** Build a BDF integrator with the given maximal order and step bounds.
+     * <p>Lower maximal orders are more stable: the formulas of order 1 and 2
+     * are A-stable whereas higher orders are only A(&alpha;)-stable, which may
+     * be a concern for problems with eigenvalues close to the imaginary axis.</p>
+     * @param maxOrder maximal order of the formulas (between 1 and 5)
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param vecAbsoluteTolerance allowed absolute error
+     * @param vecRelativeTolerance allowed relative error
+     * @exception OutOfRangeException if the maximal order is not between 1 and 5
+     */
+    public BDFIntegrator(final int maxOrder,
+                         final double minStep, final double maxStep,
+                         final double[] vecAbsoluteTolerance,
+                         final double[] vecRelativeTolerance)
+        throws OutOfRangeException {
+        super(METHOD_NAME, minStep, maxStep, vecAbsoluteTolerance, vecRelativeTolerance);
+        if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+            throw new OutOfRangeException(maxOrder, 1, MAX_ORDER);
+        }
+        this.maxOrder = maxOrder;
+    }
+
+    /** Get the maximal order of the formulas.
+     * @return maximal order of the formulas
+     */
+    public int getMaxOrder() {
+        return maxOrder;
+    }
+
+    /** Get the number of jacobian evaluations performed during the last integration.
+     * @return number of jacobian evaluations
+     */
+    public int getJacobianEvaluations() {
+        return (evaluator == null) ? 0 : evaluator.getEvaluations();
+    }
+
+    /** Get the number of LU decompositions performed during the last integration.
+     * @return number of LU decompositions
+     */
+    public int getDecompositions() {
+        return decompositions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void integrate(final ExpandableStatefulODE equations, final double t)
+        throws NumberIsTooSmallException, DimensionMismatchException,
+               MaxCountExceededException, NoBracketingException {
+
+        sanityChecks(equations, t);
+        setEquations(equations);
+        final boolean forward = t > equations.getTime();
+
+        // create some internal working arrays
+        final double[] y0      = equations.getCompleteState();
+        final double[] y       = y0.clone();
+        final int n            = y.length;
+        final double[] yNew    = y0.clone();
+        final double[] yDot    = new double[n];
+        final double[] yDotTmp = new double[n];
+        final double[] pred    = new double[n];
+        final double[] psi     = new double[n];
+        final double[] difKp1  = new double[n];
+        final double[] rhs     = new double[n];
+        final double[][] dif   = new double[maxOrder + 2][n];
+        final double[][] dFdY  = new double[n][n];
+        final Array2DRowRealMatrix matrix = new Array2DRowRealMatrix(n, n);
+        DecompositionSolver solver = null;
+
+        tolerances     = new Tolerances(scalAbsoluteTolerance, scalRelativeTolerance,
+                                        vecAbsoluteTolerance, vecRelativeTolerance,
+                                        mainSetDimension);
+        evaluator      = new JacobianEvaluator(this, equations, tolerances.threshold(n));
+        decompositions = 0;
+
+        // set up an interpolator sharing the integrator arrays
+        final BDFStepInterpolator interpolator = new BDFStepInterpolator();
+        interpolator.reinitialize(yNew, dif, forward,
+                                  equations.getPrimaryMapper(), equations.getSecondaryMappers());
+        interpolator.storeTime(equations.getTime());
+
+        // set up integration control objects
+        stepStart = equations.getTime();
+        initIntegration(equations.getTime(), y0, t);
+        computeDerivatives(stepStart, y, yDot);
+        final double[] scale = new double[mainSetDimension];
+        for (int i = 0; i < scale.length; ++i) {
+            scale[i] = tolerances.allowedError(i, FastMath.abs(y[i]));
+        }
+        stepSize = initializeStep(forward, 2, scale, stepStart, y, yDot, yNew, yDotTmp);
+        System.arraycopy(y, 0, yNew, 0, n);
+
+        // start at order 1, with exact jacobian
+        int k = 1;
+        for (int i = 0; i < n; ++i) {
+            dif[0][i] = stepSize * yDot[i];
+        }
+        evaluator.evaluate(stepStart, y, yDot, dFdY);
+        boolean jacobianCurrent = true;
+        boolean decompose       = true;
+        int     unchanged       = 0;
+        double  rate            = 0;
+        boolean haveRate        = false;
+
+        // main integration loop
+        isLastStep = false;
+        do {
+
+            interpolator.shift();
+
+            // don't step past the target time
+            if (forward ? (stepStart + stepSize > t) : (stepStart + stepSize < t)) {
+                rescale(dif, k, (t - stepStart) / stepSize);
+                stepSize  = t - stepStart;
+                unchanged = 0;
+                decompose = true;
+            }
+
+            // iterate over step size, ensuring local normalized error is smaller than 1
+            double error = 10;
+            int failures = 0;
+            while (error > 1.0) {
+
+                if (decompose) {
+                    // decompose I - h J / gamma_k
+                    final double[][] data = matrix.getDataRef();
+                    final double factor = stepSize / G[k - 1];
+                    for (int i = 0; i < n; ++i) {
+                        for (int j = 0; j < n; ++j) {
+                            data[i][j] = -factor * dFdY[i][j];
+                        }
+                        data[i][i] += 1.0;
+                    }
+                    solver    = new LUDecomposition(matrix).getSolver();
+                    decompose = false;
+                    haveRate  = false;
+                    ++decompositions;
+                }
+
+                // predict the new state by extrapolation
+                final double tNew = stepStart + stepSize;
+                for (int i = 0; i < n; ++i) {
+                    double sumPred = y[i];
+                    double sumPsi  = 0;
+                    for (int j = 0; j < k; ++j) {
+                        sumPred += dif[j][i];
+                        sumPsi  += G[j] * dif[j][i];
+                    }
+                    pred[i]   = sumPred;
+                    psi[i]    = sumPsi / G[k - 1];
+                    yNew[i]   = sumPred;
+                    difKp1[i] = 0;
+                }
+
+                // correct it using simplified Newton iterations
+                final double hOverG  = stepSize / G[k - 1];
+                final double minNorm = 100 * Precision.EPSILON * norm(yNew, y, yNew);
+                double  oldNorm   = 0;
+                boolean converged = false;
+                boolean singular  = !solver.isNonSingular();
+                for (int iter = 1; !(singular || converged) && iter <= MAX_NEWTON_ITERATIONS; ++iter) {
+
+                    computeDerivatives(tNew, yNew, yDotTmp);
+                    for (int i = 0; i < n; ++i) {
+                        rhs[i] = hOverG * yDotTmp[i] - (psi[i] + difKp1[i]);
+                    }
+                    final double[] delta = solver.solve(new ArrayRealVector(rhs, false)).toArray();
+                    final double newNorm = norm(delta, y, yNew);
+                    for (int i = 0; i < n; ++i) {
+                        difKp1[i] += delta[i];
+                        yNew[i]    = pred[i] + difKp1[i];
+                    }
+
+                    if (newNorm <= minNorm) {
+                        converged = true;
+                    } else if (iter == 1) {
+                        if (haveRate) {
+                            converged = newNorm * rate / (1 - rate) <= NEWTON_TOLERANCE;
+                        } else {
+                            rate = 0;
+                        }
+                    } else if (newNorm > 0.9 * oldNorm) {
+                        // convergence is too slow
+                        break;
+                    } else {
+                        rate     = FastMath.max(0.9 * rate, newNorm / oldNorm);
+                        haveRate = true;
+                        final double estimate = newNorm * rate / (1 - rate);
+                        if (estimate <= NEWTON_TOLERANCE) {
+                            converged = true;
+                        } else if (estimate * FastMath.pow(rate, MAX_NEWTON_ITERATIONS - iter) > NEWTON_TOLERANCE) {
+                            // convergence is not expected within the remaining iterations
+                            break;
+                        }
+                    }
+                    oldNorm = newNorm;
+
+                }
+
+                if (!converged) {
+                    if (jacobianCurrent) {
+                        // reduce step size
+                        final double hNew = filterStep(0.3 * stepSize, forward, false);
+                        rescale(dif, k, hNew / stepSize);
+                        stepSize = hNew;
+                    } else {
+                        // update the jacobian and try again with the same step size
+                        evaluator.evaluate(stepStart, y, null, dFdY);
+                        jacobianCurrent = true;
+                    }
+                    unchanged = 0;
+                    decompose = true;
+                    continue;
+                }
+
+                // estimate the local error
+                error = norm(difKp1, y, yNew) / (k + 1);
+                if (error > 1.0) {
+
+                    // reject the step and attempt to reduce error by stepsize and order control
+                    double factor;
+                    int newK = k;
+                    if (++failures == 1) {
+                        factor = FastMath.max(0.1, 0.833 * FastMath.pow(error, -1.0 / (k + 1)));
+                        if (k > 1) {
+                            for (int i = 0; i < n; ++i) {
+                                rhs[i] = dif[k - 1][i] + difKp1[i];
+                            }
+                            final double errorKm1 = norm(rhs, y, yNew) / k;
+                            final double factorKm1 = FastMath.max(0.1, 0.769 * FastMath.pow(errorKm1, -1.0 / k));
+                            if (factorKm1 > factor) {
+                                factor = FastMath.min(1.0, factorKm1);
+                                newK   = k - 1;
+                            }
+                        }
+                    } else {
+                        factor = 0.5;
+                    }
+
+                    final double hNew = filterStep(factor * stepSize, forward, false);
+                    rescale(dif, newK, hNew / stepSize);
+                    stepSize  = hNew;
+                    k         = newK;
+                    unchanged = 0;
+                    decompose = true;
+
+                }
+
+            }
+
+            // update the backward differences
+            for (int i = 0; i < n; ++i) {
+                dif[k + 1][i] = difKp1[i] - dif[k][i];
+                dif[k][i]     = difKp1[i];
+            }
+            for (int j = k - 1; j >= 0; --j) {
+                for (int i = 0; i < n; ++i) {
+                    dif[j][i] += dif[j + 1][i];
+                }
+            }
+
+            // accept the step, trigger events and step handlers
+            interpolator.storeOrder(k);
+            interpolator.storeTime(stepStart + stepSize);
+            System.arraycopy(yNew, 0, y, 0, n);
+            stepStart = acceptStep(interpolator, y, yDot, t);
+            System.arraycopy(y, 0, yNew, 0, n);
+            jacobianCurrent = false;
+
+            if (!isLastStep) {
+
+                // prepare next step
+                interpolator.storeTime(stepStart);
+
+                if (resetOccurred) {
+
+                    // the state has been reset by an event, restart at order 1
+                    k = 1;
+                    for (int j = 1; j < dif.length; ++j) {
+                        Arrays.fill(dif[j], 0.0);
+                    }
+                    for (int i = 0; i < n; ++i) {
+                        dif[0][i] = stepSize * yDot[i];
+                    }
+                    unchanged = 0;
+                    decompose = true;
+
+                } else if (++unchanged >= k + 2) {
+
+                    // stepsize and order control for next step
+                    double factor = 1.0 / FastMath.max(0.1, 1.2 * FastMath.pow(error, 1.0 / (k + 1)));
+                    int newK = k;
+                    if (k > 1) {
+                        final double errorKm1  = norm(dif[k - 1], y, y) / k;
+                        final double factorKm1 = 1.0 / FastMath.max(0.1, 1.3 * FastMath.pow(errorKm1, 1.0 / k));
+                        if (factorKm1 > factor) {
+                            factor = FastMath.min(1.0, factorKm1);
+                            newK   = k - 1;
+                        }
+                    }
+                    if (k < maxOrder) {
+                        final double errorKp1  = norm(dif[k + 1], y, y) / (k + 2);
+                        final double factorKp1 = 1.0 / FastMath.max(0.1, 1.4 * FastMath.pow(errorKp1, 1.0 / (k + 2)));
+                        if (factorKp1 > factor) {
+                            factor = factorKp1;
+                            newK   = k + 1;
+                        }
+                    }
+
+                    if (factor > 1.0 || newK != k) {
+                        final double hNew = filterStep(FastMath.max(1.0, factor) * stepSize, forward, true);
+                        rescale(dif, newK, hNew / stepSize);
+                        stepSize  = hNew;
+                        k         = newK;
+                        unchanged = 0;
+                        decompose = true;
+                    }
+
+                }
+
+            }
+
+        } while (!isLastStep);
+
+        // dispatch results
+        equations.setTime(stepStart);
+        equations.setCompleteState(y);
+
+        resetInternalState();
+
+    }
+
+    /** Interpolate the backward differences for a new step size.
+     * <p>The backward differences of the states evenly spaced by the
+     * old step size are replaced by the backward differences of the
+     * interpolated states evenly spaced by the new step size.</p>
+     * @param dif backward differences (modified in place)
+     * @param k number of differences to interpolate
+     * @param ratio ratio of the new step size to the old one
+     */
+    private void rescale(final double[][] dif, final int k, final double ratio) {
+
+        if (ratio == 1.0) {
+            return;
+        }
+
+        // the change of grid is R(ratio) U, with U = R(1) = U^-1
+        final double[][] r  = gridMatrix(k, ratio);
+        final double[][] u  = gridMatrix(k, 1.0);
+        final double[][] ru = new double[k][k];
+        for (int i = 0; i < k; ++i) {
+            for (int j = 0; j < k; ++j) {
+                double sum = 0;
+                for (int l = 0; l < k; ++l) {
+                    sum += r[i][l] * u[l][j];
+                }
+                ru[i][j] = sum;
+            }
+        }
+
+        final double[] row = new double[k];
+        for (int i = 0; i < dif[0].length; ++i) {
+            for (int j = 0; j < k; ++j) {
+                double sum = 0;
+                for (int l = 0; l < k; ++l) {
+                    sum += dif[l][i] * ru[l][j];
+                }
+                row[j] = sum;
+            }
+            for (int j = 0; j < k; ++j) {
+                dif[j][i] = row[j];
+            }
+        }
+
+    }
+
+    /** Compute the grid change matrix.
+     * @param k dimension of the matrix
+     * @param ratio ratio of the new step size to the old one
+     * @return matrix with elements r<sub>ij</sub> =
+     * &prod;<sub>l=1..i</sub> (l - 1 - j ratio) / l (indices starting at 1)
+     */
+    private static double[][] gridMatrix(final int k, final double ratio) {
+        final double[][] r = new double[k][k];
+        for (int j = 0; j < k; ++j) {
+            double product = 1;
+            for (int i = 0; i < k; ++i) {
+                product *= (i - (j + 1) * ratio) / (i + 1);
+                r[i][j] = product;
+            }
+        }
+        return r;
+    }
+
+    /** Compute the scaled norm of a vector.
+     * @param v vector
+     * @param y0 state at the start of the step
+     * @param y1 state at the end of the step
+     * @return scaled root mean square norm of the main set components
+     */
+    private double norm(final double[] v, final double[] y0, final double[] y1) {
+        double sum = 0;
+        for (int i = 0; i < mainSetDimension; ++i) {
+            final double ratio = v[i] /
+                                 tolerances.allowedError(i, FastMath.max(FastMath.abs(y0[i]), FastMath.abs(y1[i])));
+            sum += ratio * ratio;
+        }
+        return FastMath.sqrt(sum / mainSetDimension);
+    }
+
+}
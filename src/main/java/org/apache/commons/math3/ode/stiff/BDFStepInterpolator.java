@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import org.apache.commons.math3.ode.EquationsMapper;
+import org.apache.commons.math3.ode.sampling.AbstractStepInterpolator;
+import org.apache.commons.math3.ode.sampling.StepInterpolator;
+
+/**
+ * This class implements an interpolator for the {@link BDFIntegrator
+ * backward differentiation formulas} integrator.
+ *
+ * <p>The interpolating polynomial is the one underlying the formula
+ * used for the step: it goes through the current state and the k
+ * previous ones, evenly spaced by the step size, where k is the order
+ * of the formula. It is represented by the backward differences of
+ * these states.</p>
+ *
+ * @see BDFIntegrator
+ * @version $Id$
+ * @since 3.3
+ */
+
+class BDFStepInterpolator extends AbstractStepInterpolator {
+
+    /** Serializable version identifier */
+    private static final long serialVersionUID = 20140217L;
+
+    /** Backward differences of the states at the end of the step. */
+    private double[][] differences;
+
+    /** Order of the formula used for the step. */
+    private int order;
+
+    /** Simple constructor.
+     * This constructor builds an instance that is not usable yet, the
+     * {@link #reinitialize} method should be called before using the
+     * instance in order to initialize the internal arrays. This
+     * constructor is used only in order to delay the initialization in
+     * some cases.
+     */
+    public BDFStepInterpolator() {
+        differences = null;
+        order       = 0;
+    }
+
+    /** Copy constructor.
+     * @param interpolator interpolator to copy from. The copy is a deep
+     * copy: its arrays are separated from the original arrays of the
+     * instance
+     */
+    public BDFStepInterpolator(final BDFStepInterpolator interpolator) {
+        super(interpolator);
+        order = interpolator.order;
+        if (interpolator.differences == null) {
+            differences = null;
+        } else {
+            // only the differences used by the formula are needed
+            differences = new double[order][];
+            for (int j = 0; j < order; ++j) {
+                differences[j] = interpolator.differences[j].clone();
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected StepInterpolator doCopy() {
+        return new BDFStepInterpolator(this);
+    }
+
+    /** Reinitialize the instance.
+     * <p>Beware that all arrays <em>must</em> be references to integrator
+     * arrays, in order to ensure proper update without copy.</p>
+     * @param y reference to the integrator array holding the state at
+     * the end of the step
+     * @param dif reference to the integrator array holding the backward
+     * differences at the end of the step
+     * @param forward integration direction indicator
+     * @param primaryMapper equations mapper for the primary equations set
+     * @param secondaryMappers equations mappers for the secondary equations sets
+     */
+    public void reinitialize(final double[] y, final double[][] dif, final boolean forward,
+                             final EquationsMapper primaryMapper,
+                             final EquationsMapper[] secondaryMappers) {
+        reinitialize(y, forward, primaryMapper, secondaryMappers);
+        differences = dif;
+        order       = 1;
+    }
+
+    /** Store the order of the formula used for the step.
+     * @param k order of the formula used for the step
+     */
+    public void storeOrder(final int k) {
+        order = k;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void computeInterpolatedStateAndDerivatives(final double theta,
+                                                          final double oneMinusThetaH) {
+
+        // abscissa counted in steps from the end of the step
+        final double s = theta - 1;
+
+        System.arraycopy(currentState, 0, interpolatedState, 0, interpolatedState.length);
+        for (int i = 0; i < interpolatedDerivatives.length; ++i) {
+            interpolatedDerivatives[i] = 0;
+        }
+
+        double p    = 1;
+        double pDot = 0;
+        for (int j = 0; j < order; ++j) {
+            pDot = (pDot * (s + j) + p) / (j + 1);
+            p    = p * (s + j) / (j + 1);
+            final double[] dj = differences[j];
+            for (int i = 0; i < interpolatedState.length; ++i) {
+                interpolatedState[i]       += p * dj[i];
+                interpolatedDerivatives[i] += pDot * dj[i] / h;
+            }
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeExternal(final ObjectOutput out)
+        throws IOException {
+
+        // save the state of the base class
+        writeBaseExternal(out);
+
+        // save the local attributes
+        final int n = (currentState == null) ? -1 : currentState.length;
+        out.writeInt(order);
+        for (int j = 0; j < order; ++j) {
+            for (int i = 0; i < n; ++i) {
+                out.writeDouble(differences[j][i]);
+            }
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readExternal(final ObjectInput in)
+        throws IOException, ClassNotFoundException {
+
+        // read the base class
+        final double t = readBaseExternal(in);
+
+        // read the local attributes
+        final int n = (currentState == null) ? -1 : currentState.length;
+        order = in.readInt();
+        if (n < 0) {
+            differences = null;
+        } else {
+            differences = new double[order][n];
+            for (int j = 0; j < order; ++j) {
+                for (int i = 0; i < n; ++i) {
+                    differences[j][i] = in.readDouble();
+                }
+            }
+        }
+
+        if (currentState != null) {
+            // we can now set the interpolated time and state
+            setInterpolatedTime(t);
+        } else {
+            interpolatedTime = t;
+        }
+
+    }
+
+}
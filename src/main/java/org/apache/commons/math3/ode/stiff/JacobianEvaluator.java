@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.ode.AbstractIntegrator;
+import org.apache.commons.math3.ode.ExpandableStatefulODE;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.MainStateJacobianProvider;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/** Evaluator for the jacobian matrix of the complete state vector of an ODE.
+ *
+ * <p>The jacobian is computed exactly by the primary equations when they
+ * implement {@link MainStateJacobianProvider} and there are no secondary
+ * equations, otherwise it is estimated by forward finite differences, using
+ * one derivatives evaluation per state component. All derivatives evaluations
+ * are performed through the integrator, so they are accounted for in its
+ * evaluations count.</p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class JacobianEvaluator {
+
+    /** Relative increment for finite differences. */
+    private static final double DELTA = FastMath.sqrt(Precision.EPSILON);
+
+    /** Integrator computing the derivatives. */
+    private final AbstractIntegrator integrator;
+
+    /** Analytical jacobian provider (null if finite differences are used). */
+    private final MainStateJacobianProvider provider;
+
+    /** Magnitude below which components are considered to be negligible. */
+    private final double[] threshold;
+
+    /** Derivatives at the reference point. */
+    private final double[] yDot;
+
+    /** Derivatives at a shifted point. */
+    private final double[] yDotShifted;
+
+    /** Number of jacobian evaluations. */
+    private int evaluations;
+
+    /** Simple constructor.
+     * @param integrator integrator computing the derivatives
+     * @param equations complete set of differential equations
+     * @param threshold magnitude below which state components are considered
+     * to be negligible, used to size the finite differences increments
+     */
+    JacobianEvaluator(final AbstractIntegrator integrator,
+                      final ExpandableStatefulODE equations,
+                      final double[] threshold) {
+        final FirstOrderDifferentialEquations primary = equations.getPrimary();
+        this.integrator  = integrator;
+        this.provider    = (primary instanceof MainStateJacobianProvider &&
+                            equations.getSecondaryMappers().length == 0) ?
+                           (MainStateJacobianProvider) primary : null;
+        this.threshold   = threshold;
+        this.yDot        = new double[threshold.length];
+        this.yDotShifted = new double[threshold.length];
+        this.evaluations = 0;
+    }
+
+    /** Compute the jacobian matrix.
+     * @param t current value of the independent <I>time</I> variable
+     * @param y current value of the complete state vector (it is
+     * temporarily modified during the computation but restored on return)
+     * @param yDot0 time derivative of the state vector at (t, y), or null if
+     * it has not been computed yet
+     * @param dFdY placeholder array where to put the jacobian matrix
+     * @exception MaxCountExceededException if the number of functions evaluations is exceeded
+     * @exception DimensionMismatchException if arrays dimensions do not match equations settings
+     */
+    public void evaluate(final double t, final double[] y, final double[] yDot0,
+                         final double[][] dFdY)
+        throws MaxCountExceededException, DimensionMismatchException {
+
+        ++evaluations;
+        if (yDot0 == null) {
+            integrator.computeDerivatives(t, y, yDot);
+        } else {
+            System.arraycopy(yDot0, 0, yDot, 0, yDot.length);
+        }
+
+        if (provider != null) {
+            provider.computeMainStateJacobian(t, y, yDot, dFdY);
+            return;
+        }
+
+        for (int j = 0; j < y.length; ++j) {
+            final double yj   = y[j];
+            final double size = FastMath.max(FastMath.abs(yj), threshold[j]);
+            y[j] = yj + ((size > 0) ? DELTA * size : DELTA);
+            final double delta = y[j] - yj;
+            integrator.computeDerivatives(t, y, yDotShifted);
+            y[j] = yj;
+            for (int i = 0; i < y.length; ++i) {
+                dFdY[i][j] = (yDotShifted[i] - yDot[i]) / delta;
+            }
+        }
+
+    }
+
+    /** Get the number of jacobian evaluations.
+     * @return number of jacobian evaluations
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+}
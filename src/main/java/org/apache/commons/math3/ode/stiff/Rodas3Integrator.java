@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+/**
+ * This class implements the RODAS3 Rosenbrock integrator for stiff
+ * Ordinary Differential Equations.
+ *
+ * <p>This integrator is an embedded Rosenbrock integrator of order 3(2)
+ * with stepsize control (and automatic step initialization) and
+ * continuous output. It is L-stable and stiffly accurate, which makes
+ * it well suited to very stiff problems like chemical kinetics. It has
+ * four stages but the first two share the same evaluation point, so each
+ * step costs one jacobian evaluation, one LU decomposition and four
+ * derivatives evaluations (two for the stages, one for the finite
+ * differences time derivative and one at the end of the step, also used
+ * as the first stage of the next step).</p>
+ *
+ * <p>This method has been published in the following article :
+ * <pre>
+ *  Benchmarking stiff ODE solvers for atmospheric chemistry problems II:
+ *  Rosenbrock solvers
+ *  A. Sandu, J. G. Verwer, J. G. Blom, E. J. Spee, G. R. Carmichael and
+ *  F. A. Potra
+ *  Atmospheric Environment
+ *  volume 31, no 20, 1997, pp. 3459-3472
+ * </pre></p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+
+public class Rodas3Integrator extends RosenbrockIntegrator {
+
+    /** Integrator method name. */
+    private static final String METHOD_NAME = "RODAS3";
+
+    /** Diagonal coefficient. */
+    private static final double GAMMA = 0.5;
+
+    /** Abscissae of the stages. */
+    private static final double[] STATIC_ALPHA = {
+        0.0, 0.0, 1.0, 1.0
+    };
+
+    /** Time derivative weights of the stages. */
+    private static final double[] STATIC_GAMMA = {
+        0.5, 1.5, 0.0, 0.0
+    };
+
+    /** State weights. */
+    private static final double[][] STATIC_A = {
+        {0.0},
+        {2.0, 0.0},
+        {2.0, 0.0, 1.0}
+    };
+
+    /** Stages correction weights. */
+    private static final double[][] STATIC_C = {
+        {4.0},
+        {1.0, -1.0},
+        {1.0, -1.0, -8.0 / 3.0}
+    };
+
+    /** Propagation weights. */
+    private static final double[] STATIC_M = {
+        2.0, 0.0, 1.0, 1.0
+    };
+
+    /** Error weights. */
+    private static final double[] STATIC_E = {
+        0.0, 0.0, 0.0, 1.0
+    };
+
+    /** Simple constructor.
+     * Build a RODAS3 integrator with the given step bounds
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param scalAbsoluteTolerance allowed absolute error
+     * @param scalRelativeTolerance allowed relative error
+     */
+    public Rodas3Integrator(final double minStep, final double maxStep,
+                            final double scalAbsoluteTolerance,
+                            final double scalRelativeTolerance) {
+        super(METHOD_NAME, GAMMA, STATIC_ALPHA, STATIC_GAMMA, STATIC_A, STATIC_C,
+              STATIC_M, STATIC_E, minStep, maxStep, scalAbsoluteTolerance, scalRelativeTolerance);
+    }
+
+    /** Simple constructor.
+     * Build a RODAS3 integrator with the given step bounds
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param vecAbsoluteTolerance allowed absolute error
+     * @param vecRelativeTolerance allowed relative error
+     */
+    public Rodas3Integrator(final double minStep, final double maxStep,
+                            final double[] vecAbsoluteTolerance,
+                            final double[] vecRelativeTolerance) {
+        super(METHOD_NAME, GAMMA, STATIC_ALPHA, STATIC_GAMMA, STATIC_A, STATIC_C,
+              STATIC_M, STATIC_E, minStep, maxStep, vecAbsoluteTolerance, vecRelativeTolerance);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getOrder() {
+        return 3;
+    }
+
+}
@@ -0,0 +1,509 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NoBracketingException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.ode.ExpandableStatefulODE;
+import org.apache.commons.math3.ode.nonstiff.AdaptiveStepsizeIntegrator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * This class implements the common part of all embedded Rosenbrock
+ * integrators for stiff Ordinary Differential Equations.
+ *
+ * <p>Rosenbrock methods are linearly implicit Runge-Kutta methods: each
+ * stage solves one linear system involving the jacobian matrix J of the
+ * equations at the beginning of the step, so no Newton iteration is needed.
+ * The methods are used in the form of section IV.7 of Hairer and Wanner's
+ * <i>Solving Ordinary Differential Equations II</i>, which avoids any
+ * product of the jacobian with a vector. The stages U<sub>i</sub> are
+ * solutions of
+ * <pre>
+ *   (I / (h &gamma;) - J) U<sub>i</sub> = f(t<sub>0</sub> + &alpha;<sub>i</sub> h, y<sub>0</sub> + &sum;<sub>j&lt;i</sub> a<sub>ij</sub> U<sub>j</sub>)
+ *                        + &sum;<sub>j&lt;i</sub> c<sub>ij</sub> U<sub>j</sub> / h + &gamma;<sub>i</sub> h &part;f/&part;t
+ * </pre>
+ * and the state at the end of the step is y<sub>1</sub> = y<sub>0</sub> + &sum;
+ * m<sub>i</sub> U<sub>i</sub>. As for {@link
+ * org.apache.commons.math3.ode.nonstiff.EmbeddedRungeKuttaIntegrator embedded
+ * Runge-Kutta} integrators, the difference e<sub>i</sub> between the weights
+ * of the propagated and embedded solutions gives the local error estimate
+ * &sum; e<sub>i</sub> U<sub>i</sub> used for step size control.</p>
+ *
+ * <p>The jacobian and the time derivative of the equations are computed once
+ * per step and reused when the step is rejected; the LU decomposition of the
+ * iteration matrix is computed again only when the step size changes. Stages
+ * having the same abscissa and the same state as the previous stage reuse its
+ * derivatives.</p>
+ *
+ * <p>The time derivative of the equations is estimated by finite
+ * differences, costing one derivatives evaluation per step. The derivatives
+ * at the end of each step are computed for the dense output, they are reused
+ * as the first stage of the next step.</p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+
+public abstract class RosenbrockIntegrator extends AdaptiveStepsizeIntegrator {
+
+    /** Relative increment for finite differences. */
+    private static final double DELTA = FastMath.sqrt(Precision.EPSILON);
+
+    /** Diagonal coefficient &gamma;. */
+    private final double gamma;
+
+    /** Abscissae of the stages. */
+    private final double[] alpha;
+
+    /** Time derivative weights of the stages. */
+    private final double[] gammaI;
+
+    /** State weights. */
+    private final double[][] a;
+
+    /** Stages correction weights. */
+    private final double[][] c;
+
+    /** Propagation weights. */
+    private final double[] m;
+
+    /** Error weights. */
+    private final double[] e;
+
+    /** Indicators for stages that reuse the derivatives of the previous stage. */
+    private final boolean[] reuse;
+
+    /** Stepsize control exponent. */
+    private final double exp;
+
+    /** Safety factor for stepsize control. */
+    private double safety;
+
+    /** Minimal reduction factor for stepsize control. */
+    private double minReduction;
+
+    /** Maximal growth factor for stepsize control. */
+    private double maxGrowth;
+
+    /** Jacobian evaluator used by the last integration. */
+    private JacobianEvaluator evaluator;
+
+    /** Error tolerances of the current integration. */
+    private Tolerances tolerances;
+
+    /** Number of LU decompositions performed during the last integration. */
+    private int decompositions;
+
+    /** Build a Rosenbrock integrator with the given coefficients.
+     * @param name name of the method
+     * @param gamma diagonal coefficient &gamma;
+     * @param alpha abscissae of the stages (the first one must be 0)
+     * @param gammaI time derivative weights of the stages
+     * @param a state weights, one row for each stage but the first
+     * one, row i-1 having i elements
+     * @param c stages correction weights, with the same layout as a
+     * @param m propagation weights
+     * @param e error weights
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param scalAbsoluteTolerance allowed absolute error
+     * @param scalRelativeTolerance allowed relative error
+     */
+    protected RosenbrockIntegrator(final String name, final double gamma,
+                                   final double[] alpha, final double[] gammaI,
+                                   final double[][] a, final double[][] c,
+                                   final double[] m, final double[] e,
+                                   final double minStep, final double maxStep,
+                                   final double scalAbsoluteTolerance,
+                                   final double scalRelativeTolerance) {
+
+        super(name, minStep, maxStep, scalAbsoluteTolerance, scalRelativeTolerance);
+
+        this.gamma  = gamma;
+        this.alpha  = alpha;
+        this.gammaI = gammaI;
+        this.a      = a;
+        this.c      = c;
+        this.m      = m;
+        this.e      = e;
+        this.reuse  = sharedEvaluations(alpha, a);
+
+        exp = -1.0 / getOrder();
+
+        // set the default values of the algorithm control parameters
+        setSafety(0.9);
+        setMinReduction(0.2);
+        setMaxGrowth(10.0);
+
+    }
+
+    /** Build a Rosenbrock integrator with the given coefficients.
+     * @param name name of the method
+     * @param gamma diagonal coefficient &gamma;
+     * @param alpha abscissae of the stages (the first one must be 0)
+     * @param gammaI time derivative weights of the stages
+     * @param a state weights, one row for each stage but the first
+     * one, row i-1 having i elements
+     * @param c stages correction weights, with the same layout as a
+     * @param m propagation weights
+     * @param e error weights
+     * @param minStep minimal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param maxStep maximal step (sign is irrelevant, regardless of
+     * integration direction, forward or backward), the last step can
+     * be smaller than this
+     * @param vecAbsoluteTolerance allowed absolute error
+     * @param vecRelativeTolerance allowed relative error
+     */
+    protected RosenbrockIntegrator(final String name, final double gamma,
+                                   final double[] alpha, final double[] gammaI,
+                                   final double[][] a, final double[][] c,
+                                   final double[] m, final double[] e,
+                                   final double minStep, final double maxStep,
+                                   final double[] vecAbsoluteTolerance,
+                                   final double[] vecRelativeTolerance) {
+
+        super(name, minStep, maxStep, vecAbsoluteTolerance, vecRelativeTolerance);
+
+        this.gamma  = gamma;
+        this.alpha  = alpha;
+        this.gammaI = gammaI;
+        this.a      = a;
+        this.c      = c;
+        this.m      = m;
+        this.e      = e;
+        this.reuse  = sharedEvaluations(alpha, a);
+
+        exp = -1.0 / getOrder();
+
+        // set the default values of the algorithm control parameters
+        setSafety(0.9);
+        setMinReduction(0.2);
+        setMaxGrowth(10.0);
+
+    }
+
+    /** Identify the stages evaluated at the same point as their predecessor.
+     * @param alpha abscissae of the stages
+     * @param a state weights
+     * @return indicators for stages that reuse the derivatives of the previous stage
+     */
+    private static boolean[] sharedEvaluations(final double[] alpha, final double[][] a) {
+        final boolean[] shared = new boolean[alpha.length];
+        for (int i = 1; i < alpha.length; ++i) {
+            boolean same = alpha[i] == alpha[i - 1] && a[i - 1][i - 1] == 0;
+            for (int j = 0; same && j < i - 1; ++j) {
+                same = a[i - 1][j] == ((i > 1) ? a[i - 2][j] : 0);
+            }
+            shared[i] = same;
+        }
+        return shared;
+    }
+
+    /** Get the order of the method.
+     * @return order of the method
+     */
+    public abstract int getOrder();
+
+    /** Get the safety factor for stepsize control.
+     * @return safety factor
+     */
+    public double getSafety() {
+        return safety;
+    }
+
+    /** Set the safety factor for stepsize control.
+     * @param safety safety factor
+     */
+    public void setSafety(final double safety) {
+        this.safety = safety;
+    }
+
+    /** Get the minimal reduction factor for stepsize control.
+     * @return minimal reduction factor
+     */
+    public double getMinReduction() {
+        return minReduction;
+    }
+
+    /** Set the minimal reduction factor for stepsize control.
+     * @param minReduction minimal reduction factor
+     */
+    public void setMinReduction(final double minReduction) {
+        this.minReduction = minReduction;
+    }
+
+    /** Get the maximal growth factor for stepsize control.
+     * @return maximal growth factor
+     */
+    public double getMaxGrowth() {
+        return maxGrowth;
+    }
+
+    /** Set the maximal growth factor for stepsize control.
+     * @param maxGrowth maximal growth factor
+     */
+    public void setMaxGrowth(final double maxGrowth) {
+        this.maxGrowth = maxGrowth;
+    }
+
+    /** Get the number of jacobian evaluations performed during the last integration.
+     * @return number of jacobian evaluations
+     */
+    public int getJacobianEvaluations() {
+        return (evaluator == null) ? 0 : evaluator.getEvaluations();
+    }
+
+    /** Get the number of LU decompositions performed during the last integration.
+     * @return number of LU decompositions
+     */
+    public int getDecompositions() {
+        return decompositions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void integrate(final ExpandableStatefulODE equations, final double t)
+        throws NumberIsTooSmallException, DimensionMismatchException,
+               MaxCountExceededException, NoBracketingException {
+
+        sanityChecks(equations, t);
+        setEquations(equations);
+        final boolean forward = t > equations.getTime();
+
+        // create some internal working arrays
+        final double[] y0      = equations.getCompleteState();
+        final double[] y       = y0.clone();
+        final int n            = y.length;
+        final int stages       = m.length;
+        final double[][] u     = new double[stages][];
+        final double[] yTmp    = y0.clone();
+        final double[] yDotTmp = new double[n];
+        final double[] yDot0   = new double[n];
+        final double[] yDot1   = new double[n];
+        final double[] yDotT   = new double[n];
+        final double[] rhs     = new double[n];
+        final double[][] dFdY  = new double[n][n];
+        final Array2DRowRealMatrix matrix = new Array2DRowRealMatrix(n, n);
+        DecompositionSolver solver = null;
+        double decomposedH = Double.NaN;
+
+        tolerances     = new Tolerances(scalAbsoluteTolerance, scalRelativeTolerance,
+                                        vecAbsoluteTolerance, vecRelativeTolerance,
+                                        mainSetDimension);
+        evaluator      = new JacobianEvaluator(this, equations, tolerances.threshold(n));
+        decompositions = 0;
+
+        // set up an interpolator sharing the integrator arrays
+        final RosenbrockStepInterpolator interpolator = new RosenbrockStepInterpolator();
+        interpolator.reinitialize(yTmp, yDot0, yDot1, forward,
+                                  equations.getPrimaryMapper(), equations.getSecondaryMappers());
+        interpolator.storeTime(equations.getTime());
+
+        // set up integration control objects
+        stepStart         = equations.getTime();
+        double  hNew      = 0;
+        boolean firstTime = true;
+        initIntegration(equations.getTime(), y0, t);
+        computeDerivatives(stepStart, y, yDot0);
+
+        // main integration loop
+        isLastStep = false;
+        do {
+
+            interpolator.shift();
+
+            if (firstTime) {
+                final double[] scale = new double[mainSetDimension];
+                for (int i = 0; i < scale.length; ++i) {
+                    scale[i] = tolerances.allowedError(i, FastMath.abs(y[i]));
+                }
+                hNew = initializeStep(forward, getOrder(), scale,
+                                      stepStart, y, yDot0, yTmp, yDot1);
+                firstTime = false;
+            }
+
+            // the jacobian and the time derivative are shared by all attempts
+            evaluator.evaluate(stepStart, y, yDot0, dFdY);
+            final double dt = DELTA * FastMath.max(FastMath.max(FastMath.abs(stepStart),
+                                                                FastMath.abs(hNew)),
+                                                   1.0);
+            final double tShifted = forward ? stepStart + dt : stepStart - dt;
+            computeDerivatives(tShifted, y, yDotTmp);
+            for (int i = 0; i < n; ++i) {
+                yDotT[i] = (yDotTmp[i] - yDot0[i]) / (tShifted - stepStart);
+            }
+            decomposedH = Double.NaN;
+
+            // iterate over step size, ensuring local normalized error is smaller than 1
+            double error = 10;
+            while (error >= 1.0) {
+
+                stepSize = hNew;
+                if (forward) {
+                    if (stepStart + stepSize >= t) {
+                        stepSize = t - stepStart;
+                    }
+                } else {
+                    if (stepStart + stepSize <= t) {
+                        stepSize = t - stepStart;
+                    }
+                }
+
+                if (stepSize != decomposedH) {
+                    // decompose I / (h gamma) - J
+                    final double[][] data = matrix.getDataRef();
+                    final double diagonal = 1.0 / (stepSize * gamma);
+                    for (int i = 0; i < n; ++i) {
+                        for (int j = 0; j < n; ++j) {
+                            data[i][j] = -dFdY[i][j];
+                        }
+                        data[i][i] += diagonal;
+                    }
+                    solver      = new LUDecomposition(matrix).getSolver();
+                    decomposedH = stepSize;
+                    ++decompositions;
+                }
+
+                // stages
+                double[] stageDerivatives = yDot0;
+                for (int k = 0; k < stages; ++k) {
+
+                    if (k > 0 && !reuse[k]) {
+                        for (int j = 0; j < n; ++j) {
+                            double sum = 0;
+                            for (int l = 0; l < k; ++l) {
+                                sum += a[k - 1][l] * u[l][j];
+                            }
+                            yTmp[j] = y[j] + sum;
+                        }
+                        computeDerivatives(stepStart + alpha[k] * stepSize, yTmp, yDotTmp);
+                        stageDerivatives = yDotTmp;
+                    }
+
+                    for (int j = 0; j < n; ++j) {
+                        double sum = 0;
+                        for (int l = 0; l < k; ++l) {
+                            sum += c[k - 1][l] * u[l][j];
+                        }
+                        rhs[j] = stageDerivatives[j] + sum / stepSize +
+                                 gammaI[k] * stepSize * yDotT[j];
+                    }
+                    u[k] = solver.solve(new ArrayRealVector(rhs, false)).toArray();
+
+                }
+
+                // estimate the state at the end of the step
+                for (int j = 0; j < n; ++j) {
+                    double sum = 0;
+                    for (int l = 0; l < stages; ++l) {
+                        sum += m[l] * u[l][j];
+                    }
+                    yTmp[j] = y[j] + sum;
+                }
+
+                // estimate the error at the end of the step
+                error = estimateError(u, y, yTmp);
+                if (error >= 1.0) {
+                    // reject the step and attempt to reduce error by stepsize control
+                    final double factor =
+                        FastMath.min(maxGrowth,
+                                     FastMath.max(minReduction, safety * FastMath.pow(error, exp)));
+                    hNew = filterStep(stepSize * factor, forward, false);
+                }
+
+            }
+
+            // local error is small enough: accept the step, trigger events and step handlers
+            computeDerivatives(stepStart + stepSize, yTmp, yDot1);
+            interpolator.storeTime(stepStart + stepSize);
+            System.arraycopy(yTmp, 0, y, 0, n);
+            stepStart = acceptStep(interpolator, y, yDot1, t);
+            System.arraycopy(y, 0, yTmp, 0, n);
+
+            if (!isLastStep) {
+
+                // prepare next step
+                interpolator.storeTime(stepStart);
+
+                // save the last evaluation for the next step
+                System.arraycopy(yDot1, 0, yDot0, 0, n);
+
+                // stepsize control for next step
+                final double factor =
+                    FastMath.min(maxGrowth, FastMath.max(minReduction, safety * FastMath.pow(error, exp)));
+                final double  scaledH    = stepSize * factor;
+                final double  nextT      = stepStart + scaledH;
+                final boolean nextIsLast = forward ? (nextT >= t) : (nextT <= t);
+                hNew = filterStep(scaledH, forward, nextIsLast);
+
+                final double  filteredNextT      = stepStart + hNew;
+                final boolean filteredNextIsLast = forward ? (filteredNextT >= t) : (filteredNextT <= t);
+                if (filteredNextIsLast) {
+                    hNew = t - stepStart;
+                }
+
+            }
+
+        } while (!isLastStep);
+
+        // dispatch results
+        equations.setTime(stepStart);
+        equations.setCompleteState(y);
+
+        resetInternalState();
+
+    }
+
+    /** Compute the error ratio.
+     * @param u stages
+     * @param y0 estimate of the step at the start of the step
+     * @param y1 estimate of the step at the end of the step
+     * @return error ratio, greater than 1 if step should be rejected
+     */
+    private double estimateError(final double[][] u, final double[] y0, final double[] y1) {
+
+        double error = 0;
+        for (int j = 0; j < mainSetDimension; ++j) {
+            double errSum = 0;
+            for (int l = 0; l < u.length; ++l) {
+                errSum += e[l] * u[l][j];
+            }
+            final double ratio = errSum /
+                                 tolerances.allowedError(j, FastMath.max(FastMath.abs(y0[j]), FastMath.abs(y1[j])));
+            error += ratio * ratio;
+        }
+
+        return FastMath.sqrt(error / mainSetDimension);
+
+    }
+
+}
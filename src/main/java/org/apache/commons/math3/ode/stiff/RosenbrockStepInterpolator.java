@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import org.apache.commons.math3.ode.EquationsMapper;
+import org.apache.commons.math3.ode.sampling.AbstractStepInterpolator;
+import org.apache.commons.math3.ode.sampling.StepInterpolator;
+
+/**
+ * This class implements a cubic Hermite interpolator for the
+ * {@link RosenbrockIntegrator Rosenbrock} integrators.
+ *
+ * <p>The interpolating polynomial matches the state and its time
+ * derivative at both ends of the step. Its accuracy is consistent
+ * with third order methods.</p>
+ *
+ * @see RosenbrockIntegrator
+ * @version $Id$
+ * @since 3.3
+ */
+
+class RosenbrockStepInterpolator extends AbstractStepInterpolator {
+
+    /** Serializable version identifier */
+    private static final long serialVersionUID = 20140217L;
+
+    /** State at the beginning of the step. */
+    private double[] previousState;
+
+    /** Time derivative at the beginning of the step. */
+    private double[] previousDerivative;
+
+    /** Time derivative at the end of the step. */
+    private double[] currentDerivative;
+
+    /** Simple constructor.
+     * This constructor builds an instance that is not usable yet, the
+     * {@link #reinitialize} method should be called before using the
+     * instance in order to initialize the internal arrays. This
+     * constructor is used only in order to delay the initialization in
+     * some cases.
+     */
+    public RosenbrockStepInterpolator() {
+        previousState      = null;
+        previousDerivative = null;
+        currentDerivative  = null;
+    }
+
+    /** Copy constructor.
+     * @param interpolator interpolator to copy from. The copy is a deep
+     * copy: its arrays are separated from the original arrays of the
+     * instance
+     */
+    public RosenbrockStepInterpolator(final RosenbrockStepInterpolator interpolator) {
+        super(interpolator);
+        previousState      = (interpolator.previousState == null) ?
+                             null : interpolator.previousState.clone();
+        previousDerivative = (interpolator.previousDerivative == null) ?
+                             null : interpolator.previousDerivative.clone();
+        currentDerivative  = (interpolator.currentDerivative == null) ?
+                             null : interpolator.currentDerivative.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected StepInterpolator doCopy() {
+        return new RosenbrockStepInterpolator(this);
+    }
+
+    /** Reinitialize the instance.
+     * <p>Beware that all arrays <em>must</em> be references to integrator
+     * arrays, in order to ensure proper update without copy.</p>
+     * @param y reference to the integrator array holding the state at
+     * the end of the step
+     * @param yDot0 reference to the integrator array holding the time
+     * derivative at the beginning of the step
+     * @param yDot1 reference to the integrator array holding the time
+     * derivative at the end of the step
+     * @param forward integration direction indicator
+     * @param primaryMapper equations mapper for the primary equations set
+     * @param secondaryMappers equations mappers for the secondary equations sets
+     */
+    public void reinitialize(final double[] y, final double[] yDot0, final double[] yDot1,
+                             final boolean forward,
+                             final EquationsMapper primaryMapper,
+                             final EquationsMapper[] secondaryMappers) {
+        reinitialize(y, forward, primaryMapper, secondaryMappers);
+        previousState      = null;
+        previousDerivative = yDot0;
+        currentDerivative  = yDot1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void shift() {
+        previousState = currentState.clone();
+        super.shift();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void computeInterpolatedStateAndDerivatives(final double theta,
+                                                          final double oneMinusThetaH) {
+
+        final double theta2 = theta * theta;
+        final double h00    = (1 + 2 * theta) * (1 - theta) * (1 - theta);
+        final double h10    = theta * (1 - theta) * (1 - theta);
+        final double h01    = theta2 * (3 - 2 * theta);
+        final double h11    = theta2 * (theta - 1);
+        final double d00    = 6 * theta * (theta - 1);
+        final double d10    = (1 - theta) * (1 - 3 * theta);
+        final double d11    = theta * (3 * theta - 2);
+
+        for (int i = 0; i < interpolatedState.length; ++i) {
+            final double y0    = previousState[i];
+            final double y1    = currentState[i];
+            final double yDot0 = previousDerivative[i];
+            final double yDot1 = currentDerivative[i];
+            interpolatedState[i]       = h00 * y0 + h01 * y1 + h * (h10 * yDot0 + h11 * yDot1);
+            interpolatedDerivatives[i] = d00 * (y0 - y1) / h + d10 * yDot0 + d11 * yDot1;
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeExternal(final ObjectOutput out)
+        throws IOException {
+
+        // save the state of the base class
+        writeBaseExternal(out);
+
+        // save the local attributes
+        final int n = (currentState == null) ? -1 : currentState.length;
+        for (int i = 0; i < n; ++i) {
+            out.writeDouble(previousState[i]);
+            out.writeDouble(previousDerivative[i]);
+            out.writeDouble(currentDerivative[i]);
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readExternal(final ObjectInput in)
+        throws IOException, ClassNotFoundException {
+
+        // read the base class
+        final double t = readBaseExternal(in);
+
+        // read the local attributes
+        final int n = (currentState == null) ? -1 : currentState.length;
+        if (n < 0) {
+            previousState      = null;
+            previousDerivative = null;
+            currentDerivative  = null;
+        } else {
+            previousState      = new double[n];
+            previousDerivative = new double[n];
+            currentDerivative  = new double[n];
+            for (int i = 0; i < n; ++i) {
+                previousState[i]      = in.readDouble();
+                previousDerivative[i] = in.readDouble();
+                currentDerivative[i]  = in.readDouble();
+            }
+        }
+
+        if (currentState != null) {
+            // we can now set the interpolated time and state
+            setInterpolatedTime(t);
+        } else {
+            interpolatedTime = t;
+        }
+
+    }
+
+}
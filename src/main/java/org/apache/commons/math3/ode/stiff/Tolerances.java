@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+/** Error tolerances of the main set of an adaptive stiff integrator.
+ *
+ * <p>This class gathers the computation of allowed errors and negligible
+ * magnitudes shared by the stiff integrators, from either scalar or vector
+ * absolute and relative tolerances.</p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class Tolerances {
+
+    /** Allowed absolute scalar error. */
+    private final double scalAbsoluteTolerance;
+
+    /** Allowed relative scalar error. */
+    private final double scalRelativeTolerance;
+
+    /** Allowed absolute vectorial error (null if scalar tolerances are used). */
+    private final double[] vecAbsoluteTolerance;
+
+    /** Allowed relative vectorial error (null if scalar tolerances are used). */
+    private final double[] vecRelativeTolerance;
+
+    /** Main set dimension. */
+    private final int mainSetDimension;
+
+    /** Simple constructor.
+     * @param scalAbsoluteTolerance allowed absolute scalar error
+     * @param scalRelativeTolerance allowed relative scalar error
+     * @param vecAbsoluteTolerance allowed absolute vectorial error
+     * (null if scalar tolerances are used)
+     * @param vecRelativeTolerance allowed relative vectorial error
+     * (null if scalar tolerances are used)
+     * @param mainSetDimension main set dimension
+     */
+    Tolerances(final double scalAbsoluteTolerance, final double scalRelativeTolerance,
+               final double[] vecAbsoluteTolerance, final double[] vecRelativeTolerance,
+               final int mainSetDimension) {
+        this.scalAbsoluteTolerance = scalAbsoluteTolerance;
+        this.scalRelativeTolerance = scalRelativeTolerance;
+        this.vecAbsoluteTolerance  = vecAbsoluteTolerance;
+        this.vecRelativeTolerance  = vecRelativeTolerance;
+        this.mainSetDimension      = mainSetDimension;
+    }
+
+    /** Get the allowed error for one component.
+     * @param i index of the component
+     * @param magnitude magnitude of the component
+     * @return allowed error
+     */
+    public double allowedError(final int i, final double magnitude) {
+        if (vecAbsoluteTolerance == null) {
+            return scalAbsoluteTolerance + scalRelativeTolerance * magnitude;
+        } else {
+            return vecAbsoluteTolerance[i] + vecRelativeTolerance[i] * magnitude;
+        }
+    }
+
+    /** Get the magnitudes below which state components are negligible.
+     * @param n dimension of the complete state
+     * @return magnitudes below which state components are negligible
+     */
+    public double[] threshold(final int n) {
+        final double[] threshold = new double[n];
+        for (int i = 0; i < mainSetDimension; ++i) {
+            final double absolute = allowedError(i, 0);
+            final double relative = allowedError(i, 1) - absolute;
+            threshold[i] = (relative > 0) ? absolute / relative : absolute;
+        }
+        return threshold;
+    }
+
+}
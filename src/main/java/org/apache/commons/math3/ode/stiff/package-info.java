@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ *
+ * <p>
+ * This package provides classes to solve stiff Ordinary Differential Equations problems.
+ * </p>
+ *
+ * <p>
+ * The integrators in this package are implicit: each step solves linear systems
+ * involving the jacobian matrix of the equations. The jacobian is computed exactly
+ * when the primary equations implement {@link
+ * org.apache.commons.math3.ode.MainStateJacobianProvider MainStateJacobianProvider}
+ * and the problem has no secondary equations, otherwise it is estimated by finite
+ * differences.
+ * </p>
+ *
+ *
+ */
+package org.apache.commons.math3.ode.stiff;
@@ -16,10 +16,18 @@
  */
 package org.apache.commons.math3.optim;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.random.RandomVectorGenerator;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Base class multi-start optimizer for a multivariate function.
@@ -28,6 +36,12 @@ import org.apache.commons.math3.random.RandomVectorGenerator;
  * turn with different starting points (trying to avoid being trapped
  * in a local extremum when looking for a global one).
  * <em>It is not a "user" class.</em>
+ * <br/>
+ * When built from an {@link OptimizerFactory}, the starts are independent
+ * optimizations, each using its own optimizer, which can run concurrently
+ * on an {@link ExecutorService}. They then share the maximal number of
+ * evaluations, and a successful start reaching the target set by the
+ * subclass cancels the other ones.
  *
  * @param <PAIR> Type of the point/value pair returned by the optimization
  * algorithm.
@@ -39,6 +53,10 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
     extends BaseMultivariateOptimizer<PAIR> {
     /** Underlying classical optimizer. */
     private final BaseMultivariateOptimizer<PAIR> optimizer;
+    /** Factory creating an optimizer per start ({@code null} to reuse {@link #optimizer}). */
+    private final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory;
+    /** Executor running the starts ({@code null} for the calling thread). */
+    private final ExecutorService executor;
     /** Number of evaluations already performed for all starts. */
     private int totalEvaluations;
     /** Number of starts to go. */
@@ -79,6 +97,57 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
     public BaseMultiStartMultivariateOptimizer(final BaseMultivariateOptimizer<PAIR> optimizer,
                                                final int starts,
                                                final RandomVectorGenerator generator) {
+        this(optimizer, null, starts, generator, null);
+    }
+
+    /**
+     * Create a multi-start optimizer running independent optimizations.
+     * <p>
+     * A new optimizer is created for each start, and the starts are run by
+     * the tasks of an executor. The start points are drawn from the
+     * generator before the optimizations, and the optima are stored in the
+     * order of the starts, so that the result does not depend on the
+     * executor (unless a target is reached, since the starts cancelled
+     * then depend on the scheduling). The same rejection algorithm as in
+     * the {@link #BaseMultiStartMultivariateOptimizer(BaseMultivariateOptimizer,
+     * int, RandomVectorGenerator) sequential} case is used for bounds.
+     * </p>
+     * <p>
+     * The optimization data passed to {@code optimize} are shared by the
+     * optimizers of the starts, and must therefore not be modified by
+     * them: the simplex of a
+     * {@link org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer
+     * SimplexOptimizer}, for example, cannot be used here.
+     * </p>
+     *
+     * @param factory Factory creating the single-start optimizers.
+     * @param starts Number of starts to perform.
+     * @param generator Random vector generator to use for restarts.
+     * @param executor Executor running the starts (if {@code null}, they
+     * are run one after the other in the calling thread).
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public BaseMultiStartMultivariateOptimizer(final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory,
+                                               final int starts,
+                                               final RandomVectorGenerator generator,
+                                               final ExecutorService executor) {
+        this(factory.create(), factory, starts, generator, executor);
+    }
+
+    /**
+     * @param optimizer Single-start optimizer.
+     * @param factory Factory creating the single-start optimizers, or {@code null}.
+     * @param starts Number of starts to perform.
+     * @param generator Random vector generator to use for restarts.
+     * @param executor Executor running the starts, or {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     */
+    private BaseMultiStartMultivariateOptimizer(final BaseMultivariateOptimizer<PAIR> optimizer,
+                                                final OptimizerFactory<? extends BaseMultivariateOptimizer<PAIR>> factory,
+                                                final int starts,
+                                                final RandomVectorGenerator generator,
+                                                final ExecutorService executor) {
         super(optimizer.getConvergenceChecker());
 
         if (starts < 1) {
@@ -86,8 +155,10 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
         }
 
         this.optimizer = optimizer;
+        this.factory = factory;
         this.starts = starts;
         this.generator = generator;
+        this.executor = executor;
     }
 
     /** {@inheritDoc} */
@@ -161,7 +232,6 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
             throw new MathIllegalStateException();
         }
 
-        RuntimeException lastException = null;
         totalEvaluations = 0;
         clear();
 
@@ -170,41 +240,117 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
         final double[] max = getUpperBound();
         final double[] startPoint = getStartPoint();
 
+        if (factory != null) {
+            return optimizeIndependently(maxEval, min, max, startPoint);
+        }
+
+        RuntimeException lastException = null;
+
         // Multi-start loop.
         for (int i = 0; i < starts; i++) {
+            boolean targetReached = false;
             // CHECKSTYLE: stop IllegalCatch
             try {
                 // Decrease number of allowed evaluations.
                 optimData[maxEvalIndex] = new MaxEval(maxEval - totalEvaluations);
                 // New start value.
-                double[] s = null;
-                if (i == 0) {
-                    s = startPoint;
-                } else {
-                    int attempts = 0;
-                    while (s == null) {
-                        if (attempts++ >= getMaxEvaluations()) {
-                            throw new TooManyEvaluationsException(getMaxEvaluations());
-                        }
-                        s = generator.nextVector();
-                        for (int k = 0; s != null && k < s.length; ++k) {
-                            if ((min != null && s[k] < min[k]) || (max != null && s[k] > max[k])) {
-                                // reject the vector
-                                s = null;
-                            }
-                        }
-                    }
-                }
+                final double[] s = (i == 0) ? startPoint : nextStartPoint(min, max);
                 optimData[initialGuessIndex] = new InitialGuess(s);
                 // Optimize.
                 final PAIR result = optimizer.optimize(optimData);
                 store(result);
+                targetReached = isTargetReached(result);
             } catch (RuntimeException mue) {
                 lastException = mue;
             }
             // CHECKSTYLE: resume IllegalCatch
 
             totalEvaluations += optimizer.getEvaluations();
+            if (targetReached) {
+                break;
+            }
+        }
+
+        final PAIR[] optima = getOptima();
+        if (optima.length == 0) {
+            // All runs failed.
+            throw lastException; // Cannot be null if starts >= 1.
+        }
+
+        // Return the best optimum.
+        return optima[0];
+    }
+
+    /**
+     * Runs the starts with independent optimizers.
+     *
+     * @param maxEval Maximal number of evaluations for all the starts.
+     * @param min Lower bounds, or {@code null}.
+     * @param max Upper bounds, or {@code null}.
+     * @param startPoint Start point of the first start.
+     * @return the best optimum.
+     */
+    private PAIR optimizeIndependently(final int maxEval,
+                                       final double[] min, final double[] max,
+                                       final double[] startPoint) {
+        // the start points are drawn beforehand, so that they do
+        // not depend on the scheduling of the optimizations
+        final double[][] points = new double[starts][];
+        points[0] = startPoint;
+        for (int i = 1; i < starts; i++) {
+            points[i] = nextStartPoint(min, max);
+        }
+
+        final EvaluationBudget budget = new EvaluationBudget(maxEval);
+        final AtomicInteger evaluations = new AtomicInteger(0);
+        final RuntimeException[] failures = new RuntimeException[starts];
+        final List<Callable<PAIR>> tasks = new ArrayList<Callable<PAIR>>(starts);
+        for (int i = 0; i < starts; i++) {
+            final int index = i;
+            tasks.add(new Callable<PAIR>() {
+                /** {@inheritDoc} */
+                public PAIR call() {
+                    if (budget.isCancelled()) {
+                        return null;
+                    }
+                    final OptimizationData[] data = new OptimizationData[optimData.length];
+                    for (int k = 0; k < data.length; k++) {
+                        data[k] = optimData[k] == null ? null : countEvaluations(optimData[k], budget);
+                    }
+                    data[maxEvalIndex]      = new MaxEval(maxEval);
+                    data[initialGuessIndex] = new InitialGuess(points[index]);
+
+                    final BaseMultivariateOptimizer<PAIR> startOptimizer = factory.create();
+                    // CHECKSTYLE: stop IllegalCatch
+                    try {
+                        final PAIR result = startOptimizer.optimize(data);
+                        if (isTargetReached(result)) {
+                            budget.cancel();
+                        }
+                        return result;
+                    } catch (RuntimeException e) {
+                        if (!budget.isCancelled()) {
+                            failures[index] = e;
+                        }
+                        return null;
+                    } finally {
+                        evaluations.addAndGet(startOptimizer.getEvaluations());
+                    }
+                    // CHECKSTYLE: resume IllegalCatch
+                }
+            });
+        }
+        final List<PAIR> results = ConcurrencyUtils.invokeAll(executor, tasks);
+        // evaluations rejected by the budget are counted by the optimizers
+        totalEvaluations = FastMath.min(evaluations.get(), maxEval);
+
+        RuntimeException lastException = null;
+        for (int i = 0; i < starts; i++) {
+            if (results.get(i) != null) {
+                store(results.get(i));
+            } else if (failures[i] != null) {
+                lastException = failures[i];
+            }
         }
 
         final PAIR[] optima = getOptima();
@@ -217,6 +363,70 @@ public abstract class BaseMultiStartMultivariateOptimizer<PAIR>
         return optima[0];
     }
 
+    /**
+     * Draws a random start point within the bounds.
+     *
+     * @param min Lower bounds, or {@code null}.
+     * @param max Upper bounds, or {@code null}.
+     * @return a start point.
+     * @throws TooManyEvaluationsException if no point within the bounds
+     * could be drawn.
+     */
+    private double[] nextStartPoint(final double[] min, final double[] max)
+        throws TooManyEvaluationsException {
+        double[] s = null;
+        int attempts = 0;
+        while (s == null) {
+            if (attempts++ >= getMaxEvaluations()) {
+                throw new TooManyEvaluationsException(getMaxEvaluations());
+            }
+            s = generator.nextVector();
+            for (int k = 0; s != null && k < s.length; ++k) {
+                if ((min != null && s[k] < min[k]) || (max != null && s[k] > max[k])) {
+                    // reject the vector
+                    s = null;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Makes an optimization data report the evaluations it performs.
+     * <p>
+     * When the starts are run by independent optimizers, this method is
+     * called for each optimization data passed to them; subclasses wrap
+     * the functions to optimize so that they call
+     * {@link EvaluationBudget#consume()} at each evaluation, which enforces
+     * the maximal number of evaluations of all the starts together and
+     * interrupts them when a target is reached. The default implementation
+     * returns the data unchanged.
+     * </p>
+     *
+     * @param data Optimization data.
+     * @param budget Budget shared by the starts.
+     * @return the data to pass to the optimizer of a start.
+     * @since 3.3
+     */
+    protected OptimizationData countEvaluations(final OptimizationData data,
+                                                final EvaluationBudget budget) {
+        return data;
+    }
+
+    /**
+     * Checks whether an optimum is good enough to stop the other starts.
+     * <p>
+     * The default implementation returns {@code false}.
+     * </p>
+     *
+     * @param optimum Result of an optimization run.
+     * @return {@code true} if no other start needs to be run.
+     * @since 3.3
+     */
+    protected boolean isTargetReached(final PAIR optimum) {
+        return false;
+    }
+
     /**
      * Method that will be called in order to store each found optimum.
      *
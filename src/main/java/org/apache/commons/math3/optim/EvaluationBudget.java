@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Number of evaluations shared by optimizations running concurrently.
+ * <p>
+ * The objective functions of the optimizations report each of their
+ * evaluations to the budget, which fails when the total number of
+ * evaluations exceeds the maximum, or when the budget has been
+ * {@link #cancel() cancelled} (for example because one of the
+ * optimizations already found a good enough optimum). The failure
+ * interrupts the optimization which attempted the evaluation.
+ * </p>
+ * <p>
+ * Instances of this class are thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class EvaluationBudget {
+    /** Maximal number of evaluations. */
+    private final int maxEvaluations;
+    /** Number of evaluations performed. */
+    private final AtomicInteger evaluations;
+    /** Indicator of cancellation. */
+    private volatile boolean cancelled;
+
+    /**
+     * @param maxEvaluations Maximal number of evaluations.
+     */
+    public EvaluationBudget(final int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+        this.evaluations    = new AtomicInteger(0);
+        this.cancelled      = false;
+    }
+
+    /**
+     * Records an evaluation.
+     *
+     * @throws TooManyEvaluationsException if the maximal number of
+     * evaluations is exceeded.
+     * @throws MathIllegalStateException if the budget has been cancelled.
+     */
+    public void consume()
+        throws TooManyEvaluationsException, MathIllegalStateException {
+        if (cancelled) {
+            throw new MathIllegalStateException(LocalizedFormats.OPTIMIZATION_CANCELLED);
+        }
+        if (evaluations.incrementAndGet() > maxEvaluations) {
+            throw new TooManyEvaluationsException(maxEvaluations);
+        }
+    }
+
+    /**
+     * Gets the number of evaluations performed.
+     *
+     * @return the number of evaluations, at most the maximal number.
+     */
+    public int getEvaluations() {
+        return FastMath.min(evaluations.get(), maxEvaluations);
+    }
+
+    /**
+     * Gets the maximal number of evaluations.
+     *
+     * @return the maximal number of evaluations.
+     */
+    public int getMaxEvaluations() {
+        return maxEvaluations;
+    }
+
+    /**
+     * Cancels the optimizations using the budget: their next evaluation
+     * will fail.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the budget has been cancelled.
+     *
+     * @return {@code true} if {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim;
+
+/**
+ * Factory creating new instances of an optimizer.
+ * <p>
+ * Optimizers hold the state of the optimization they are running, so
+ * that a single instance cannot be used by several threads. Multi-start
+ * optimizers running their starts concurrently therefore create one
+ * optimizer per start, using a factory which typically calls the
+ * constructor of the optimizer with the same settings each time.
+ * </p>
+ *
+ * @param <OPTIM> Type of the optimizer.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public interface OptimizerFactory<OPTIM> {
+    /**
+     * Creates a new optimizer.
+     *
+     * @return a new instance, distinct from those previously returned.
+     */
+    OPTIM create();
+}
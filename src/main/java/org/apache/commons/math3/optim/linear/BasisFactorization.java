@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Sparse LU factorization of the basis of a revised simplex method, with
+ * product form updates.
+ * <p>
+ * The basis matrix {@code B} is factorized as {@code B Q = L U}, where
+ * {@code Q} orders the basic columns (sparsest first), {@code L} is a
+ * row-permuted unit lower triangular matrix and {@code U} an upper
+ * triangular matrix, both stored by columns. Each column is computed by a
+ * sparse triangular solve (left-looking method of Gilbert and Peierls),
+ * and the pivot is chosen by threshold partial pivoting, preferring the
+ * rows having the fewest entries in the basis.
+ * </p>
+ * <p>
+ * When a column of the basis is replaced, an elementary (eta) matrix is
+ * appended to the factorization instead of computing it again; the caller
+ * is expected to refactorize the basis once a few tens of updates have
+ * been made.
+ * </p>
+ * <p>
+ * In the solves, vectors indexed by rows of the constraint matrix have
+ * {@code m} elements; vectors indexed by basic variables are indexed by
+ * their position in the basis.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class BasisFactorization {
+
+    /** Relative threshold for partial pivoting. */
+    private static final double PIVOT_THRESHOLD = 0.1;
+
+    /** Smallest absolute value accepted as a pivot. */
+    private static final double SINGULARITY_THRESHOLD = 1.0e-11;
+
+    /** Dimension of the basis. */
+    private final int m;
+
+    /** Start of the columns of L (length {@code m + 1}). */
+    private final int[] lStart;
+
+    /** Row indices of the entries of L. */
+    private int[] lIndex;
+
+    /** Values of the entries of L. */
+    private double[] lValue;
+
+    /** Start of the columns of U (length {@code m + 1}). */
+    private final int[] uStart;
+
+    /** Step indices of the off-diagonal entries of U. */
+    private int[] uIndex;
+
+    /** Values of the off-diagonal entries of U. */
+    private double[] uValue;
+
+    /** Diagonal of U. */
+    private final double[] uDiagonal;
+
+    /** Pivot row of each step. */
+    private final int[] pivotRow;
+
+    /** Step of each row ({@code -1} if the row has not been pivoted yet). */
+    private final int[] rowStep;
+
+    /** Basis position of the column factorized at each step. */
+    private final int[] position;
+
+    /** Number of eta matrices. */
+    private int etaCount;
+
+    /** Basis position replaced by each eta matrix. */
+    private int[] etaPosition;
+
+    /** Pivot of each eta matrix. */
+    private double[] etaPivot;
+
+    /** Start of the entries of each eta matrix (length {@code etaCount + 1}). */
+    private int[] etaStart;
+
+    /** Basis positions of the entries of the eta matrices. */
+    private int[] etaIndex;
+
+    /** Values of the entries of the eta matrices. */
+    private double[] etaValue;
+
+    /** Dense work array. */
+    private final double[] work;
+
+    /**
+     * Creates a factorization of the identity matrix.
+     *
+     * @param m Dimension of the basis.
+     */
+    BasisFactorization(final int m) {
+        this.m       = m;
+        lStart       = new int[m + 1];
+        lIndex       = new int[FastMath.max(16, m)];
+        lValue       = new double[lIndex.length];
+        uStart       = new int[m + 1];
+        uIndex       = new int[FastMath.max(16, m)];
+        uValue       = new double[uIndex.length];
+        uDiagonal    = new double[m];
+        pivotRow     = new int[m];
+        rowStep      = new int[m];
+        position     = new int[m];
+        etaPosition  = new int[16];
+        etaPivot     = new double[16];
+        etaStart     = new int[17];
+        etaIndex     = new int[FastMath.max(16, m)];
+        etaValue     = new double[etaIndex.length];
+        work         = new double[m];
+        for (int k = 0; k < m; ++k) {
+            uDiagonal[k] = 1;
+            pivotRow[k]  = k;
+            rowStep[k]   = k;
+            position[k]  = k;
+        }
+    }
+
+    /**
+     * Get the number of updates since the last factorization.
+     *
+     * @return the number of eta matrices.
+     */
+    int getUpdates() {
+        return etaCount;
+    }
+
+    /**
+     * Factorizes a basis.
+     *
+     * @param columnStart Start of the columns of the constraint matrix.
+     * @param rowIndex Row indices of the entries of the constraint matrix.
+     * @param value Values of the entries of the constraint matrix.
+     * @param basis Index of the basic variable (column of the constraint
+     * matrix) at each position.
+     * @throws SingularMatrixException if the basis is numerically singular.
+     */
+    void factorize(final int[] columnStart, final int[] rowIndex, final double[] value,
+                   final int[] basis)
+        throws SingularMatrixException {
+
+        etaCount = 0;
+
+        // count the entries of each row, order the columns by increasing number of entries
+        final int[] rowCount = new int[m];
+        final int[] columnCount = new int[m + 1];
+        for (int pos = 0; pos < m; ++pos) {
+            final int j = basis[pos];
+            for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                ++rowCount[rowIndex[p]];
+            }
+            ++columnCount[FastMath.min(m, columnStart[j + 1] - columnStart[j])];
+        }
+        for (int c = 0, start = 0; c <= m; ++c) {
+            final int count = columnCount[c];
+            columnCount[c] = start;
+            start += count;
+        }
+        for (int pos = 0; pos < m; ++pos) {
+            final int j = basis[pos];
+            position[columnCount[FastMath.min(m, columnStart[j + 1] - columnStart[j])]++] = pos;
+        }
+
+        final int[] reached = new int[m];
+        final int[] stack = new int[m];
+        final int[] next = new int[m];
+        final boolean[] marked = new boolean[m];
+        final int[] candidates = new int[m];
+        final int[] stamp = new int[m];
+        Arrays.fill(rowStep, -1);
+        Arrays.fill(stamp, -1);
+        int lSize = 0;
+        int uSize = 0;
+
+        for (int k = 0; k < m; ++k) {
+            final int j = basis[position[k]];
+            lStart[k] = lSize;
+            uStart[k] = uSize;
+
+            // rows already pivoted reachable from the column, in topological order
+            int top = m;
+            for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                final int r = rowIndex[p];
+                if (rowStep[r] >= 0 && !marked[r]) {
+                    top = depthFirstSearch(r, top, reached, stack, next, marked);
+                }
+            }
+
+            // sparse triangular solve, collecting the rows not pivoted yet
+            int nbCandidates = 0;
+            for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                final int r = rowIndex[p];
+                work[r] = value[p];
+                if (rowStep[r] < 0 && stamp[r] != k) {
+                    stamp[r] = k;
+                    candidates[nbCandidates++] = r;
+                }
+            }
+            for (int t = top; t < m; ++t) {
+                final int r = reached[t];
+                marked[r] = false;
+                final double xr = work[r];
+                if (xr != 0) {
+                    final int s = rowStep[r];
+                    for (int p = lStart[s]; p < lStart[s + 1]; ++p) {
+                        final int i = lIndex[p];
+                        work[i] -= lValue[p] * xr;
+                        if (rowStep[i] < 0 && stamp[i] != k) {
+                            stamp[i] = k;
+                            candidates[nbCandidates++] = i;
+                        }
+                    }
+                }
+            }
+
+            // column of U
+            if (uSize + m - top > uIndex.length) {
+                uIndex = MathArrays.copyOf(uIndex, 2 * (uSize + m - top));
+                uValue = MathArrays.copyOf(uValue, uIndex.length);
+            }
+            for (int t = top; t < m; ++t) {
+                final int r = reached[t];
+                if (work[r] != 0) {
+                    uIndex[uSize] = rowStep[r];
+                    uValue[uSize] = work[r];
+                    ++uSize;
+                    work[r] = 0;
+                }
+            }
+
+            // pivot: largest entries, then sparsest row
+            double max = 0;
+            for (int c = 0; c < nbCandidates; ++c) {
+                max = FastMath.max(max, FastMath.abs(work[candidates[c]]));
+            }
+            if (max <= SINGULARITY_THRESHOLD) {
+                for (int c = 0; c < nbCandidates; ++c) {
+                    work[candidates[c]] = 0;
+                }
+                throw new SingularMatrixException();
+            }
+            int pivot = -1;
+            for (int c = 0; c < nbCandidates; ++c) {
+                final int r = candidates[c];
+                if (FastMath.abs(work[r]) >= PIVOT_THRESHOLD * max &&
+                    (pivot < 0 || rowCount[r] < rowCount[pivot])) {
+                    pivot = r;
+                }
+            }
+            final double pivotValue = work[pivot];
+            work[pivot] = 0;
+            uDiagonal[k] = pivotValue;
+            pivotRow[k]  = pivot;
+            rowStep[pivot] = k;
+
+            // column of L
+            if (lSize + nbCandidates > lIndex.length) {
+                lIndex = MathArrays.copyOf(lIndex, 2 * (lSize + nbCandidates));
+                lValue = MathArrays.copyOf(lValue, lIndex.length);
+            }
+            for (int c = 0; c < nbCandidates; ++c) {
+                final int r = candidates[c];
+                if (work[r] != 0) {
+                    lIndex[lSize] = r;
+                    lValue[lSize] = work[r] / pivotValue;
+                    ++lSize;
+                    work[r] = 0;
+                }
+            }
+        }
+        lStart[m] = lSize;
+        uStart[m] = uSize;
+    }
+
+    /**
+     * Non-recursive depth-first search in the graph of the columns of L.
+     *
+     * @param root Pivoted row where the search starts.
+     * @param top Index of the first reached row in {@code reached}.
+     * @param reached Reached rows, stored from the end in topological order.
+     * @param stack Stack of rows being visited.
+     * @param next Index of the next entry to visit for each level of the stack.
+     * @param marked Marks of the visited rows.
+     * @return the new index of the first reached row in {@code reached}.
+     */
+    private int depthFirstSearch(final int root, final int top, final int[] reached,
+                                 final int[] stack, final int[] next, final boolean[] marked) {
+        int newTop = top;
+        int head = 0;
+        stack[0] = root;
+        marked[root] = true;
+        next[0] = lStart[rowStep[root]];
+        while (head >= 0) {
+            final int r = stack[head];
+            final int end = lStart[rowStep[r] + 1];
+            boolean done = true;
+            for (int p = next[head]; p < end; ++p) {
+                final int i = lIndex[p];
+                if (rowStep[i] >= 0 && !marked[i]) {
+                    // visit the child, then come back to the following entries
+                    next[head] = p + 1;
+                    ++head;
+                    stack[head] = i;
+                    marked[i] = true;
+                    next[head] = lStart[rowStep[i]];
+                    done = false;
+                    break;
+                }
+            }
+            if (done) {
+                --head;
+                reached[--newTop] = r;
+            }
+        }
+        return newTop;
+    }
+
+    /**
+     * Solves {@code B x = a}.
+     *
+     * @param a Right hand side, indexed by rows (overwritten).
+     * @param x Solution, indexed by basis positions.
+     */
+    void ftran(final double[] a, final double[] x) {
+        // L z = a
+        for (int k = 0; k < m; ++k) {
+            final double z = a[pivotRow[k]];
+            if (z != 0) {
+                for (int p = lStart[k]; p < lStart[k + 1]; ++p) {
+                    a[lIndex[p]] -= lValue[p] * z;
+                }
+            }
+        }
+
+        // U w = z
+        for (int k = 0; k < m; ++k) {
+            work[k] = a[pivotRow[k]];
+        }
+        for (int k = m - 1; k >= 0; --k) {
+            final double w = work[k] / uDiagonal[k];
+            work[k] = w;
+            if (w != 0) {
+                for (int p = uStart[k]; p < uStart[k + 1]; ++p) {
+                    work[uIndex[p]] -= uValue[p] * w;
+                }
+            }
+        }
+        for (int k = 0; k < m; ++k) {
+            x[position[k]] = work[k];
+            work[k] = 0;
+        }
+
+        // eta matrices, oldest first
+        for (int e = 0; e < etaCount; ++e) {
+            final int r = etaPosition[e];
+            if (x[r] != 0) {
+                final double xr = x[r] / etaPivot[e];
+                x[r] = xr;
+                for (int p = etaStart[e]; p < etaStart[e + 1]; ++p) {
+                    x[etaIndex[p]] -= etaValue[p] * xr;
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves {@code B<sup>T</sup> y = c}.
+     *
+     * @param c Right hand side, indexed by basis positions (overwritten).
+     * @param y Solution, indexed by rows.
+     */
+    void btran(final double[] c, final double[] y) {
+        // eta matrices, newest first
+        for (int e = etaCount - 1; e >= 0; --e) {
+            final int r = etaPosition[e];
+            double s = c[r];
+            for (int p = etaStart[e]; p < etaStart[e + 1]; ++p) {
+                s -= etaValue[p] * c[etaIndex[p]];
+            }
+            c[r] = s / etaPivot[e];
+        }
+
+        // U^T v = c
+        for (int k = 0; k < m; ++k) {
+            double s = c[position[k]];
+            for (int p = uStart[k]; p < uStart[k + 1]; ++p) {
+                s -= uValue[p] * work[uIndex[p]];
+            }
+            work[k] = s / uDiagonal[k];
+        }
+
+        // L^T y = v
+        for (int k = m - 1; k >= 0; --k) {
+            double s = work[k];
+            for (int p = lStart[k]; p < lStart[k + 1]; ++p) {
+                s -= lValue[p] * y[lIndex[p]];
+            }
+            y[pivotRow[k]] = s;
+            work[k] = 0;
+        }
+    }
+
+    /**
+     * Replaces a column of the basis.
+     *
+     * @param r Basis position of the replaced column.
+     * @param d Solution of {@code B d = a}, where {@code a} is the entering
+     * column and {@code B} the basis before the replacement.
+     */
+    void update(final int r, final double[] d) {
+        if (etaCount == etaPosition.length) {
+            etaPosition = MathArrays.copyOf(etaPosition, 2 * etaCount);
+            etaPivot    = MathArrays.copyOf(etaPivot, 2 * etaCount);
+            etaStart    = MathArrays.copyOf(etaStart, 2 * etaCount + 1);
+        }
+        int size = etaStart[etaCount];
+        if (size + m > etaIndex.length) {
+            etaIndex = MathArrays.copyOf(etaIndex, 2 * (size + m));
+            etaValue = MathArrays.copyOf(etaValue, etaIndex.length);
+        }
+        for (int i = 0; i < m; ++i) {
+            if (i != r && d[i] != 0) {
+                etaIndex[size] = i;
+                etaValue[size] = d[i];
+                ++size;
+            }
+        }
+        etaPosition[etaCount] = r;
+        etaPivot[etaCount]    = d[r];
+        etaStart[++etaCount]  = size;
+    }
+
+}
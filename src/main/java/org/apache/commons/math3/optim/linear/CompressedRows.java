@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Sparse matrix stored by rows, as used by {@link InteriorPointSolver}.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class CompressedRows {
+
+    /** Number of rows. */
+    private final int rows;
+
+    /** Number of columns. */
+    private final int columns;
+
+    /** Start of the rows in {@link #index} and {@link #value}. */
+    private final int[] start;
+
+    /** Column indices of the entries, increasing in each row. */
+    private final int[] index;
+
+    /** Values of the entries. */
+    private final double[] value;
+
+    /**
+     * Builds a matrix from its entries in arbitrary order; entries with the
+     * same indices are summed.
+     *
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param entryRow Row indices of the entries.
+     * @param entryColumn Column indices of the entries.
+     * @param entryValue Values of the entries.
+     * @param count Number of entries.
+     */
+    CompressedRows(final int rows, final int columns,
+                   final int[] entryRow, final int[] entryColumn, final double[] entryValue,
+                   final int count) {
+        this.rows = rows;
+        this.columns = columns;
+
+        // bucket the entries by row
+        final int[] rowStart = new int[rows + 1];
+        for (int k = 0; k < count; ++k) {
+            ++rowStart[entryRow[k] + 1];
+        }
+        for (int i = 0; i < rows; ++i) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        final int[] fill = new int[rows];
+        final int[] bucketColumn = new int[count];
+        final double[] bucketValue = new double[count];
+        for (int k = 0; k < count; ++k) {
+            final int p = rowStart[entryRow[k]] + fill[entryRow[k]]++;
+            bucketColumn[p] = entryColumn[k];
+            bucketValue[p] = entryValue[k];
+        }
+
+        // merge the duplicates and sort the columns, dropping zeros
+        final double[] accumulator = new double[columns];
+        final boolean[] used = new boolean[columns];
+        start = new int[rows + 1];
+        int[] idx = new int[count];
+        double[] val = new double[count];
+        int nnz = 0;
+        for (int i = 0; i < rows; ++i) {
+            for (int p = rowStart[i]; p < rowStart[i + 1]; ++p) {
+                accumulator[bucketColumn[p]] += bucketValue[p];
+                used[bucketColumn[p]] = true;
+            }
+            final int first = nnz;
+            for (int p = rowStart[i]; p < rowStart[i + 1]; ++p) {
+                final int j = bucketColumn[p];
+                if (used[j]) {
+                    used[j] = false;
+                    if (accumulator[j] != 0) {
+                        idx[nnz++] = j;
+                    }
+                }
+            }
+            Arrays.sort(idx, first, nnz);
+            for (int p = first; p < nnz; ++p) {
+                val[p] = accumulator[idx[p]];
+            }
+            for (int p = rowStart[i]; p < rowStart[i + 1]; ++p) {
+                accumulator[bucketColumn[p]] = 0;
+            }
+            start[i + 1] = nnz;
+        }
+        index = MathArrays.copyOf(idx, nnz);
+        value = MathArrays.copyOf(val, nnz);
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows.
+     */
+    int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns.
+     */
+    int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of non-zero entries.
+     *
+     * @return the number of non-zero entries.
+     */
+    int getEntries() {
+        return start[rows];
+    }
+
+    /**
+     * Gets the start of the rows.
+     *
+     * @return the start of the rows in the arrays of indices and values
+     * (reference to the internal array).
+     */
+    int[] getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the column indices of the entries.
+     *
+     * @return the column indices of the entries (reference to the internal array).
+     */
+    int[] getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the values of the entries.
+     *
+     * @return the values of the entries (reference to the internal array).
+     */
+    double[] getValue() {
+        return value;
+    }
+
+    /**
+     * Computes the product of the matrix by a vector.
+     *
+     * @param x Vector to multiply (length {@code getColumns()}).
+     * @param y Array where the product is stored (length {@code getRows()}).
+     */
+    void multiply(final double[] x, final double[] y) {
+        for (int i = 0; i < rows; ++i) {
+            double sum = 0;
+            for (int p = start[i]; p < start[i + 1]; ++p) {
+                sum += value[p] * x[index[p]];
+            }
+            y[i] = sum;
+        }
+    }
+
+    /**
+     * Adds the product of the transpose of the matrix by a vector.
+     *
+     * @param x Vector to multiply (length {@code getRows()}).
+     * @param y Array to which the product is added (length {@code getColumns()}).
+     */
+    void transposeMultiplyAdd(final double[] x, final double[] y) {
+        for (int i = 0; i < rows; ++i) {
+            final double xi = x[i];
+            if (xi != 0) {
+                for (int p = start[i]; p < start[i + 1]; ++p) {
+                    y[index[p]] += value[p] * xi;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the transpose of the matrix.
+     *
+     * @return the transpose of the matrix.
+     */
+    CompressedRows transpose() {
+        final int nnz = start[rows];
+        final int[] entryRow = new int[nnz];
+        for (int i = 0; i < rows; ++i) {
+            for (int p = start[i]; p < start[i + 1]; ++p) {
+                entryRow[p] = i;
+            }
+        }
+        return new CompressedRows(columns, rows, index, entryRow, value, nnz);
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Dense solver for the Karush-Kuhn-Tucker systems of {@link InteriorPointSolver}.
+ * <p>
+ * The inequality part is eliminated, which leaves the positive definite
+ * matrix H = Q + D<sub>x</sub> + &rho; I + G<sup>T</sup> (D<sub>z</sub> +
+ * &delta; I)<sup>-1</sup> G, and the equality part is solved through the
+ * Schur complement A H<sup>-1</sup> A<sup>T</sup> + &delta; I; both are
+ * factorized by {@link CholeskyDecomposition}.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class DenseKktSolver implements KktSolver {
+
+    /** Smallest relative shift of the diagonal tried when a matrix is numerically singular. */
+    private static final double INITIAL_SHIFT = 1.0e-14;
+
+    /** Largest relative shift of the diagonal of H, beyond which Q is not considered convex. */
+    private static final double CONVEXITY_THRESHOLD = 1.0e-8;
+
+    /** Quadratic term (symmetric). */
+    private final CompressedRows q;
+
+    /** Equality constraints. */
+    private final CompressedRows a;
+
+    /** Inequality constraints. */
+    private final CompressedRows g;
+
+    /** Primal regularization. */
+    private final double rho;
+
+    /** Dual regularization. */
+    private final double delta;
+
+    /** Inverses of the diagonal of the inequality part. */
+    private final double[] w;
+
+    /** Solver for H. */
+    private DecompositionSolver hSolver;
+
+    /** H<sup>-1</sup> A<sup>T</sup>, stored by rows. */
+    private double[][] hInvAt;
+
+    /** Solver for the Schur complement. */
+    private DecompositionSolver sSolver;
+
+    /**
+     * Simple constructor.
+     *
+     * @param q Quadratic term (symmetric).
+     * @param a Equality constraints.
+     * @param g Inequality constraints.
+     * @param rho Primal regularization.
+     * @param delta Dual regularization.
+     */
+    DenseKktSolver(final CompressedRows q, final CompressedRows a, final CompressedRows g,
+                   final double rho, final double delta) {
+        this.q = q;
+        this.a = a;
+        this.g = g;
+        this.rho = rho;
+        this.delta = delta;
+        this.w = new double[g.getRows()];
+    }
+
+    /** {@inheritDoc} */
+    public void factorize(final double[] dx, final double[] dz)
+        throws NonPositiveDefiniteMatrixException {
+
+        // H, lower triangle
+        final int n = q.getRows();
+        final double[][] h = new double[n][n];
+        final int[] qStart = q.getStart();
+        final int[] qIndex = q.getIndex();
+        final double[] qValue = q.getValue();
+        for (int i = 0; i < n; ++i) {
+            for (int p = qStart[i]; p < qStart[i + 1] && qIndex[p] <= i; ++p) {
+                h[i][qIndex[p]] = qValue[p];
+            }
+            h[i][i] += dx[i] + rho;
+        }
+        final int[] gStart = g.getStart();
+        final int[] gIndex = g.getIndex();
+        final double[] gValue = g.getValue();
+        for (int k = 0; k < w.length; ++k) {
+            w[k] = 1 / (dz[k] + delta);
+            for (int p = gStart[k]; p < gStart[k + 1]; ++p) {
+                final double[] hI = h[gIndex[p]];
+                final double wg = w[k] * gValue[p];
+                for (int r = gStart[k]; r <= p; ++r) {
+                    hI[gIndex[r]] += wg * gValue[r];
+                }
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < i; ++j) {
+                h[j][i] = h[i][j];
+            }
+        }
+        hSolver = choleskySolver(h, CONVEXITY_THRESHOLD);
+
+        // Schur complement of the equality part
+        final int m = a.getRows();
+        if (m > 0) {
+            final double[][] at = new double[n][m];
+            final int[] aStart = a.getStart();
+            final int[] aIndex = a.getIndex();
+            final double[] aValue = a.getValue();
+            for (int i = 0; i < m; ++i) {
+                for (int p = aStart[i]; p < aStart[i + 1]; ++p) {
+                    at[aIndex[p]][i] = aValue[p];
+                }
+            }
+            hInvAt = hSolver.solve(new Array2DRowRealMatrix(at, false)).getData();
+            final double[][] s = new double[m][m];
+            for (int i = 0; i < m; ++i) {
+                for (int p = aStart[i]; p < aStart[i + 1]; ++p) {
+                    final double[] row = hInvAt[aIndex[p]];
+                    for (int k = 0; k <= i; ++k) {
+                        s[i][k] += aValue[p] * row[k];
+                    }
+                }
+                s[i][i] += delta;
+                for (int k = 0; k < i; ++k) {
+                    s[k][i] = s[i][k];
+                }
+            }
+            sSolver = choleskySolver(s, 1);
+        }
+    }
+
+    /**
+     * Factorizes a symmetric positive semi-definite matrix.
+     * <p>
+     * If the matrix is numerically singular, its diagonal is shifted by
+     * increasing amounts until the factorization succeeds; the iterative
+     * refinement of the solutions compensates for the shift.
+     * </p>
+     *
+     * @param m Matrix (its diagonal is modified if it is shifted).
+     * @param maxShift Largest shift, relative to the largest diagonal element.
+     * @return a solver for the matrix.
+     * @throws NonPositiveDefiniteMatrixException if the matrix cannot be
+     * factorized with a shift up to {@code maxShift}.
+     */
+    private static DecompositionSolver choleskySolver(final double[][] m, final double maxShift)
+        throws NonPositiveDefiniteMatrixException {
+        double maxDiagonal = 0;
+        for (int i = 0; i < m.length; ++i) {
+            maxDiagonal = FastMath.max(maxDiagonal, FastMath.abs(m[i][i]));
+        }
+        final RealMatrix matrix = new Array2DRowRealMatrix(m, false);
+        double shift = 0;
+        while (true) {
+            try {
+                return new CholeskyDecomposition(matrix, 0, 0).getSolver();
+            } catch (NonPositiveDefiniteMatrixException e) {
+                final double next = shift == 0 ? INITIAL_SHIFT * maxDiagonal : 100 * shift;
+                if (next == 0 || next > maxShift * maxDiagonal) {
+                    throw e;
+                }
+                for (int i = 0; i < m.length; ++i) {
+                    m[i][i] += next - shift;
+                }
+                shift = next;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void solve(final double[] r1, final double[] r2, final double[] r3,
+                      final double[] x, final double[] y, final double[] z) {
+
+        // eliminate the inequality part
+        final double[] r = r1.clone();
+        for (int k = 0; k < w.length; ++k) {
+            z[k] = r3[k] * w[k];
+        }
+        g.transposeMultiplyAdd(z, r);
+        final double[] t = hSolver.solve(new ArrayRealVector(r, false)).toArray();
+
+        // equality part
+        if (y.length > 0) {
+            final double[] at = new double[y.length];
+            a.multiply(t, at);
+            for (int i = 0; i < at.length; ++i) {
+                at[i] -= r2[i];
+            }
+            final double[] dy = sSolver.solve(new ArrayRealVector(at, false)).toArray();
+            System.arraycopy(dy, 0, y, 0, y.length);
+            for (int j = 0; j < t.length; ++j) {
+                final double[] row = hInvAt[j];
+                double sum = 0;
+                for (int i = 0; i < dy.length; ++i) {
+                    sum += row[i] * dy[i];
+                }
+                t[j] -= sum;
+            }
+        }
+        System.arraycopy(t, 0, x, 0, t.length);
+
+        // back to the inequality part
+        g.multiply(x, z);
+        for (int k = 0; k < w.length; ++k) {
+            z[k] = (z[k] - r3[k]) * w[k];
+        }
+    }
+
+}
@@ -0,0 +1,1011 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.linear.DefaultRealMatrixPreservingVisitor;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Solves linear and convex quadratic problems by a primal-dual interior
+ * point method.
+ * <p>
+ * The problems have the form:
+ * <pre>
+ * minimize &frac12; x<sup>T</sup> Q x + c<sup>T</sup> x
+ * subject to linear equality and inequality constraints
+ * </pre>
+ * where Q is positive semi-definite (Q = 0 for linear problems). The
+ * objective function is given either as a {@link LinearObjectiveFunction}
+ * or as a {@link QuadraticObjectiveFunction}; the other optimization data
+ * are the same as for {@link SimplexSolver}: {@link LinearConstraintSet},
+ * {@link NonNegativeConstraint}, {@link GoalType} and {@link
+ * org.apache.commons.math3.optim.MaxIter MaxIter}.
+ * </p>
+ * <p>
+ * The algorithm is Mehrotra's predictor-corrector method, applied to the
+ * homogeneous self-dual model of the problem, so that it may start from an
+ * infeasible point. Each iteration factorizes the Karush-Kuhn-Tucker matrix
+ * of the problem once and solves three systems with it, and the number of
+ * iterations is usually between 10 and 50 whatever the size of the problem.
+ * The KKT matrix is factorized either densely, by {@link
+ * org.apache.commons.math3.linear.CholeskyDecomposition CholeskyDecomposition},
+ * after elimination of the inequality constraints, or as a whole by a sparse
+ * LDL<sup>T</sup> factorization with a fill-reducing ordering, depending on
+ * which one is estimated to be cheaper. The sparse factorization makes it
+ * possible to solve problems with tens of thousands of variables and sparse
+ * constraints, which are best given as {@link
+ * org.apache.commons.math3.linear.OpenMapRealVector OpenMapRealVector}
+ * instances.
+ * </p>
+ * <p>
+ * Contrary to the simplex method, the solution is only accurate up to the
+ * required tolerance, and when the optimum is not unique it lies in the
+ * interior of the optimal face rather than at a vertex. Infeasible and
+ * unbounded problems are detected when the iterates of the homogeneous
+ * model converge to a certificate of infeasibility.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class InteriorPointSolver extends LinearOptimizer {
+
+    /** Default relative tolerance on the residuals and duality gap. */
+    private static final double DEFAULT_EPSILON = 1.0e-9;
+
+    /** Regularization of the KKT matrix. */
+    private static final double REGULARIZATION = 1.0e-10;
+
+    /** Fraction of the distance to the boundary covered by a step. */
+    private static final double STEP_FRACTION = 0.99;
+
+    /** Tolerance on the normalized residual of a certificate of infeasibility, relative to its gap. */
+    private static final double INFEASIBILITY_TOLERANCE = 1.0e-5;
+
+    /** Smallest normalized gap of a certificate of infeasibility, far above rounding errors. */
+    private static final double INFEASIBILITY_GAP = 1.0e-12;
+
+    /** Maximal number of iterative refinement steps for each Newton system. */
+    private static final int REFINEMENT_STEPS = 3;
+
+    /** Ratio of the costs of the sparse and dense factorizations per operation. */
+    private static final double SPARSE_OVERHEAD = 4;
+
+    /** Relative tolerance on the residuals and duality gap. */
+    private final double epsilon;
+
+    /** Quadratic objective function, if the problem is quadratic. */
+    private QuadraticObjectiveFunction quadraticFunction;
+
+    /** Number of variables. */
+    private int n;
+
+    /** Quadratic term (symmetric). */
+    private CompressedRows q;
+
+    /** Linear term. */
+    private double[] c;
+
+    /** Equality constraints. */
+    private CompressedRows a;
+
+    /** Right hand side of the equality constraints. */
+    private double[] b;
+
+    /** Inequality constraints (in the &le; form). */
+    private CompressedRows g;
+
+    /** Right hand side of the inequality constraints. */
+    private double[] h;
+
+    /** Whether the variables are non-negative. */
+    private boolean bounded;
+
+    /** Solver for the KKT systems. */
+    private KktSolver kkt;
+
+    /**
+     * Builds a solver with default settings.
+     */
+    public InteriorPointSolver() {
+        this(DEFAULT_EPSILON);
+    }
+
+    /**
+     * Builds a solver with a specified tolerance.
+     *
+     * @param epsilon Relative tolerance on the residuals of the constraints
+     * and optimality conditions and on the duality gap.
+     */
+    public InteriorPointSolver(final double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. In addition to those documented in
+     * {@link LinearOptimizer#optimize(OptimizationData[]) LinearOptimizer},
+     * this method will register the following data:
+     * <ul>
+     *  <li>{@link QuadraticObjectiveFunction}</li>
+     * </ul>
+     * @return {@inheritDoc}
+     * @throws TooManyIterationsException if the maximal number of
+     * iterations is exceeded.
+     * @throws NonPositiveDefiniteMatrixException if the problem is not convex.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyIterationsException, NonPositiveDefiniteMatrixException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /**
+     * Scans the list of (required and optional) optimization data that
+     * characterize the problem.
+     *
+     * @param optData Optimization data.
+     * The following data will be looked for:
+     * <ul>
+     *  <li>{@link QuadraticObjectiveFunction}</li>
+     * </ul>
+     * A {@link LinearObjectiveFunction} replaces a previous quadratic one.
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        // The existing values (as set by the previous call) are reused if
+        // not provided in the argument list.
+        for (OptimizationData data : optData) {
+            if (data instanceof QuadraticObjectiveFunction) {
+                quadraticFunction = (QuadraticObjectiveFunction) data;
+                continue;
+            }
+            if (data instanceof LinearObjectiveFunction) {
+                quadraticFunction = null;
+                continue;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PointValuePair doOptimize()
+        throws TooManyIterationsException,
+               UnboundedSolutionException,
+               NoFeasibleSolutionException,
+               NonPositiveDefiniteMatrixException {
+
+        final boolean maximize = getGoalType() == GoalType.MAXIMIZE;
+        if (quadraticFunction == null) {
+            setUpProblem(null, getFunction().getCoefficients(), getConstraints(), maximize);
+        } else {
+            setUpProblem(quadraticFunction.getQuadratic(), quadraticFunction.getCoefficients(),
+                         getConstraints(), maximize);
+        }
+        checkConvexity();
+        kkt = createKktSolver(q, a, g);
+
+        double[] x;
+        try {
+            x = solve();
+        } catch (UnboundedSolutionException e) {
+            // the objective function is unbounded only if the constraints are
+            // feasible, which is checked by solving the problem without linear term
+            Arrays.fill(c, 0);
+            solve();
+            throw e;
+        }
+        return new PointValuePair(x, quadraticFunction == null ?
+                                     getFunction().value(x) : quadraticFunction.value(x));
+    }
+
+    /**
+     * Solves the problem set up in the fields.
+     *
+     * @return the solution.
+     * @throws TooManyIterationsException if the maximal number of
+     * iterations is exceeded.
+     * @throws UnboundedSolutionException if the objective function is unbounded.
+     * @throws NoFeasibleSolutionException if the constraints are infeasible.
+     * @throws NonPositiveDefiniteMatrixException if the problem is not convex.
+     */
+    private double[] solve()
+        throws TooManyIterationsException,
+               UnboundedSolutionException,
+               NoFeasibleSolutionException,
+               NonPositiveDefiniteMatrixException {
+
+        final int me = b.length;
+        final int mg = h.length;
+        final int nb = bounded ? n : 0;
+        final int mi = mg + nb;
+        final double[] x = new double[n];
+        final double[] y = new double[me];
+        final double[] z = new double[mi];
+        final double[] s = new double[mi];
+        initialize(x, y, z, s);
+        double tau = 1;
+        double kappa = 1;
+
+        // right hand side of the inequality constraints, including the bounds
+        final double[] hAll = MathArrays.copyOf(h, mi);
+        final double[] minusC = new double[n];
+        for (int j = 0; j < n; ++j) {
+            minusC[j] = -c[j];
+        }
+
+        final double bNorm = FastMath.max(1, FastMath.max(normInf(b), normInf(h)));
+        final double cNorm = FastMath.max(1, normInf(c));
+        final double mNorm = FastMath.max(1, FastMath.max(normMax(q), FastMath.max(normMax(a), normMax(g))));
+        final double[] qx = new double[n];
+        final double[] rx = new double[n];
+        final double[] ry = new double[me];
+        final double[] rz = new double[mi];
+        final double[] gx = new double[mg];
+        final double[] xi = new double[n];
+        final double[] dx = new double[n];
+        final double[] dz = new double[mg];
+        final double[] ds = new double[mi];
+        final double[] tx = new double[n];
+        final double[] ty = new double[me];
+        final double[] tz = new double[mi];
+        final double[] deltaX = new double[n];
+        final double[] deltaY = new double[me];
+        final double[] deltaZ = new double[mi];
+        final double[] deltaS = new double[mi];
+        final double[] delta = new double[2];
+
+        while (true) {
+
+            // residuals of the homogeneous model
+            q.multiply(x, qx);
+            for (int j = 0; j < n; ++j) {
+                rx[j] = qx[j] + tau * c[j] - (bounded ? z[mg + j] : 0);
+            }
+            a.transposeMultiplyAdd(y, rx);
+            g.transposeMultiplyAdd(MathArrays.copyOf(z, mg), rx);
+            a.multiply(x, ry);
+            for (int i = 0; i < me; ++i) {
+                ry[i] -= tau * b[i];
+            }
+            g.multiply(x, gx);
+            for (int k = 0; k < mg; ++k) {
+                rz[k] = gx[k] + s[k] - tau * h[k];
+            }
+            for (int j = 0; j < nb; ++j) {
+                rz[mg + j] = s[mg + j] - x[j];
+            }
+            final double xQx = dot(x, qx);
+            final double cx = dot(c, x);
+            final double by = dot(b, y) + dot(h, z);
+            final double rt = xQx / tau + cx + by + kappa;
+
+            // convergence of the scaled iterates
+            final double pObj = (0.5 * xQx / tau + cx) / tau;
+            final double dObj = (-0.5 * xQx / tau - by) / tau;
+            if (FastMath.max(normInf(ry), normInf(rz)) <= epsilon * bNorm * tau &&
+                normInf(rx) <= epsilon * cNorm * tau &&
+                FastMath.abs(pObj - dObj) <=
+                epsilon * FastMath.max(1, FastMath.min(FastMath.abs(pObj), FastMath.abs(dObj)))) {
+                for (int j = 0; j < n; ++j) {
+                    x[j] /= tau;
+                }
+                return x;
+            }
+            if (kappa > tau) {
+                checkInfeasibility(x, y, z, qx, gx, cx, by, bNorm, cNorm, mNorm);
+            }
+
+            incrementIterationCount();
+
+            // scaling of the inequality constraints
+            for (int k = 0; k < mg; ++k) {
+                dz[k] = s[k] / z[k];
+            }
+            for (int j = 0; j < nb; ++j) {
+                dx[j] = z[mg + j] / s[mg + j];
+            }
+            kkt.factorize(dx, dz);
+
+            // part of the directions proportional to the direction of tau
+            final double[] vx = new double[n];
+            final double[] vy = new double[me];
+            final double[] vz = new double[mi];
+            solveNewton(minusC, b, hAll, s, z, dx, dz, vx, vy, vz);
+            for (int j = 0; j < n; ++j) {
+                xi[j] = 2 * qx[j] / tau + c[j];
+            }
+            final double denominator =
+                dot(xi, vx) + dot(b, vy) + dot(hAll, vz) - xQx / (tau * tau) - kappa / tau;
+
+            // predictor (affine scaling) direction
+            for (int k = 0; k < mi; ++k) {
+                ds[k] = s[k] * z[k];
+            }
+            double dk = tau * kappa;
+            solveDirection(1, rx, ry, rz, rt, ds, dk, s, z, tau, kappa, xi, hAll,
+                           vx, vy, vz, denominator, dx, dz, tx, ty, tz,
+                           deltaX, deltaY, deltaZ, deltaS, delta);
+            final double alphaAffine =
+                FastMath.min(1, FastMath.min(stepLength(s, z, deltaS, deltaZ),
+                                             stepLength(tau, kappa, delta)));
+            final double sigma = FastMath.pow(1 - alphaAffine, 3);
+
+            // corrector direction
+            final double mu = (dot(s, z) + tau * kappa) / (mi + 1);
+            for (int k = 0; k < mi; ++k) {
+                ds[k] = s[k] * z[k] + deltaS[k] * deltaZ[k] - sigma * mu;
+            }
+            dk = tau * kappa + delta[0] * delta[1] - sigma * mu;
+            solveDirection(1 - sigma, rx, ry, rz, rt, ds, dk, s, z, tau, kappa, xi, hAll,
+                           vx, vy, vz, denominator, dx, dz, tx, ty, tz,
+                           deltaX, deltaY, deltaZ, deltaS, delta);
+            final double alpha =
+                FastMath.min(1, STEP_FRACTION * FastMath.min(stepLength(s, z, deltaS, deltaZ),
+                                                             stepLength(tau, kappa, delta)));
+            for (int j = 0; j < n; ++j) {
+                x[j] += alpha * deltaX[j];
+            }
+            for (int i = 0; i < me; ++i) {
+                y[i] += alpha * deltaY[i];
+            }
+            for (int k = 0; k < mi; ++k) {
+                z[k] += alpha * deltaZ[k];
+                s[k] += alpha * deltaS[k];
+            }
+            tau   += alpha * delta[0];
+            kappa += alpha * delta[1];
+        }
+    }
+
+    /**
+     * Sets up the problem in the form {@code minimize 1/2 x^T Q x + c^T x
+     * subject to A x = b, G x <= h}, and possibly {@code x >= 0}.
+     *
+     * @param quadratic Quadratic term ({@code null} for linear problems).
+     * @param coefficients Linear term.
+     * @param constraints Constraints.
+     * @param maximize Whether the objective function is maximized.
+     * @throws DimensionMismatchException if the dimension of a constraint does
+     * not match the one of the objective function.
+     */
+    private void setUpProblem(final RealMatrix quadratic, final RealVector coefficients,
+                              final Collection<LinearConstraint> constraints,
+                              final boolean maximize)
+        throws DimensionMismatchException {
+
+        n = coefficients.getDimension();
+        final double sign = maximize ? -1 : 1;
+        c = coefficients.mapMultiply(sign).toArray();
+        bounded = isRestrictedToNonNegative();
+
+        // symmetric part of the quadratic term
+        if (quadratic == null) {
+            q = new CompressedRows(n, n, new int[0], new int[0], new double[0], 0);
+        } else {
+            final TripletVisitor visitor = new TripletVisitor(sign);
+            quadratic.walkInOptimizedOrder(visitor);
+            q = new CompressedRows(n, n, visitor.entryRow, visitor.entryColumn, visitor.entryValue,
+                                   visitor.count);
+        }
+
+        // constraints
+        int nbEqualities = 0;
+        int nnzEqualities = 0;
+        int nnzInequalities = 0;
+        final double[][] rows = new double[constraints.size()][];
+        int i = 0;
+        for (final LinearConstraint constraint : constraints) {
+            if (constraint.getCoefficients().getDimension() != n) {
+                throw new DimensionMismatchException(constraint.getCoefficients().getDimension(), n);
+            }
+            rows[i] = constraint.getCoefficients().toArray();
+            int nnz = 0;
+            for (final double v : rows[i]) {
+                if (v != 0) {
+                    ++nnz;
+                }
+            }
+            if (constraint.getRelationship() == Relationship.EQ) {
+                ++nbEqualities;
+                nnzEqualities += nnz;
+            } else {
+                nnzInequalities += nnz;
+            }
+            ++i;
+        }
+        b = new double[nbEqualities];
+        h = new double[constraints.size() - nbEqualities];
+        final int[] aRow = new int[nnzEqualities];
+        final int[] aColumn = new int[nnzEqualities];
+        final double[] aValue = new double[nnzEqualities];
+        final int[] gRow = new int[nnzInequalities];
+        final int[] gColumn = new int[nnzInequalities];
+        final double[] gValue = new double[nnzInequalities];
+        int ie = 0;
+        int ig = 0;
+        int pe = 0;
+        int pg = 0;
+        i = 0;
+        for (final LinearConstraint constraint : constraints) {
+            final double[] row = rows[i++];
+            switch (constraint.getRelationship()) {
+            case EQ :
+                for (int j = 0; j < n; ++j) {
+                    if (row[j] != 0) {
+                        aRow[pe] = ie;
+                        aColumn[pe] = j;
+                        aValue[pe++] = row[j];
+                    }
+                }
+                b[ie++] = constraint.getValue();
+                break;
+            default :
+                final double rowSign = constraint.getRelationship() == Relationship.LEQ ? 1 : -1;
+                for (int j = 0; j < n; ++j) {
+                    if (row[j] != 0) {
+                        gRow[pg] = ig;
+                        gColumn[pg] = j;
+                        gValue[pg++] = rowSign * row[j];
+                    }
+                }
+                h[ig++] = rowSign * constraint.getValue();
+            }
+        }
+        a = new CompressedRows(b.length, n, aRow, aColumn, aValue, pe);
+        g = new CompressedRows(h.length, n, gRow, gColumn, gValue, pg);
+    }
+
+    /**
+     * Creates a solver for KKT systems, dense or sparse according to the
+     * estimated cost of the factorizations.
+     *
+     * @param qq Quadratic term.
+     * @param aa Equality constraints.
+     * @param gg Inequality constraints.
+     * @return the solver for the KKT systems.
+     */
+    private static KktSolver createKktSolver(final CompressedRows qq, final CompressedRows aa,
+                                             final CompressedRows gg) {
+        final int me = aa.getRows();
+        final double nd = qq.getRows();
+        double denseCost = nd * nd * nd / 3 + me * nd * nd + me * (double) me * me / 3;
+        final int[] gStart = gg.getStart();
+        for (int k = 0; k < gg.getRows(); ++k) {
+            final double nnz = gStart[k + 1] - gStart[k];
+            denseCost += nnz * nnz;
+        }
+        final double size = nd + me + gg.getRows();
+        final double entries = size + qq.getEntries() + 2.0 * (aa.getEntries() + gg.getEntries());
+        if (entries > 0.25 * size * size || denseCost < 1.0e6) {
+            // small or dense problem
+            return new DenseKktSolver(qq, aa, gg, REGULARIZATION, REGULARIZATION);
+        }
+        final SparseKktSolver sparse = new SparseKktSolver(qq, aa, gg, REGULARIZATION, REGULARIZATION);
+        if (SPARSE_OVERHEAD * sparse.getFactorizationCost() < denseCost) {
+            return sparse;
+        }
+        return new DenseKktSolver(qq, aa, gg, REGULARIZATION, REGULARIZATION);
+    }
+
+    /**
+     * Checks that the quadratic term is positive semi-definite.
+     * <p>
+     * The scaling of the inequality constraints would hide the lack of
+     * convexity in the factorizations of the KKT matrices, so the quadratic
+     * term is factorized alone before the iterations.
+     * </p>
+     *
+     * @throws NonPositiveDefiniteMatrixException if the problem is not convex.
+     */
+    private void checkConvexity() throws NonPositiveDefiniteMatrixException {
+        if (q.getEntries() > 0) {
+            final CompressedRows none = new CompressedRows(0, n, new int[0], new int[0], new double[0], 0);
+            createKktSolver(q, none, none).factorize(new double[n], new double[0]);
+        }
+    }
+
+    /**
+     * Computes the starting point.
+     * <p>
+     * The primal variables minimize the norm of the residuals of the
+     * inequality constraints subject to the equality constraints, and the
+     * multipliers have the least norm satisfying the dual constraints of a
+     * linear problem; the slack variables and the multipliers of the
+     * inequality constraints are then shifted so that they are positive.
+     * </p>
+     *
+     * @param x Array where the primal variables are stored.
+     * @param y Array where the multipliers of the equality constraints are stored.
+     * @param z Array where the multipliers of the inequality constraints are stored.
+     * @param s Array where the slack variables are stored.
+     * @throws NonPositiveDefiniteMatrixException if the problem is not convex.
+     */
+    private void initialize(final double[] x, final double[] y, final double[] z, final double[] s)
+        throws NonPositiveDefiniteMatrixException {
+        final int mg = h.length;
+        final double[] dx = new double[n];
+        final double[] dz = new double[mg];
+        if (bounded) {
+            Arrays.fill(dx, 1);
+        }
+        Arrays.fill(dz, 1);
+        kkt.factorize(dx, dz);
+
+        // primal start, with s = h - G x for the inequality constraints and s = x for the bounds
+        final double[] zg = new double[mg];
+        kkt.solve(new double[n], b, h, x, y, zg);
+        for (int k = 0; k < mg; ++k) {
+            s[k] = -zg[k];
+        }
+        for (int j = 0; bounded && j < n; ++j) {
+            s[mg + j] = x[j];
+        }
+
+        // dual start, with z = -x for the bounds
+        final double[] r1 = new double[n];
+        for (int j = 0; j < n; ++j) {
+            r1[j] = -c[j];
+        }
+        final double[] xd = new double[n];
+        kkt.solve(r1, new double[b.length], new double[mg], xd, y, zg);
+        System.arraycopy(zg, 0, z, 0, mg);
+        for (int j = 0; bounded && j < n; ++j) {
+            z[mg + j] = -xd[j];
+        }
+
+        shift(s);
+        shift(z);
+    }
+
+    /**
+     * Shifts a vector so that it is positive.
+     *
+     * @param v Vector to shift.
+     */
+    private static void shift(final double[] v) {
+        double min = Double.POSITIVE_INFINITY;
+        for (final double vi : v) {
+            min = FastMath.min(min, vi);
+        }
+        if (min <= 0) {
+            for (int k = 0; k < v.length; ++k) {
+                v[k] += 1 - min;
+            }
+        }
+    }
+
+    /**
+     * Solves a Newton system of the homogeneous model.
+     * <p>
+     * The system is first solved for the direction of the other variables
+     * at fixed direction of tau, and the latter is then given by the last
+     * equation of the model, which is scalar: the first part of the
+     * solution is {@code (tx, ty, tz)} and the part proportional to the
+     * direction of tau, computed only once for each factorization, is
+     * {@code (vx, vy, vz)}.
+     * </p>
+     *
+     * @param eta Fraction of the residuals to remove.
+     * @param rx Residual of the dual constraints.
+     * @param ry Residual of the equality constraints.
+     * @param rz Residual of the inequality constraints.
+     * @param rt Residual of the gap equation.
+     * @param ds Target of the complementarity of the inequality constraints.
+     * @param dk Target of the complementarity of tau and kappa.
+     * @param s Slack variables.
+     * @param z Multipliers of the inequality constraints.
+     * @param tau Homogenizing variable.
+     * @param kappa Gap variable.
+     * @param xi Derivative of the gap equation with respect to the primal variables.
+     * @param hAll Right hand side of the inequality constraints and bounds.
+     * @param vx Primal part of the direction proportional to the direction of tau.
+     * @param vy Equality part of the direction proportional to the direction of tau.
+     * @param vz Inequality part of the direction proportional to the direction of tau.
+     * @param denominator Coefficient of the direction of tau in the gap equation.
+     * @param dx Scaling of the bounds.
+     * @param dz Scaling of the inequality constraints.
+     * @param tx Workspace for the primal part.
+     * @param ty Workspace for the equality part.
+     * @param tz Workspace for the inequality part.
+     * @param deltaX Array where the direction of the primal variables is stored.
+     * @param deltaY Array where the direction of the multipliers of the
+     * equality constraints is stored.
+     * @param deltaZ Array where the direction of the multipliers of the
+     * inequality constraints is stored.
+     * @param deltaS Array where the direction of the slack variables is stored.
+     * @param delta Array where the directions of tau and kappa are stored.
+     */
+    private void solveDirection(final double eta,
+                                final double[] rx, final double[] ry, final double[] rz,
+                                final double rt, final double[] ds, final double dk,
+                                final double[] s, final double[] z,
+                                final double tau, final double kappa,
+                                final double[] xi, final double[] hAll,
+                                final double[] vx, final double[] vy, final double[] vz,
+                                final double denominator,
+                                final double[] dx, final double[] dz,
+                                final double[] tx, final double[] ty, final double[] tz,
+                                final double[] deltaX, final double[] deltaY,
+                                final double[] deltaZ, final double[] deltaS,
+                                final double[] delta) {
+        final int me = b.length;
+        final int mi = z.length;
+        final double[] r1 = new double[n];
+        for (int j = 0; j < n; ++j) {
+            r1[j] = -eta * rx[j];
+        }
+        final double[] r2 = new double[me];
+        for (int i = 0; i < me; ++i) {
+            r2[i] = -eta * ry[i];
+        }
+        final double[] r3 = new double[mi];
+        for (int k = 0; k < mi; ++k) {
+            r3[k] = ds[k] / z[k] - eta * rz[k];
+        }
+        solveNewton(r1, r2, r3, s, z, dx, dz, tx, ty, tz);
+
+        // direction of tau from the gap equation
+        final double numerator =
+            dk / tau - eta * rt - dot(xi, tx) - dot(b, ty) - dot(hAll, tz);
+        final double deltaTau = numerator / denominator;
+        for (int j = 0; j < n; ++j) {
+            deltaX[j] = tx[j] + deltaTau * vx[j];
+        }
+        for (int i = 0; i < me; ++i) {
+            deltaY[i] = ty[i] + deltaTau * vy[i];
+        }
+        for (int k = 0; k < mi; ++k) {
+            deltaZ[k] = tz[k] + deltaTau * vz[k];
+            deltaS[k] = -(ds[k] + s[k] * deltaZ[k]) / z[k];
+        }
+        delta[0] = deltaTau;
+        delta[1] = -(dk + kappa * deltaTau) / tau;
+    }
+
+    /**
+     * Solves a reduced Newton system.
+     * <p>
+     * The system is {@code [Q, A^T, G^T; A, 0, 0; G, 0, -S/Z] [dx; dy; dz] =
+     * [r1; r2; r3]}, where G includes the bounds on the variables. The bounds
+     * are eliminated before calling the KKT solver, and the solution is
+     * improved by iterative refinement, which compensates for the
+     * regularization of the KKT matrix.
+     * </p>
+     *
+     * @param r1 First part of the right hand side.
+     * @param r2 Second part of the right hand side.
+     * @param r3 Third part of the right hand side.
+     * @param s Slack variables.
+     * @param z Multipliers of the inequality constraints.
+     * @param dx Scaling of the bounds.
+     * @param dz Scaling of the inequality constraints.
+     * @param deltaX Array where the first part of the solution is stored.
+     * @param deltaY Array where the second part of the solution is stored.
+     * @param deltaZ Array where the third part of the solution is stored.
+     */
+    private void solveNewton(final double[] r1, final double[] r2, final double[] r3,
+                             final double[] s, final double[] z,
+                             final double[] dx, final double[] dz,
+                             final double[] deltaX, final double[] deltaY,
+                             final double[] deltaZ) {
+        final int me = b.length;
+        final int mg = h.length;
+
+        // right hand side of the system without the bounds
+        final double[] r1x = new double[n];
+        for (int j = 0; j < n; ++j) {
+            r1x[j] = r1[j] - (bounded ? dx[j] * r3[mg + j] : 0);
+        }
+        final double[] r3g = MathArrays.copyOf(r3, mg);
+
+        final double[] zg = new double[mg];
+        kkt.solve(r1x, r2, r3g, deltaX, deltaY, zg);
+
+        // iterative refinement
+        final double[] e1 = new double[n];
+        final double[] e2 = new double[me];
+        final double[] e3 = new double[mg];
+        final double[] cx = new double[n];
+        final double[] cy = new double[me];
+        final double[] cz = new double[mg];
+        final double rNorm = FastMath.max(normInf(r1x), FastMath.max(normInf(r2), normInf(r3g)));
+        double previous = Double.POSITIVE_INFINITY;
+        for (int step = 0; step < REFINEMENT_STEPS; ++step) {
+            q.multiply(deltaX, e1);
+            for (int j = 0; j < n; ++j) {
+                e1[j] = -e1[j] - dx[j] * deltaX[j];
+            }
+            final double[] minusY = new double[me];
+            for (int i = 0; i < me; ++i) {
+                minusY[i] = -deltaY[i];
+            }
+            a.transposeMultiplyAdd(minusY, e1);
+            final double[] minusZ = new double[mg];
+            for (int k = 0; k < mg; ++k) {
+                minusZ[k] = -zg[k];
+            }
+            g.transposeMultiplyAdd(minusZ, e1);
+            for (int j = 0; j < n; ++j) {
+                e1[j] += r1x[j];
+            }
+            a.multiply(deltaX, e2);
+            for (int i = 0; i < me; ++i) {
+                e2[i] = r2[i] - e2[i];
+            }
+            g.multiply(deltaX, e3);
+            for (int k = 0; k < mg; ++k) {
+                e3[k] = r3g[k] - e3[k] + dz[k] * zg[k];
+            }
+            final double error = FastMath.max(normInf(e1), FastMath.max(normInf(e2), normInf(e3)));
+            if (error <= 1.0e-14 * rNorm || error >= 0.5 * previous) {
+                break;
+            }
+            previous = error;
+            kkt.solve(e1, e2, e3, cx, cy, cz);
+            for (int j = 0; j < n; ++j) {
+                deltaX[j] += cx[j];
+            }
+            for (int i = 0; i < me; ++i) {
+                deltaY[i] += cy[i];
+            }
+            for (int k = 0; k < mg; ++k) {
+                zg[k] += cz[k];
+            }
+        }
+
+        // multipliers of the bounds
+        System.arraycopy(zg, 0, deltaZ, 0, mg);
+        for (int j = 0; bounded && j < n; ++j) {
+            deltaZ[mg + j] = -dx[j] * (deltaX[j] + r3[mg + j]);
+        }
+    }
+
+    /**
+     * Checks whether the iterates converge to a certificate of infeasibility.
+     * <p>
+     * This happens when tau vanishes while kappa does not, the iterates
+     * then tending to a ray along which either the constraints or the dual
+     * constraints are infeasible. The residual and the gap of each
+     * certificate are normalized by the norm of the ray and the norms of
+     * the problem data, so that the test does not depend on the scale of
+     * the iterates: the gap must be far above rounding errors and the
+     * residual small with respect to the gap. If both certificates hold,
+     * the one with the smallest residual relative to its gap is reported.
+     * </p>
+     *
+     * @param x Primal variables.
+     * @param y Multipliers of the equality constraints.
+     * @param z Multipliers of the inequality constraints.
+     * @param qx Product of the quadratic term by the primal variables.
+     * @param gx Product of the inequality constraints by the primal variables.
+     * @param cx Linear term of the objective function.
+     * @param by Dual objective function.
+     * @param bNorm Norm of the right hand sides of the constraints.
+     * @param cNorm Norm of the linear term of the objective function.
+     * @param mNorm Norm of the matrices of the problem.
+     * @throws NoFeasibleSolutionException if the constraints are infeasible.
+     * @throws UnboundedSolutionException if the objective function is unbounded.
+     */
+    private void checkInfeasibility(final double[] x, final double[] y, final double[] z,
+                                    final double[] qx, final double[] gx,
+                                    final double cx, final double by,
+                                    final double bNorm, final double cNorm, final double mNorm)
+        throws NoFeasibleSolutionException, UnboundedSolutionException {
+
+        // primal infeasibility: A^T y + G^T z = 0, z >= 0 and b^T y + h^T z < 0
+        double primal = Double.POSITIVE_INFINITY;
+        final double yzNorm = FastMath.max(normInf(y), normInf(z));
+        if (by < 0 && yzNorm > 0) {
+            final int mg = h.length;
+            final double[] r = new double[n];
+            a.transposeMultiplyAdd(y, r);
+            g.transposeMultiplyAdd(MathArrays.copyOf(z, mg), r);
+            for (int j = 0; bounded && j < n; ++j) {
+                r[j] -= z[mg + j];
+            }
+            final double gap = -by / (bNorm * yzNorm);
+            final double residual = normInf(r) / (mNorm * yzNorm);
+            if (gap >= INFEASIBILITY_GAP && residual <= INFEASIBILITY_TOLERANCE * gap) {
+                primal = residual / gap;
+            }
+        }
+
+        // dual infeasibility: Q x = 0, A x = 0, G x <= 0 and c^T x < 0
+        double dual = Double.POSITIVE_INFINITY;
+        final double xNorm = normInf(x);
+        if (cx < 0 && xNorm > 0) {
+            final double[] ax = new double[b.length];
+            a.multiply(x, ax);
+            double violation = FastMath.max(normInf(qx), normInf(ax));
+            for (final double v : gx) {
+                violation = FastMath.max(violation, v);
+            }
+            for (int j = 0; bounded && j < n; ++j) {
+                violation = FastMath.max(violation, -x[j]);
+            }
+            final double gap = -cx / (cNorm * xNorm);
+            final double residual = violation / (mNorm * xNorm);
+            if (gap >= INFEASIBILITY_GAP && residual <= INFEASIBILITY_TOLERANCE * gap) {
+                dual = residual / gap;
+            }
+        }
+
+        if (primal < Double.POSITIVE_INFINITY || dual < Double.POSITIVE_INFINITY) {
+            if (primal <= dual) {
+                throw new NoFeasibleSolutionException();
+            }
+            throw new UnboundedSolutionException();
+        }
+    }
+
+    /**
+     * Computes the largest step keeping the slack variables and multipliers
+     * non-negative.
+     *
+     * @param s Slack variables (positive).
+     * @param z Multipliers (positive).
+     * @param deltaS Direction of the slack variables.
+     * @param deltaZ Direction of the multipliers.
+     * @return the largest step (infinite if the directions are non-negative).
+     */
+    private static double stepLength(final double[] s, final double[] z,
+                                     final double[] deltaS, final double[] deltaZ) {
+        return FastMath.min(maxStep(s, deltaS), maxStep(z, deltaZ));
+    }
+
+    /**
+     * Computes the largest step keeping tau and kappa non-negative.
+     *
+     * @param tau Homogenizing variable (positive).
+     * @param kappa Gap variable (positive).
+     * @param delta Directions of tau and kappa.
+     * @return the largest step (infinite if the directions are non-negative).
+     */
+    private static double stepLength(final double tau, final double kappa, final double[] delta) {
+        return maxStep(new double[] { tau, kappa }, delta);
+    }
+
+    /**
+     * Computes the largest step keeping a vector non-negative.
+     *
+     * @param v Vector (positive).
+     * @param dv Direction.
+     * @return the largest step (infinite if the direction is non-negative).
+     */
+    private static double maxStep(final double[] v, final double[] dv) {
+        double step = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < v.length; ++k) {
+            if (dv[k] < 0) {
+                step = FastMath.min(step, -v[k] / dv[k]);
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Computes the dot product of the first elements of two arrays.
+     *
+     * @param u First array.
+     * @param v Second array, at least as long as the first one.
+     * @return the dot product.
+     */
+    private static double dot(final double[] u, final double[] v) {
+        double sum = 0;
+        for (int k = 0; k < u.length; ++k) {
+            sum += u[k] * v[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the infinity norm of an array.
+     *
+     * @param v Array.
+     * @return the largest absolute value of the elements.
+     */
+    private static double normInf(final double[] v) {
+        double max = 0;
+        for (final double vk : v) {
+            max = FastMath.max(max, FastMath.abs(vk));
+        }
+        return max;
+    }
+
+    /**
+     * Computes the largest absolute value of the entries of a matrix.
+     *
+     * @param m Matrix.
+     * @return the largest absolute value of the entries.
+     */
+    private static double normMax(final CompressedRows m) {
+        final double[] value = m.getValue();
+        double max = 0;
+        for (int p = 0; p < m.getEntries(); ++p) {
+            max = FastMath.max(max, FastMath.abs(value[p]));
+        }
+        return max;
+    }
+
+    /**
+     * Visitor collecting the non-zero entries of the symmetric part of a matrix.
+     */
+    private static class TripletVisitor extends DefaultRealMatrixPreservingVisitor {
+
+        /** Factor applied to the entries. */
+        private final double factor;
+
+        /** Row indices of the entries. */
+        private int[] entryRow = new int[16];
+
+        /** Column indices of the entries. */
+        private int[] entryColumn = new int[16];
+
+        /** Values of the entries. */
+        private double[] entryValue = new double[16];
+
+        /** Number of entries. */
+        private int count;
+
+        /**
+         * Simple constructor.
+         *
+         * @param factor Factor applied to the entries.
+         */
+        TripletVisitor(final double factor) {
+            this.factor = factor;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void visit(final int row, final int column, final double value) {
+            if (value != 0) {
+                if (count + 2 > entryRow.length) {
+                    entryRow = MathArrays.copyOf(entryRow, 2 * entryRow.length);
+                    entryColumn = MathArrays.copyOf(entryColumn, 2 * entryColumn.length);
+                    entryValue = MathArrays.copyOf(entryValue, 2 * entryValue.length);
+                }
+                final double half = 0.5 * factor * value;
+                entryRow[count] = row;
+                entryColumn[count] = column;
+                entryValue[count++] = half;
+                entryRow[count] = column;
+                entryColumn[count] = row;
+                entryValue[count++] = half;
+            }
+        }
+
+    }
+
+}
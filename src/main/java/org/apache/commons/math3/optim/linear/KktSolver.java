@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+
+/**
+ * Solver for the Karush-Kuhn-Tucker systems of {@link InteriorPointSolver}.
+ * <p>
+ * The systems have the form:
+ * <pre>
+ * [ Q + D<sub>x</sub> + &rho; I    A<sup>T</sup>           G<sup>T</sup>            ] [ x ]   [ r<sub>1</sub> ]
+ * [ A              -&delta; I          0              ] [ y ] = [ r<sub>2</sub> ]
+ * [ G               0           -D<sub>z</sub> - &delta; I     ] [ z ]   [ r<sub>3</sub> ]
+ * </pre>
+ * where Q, A and G are fixed, D<sub>x</sub> and D<sub>z</sub> are non-negative
+ * diagonal matrices which change at each iteration, and &rho; and &delta; are
+ * small regularizations making the matrix quasi-definite.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+interface KktSolver {
+
+    /**
+     * Factorizes the matrix for new diagonal terms.
+     *
+     * @param dx Diagonal D<sub>x</sub>.
+     * @param dz Diagonal D<sub>z</sub>.
+     * @throws NonPositiveDefiniteMatrixException if Q is not positive
+     * semi-definite.
+     */
+    void factorize(double[] dx, double[] dz)
+        throws NonPositiveDefiniteMatrixException;
+
+    /**
+     * Solves the system with the last factorized matrix.
+     *
+     * @param r1 First part of the right hand side.
+     * @param r2 Second part of the right hand side.
+     * @param r3 Third part of the right hand side.
+     * @param x Array where the first part of the solution is stored.
+     * @param y Array where the second part of the solution is stored.
+     * @param z Array where the third part of the solution is stored.
+     */
+    void solve(double[] r1, double[] r2, double[] r3,
+               double[] x, double[] y, double[] z);
+
+}
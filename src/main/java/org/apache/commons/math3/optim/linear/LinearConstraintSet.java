@@ -17,13 +17,17 @@
 package org.apache.commons.math3.optim.linear;
 
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Collection;
 import java.util.Collections;
 import org.apache.commons.math3.optim.OptimizationData;
 
 /**
  * Class that represents a set of {@link LinearConstraint linear constraints}.
+ * <p>
+ * The constraints are kept in the order they are given (duplicates being
+ * ignored).
+ * </p>
  *
  * @version $Id$
  * @since 3.1
@@ -31,7 +35,7 @@ import org.apache.commons.math3.optim.OptimizationData;
 public class LinearConstraintSet implements OptimizationData {
     /** Set of constraints. */
     private final Set<LinearConstraint> linearConstraints
-        = new HashSet<LinearConstraint>();
+        = new LinkedHashSet<LinearConstraint>();
 
     /**
      * Creates a set containing the given constraints.
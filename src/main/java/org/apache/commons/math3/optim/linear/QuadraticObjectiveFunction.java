@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * An objective function for a quadratic optimization problem.
+ * <p>
+ * A quadratic objective function has the form:
+ * <pre>
+ * &frac12; x<sup>T</sup> Q x + c<sup>T</sup> x + d
+ * </pre>
+ * where Q is a square matrix, c a vector and d a constant; x is the
+ * current point. Only the symmetric part of Q matters: Q does not need to
+ * be symmetric, but the optimizers assume that its symmetric part is
+ * positive semi-definite when minimizing (negative semi-definite when
+ * maximizing), i.e. that the problem is convex.
+ * </p>
+ *
+ * @see InteriorPointSolver
+ * @version $Id$
+ * @since 3.3
+ */
+public class QuadraticObjectiveFunction
+    implements MultivariateFunction,
+               OptimizationData,
+               Serializable {
+    /** Serializable version identifier. */
+    private static final long serialVersionUID = 20141019L;
+    /** Matrix of the quadratic term (Q). */
+    private final transient RealMatrix quadratic;
+    /** Coefficients of the linear term (c<sub>i</sub>). */
+    private final transient RealVector coefficients;
+    /** Constant term. */
+    private final double constantTerm;
+
+    /**
+     * @param quadratic Matrix of the quadratic term.
+     * @param coefficients Coefficients of the linear term.
+     * @param constantTerm Constant term.
+     * @throws NonSquareMatrixException if {@code quadratic} is not square.
+     * @throws DimensionMismatchException if the dimensions of {@code quadratic}
+     * and {@code coefficients} do not match.
+     */
+    public QuadraticObjectiveFunction(double[][] quadratic, double[] coefficients,
+                                      double constantTerm)
+        throws NonSquareMatrixException, DimensionMismatchException {
+        this(MatrixUtils.createRealMatrix(quadratic), new ArrayRealVector(coefficients),
+             constantTerm);
+    }
+
+    /**
+     * @param quadratic Matrix of the quadratic term.
+     * @param coefficients Coefficients of the linear term.
+     * @param constantTerm Constant term.
+     * @throws NonSquareMatrixException if {@code quadratic} is not square.
+     * @throws DimensionMismatchException if the dimensions of {@code quadratic}
+     * and {@code coefficients} do not match.
+     */
+    public QuadraticObjectiveFunction(RealMatrix quadratic, RealVector coefficients,
+                                      double constantTerm)
+        throws NonSquareMatrixException, DimensionMismatchException {
+        if (!quadratic.isSquare()) {
+            throw new NonSquareMatrixException(quadratic.getRowDimension(),
+                                               quadratic.getColumnDimension());
+        }
+        if (quadratic.getRowDimension() != coefficients.getDimension()) {
+            throw new DimensionMismatchException(coefficients.getDimension(),
+                                                 quadratic.getRowDimension());
+        }
+        this.quadratic = quadratic;
+        this.coefficients = coefficients;
+        this.constantTerm = constantTerm;
+    }
+
+    /**
+     * Gets the matrix of the quadratic term.
+     *
+     * @return matrix of the quadratic term.
+     */
+    public RealMatrix getQuadratic() {
+        return quadratic;
+    }
+
+    /**
+     * Gets the coefficients of the linear term.
+     *
+     * @return coefficients of the linear term.
+     */
+    public RealVector getCoefficients() {
+        return coefficients;
+    }
+
+    /**
+     * Gets the constant term.
+     *
+     * @return constant term.
+     */
+    public double getConstantTerm() {
+        return constantTerm;
+    }
+
+    /**
+     * Computes the value of the function at the current point.
+     *
+     * @param point Point at which the function must be evaluated.
+     * @return the value of the function at the current point.
+     */
+    public double value(final double[] point) {
+        return value(new ArrayRealVector(point, false));
+    }
+
+    /**
+     * Computes the value of the function at the current point.
+     *
+     * @param point Point at which the function must be evaluated.
+     * @return the value of the function at the current point.
+     */
+    public double value(final RealVector point) {
+        return 0.5 * point.dotProduct(quadratic.operate(point)) +
+               coefficients.dotProduct(point) + constantTerm;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other instanceof QuadraticObjectiveFunction) {
+            QuadraticObjectiveFunction rhs = (QuadraticObjectiveFunction) other;
+            return (constantTerm == rhs.constantTerm) &&
+                   coefficients.equals(rhs.coefficients) &&
+                   quadratic.equals(rhs.quadratic);
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.valueOf(constantTerm).hashCode() ^ coefficients.hashCode() ^
+               quadratic.hashCode();
+    }
+
+    /**
+     * Serialize the instance.
+     * @param oos stream where object should be written
+     * @throws IOException if object cannot be written to stream
+     */
+    private void writeObject(ObjectOutputStream oos)
+        throws IOException {
+        oos.defaultWriteObject();
+        MatrixUtils.serializeRealMatrix(quadratic, oos);
+        MatrixUtils.serializeRealVector(coefficients, oos);
+    }
+
+    /**
+     * Deserialize the instance.
+     * @param ois stream from which the object should be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     * @throws IOException if object cannot be read from the stream
+     */
+    private void readObject(ObjectInputStream ois)
+      throws ClassNotFoundException, IOException {
+        ois.defaultReadObject();
+        MatrixUtils.deserializeRealMatrix(this, "quadratic", ois);
+        MatrixUtils.deserializeRealVector(this, "coefficients", ois);
+    }
+}
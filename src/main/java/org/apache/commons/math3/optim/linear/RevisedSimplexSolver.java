@@ -0,0 +1,966 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.linear.SingularMatrixException;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Solves a linear problem using the revised simplex method with a sparse
+ * representation of the constraints.
+ * <p>
+ * Contrary to {@link SimplexSolver}, which updates a dense tableau of the
+ * size of the whole problem at each iteration, this solver keeps the
+ * constraint matrix in compressed sparse columns and only works with a
+ * sparse LU factorization of the current basis, updated in product form
+ * and recomputed periodically. Memory and time per iteration are roughly
+ * proportional to the number of non-zero coefficients, which makes it
+ * suitable for large sparse problems. For such problems, the coefficients
+ * of the constraints are best given as {@link
+ * org.apache.commons.math3.linear.OpenMapRealVector OpenMapRealVector}
+ * instances, so that the constraints themselves do not use dense storage.
+ * </p>
+ * <p>
+ * The problem is solved in two phases: the first one minimizes the sum of
+ * artificial variables to find a feasible basis, the second one optimizes
+ * the objective function from this basis. The entering variable is chosen
+ * by Devex pricing (an approximation of the steepest edge rule, which
+ * usually needs far fewer iterations than the most negative reduced cost),
+ * and the leaving variable by a two-pass (Harris) ratio test, which favors
+ * large pivots. After a
+ * number of consecutive degenerate iterations, Bland's rule is used until
+ * the objective function improves again, to prevent cycling.
+ * </p>
+ * <p>
+ * The optimization data are the same as for {@link SimplexSolver}:
+ * {@link LinearObjectiveFunction}, {@link LinearConstraintSet},
+ * {@link NonNegativeConstraint}, {@link GoalType} and
+ * {@link org.apache.commons.math3.optim.MaxIter MaxIter}, each iteration
+ * being one change of basis.
+ * </p>
+ * <p>
+ * A problem solved repeatedly with small modifications can be re-optimized
+ * from the optimal basis of the previous resolution, as returned by {@link
+ * #getBasis()}: data not given again to {@link #optimize(OptimizationData[])
+ * optimize} are kept from the previous call, so that only the {@link
+ * SimplexBasis} and the modified objective function or constraints need to
+ * be given. If the basis is still feasible, as when only the objective
+ * function has changed, the first phase is skipped. Otherwise, as when the
+ * right hand sides have changed or constraints have been added, feasibility
+ * is restored by the dual simplex method, after shifting the costs of the
+ * variables whose reduced cost is negative; the second phase then starts
+ * from the resulting basis. If the basis cannot be used for the modified
+ * problem, for example because constraints have been removed and it is no
+ * longer square and regular, the problem is solved from scratch.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class RevisedSimplexSolver extends LinearOptimizer {
+
+    /** Default amount of error to accept for algorithm convergence. */
+    private static final double DEFAULT_EPSILON = 1.0e-6;
+
+    /** Default number of basis updates between factorizations. */
+    private static final int DEFAULT_REFACTORIZATION = 50;
+
+    /** Smallest absolute value accepted as a pivot. */
+    private static final double PIVOT_TOLERANCE = 1.0e-9;
+
+    /** Amount of infeasibility accepted by the ratio test. */
+    private static final double FEASIBILITY_TOLERANCE = 1.0e-9;
+
+    /** Largest reference weight before the Devex reference framework is reset. */
+    private static final double DEVEX_RESET = 1.0e12;
+
+    /** Number of consecutive degenerate iterations before switching to Bland's rule. */
+    private static final int DEGENERACY_LIMIT = 50;
+
+    /** Amount of error to accept for algorithm convergence. */
+    private final double epsilon;
+
+    /** Number of basis updates between factorizations. */
+    private final int refactorization;
+
+    /** Number of constraints. */
+    private int m;
+
+    /** Number of decision variables of the objective function. */
+    private int n;
+
+    /** Index of the first logical (slack or surplus) variable. */
+    private int logicalOffset;
+
+    /** Index of the first artificial variable. */
+    private int artificialOffset;
+
+    /** Total number of variables. */
+    private int total;
+
+    /** Start of the columns of the constraint matrix. */
+    private int[] columnStart;
+
+    /** Row indices of the entries of the constraint matrix. */
+    private int[] rowIndex;
+
+    /** Values of the entries of the constraint matrix. */
+    private double[] value;
+
+    /** Right hand side (non-negative). */
+    private double[] rhs;
+
+    /** Cost of the objective function to minimize, for each variable. */
+    private double[] cost;
+
+    /** Variable at each basis position. */
+    private int[] basis;
+
+    /** Basis position of each variable ({@code -1} for non-basic variables). */
+    private int[] basisPosition;
+
+    /** Values of the basic variables. */
+    private double[] basicValue;
+
+    /** Artificial variable of each constraint ({@code -1} for &le; constraints). */
+    private int[] rowArtificial;
+
+    /** Factorization of the basis. */
+    private BasisFactorization factorization;
+
+    /** Basis to start from, if given for the current call. */
+    private SimplexBasis initialBasis;
+
+    /** Optimal basis found by the last call. */
+    private SimplexBasis solutionBasis;
+
+    /**
+     * Builds a solver with default settings.
+     */
+    public RevisedSimplexSolver() {
+        this(DEFAULT_EPSILON, DEFAULT_REFACTORIZATION);
+    }
+
+    /**
+     * Builds a solver with a specified accepted amount of error.
+     *
+     * @param epsilon Amount of error to accept for algorithm convergence.
+     */
+    public RevisedSimplexSolver(final double epsilon) {
+        this(epsilon, DEFAULT_REFACTORIZATION);
+    }
+
+    /**
+     * Builds a solver with a specified accepted amount of error.
+     *
+     * @param epsilon Amount of error to accept for algorithm convergence.
+     * @param refactorization Number of basis updates after which the basis
+     * is factorized again.
+     * @throws NotStrictlyPositiveException if {@code refactorization < 1}.
+     */
+    public RevisedSimplexSolver(final double epsilon, final int refactorization)
+        throws NotStrictlyPositiveException {
+        if (refactorization < 1) {
+            throw new NotStrictlyPositiveException(refactorization);
+        }
+        this.epsilon = epsilon;
+        this.refactorization = refactorization;
+    }
+
+    /**
+     * Gets the optimal basis found by the last call to {@link
+     * #optimize(OptimizationData[]) optimize}.
+     * <p>
+     * The basis can be given to a following call, in order to solve a
+     * modified problem starting from it.
+     * </p>
+     *
+     * @return the optimal basis, or {@code null} if the last optimization
+     * did not succeed.
+     */
+    public SimplexBasis getBasis() {
+        return solutionBasis;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. In addition to those documented in
+     * {@link LinearOptimizer#optimize(OptimizationData[]) LinearOptimizer},
+     * this method will register the following data:
+     * <ul>
+     *  <li>{@link SimplexBasis}</li>
+     * </ul>
+     * @return {@inheritDoc}
+     * @throws TooManyIterationsException if the maximal number of
+     * iterations is exceeded.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyIterationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /**
+     * Scans the list of (required and optional) optimization data that
+     * characterize the problem.
+     *
+     * @param optData Optimization data.
+     * The following data will be looked for:
+     * <ul>
+     *  <li>{@link SimplexBasis}</li>
+     * </ul>
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        // The initial basis is only used by the call where it is given.
+        initialBasis = null;
+        for (OptimizationData data : optData) {
+            if (data instanceof SimplexBasis) {
+                initialBasis = (SimplexBasis) data;
+                break;
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PointValuePair doOptimize()
+        throws TooManyIterationsException,
+               UnboundedSolutionException,
+               NoFeasibleSolutionException {
+
+        solutionBasis = null;
+        buildStandardForm(getFunction(), getConstraints(),
+                          getGoalType() == GoalType.MAXIMIZE);
+        basis = new int[m];
+        basisPosition = new int[total];
+        factorization = new BasisFactorization(m);
+        basicValue = new double[m];
+
+        if (initialBasis == null || !installBasis(initialBasis)) {
+            coldStart();
+        } else if (!isPrimalFeasible()) {
+            // restore feasibility, keeping the reduced costs non-negative
+            dualIterate(getShiftedCost());
+        }
+
+        // phase 2: optimize the objective function
+        iterate(cost, true);
+
+        solutionBasis = extractBasis();
+        return getSolution();
+    }
+
+    /**
+     * Finds a feasible basis by minimizing the sum of the artificial
+     * variables, starting from the basis of the slack and artificial
+     * variables (phase 1).
+     *
+     * @throws TooManyIterationsException if the allowed number of iterations
+     * has been exhausted.
+     * @throws NoFeasibleSolutionException if the problem is not feasible.
+     */
+    private void coldStart()
+        throws TooManyIterationsException, NoFeasibleSolutionException {
+
+        Arrays.fill(basisPosition, -1);
+        for (int i = 0; i < m; ++i) {
+            final int j = columnStart[logicalOffset + i + 1] > columnStart[logicalOffset + i] &&
+                          value[columnStart[logicalOffset + i]] > 0 ?
+                          logicalOffset + i : rowArtificial[i];
+            basis[i] = j;
+            basisPosition[j] = i;
+        }
+        refactorize();
+
+        if (artificialOffset < total) {
+            final double[] phase1 = new double[total];
+            for (int j = artificialOffset; j < total; ++j) {
+                phase1[j] = 1;
+            }
+            iterate(phase1, false);
+            double infeasibility = 0;
+            for (int i = 0; i < m; ++i) {
+                if (basis[i] >= artificialOffset) {
+                    infeasibility += FastMath.abs(basicValue[i]);
+                }
+            }
+            if (infeasibility > epsilon) {
+                throw new NoFeasibleSolutionException();
+            }
+        }
+    }
+
+    /**
+     * Installs a basis given by the user.
+     *
+     * @param warm Basis to install.
+     * @return {@code true} if the basis could be installed, {@code false}
+     * if it does not define a regular basis of the current problem.
+     */
+    private boolean installBasis(final SimplexBasis warm) {
+        final int[] candidate = new int[m];
+        int k = 0;
+        for (final int j : warm.getBasicVariables()) {
+            if (j < n) {
+                if (k == m) {
+                    return false;
+                }
+                candidate[k++] = j;
+            }
+        }
+        if (warm.isShiftBasic() && logicalOffset > n) {
+            if (k == m) {
+                return false;
+            }
+            candidate[k++] = n;
+        }
+        for (final int i : warm.getBasicConstraints()) {
+            if (i < m) {
+                if (k == m) {
+                    return false;
+                }
+                candidate[k++] = getLogicalVariable(i);
+            }
+        }
+        for (int i = warm.getNumberOfConstraints(); i < m; ++i) {
+            // new constraints start with their logical variable in the basis
+            if (k == m) {
+                return false;
+            }
+            candidate[k++] = getLogicalVariable(i);
+        }
+        if (k < m) {
+            return false;
+        }
+
+        Arrays.fill(basisPosition, -1);
+        for (int i = 0; i < m; ++i) {
+            basis[i] = candidate[i];
+            basisPosition[candidate[i]] = i;
+        }
+        try {
+            refactorize();
+        } catch (SingularMatrixException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the logical variable of a constraint: its slack or surplus
+     * variable, or its artificial variable for an equality constraint.
+     *
+     * @param i Index of the constraint.
+     * @return the index of the logical variable.
+     */
+    private int getLogicalVariable(final int i) {
+        return columnStart[logicalOffset + i + 1] > columnStart[logicalOffset + i] ?
+               logicalOffset + i : rowArtificial[i];
+    }
+
+    /**
+     * Extracts the current basis.
+     *
+     * @return the current basis.
+     */
+    private SimplexBasis extractBasis() {
+        int nbVariables = 0;
+        for (int j = 0; j < n; ++j) {
+            if (basisPosition[j] >= 0) {
+                ++nbVariables;
+            }
+        }
+        final int[] variables = new int[nbVariables];
+        for (int j = 0, k = 0; j < n; ++j) {
+            if (basisPosition[j] >= 0) {
+                variables[k++] = j;
+            }
+        }
+        final int[] constraints = new int[m - nbVariables];
+        int k = 0;
+        for (int i = 0; i < m; ++i) {
+            if (basisPosition[logicalOffset + i] >= 0 ||
+                (rowArtificial[i] >= 0 && basisPosition[rowArtificial[i]] >= 0)) {
+                constraints[k++] = i;
+            }
+        }
+        final boolean shiftBasic = logicalOffset > n && basisPosition[n] >= 0;
+        return new SimplexBasis(variables, MathArrays.copyOf(constraints, k), shiftBasic, m);
+    }
+
+    /**
+     * Checks whether the values of the basic variables are feasible.
+     *
+     * @return {@code true} if all basic variables are non-negative and the
+     * basic artificial variables are zero.
+     */
+    private boolean isPrimalFeasible() {
+        for (int i = 0; i < m; ++i) {
+            if (basicValue[i] < -FEASIBILITY_TOLERANCE ||
+                (basis[i] >= artificialOffset && basicValue[i] > FEASIBILITY_TOLERANCE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes costs for which the current basis is dual feasible, by
+     * increasing the cost of the non-basic variables whose reduced cost
+     * is negative.
+     *
+     * @return the shifted costs.
+     */
+    private double[] getShiftedCost() {
+        final double[] shifted = cost.clone();
+        final double[] cB = new double[m];
+        final double[] y = new double[m];
+        for (int i = 0; i < m; ++i) {
+            cB[i] = cost[basis[i]];
+        }
+        factorization.btran(cB, y);
+        for (int j = 0; j < artificialOffset; ++j) {
+            if (basisPosition[j] < 0) {
+                double reducedCost = cost[j];
+                for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                    reducedCost -= y[rowIndex[p]] * value[p];
+                }
+                if (reducedCost < 0) {
+                    shifted[j] -= reducedCost;
+                }
+            }
+        }
+        return shifted;
+    }
+
+    /**
+     * Performs dual simplex iterations until the current basis is feasible.
+     * <p>
+     * The basis must be dual feasible for the given costs, i.e. all reduced
+     * costs must be non-negative; they are kept so. At each iteration, the
+     * leaving variable is the basic variable with the largest infeasibility,
+     * scaled by dual Devex weights, and the entering variable is selected by
+     * a two-pass ratio test on the reduced costs.
+     * </p>
+     *
+     * @param c Cost of the objective function to minimize, for each variable.
+     * @throws TooManyIterationsException if the allowed number of iterations
+     * has been exhausted.
+     * @throws NoFeasibleSolutionException if the problem is not feasible.
+     */
+    private void dualIterate(final double[] c)
+        throws TooManyIterationsException, NoFeasibleSolutionException {
+
+        final double[] cB = new double[m];
+        final double[] y = new double[m];
+        final double[] work = new double[m];
+        final double[] rho = new double[m];
+        final double[] d = new double[m];
+        final double[] reducedCost = new double[artificialOffset];
+        final double[] alpha = new double[artificialOffset];
+        final double[] weight = new double[m];
+        Arrays.fill(weight, 1);
+
+        while (true) {
+
+            // leaving variable: largest scaled infeasibility
+            int leaving = -1;
+            double maxScore = 0;
+            for (int i = 0; i < m; ++i) {
+                final double infeasibility = basis[i] >= artificialOffset ?
+                                             FastMath.abs(basicValue[i]) : -basicValue[i];
+                if (infeasibility > FEASIBILITY_TOLERANCE &&
+                    (leaving < 0 || infeasibility * infeasibility > maxScore * weight[i])) {
+                    leaving = i;
+                    maxScore = infeasibility * infeasibility / weight[i];
+                }
+            }
+            if (leaving < 0) {
+                return;
+            }
+
+            incrementIterationCount();
+
+            // the leaving variable must increase if it is negative, decrease otherwise
+            final double sigma = basicValue[leaving] < 0 ? -1 : 1;
+
+            // reduced costs and row of the leaving variable
+            for (int i = 0; i < m; ++i) {
+                cB[i] = c[basis[i]];
+            }
+            factorization.btran(cB, y);
+            Arrays.fill(work, 0);
+            work[leaving] = 1;
+            factorization.btran(work, rho);
+            double maxStep = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < artificialOffset; ++j) {
+                alpha[j] = 0;
+                if (basisPosition[j] < 0) {
+                    double rc = c[j];
+                    double a = 0;
+                    for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                        rc -= y[rowIndex[p]] * value[p];
+                        a += rho[rowIndex[p]] * value[p];
+                    }
+                    reducedCost[j] = FastMath.max(0, rc);
+                    alpha[j] = sigma * a;
+                    if (alpha[j] > PIVOT_TOLERANCE) {
+                        maxStep = FastMath.min(maxStep,
+                                               (reducedCost[j] + FEASIBILITY_TOLERANCE) / alpha[j]);
+                    }
+                }
+            }
+            if (Double.isInfinite(maxStep)) {
+                // the leaving variable cannot reach zero
+                throw new NoFeasibleSolutionException();
+            }
+            int entering = -1;
+            double maxPivot = 0;
+            for (int j = 0; j < artificialOffset; ++j) {
+                if (alpha[j] > PIVOT_TOLERANCE && reducedCost[j] / alpha[j] <= maxStep &&
+                    alpha[j] > maxPivot) {
+                    entering = j;
+                    maxPivot = alpha[j];
+                }
+            }
+
+            // direction of the basic variables
+            Arrays.fill(work, 0);
+            for (int p = columnStart[entering]; p < columnStart[entering + 1]; ++p) {
+                work[rowIndex[p]] = value[p];
+            }
+            factorization.ftran(work, d);
+            if (sigma * d[leaving] <= PIVOT_TOLERANCE) {
+                // inconsistent pivot, due to accumulated errors in the updates
+                refactorize();
+                continue;
+            }
+
+            // new values of the basic variables
+            final double theta = basicValue[leaving] / d[leaving];
+            for (int i = 0; i < m; ++i) {
+                basicValue[i] -= theta * d[i];
+            }
+            basicValue[leaving] = theta;
+
+            // dual Devex weights
+            final double reference = weight[leaving] / (d[leaving] * d[leaving]);
+            if (reference > DEVEX_RESET) {
+                Arrays.fill(weight, 1);
+            } else {
+                for (int i = 0; i < m; ++i) {
+                    if (i != leaving && d[i] != 0) {
+                        weight[i] = FastMath.max(weight[i], d[i] * d[i] * reference);
+                    }
+                }
+                weight[leaving] = FastMath.max(reference, 1);
+            }
+
+            // change of basis
+            basisPosition[basis[leaving]] = -1;
+            basis[leaving] = entering;
+            basisPosition[entering] = leaving;
+            factorization.update(leaving, d);
+            if (factorization.getUpdates() >= refactorization) {
+                refactorize();
+            }
+        }
+    }
+
+    /**
+     * Builds the sparse standard form {@code min cost.x, A x = rhs, x >= 0, rhs >= 0}.
+     * <p>
+     * The variables are the decision variables, a variable subtracted from all
+     * of them if they are not restricted to non-negative values (as in {@link
+     * SimplexTableau}), one logical variable for each constraint (slack for
+     * &le; constraints, surplus for &ge; constraints, fixed to zero for
+     * equality constraints) and one artificial variable for each constraint
+     * which is not a &le; constraint.
+     * </p>
+     *
+     * @param f Objective function.
+     * @param constraints Constraints.
+     * @param maximize Whether the objective function is maximized.
+     */
+    private void buildStandardForm(final LinearObjectiveFunction f,
+                                   final Collection<LinearConstraint> constraints,
+                                   final boolean maximize) {
+        n = f.getCoefficients().getDimension();
+        m = constraints.size();
+        final boolean shifted = !isRestrictedToNonNegative();
+        logicalOffset = n + (shifted ? 1 : 0);
+        artificialOffset = logicalOffset + m;
+
+        // non-zero coefficients of the normalized constraints
+        final int[][] rowColumns = new int[m][];
+        final double[][] rowValues = new double[m][];
+        final Relationship[] relationships = new Relationship[m];
+        final int[] count = new int[logicalOffset];
+        rhs = new double[m];
+        int nbArtificial = 0;
+        int i = 0;
+        for (final LinearConstraint constraint : constraints) {
+            final double sign = constraint.getValue() < 0 ? -1 : 1;
+            rhs[i] = sign * constraint.getValue();
+            relationships[i] = sign < 0 ?
+                               constraint.getRelationship().oppositeRelationship() :
+                               constraint.getRelationship();
+            if (relationships[i] != Relationship.LEQ) {
+                ++nbArtificial;
+            }
+            final double[] coefficients = constraint.getCoefficients().toArray();
+            int nnz = 0;
+            for (int j = 0; j < n; ++j) {
+                if (coefficients[j] != 0) {
+                    ++nnz;
+                }
+            }
+            rowColumns[i] = new int[nnz];
+            rowValues[i] = new double[nnz];
+            double sum = 0;
+            for (int j = 0, k = 0; j < n; ++j) {
+                if (coefficients[j] != 0) {
+                    rowColumns[i][k] = j;
+                    rowValues[i][k] = sign * coefficients[j];
+                    sum += rowValues[i][k];
+                    ++count[j];
+                    ++k;
+                }
+            }
+            if (shifted && sum != 0) {
+                // column of the shift variable
+                rowColumns[i] = MathArrays.copyOf(rowColumns[i], nnz + 1);
+                rowValues[i] = MathArrays.copyOf(rowValues[i], nnz + 1);
+                rowColumns[i][nnz] = n;
+                rowValues[i][nnz] = -sum;
+                ++count[n];
+            }
+            ++i;
+        }
+        total = artificialOffset + nbArtificial;
+
+        // compressed sparse columns
+        columnStart = new int[total + 1];
+        for (int j = 0; j < logicalOffset; ++j) {
+            columnStart[j + 1] = columnStart[j] + count[j];
+        }
+        final int structural = columnStart[logicalOffset];
+        rowIndex = new int[structural + m + nbArtificial];
+        value = new double[rowIndex.length];
+        final int[] fill = MathArrays.copyOf(columnStart, logicalOffset);
+        for (i = 0; i < m; ++i) {
+            for (int k = 0; k < rowColumns[i].length; ++k) {
+                final int p = fill[rowColumns[i][k]]++;
+                rowIndex[p] = i;
+                value[p] = rowValues[i][k];
+            }
+        }
+        int p = structural;
+        for (i = 0; i < m; ++i) {
+            if (relationships[i] != Relationship.EQ) {
+                rowIndex[p] = i;
+                value[p] = relationships[i] == Relationship.LEQ ? 1 : -1;
+                ++p;
+            }
+            columnStart[logicalOffset + i + 1] = p;
+        }
+        rowArtificial = new int[m];
+        int artificial = artificialOffset;
+        for (i = 0; i < m; ++i) {
+            if (relationships[i] != Relationship.LEQ) {
+                rowIndex[p] = i;
+                value[p] = 1;
+                ++p;
+                rowArtificial[i] = artificial;
+                columnStart[++artificial] = p;
+            } else {
+                rowArtificial[i] = -1;
+            }
+        }
+
+        // costs
+        cost = new double[total];
+        final double[] coefficients = f.getCoefficients().toArray();
+        double sum = 0;
+        for (int j = 0; j < n; ++j) {
+            cost[j] = maximize ? -coefficients[j] : coefficients[j];
+            sum += cost[j];
+        }
+        if (shifted) {
+            cost[n] = -sum;
+        }
+    }
+
+    /**
+     * Factorizes the current basis and recomputes the values of the basic variables.
+     */
+    private void refactorize() {
+        factorization.factorize(columnStart, rowIndex, value, basis);
+        factorization.ftran(rhs.clone(), basicValue);
+    }
+
+    /**
+     * Performs simplex iterations until the current basis is optimal.
+     *
+     * @param c Cost of the objective function to minimize, for each variable.
+     * @param phase2 Whether the basic artificial variables must be kept at zero.
+     * @throws TooManyIterationsException if the allowed number of iterations
+     * has been exhausted.
+     * @throws UnboundedSolutionException if the objective function is unbounded.
+     */
+    private void iterate(final double[] c, final boolean phase2)
+        throws TooManyIterationsException, UnboundedSolutionException {
+
+        final double[] cB = new double[m];
+        final double[] y = new double[m];
+        final double[] column = new double[m];
+        final double[] d = new double[m];
+        final double[] weight = new double[total];
+        Arrays.fill(weight, 1);
+        int degenerate = 0;
+
+        while (true) {
+
+            // simplex multipliers
+            for (int i = 0; i < m; ++i) {
+                cB[i] = c[basis[i]];
+            }
+            factorization.btran(cB, y);
+
+            // pricing: largest scaled negative reduced cost, or first negative one (Bland's rule)
+            final boolean bland = degenerate >= DEGENERACY_LIMIT;
+            int entering = -1;
+            double enteringReducedCost = 0;
+            double maxScore = 0;
+            for (int j = 0; j < artificialOffset; ++j) {
+                if (basisPosition[j] < 0) {
+                    double reducedCost = c[j];
+                    for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                        reducedCost -= y[rowIndex[p]] * value[p];
+                    }
+                    if (reducedCost < -epsilon) {
+                        final double score = reducedCost * reducedCost / weight[j];
+                        if (bland || entering < 0 || score > maxScore) {
+                            entering = j;
+                            enteringReducedCost = reducedCost;
+                            maxScore = score;
+                            if (bland) {
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            if (entering < 0) {
+                if (factorization.getUpdates() == 0) {
+                    return;
+                }
+                // optimality is only checked with accurate multipliers
+                refactorize();
+                continue;
+            }
+
+            incrementIterationCount();
+
+            // direction of the basic variables
+            for (int p = columnStart[entering]; p < columnStart[entering + 1]; ++p) {
+                column[rowIndex[p]] = value[p];
+            }
+            factorization.ftran(column, d);
+            for (int i = 0; i < m; ++i) {
+                column[i] = 0;
+            }
+
+            final int leaving = bland ? blandRatioTest(d, phase2) : ratioTest(d, phase2);
+            if (leaving < 0) {
+                throw new UnboundedSolutionException();
+            }
+
+            // new values of the basic variables
+            final double theta = FastMath.max(0, basicValue[leaving] / d[leaving]);
+            if (theta != 0) {
+                for (int i = 0; i < m; ++i) {
+                    basicValue[i] -= theta * d[i];
+                }
+            }
+            basicValue[leaving] = theta;
+            degenerate = theta * FastMath.abs(enteringReducedCost) > 0 ? 0 : degenerate + 1;
+
+            if (!bland) {
+                updateWeights(weight, entering, leaving, d[leaving], cB, y);
+            }
+
+            // change of basis
+            basisPosition[basis[leaving]] = -1;
+            basis[leaving] = entering;
+            basisPosition[entering] = leaving;
+            factorization.update(leaving, d);
+            if (factorization.getUpdates() >= refactorization) {
+                refactorize();
+            }
+        }
+    }
+
+    /**
+     * Updates the reference weights of the Devex pricing for a change of basis.
+     * <p>
+     * The weights approximate the norms of the directions of the non-basic
+     * variables in a reference framework, so that the entering variable is
+     * the one which decreases most the objective function per unit of
+     * distance rather than per unit of the variable.
+     * </p>
+     *
+     * @param weight Reference weights of the variables.
+     * @param entering Entering variable.
+     * @param leaving Basis position of the leaving variable.
+     * @param pivot Pivot element.
+     * @param work Work array (overwritten).
+     * @param rho Work array (overwritten).
+     */
+    private void updateWeights(final double[] weight, final int entering, final int leaving,
+                               final double pivot, final double[] work, final double[] rho) {
+        // row of the pivot
+        Arrays.fill(work, 0);
+        work[leaving] = 1;
+        factorization.btran(work, rho);
+
+        final double reference = weight[entering] / (pivot * pivot);
+        if (reference > DEVEX_RESET) {
+            // the reference framework is too far from the current basis
+            Arrays.fill(weight, 1);
+            return;
+        }
+        for (int j = 0; j < artificialOffset; ++j) {
+            if (basisPosition[j] < 0 && j != entering) {
+                double alpha = 0;
+                for (int p = columnStart[j]; p < columnStart[j + 1]; ++p) {
+                    alpha += rho[rowIndex[p]] * value[p];
+                }
+                if (alpha != 0) {
+                    weight[j] = FastMath.max(weight[j], alpha * alpha * reference);
+                }
+            }
+        }
+        weight[basis[leaving]] = FastMath.max(reference, 1);
+    }
+
+    /**
+     * Two-pass ratio test.
+     * <p>
+     * The first pass computes the largest step keeping all basic variables
+     * above {@code -FEASIBILITY_TOLERANCE}; the second one selects, among the
+     * variables blocking before this step, the one with the largest pivot.
+     * </p>
+     *
+     * @param d Direction of the basic variables.
+     * @param phase2 Whether the basic artificial variables must be kept at zero.
+     * @return the position of the leaving variable, or -1 if there are none.
+     */
+    private int ratioTest(final double[] d, final boolean phase2) {
+
+        if (phase2) {
+            // artificial variables left in the basis must leave it as soon as they would change
+            int leaving = -1;
+            double maxPivot = PIVOT_TOLERANCE;
+            for (int i = 0; i < m; ++i) {
+                if (basis[i] >= artificialOffset && FastMath.abs(d[i]) > maxPivot) {
+                    leaving = i;
+                    maxPivot = FastMath.abs(d[i]);
+                }
+            }
+            if (leaving >= 0) {
+                basicValue[leaving] = 0;
+                return leaving;
+            }
+        }
+
+        double maxStep = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < m; ++i) {
+            if (d[i] > PIVOT_TOLERANCE) {
+                maxStep = FastMath.min(maxStep, (basicValue[i] + FEASIBILITY_TOLERANCE) / d[i]);
+            }
+        }
+        int leaving = -1;
+        double maxPivot = 0;
+        for (int i = 0; i < m; ++i) {
+            if (d[i] > PIVOT_TOLERANCE && basicValue[i] / d[i] <= maxStep && d[i] > maxPivot) {
+                leaving = i;
+                maxPivot = d[i];
+            }
+        }
+        return leaving;
+    }
+
+    /**
+     * Ratio test of Bland's rule: smallest ratio, ties broken by the
+     * smallest variable index.
+     *
+     * @param d Direction of the basic variables.
+     * @param phase2 Whether the basic artificial variables must be kept at zero.
+     * @return the position of the leaving variable, or -1 if there are none.
+     */
+    private int blandRatioTest(final double[] d, final boolean phase2) {
+        int leaving = -1;
+        double minRatio = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < m; ++i) {
+            final boolean fixed = phase2 && basis[i] >= artificialOffset;
+            if (d[i] > PIVOT_TOLERANCE || (fixed && d[i] < -PIVOT_TOLERANCE)) {
+                final double ratio = fixed ? 0 : FastMath.max(0, basicValue[i]) / d[i];
+                if (ratio < minRatio || (ratio == minRatio && basis[i] < basis[leaving])) {
+                    leaving = i;
+                    minRatio = ratio;
+                }
+            }
+        }
+        if (leaving >= 0 && phase2 && basis[leaving] >= artificialOffset) {
+            basicValue[leaving] = 0;
+        }
+        return leaving;
+    }
+
+    /**
+     * Extracts the solution of the problem from the current basis.
+     *
+     * @return the optimal point and the corresponding value of the
+     * objective function.
+     */
+    private PointValuePair getSolution() {
+        final double shift = (logicalOffset > n && basisPosition[n] >= 0) ?
+                             basicValue[basisPosition[n]] : 0;
+        final double[] point = new double[n];
+        for (int j = 0; j < n; ++j) {
+            point[j] = (basisPosition[j] >= 0 ? basicValue[basisPosition[j]] : 0) - shift;
+        }
+        return new PointValuePair(point, getFunction().value(point));
+    }
+
+}
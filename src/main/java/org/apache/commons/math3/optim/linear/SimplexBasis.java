@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Basis of a linear problem solved by {@link RevisedSimplexSolver}, used to
+ * start the resolution of a modified problem from the optimal basis of the
+ * previous one.
+ * <p>
+ * The basis records which decision variables and which constraints (through
+ * their slack or surplus variable) were basic. Constraints are identified by
+ * their position in the {@link LinearConstraintSet}, so a modified problem
+ * should keep the constraints in the same order; constraints added after
+ * the last ones start with their slack or surplus variable in the basis.
+ * </p>
+ * <p>
+ * Instances of this class are obtained from {@link
+ * RevisedSimplexSolver#getBasis()} and are immutable.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class SimplexBasis implements OptimizationData {
+
+    /** Basic decision variables. */
+    private final int[] basicVariables;
+
+    /** Constraints whose logical variable is basic. */
+    private final int[] basicConstraints;
+
+    /** Whether the variable subtracted from unrestricted variables is basic. */
+    private final boolean shiftBasic;
+
+    /** Number of constraints of the problem. */
+    private final int numberOfConstraints;
+
+    /**
+     * Simple constructor.
+     *
+     * @param basicVariables Basic decision variables.
+     * @param basicConstraints Constraints whose logical variable is basic.
+     * @param shiftBasic Whether the variable subtracted from unrestricted
+     * variables is basic.
+     * @param numberOfConstraints Number of constraints of the problem.
+     */
+    SimplexBasis(final int[] basicVariables, final int[] basicConstraints,
+                 final boolean shiftBasic, final int numberOfConstraints) {
+        this.basicVariables = basicVariables;
+        this.basicConstraints = basicConstraints;
+        this.shiftBasic = shiftBasic;
+        this.numberOfConstraints = numberOfConstraints;
+    }
+
+    /**
+     * Gets the indices of the basic decision variables.
+     *
+     * @return the indices of the basic decision variables, in increasing order.
+     */
+    public int[] getBasicVariables() {
+        return basicVariables.clone();
+    }
+
+    /**
+     * Gets the indices of the constraints whose slack or surplus variable is basic.
+     *
+     * @return the indices of the constraints, in increasing order.
+     */
+    public int[] getBasicConstraints() {
+        return basicConstraints.clone();
+    }
+
+    /**
+     * Gets the number of constraints of the problem.
+     *
+     * @return the number of constraints.
+     */
+    public int getNumberOfConstraints() {
+        return numberOfConstraints;
+    }
+
+    /**
+     * Checks whether the variable subtracted from all decision variables
+     * when they are not restricted to non-negative values is basic.
+     *
+     * @return {@code true} if this variable is basic.
+     */
+    boolean isShiftBasic() {
+        return shiftBasic;
+    }
+
+}
@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+
+/**
+ * Sparse solver for the Karush-Kuhn-Tucker systems of {@link InteriorPointSolver}.
+ * <p>
+ * The whole system is factorized as P K P<sup>T</sup> = L D L<sup>T</sup>,
+ * where P is a fill-reducing permutation computed once by the minimum degree
+ * algorithm. Thanks to the regularization, the matrix is quasi-definite, so
+ * that the factorization exists for any permutation, with positive pivots
+ * for the primal variables and negative pivots for the dual ones. Pivots
+ * with the wrong sign, due to rounding errors, are replaced by the
+ * regularization.
+ * </p>
+ * <p>
+ * The structure of the factor (elimination tree and column counts) is
+ * computed once, and each factorization only computes its values, with the
+ * up-looking algorithm of the LDL package by T. A. Davis.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+class SparseKktSolver implements KktSolver {
+
+    /** Relative size of the pivots considered as lost in cancellation. */
+    private static final double PIVOT_THRESHOLD = FastMath.sqrt(FastMath.ulp(1.0));
+
+    /** Number of primal variables. */
+    private final int n;
+
+    /** Number of equality constraints. */
+    private final int me;
+
+    /** Size of the system. */
+    private final int size;
+
+    /** Primal regularization. */
+    private final double rho;
+
+    /** Dual regularization. */
+    private final double delta;
+
+    /** Diagonal of the quadratic term. */
+    private final double[] qDiagonal;
+
+    /** Start of the columns of the matrix; the diagonal entry is the first one. */
+    private final int[] columnStart;
+
+    /** Row indices of the entries of the matrix (both triangles). */
+    private final int[] rowIndex;
+
+    /** Values of the entries of the matrix. */
+    private final double[] value;
+
+    /** Permutation: original index of each pivot. */
+    private final int[] permutation;
+
+    /** Inverse permutation: pivot of each original index. */
+    private final int[] inverse;
+
+    /** Parent of each pivot in the elimination tree ({@code -1} for roots). */
+    private final int[] parent;
+
+    /** Start of the columns of L. */
+    private final int[] lStart;
+
+    /** Row indices of the entries of L. */
+    private final int[] lIndex;
+
+    /** Values of the entries of L. */
+    private final double[] lValue;
+
+    /** Diagonal D. */
+    private final double[] d;
+
+    /** Work array. */
+    private final double[] work;
+
+    /** Work array. */
+    private final int[] pattern;
+
+    /** Work array. */
+    private final int[] flag;
+
+    /** Work array. */
+    private final int[] count;
+
+    /**
+     * Simple constructor.
+     * <p>
+     * The fill-reducing permutation and the structure of the factor are
+     * computed here.
+     * </p>
+     *
+     * @param q Quadratic term (symmetric).
+     * @param a Equality constraints.
+     * @param g Inequality constraints.
+     * @param rho Primal regularization.
+     * @param delta Dual regularization.
+     */
+    SparseKktSolver(final CompressedRows q, final CompressedRows a, final CompressedRows g,
+                    final double rho, final double delta) {
+        this.n = q.getRows();
+        this.me = a.getRows();
+        this.size = n + me + g.getRows();
+        this.rho = rho;
+        this.delta = delta;
+
+        // pattern of the whole symmetric matrix, by columns
+        final CompressedRows at = a.transpose();
+        final CompressedRows gt = g.transpose();
+        columnStart = new int[size + 1];
+        rowIndex = new int[size + q.getEntries() + 2 * (a.getEntries() + g.getEntries())];
+        value = new double[rowIndex.length];
+        qDiagonal = new double[n];
+        int p = 0;
+        for (int j = 0; j < n; ++j) {
+            rowIndex[p++] = j;
+            for (int r = q.getStart()[j]; r < q.getStart()[j + 1]; ++r) {
+                if (q.getIndex()[r] == j) {
+                    qDiagonal[j] = q.getValue()[r];
+                } else {
+                    rowIndex[p] = q.getIndex()[r];
+                    value[p++] = q.getValue()[r];
+                }
+            }
+            p = append(at, j, n, p);
+            p = append(gt, j, n + me, p);
+            columnStart[j + 1] = p;
+        }
+        for (int i = 0; i < me; ++i) {
+            rowIndex[p++] = n + i;
+            p = append(a, i, 0, p);
+            columnStart[n + i + 1] = p;
+        }
+        for (int k = 0; k < g.getRows(); ++k) {
+            rowIndex[p++] = n + me + k;
+            p = append(g, k, 0, p);
+            columnStart[n + me + k + 1] = p;
+        }
+
+        // fill-reducing permutation
+        permutation = minimumDegree();
+        inverse = new int[size];
+        for (int k = 0; k < size; ++k) {
+            inverse[permutation[k]] = k;
+        }
+
+        // elimination tree and column counts
+        parent = new int[size];
+        flag = new int[size];
+        count = new int[size];
+        for (int k = 0; k < size; ++k) {
+            parent[k] = -1;
+            flag[k] = k;
+            final int kk = permutation[k];
+            for (int r = columnStart[kk]; r < columnStart[kk + 1]; ++r) {
+                for (int i = inverse[rowIndex[r]]; i < k && flag[i] != k; i = parent[i]) {
+                    if (parent[i] == -1) {
+                        parent[i] = k;
+                    }
+                    ++count[i];
+                    flag[i] = k;
+                }
+            }
+        }
+        lStart = new int[size + 1];
+        for (int k = 0; k < size; ++k) {
+            lStart[k + 1] = lStart[k] + count[k];
+        }
+        lIndex = new int[lStart[size]];
+        lValue = new double[lStart[size]];
+        d = new double[size];
+        work = new double[size];
+        pattern = new int[size];
+    }
+
+    /**
+     * Appends a row of a matrix to the current column of the system.
+     *
+     * @param m Matrix.
+     * @param row Row of the matrix.
+     * @param offset Offset of the column indices of the matrix in the system.
+     * @param p Position of the next entry of the system.
+     * @return the position of the next entry of the system.
+     */
+    private int append(final CompressedRows m, final int row, final int offset, final int p) {
+        int next = p;
+        for (int r = m.getStart()[row]; r < m.getStart()[row + 1]; ++r) {
+            rowIndex[next] = offset + m.getIndex()[r];
+            value[next++] = m.getValue()[r];
+        }
+        return next;
+    }
+
+    /**
+     * Gets the number of non-zero entries of the factor L.
+     *
+     * @return the number of non-zero entries of L.
+     */
+    int getFactorEntries() {
+        return lStart[size];
+    }
+
+    /**
+     * Estimates the number of floating point operations of a factorization.
+     *
+     * @return the estimated number of operations.
+     */
+    double getFactorizationCost() {
+        double cost = 0;
+        for (int k = 0; k < size; ++k) {
+            final double c = lStart[k + 1] - lStart[k];
+            cost += c * c;
+        }
+        return cost;
+    }
+
+    /**
+     * Computes a fill-reducing permutation by the minimum degree algorithm.
+     * <p>
+     * The elimination graph is updated explicitly. Nodes with a degree much
+     * larger than the average, such as the ones of constraints involving
+     * most variables, are ordered last without being updated.
+     * </p>
+     *
+     * @return the original index of each pivot.
+     */
+    private int[] minimumDegree() {
+        final int denseDegree = FastMath.max(16, (int) (10 * FastMath.sqrt(size)));
+        final boolean[] dense = new boolean[size];
+        for (int j = 0; j < size; ++j) {
+            dense[j] = columnStart[j + 1] - columnStart[j] - 1 > denseDegree;
+        }
+
+        // adjacency lists, without diagonal and dense nodes
+        final int[][] adjacency = new int[size][];
+        final int[] degree = new int[size];
+        for (int j = 0; j < size; ++j) {
+            if (!dense[j]) {
+                adjacency[j] = new int[columnStart[j + 1] - columnStart[j] - 1];
+                for (int r = columnStart[j] + 1; r < columnStart[j + 1]; ++r) {
+                    if (!dense[rowIndex[r]]) {
+                        adjacency[j][degree[j]++] = rowIndex[r];
+                    }
+                }
+            }
+        }
+
+        // buckets of nodes with the same degree (doubly linked lists)
+        final int[] head = new int[size + 1];
+        final int[] next = new int[size];
+        final int[] previous = new int[size];
+        Arrays.fill(head, -1);
+        for (int j = 0; j < size; ++j) {
+            if (!dense[j]) {
+                insert(head, next, previous, j, degree[j]);
+            }
+        }
+
+        final int[] order = new int[size];
+        final boolean[] eliminated = new boolean[size];
+        final int[] mark = new int[size];
+        Arrays.fill(mark, -1);
+        int stamp = 0;
+        int k = 0;
+        int minDegree = 0;
+        while (true) {
+            while (minDegree <= size && head[minDegree] < 0) {
+                ++minDegree;
+            }
+            if (minDegree > size) {
+                break;
+            }
+            final int v = head[minDegree];
+            remove(head, next, previous, v, minDegree);
+            order[k++] = v;
+            eliminated[v] = true;
+
+            // the neighbors of v become a clique
+            final int[] neighbors = adjacency[v];
+            final int nbNeighbors = degree[v];
+            for (int r = 0; r < nbNeighbors; ++r) {
+                final int u = neighbors[r];
+                final int[] list = adjacency[u];
+                int[] merged = list;
+                int newDegree = 0;
+                mark[u] = ++stamp;
+                for (int s = 0; s < degree[u]; ++s) {
+                    final int w = list[s];
+                    if (!eliminated[w]) {
+                        merged[newDegree++] = w;
+                        mark[w] = stamp;
+                    }
+                }
+                for (int s = 0; s < nbNeighbors; ++s) {
+                    final int w = neighbors[s];
+                    if (mark[w] != stamp) {
+                        if (newDegree == merged.length) {
+                            merged = MathArrays.copyOf(merged, 2 * merged.length + 1);
+                        }
+                        merged[newDegree++] = w;
+                        mark[w] = stamp;
+                    }
+                }
+                adjacency[u] = merged;
+                remove(head, next, previous, u, degree[u]);
+                degree[u] = newDegree;
+                insert(head, next, previous, u, newDegree);
+                minDegree = FastMath.min(minDegree, newDegree);
+            }
+            adjacency[v] = null;
+        }
+        for (int j = 0; j < size; ++j) {
+            if (dense[j]) {
+                order[k++] = j;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Inserts a node in a bucket.
+     *
+     * @param head First node of each bucket.
+     * @param next Next node in the bucket.
+     * @param previous Previous node in the bucket.
+     * @param node Node to insert.
+     * @param bucket Bucket.
+     */
+    private static void insert(final int[] head, final int[] next, final int[] previous,
+                               final int node, final int bucket) {
+        next[node] = head[bucket];
+        previous[node] = -1;
+        if (head[bucket] >= 0) {
+            previous[head[bucket]] = node;
+        }
+        head[bucket] = node;
+    }
+
+    /**
+     * Removes a node from a bucket.
+     *
+     * @param head First node of each bucket.
+     * @param next Next node in the bucket.
+     * @param previous Previous node in the bucket.
+     * @param node Node to remove.
+     * @param bucket Bucket.
+     */
+    private static void remove(final int[] head, final int[] next, final int[] previous,
+                               final int node, final int bucket) {
+        if (previous[node] >= 0) {
+            next[previous[node]] = next[node];
+        } else {
+            head[bucket] = next[node];
+        }
+        if (next[node] >= 0) {
+            previous[next[node]] = previous[node];
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void factorize(final double[] dx, final double[] dz)
+        throws NonPositiveDefiniteMatrixException {
+
+        // diagonal terms
+        for (int j = 0; j < n; ++j) {
+            value[columnStart[j]] = qDiagonal[j] + dx[j] + rho;
+        }
+        for (int i = 0; i < me; ++i) {
+            value[columnStart[n + i]] = -delta;
+        }
+        for (int k = 0; k < dz.length; ++k) {
+            value[columnStart[n + me + k]] = -dz[k] - delta;
+        }
+
+        for (int k = 0; k < size; ++k) {
+
+            // non-zero pattern of row k of L, in topological order
+            work[k] = 0;
+            int top = size;
+            flag[k] = k;
+            count[k] = 0;
+            final int kk = permutation[k];
+            for (int r = columnStart[kk]; r < columnStart[kk + 1]; ++r) {
+                int i = inverse[rowIndex[r]];
+                if (i <= k) {
+                    work[i] += value[r];
+                    int len = 0;
+                    for (; flag[i] != k; i = parent[i]) {
+                        pattern[len++] = i;
+                        flag[i] = k;
+                    }
+                    while (len > 0) {
+                        pattern[--top] = pattern[--len];
+                    }
+                }
+            }
+
+            // numerical values of row k of L and pivot
+            double dk = work[k];
+            double scale = FastMath.abs(dk);
+            work[k] = 0;
+            for (; top < size; ++top) {
+                final int i = pattern[top];
+                final double yi = work[i];
+                work[i] = 0;
+                final int end = lStart[i] + count[i];
+                for (int r = lStart[i]; r < end; ++r) {
+                    work[lIndex[r]] -= lValue[r] * yi;
+                }
+                final double lki = yi / d[i];
+                dk    -= lki * yi;
+                scale += FastMath.abs(lki * yi);
+                lIndex[end] = k;
+                lValue[end] = lki;
+                ++count[i];
+            }
+
+            // static pivoting: pivots with the wrong sign or lost in the
+            // cancellation of the eliminated terms are replaced by small
+            // pivots with the right sign, at the scale of these terms
+            final double threshold = PIVOT_THRESHOLD * scale;
+            if (kk < n) {
+                if (dk <= threshold) {
+                    if (dk < -PIVOT_THRESHOLD * FastMath.max(1, scale)) {
+                        throw new NonPositiveDefiniteMatrixException(dk, kk, 0);
+                    }
+                    dk = FastMath.max(rho, threshold);
+                }
+            } else if (dk >= -threshold) {
+                dk = -FastMath.max(delta, threshold);
+            }
+            d[k] = dk;
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void solve(final double[] r1, final double[] r2, final double[] r3,
+                      final double[] x, final double[] y, final double[] z) {
+        for (int k = 0; k < size; ++k) {
+            final int kk = permutation[k];
+            work[k] = kk < n ? r1[kk] : (kk < n + me ? r2[kk - n] : r3[kk - n - me]);
+        }
+        for (int j = 0; j < size; ++j) {
+            final double wj = work[j];
+            for (int r = lStart[j]; r < lStart[j + 1]; ++r) {
+                work[lIndex[r]] -= lValue[r] * wj;
+            }
+        }
+        for (int j = 0; j < size; ++j) {
+            work[j] /= d[j];
+        }
+        for (int j = size - 1; j >= 0; --j) {
+            double wj = work[j];
+            for (int r = lStart[j]; r < lStart[j + 1]; ++r) {
+                wj -= lValue[r] * work[lIndex[r]];
+            }
+            work[j] = wj;
+        }
+        for (int k = 0; k < size; ++k) {
+            final int kk = permutation[k];
+            if (kk < n) {
+                x[kk] = work[k];
+            } else if (kk < n + me) {
+                y[kk - n] = work[k];
+            } else {
+                z[kk - n - me] = work[k];
+            }
+        }
+    }
+
+}
@@ -20,10 +20,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.math3.analysis.MultivariateFunction;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NullArgumentException;
 import org.apache.commons.math3.random.RandomVectorGenerator;
 import org.apache.commons.math3.optim.BaseMultiStartMultivariateOptimizer;
+import org.apache.commons.math3.optim.EvaluationBudget;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointValuePair;
 
 /**
@@ -32,16 +37,23 @@ import org.apache.commons.math3.optim.PointValuePair;
  * This class wraps an optimizer in order to use it several times in
  * turn with different starting points (trying to avoid being trapped
  * in a local extremum when looking for a global one).
+ * <br/>
+ * The starts can also be run concurrently by independent optimizers
+ * created by an {@link OptimizerFactory}. A {@link TargetValue} passed to
+ * the {@code optimize} method prevents further starts as soon as one of
+ * them reaches it, and interrupts the starts running concurrently.
  *
  * @version $Id$
  * @since 3.0
  */
 public class MultiStartMultivariateOptimizer
     extends BaseMultiStartMultivariateOptimizer<PointValuePair> {
-    /** Underlying optimizer. */
-    private final MultivariateOptimizer optimizer;
     /** Found optima. */
     private final List<PointValuePair> optima = new ArrayList<PointValuePair>();
+    /** Type of optimization. */
+    private GoalType goal;
+    /** Target value ({@code null} if none). */
+    private TargetValue target;
 
     /**
      * Create a multi-start optimizer from a single-start optimizer.
@@ -61,7 +73,29 @@ public class MultiStartMultivariateOptimizer
         throws NullArgumentException,
         NotStrictlyPositiveException {
         super(optimizer, starts, generator);
-        this.optimizer = optimizer;
+    }
+
+    /**
+     * Create a multi-start optimizer running independent optimizations,
+     * possibly concurrently.
+     *
+     * @param factory Factory creating the single-start optimizers.
+     * @param starts Number of starts to perform.
+     * @param generator Random vector generator to use for restarts.
+     * @param executor Executor running the starts (if {@code null}, they
+     * are run one after the other in the calling thread).
+     * @throws NullArgumentException if {@code factory} or {@code generator}
+     * is {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public MultiStartMultivariateOptimizer(final OptimizerFactory<? extends MultivariateOptimizer> factory,
+                                           final int starts,
+                                           final RandomVectorGenerator generator,
+                                           final ExecutorService executor)
+        throws NullArgumentException,
+        NotStrictlyPositiveException {
+        super(factory, starts, generator, executor);
     }
 
     /**
@@ -89,6 +123,62 @@ public class MultiStartMultivariateOptimizer
         optima.clear();
     }
 
+    /**
+     * Scans the list of (required and optional) optimization data that
+     * characterize the problem.
+     *
+     * @param optData Optimization data.
+     * The following data will be looked for:
+     * <ul>
+     *  <li>{@link GoalType}</li>
+     *  <li>{@link TargetValue}</li>
+     * </ul>
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        target = null;
+        for (OptimizationData data : optData) {
+            if (data instanceof GoalType) {
+                goal = (GoalType) data;
+                continue;
+            }
+            if (data instanceof TargetValue) {
+                target = (TargetValue) data;
+                continue;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isTargetReached(final PointValuePair optimum) {
+        return target != null && target.isReached(optimum.getValue(), goal);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected OptimizationData countEvaluations(final OptimizationData data,
+                                                final EvaluationBudget budget) {
+        if (data instanceof ObjectiveFunction) {
+            final MultivariateFunction f = ((ObjectiveFunction) data).getObjectiveFunction();
+            return new ObjectiveFunction(new MultivariateFunction() {
+                /** {@inheritDoc} */
+                public double value(double[] point) {
+                    budget.consume();
+                    return f.value(point);
+                }
+            });
+        }
+        return data;
+    }
+
     /**
      * @return a comparator for sorting the optima.
      */
@@ -103,7 +193,7 @@ public class MultiStartMultivariateOptimizer
                 }
                 final double v1 = o1.getValue();
                 final double v2 = o2.getValue();
-                return (optimizer.getGoalType() == GoalType.MINIMIZE) ?
+                return (goal == GoalType.MINIMIZE) ?
                     Double.compare(v1, v2) : Double.compare(v2, v1);
             }
         };
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar;
+
+import org.apache.commons.math3.optim.OptimizationData;
+
+/**
+ * Value of the objective function considered good enough.
+ * <p>
+ * Multi-start optimizers stop starting new optimizations, and cancel
+ * those running concurrently, as soon as one of them has found an optimum
+ * at least as good as the target: lower than or equal to it when
+ * minimizing, greater than or equal to it when maximizing.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class TargetValue implements OptimizationData {
+    /** Target value. */
+    private final double value;
+
+    /**
+     * @param value Target value of the objective function.
+     */
+    public TargetValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the target value.
+     *
+     * @return the target value of the objective function.
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Checks whether a value reaches the target.
+     *
+     * @param candidate Value of the objective function.
+     * @param goal Optimization type.
+     * @return {@code true} if {@code candidate} is at least as good as
+     * the target.
+     */
+    public boolean isReached(final double candidate, final GoalType goal) {
+        return goal == GoalType.MINIMIZE ? candidate <= value : candidate >= value;
+    }
+}
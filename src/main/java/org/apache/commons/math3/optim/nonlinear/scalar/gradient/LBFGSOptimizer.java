@@ -0,0 +1,618 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.ConvergenceChecker;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.GradientMultivariateOptimizer;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
+
+/**
+ * Limited-memory BFGS optimizer, with optional bound constraints.
+ * <p>
+ * The quasi-Newton direction is computed by the two-loop recursion of
+ * Nocedal from the last {@code m} pairs of steps and gradient changes, so
+ * that the approximation of the inverse Hessian is never stored: memory
+ * and time per iteration are proportional to {@code m n}, where {@code n}
+ * is the number of parameters. This makes the method suitable for smooth
+ * problems with many thousands of parameters, for which the optimizers
+ * storing {@code n x n} matrices are not.
+ * </p>
+ * <p>
+ * Steps are chosen by a line search enforcing the strong Wolfe conditions
+ * (sufficient decrease and curvature), which guarantees that the updates
+ * keep the approximation positive definite.
+ * </p>
+ * <p>
+ * Bounds passed as {@link org.apache.commons.math3.optim.SimpleBounds
+ * SimpleBounds} are handled by a projected active set strategy, after
+ * Bertsekas: the variables lying on or close to a bound, with a gradient
+ * pushing them outside, follow the steepest descent direction while the
+ * quasi-Newton direction is computed in the subspace of the other
+ * variables. When the full step would cross a bound, it is projected onto
+ * the feasible box and shortened by backtracking until the objective
+ * decreases sufficiently. Infinite bounds are allowed.
+ * </p>
+ * <p>
+ * The optimizer stops when the convergence checker is satisfied, when the
+ * projected gradient vanishes, when a step does not change the point, or
+ * when no step along the steepest descent direction decreases the
+ * objective (the optimum is then known to machine accuracy). If the
+ * convergence checker is {@code null}, only the last three criteria, and
+ * the maximal numbers of evaluations and iterations, apply. Only the
+ * evaluations of the objective function are counted; each of them is
+ * followed by at most one evaluation of the gradient.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public class LBFGSOptimizer extends GradientMultivariateOptimizer {
+    /** Default number of correction pairs kept. */
+    public static final int DEFAULT_MEMORY = 10;
+    /** Default parameter of the sufficient decrease condition. */
+    public static final double DEFAULT_SUFFICIENT_DECREASE = 1e-4;
+    /** Default parameter of the curvature condition. */
+    public static final double DEFAULT_CURVATURE = 0.9;
+    /** Maximal number of function evaluations in a line search. */
+    private static final int MAX_LINE_SEARCH = 40;
+    /** Number of correction pairs kept. */
+    private final int memory;
+    /** Parameter of the sufficient decrease condition. */
+    private final double sufficientDecrease;
+    /** Parameter of the curvature condition. */
+    private final double curvature;
+
+    /**
+     * Creates an optimizer keeping {@link #DEFAULT_MEMORY} correction pairs.
+     *
+     * @param checker Convergence checker (may be {@code null}).
+     */
+    public LBFGSOptimizer(ConvergenceChecker<PointValuePair> checker) {
+        this(DEFAULT_MEMORY, checker);
+    }
+
+    /**
+     * Creates an optimizer with default line search parameters.
+     *
+     * @param memory Number of correction pairs kept (usually between 3
+     * and 20).
+     * @param checker Convergence checker (may be {@code null}).
+     * @throws NotStrictlyPositiveException if {@code memory} is not
+     * strictly positive.
+     */
+    public LBFGSOptimizer(final int memory,
+                          ConvergenceChecker<PointValuePair> checker)
+        throws NotStrictlyPositiveException {
+        this(memory, DEFAULT_SUFFICIENT_DECREASE, DEFAULT_CURVATURE, checker);
+    }
+
+    /**
+     * @param memory Number of correction pairs kept (usually between 3
+     * and 20).
+     * @param sufficientDecrease Parameter {@code c1} of the sufficient
+     * decrease condition {@code f(x + a d) <= f(x) + c1 a f'(x) d}.
+     * @param curvature Parameter {@code c2} of the curvature condition
+     * {@code |f'(x + a d) d| <= c2 |f'(x) d|}.
+     * @param checker Convergence checker (may be {@code null}).
+     * @throws NotStrictlyPositiveException if {@code memory} is not
+     * strictly positive.
+     * @throws OutOfRangeException unless
+     * {@code 0 < sufficientDecrease < curvature < 1}.
+     */
+    public LBFGSOptimizer(final int memory,
+                          final double sufficientDecrease,
+                          final double curvature,
+                          ConvergenceChecker<PointValuePair> checker)
+        throws NotStrictlyPositiveException, OutOfRangeException {
+        super(checker);
+        if (memory <= 0) {
+            throw new NotStrictlyPositiveException(memory);
+        }
+        if (!(sufficientDecrease > 0 && sufficientDecrease < 1)) {
+            throw new OutOfRangeException(sufficientDecrease, 0, 1);
+        }
+        if (!(curvature > sufficientDecrease && curvature < 1)) {
+            throw new OutOfRangeException(curvature, sufficientDecrease, 1);
+        }
+        this.memory             = memory;
+        this.sufficientDecrease = sufficientDecrease;
+        this.curvature          = curvature;
+    }
+
+    /**
+     * Gets the number of correction pairs kept.
+     *
+     * @return the number of correction pairs.
+     */
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param optData Optimization data. The data documented in
+     * {@link GradientMultivariateOptimizer#parseOptimizationData(OptimizationData[])
+     * GradientMultivariateOptimizer} are used, including
+     * {@link org.apache.commons.math3.optim.SimpleBounds SimpleBounds}.
+     * @return {@inheritDoc}
+     * @throws TooManyEvaluationsException if the maximal number of
+     * evaluations (of the objective function) is exceeded.
+     */
+    @Override
+    public PointValuePair optimize(OptimizationData... optData)
+        throws TooManyEvaluationsException {
+        // Set up base class and perform computation.
+        return super.optimize(optData);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected PointValuePair doOptimize() {
+        final ConvergenceChecker<PointValuePair> checker = getConvergenceChecker();
+        final double sign = getGoalType() == GoalType.MINIMIZE ? 1 : -1;
+        final double[] lower = getLowerBound();
+        final double[] upper = getUpperBound();
+        final int n = getStartPoint().length;
+
+        // correction pairs, in a circular buffer
+        final double[][] s   = new double[memory][];
+        final double[][] y   = new double[memory][];
+        final double[] rho   = new double[memory];
+        final double[] alpha = new double[memory];
+        double gamma = 1;
+        int stored = 0;
+        int newest = -1;
+
+        final boolean[] free = new boolean[n];
+        final double[] d = new double[n];
+        double[] sNew = new double[n];
+        double[] yNew = new double[n];
+
+        // the objective is minimized, its sign is changed for maximization
+        Trial trial = new Trial(getStartPoint(), 0);
+        trial.value = sign * computeObjectiveValue(trial.point);
+        trial.gradient(sign);
+        PointValuePair current = new PointValuePair(trial.point, sign * trial.value);
+
+        while (true) {
+            incrementIterationCount();
+            final double[] x = trial.point;
+            final double[] g = trial.gradient;
+
+            // distance to the projection of a steepest descent step, which
+            // vanishes at the constrained optimum
+            double width = 0;
+            for (int i = 0; i < n; ++i) {
+                width = FastMath.max(width, FastMath.abs(x[i] - project(x[i] - g[i], i, lower, upper)));
+            }
+            if (width == 0) {
+                // stationary point
+                return current;
+            }
+
+            // variables close enough to a bound and pushed towards it are
+            // considered blocked (Bertsekas' epsilon-active set, which
+            // prevents bounds from being activated one at a time)
+            for (int i = 0; i < n; ++i) {
+                free[i] = !((lower != null && x[i] <= lower[i] + width && g[i] > 0) ||
+                            (upper != null && x[i] >= upper[i] - width && g[i] < 0));
+            }
+
+            // quasi-Newton direction for the free variables, by the two-loop
+            // recursion restricted to them, and scaled steepest descent
+            // direction for the blocked ones
+            double gd = 0;
+            if (stored > 0) {
+                for (int i = 0; i < n; ++i) {
+                    d[i] = free[i] ? g[i] : 0;
+                }
+                for (int k = 0, j = newest; k < stored; ++k, j = (j + memory - 1) % memory) {
+                    alpha[j] = rho[j] * dot(s[j], d, free);
+                    axpy(-alpha[j], y[j], d, free);
+                }
+                for (int i = 0; i < n; ++i) {
+                    d[i] *= gamma;
+                }
+                for (int k = 0, j = (newest + memory - stored + 1) % memory; k < stored; ++k, j = (j + 1) % memory) {
+                    final double beta = rho[j] * dot(y[j], d, free);
+                    axpy(alpha[j] - beta, s[j], d, free);
+                }
+                for (int i = 0; i < n; ++i) {
+                    d[i] = free[i] ? -d[i] : -gamma * g[i];
+                    gd += g[i] * d[i];
+                }
+            }
+            if (!(gd < 0)) {
+                // no curvature information yet, or the direction is not
+                // a descent direction: use the normalized steepest descent
+                stored = 0;
+                gamma  = 1;
+                double norm = 0;
+                for (int i = 0; i < n; ++i) {
+                    norm += g[i] * g[i];
+                }
+                norm = FastMath.sqrt(norm);
+                gd = 0;
+                for (int i = 0; i < n; ++i) {
+                    d[i] = -g[i] / norm;
+                    gd += g[i] * d[i];
+                }
+            }
+
+            final Trial next = lineSearch(trial, d, gd, lower, upper, sign);
+            if (next == null) {
+                if (stored == 0) {
+                    // even the steepest descent direction cannot decrease the objective
+                    return current;
+                }
+                // discard the curvature information and try the steepest descent
+                stored = 0;
+                continue;
+            }
+
+            // keep the new correction pair if it has positive curvature
+            double sy = 0;
+            double yy = 0;
+            for (int i = 0; i < n; ++i) {
+                sNew[i] = next.point[i] - x[i];
+                yNew[i] = next.gradient[i] - g[i];
+                sy += sNew[i] * yNew[i];
+                yy += yNew[i] * yNew[i];
+            }
+            if (sy == 0 && yy == 0) {
+                // the step is below the resolution of the parameters
+                return current;
+            }
+            if (sy > Precision.EPSILON * yy) {
+                newest = (newest + 1) % memory;
+                final double[] sOld = s[newest];
+                final double[] yOld = y[newest];
+                s[newest]   = sNew;
+                y[newest]   = yNew;
+                rho[newest] = 1 / sy;
+                gamma       = sy / yy;
+                stored      = FastMath.min(stored + 1, memory);
+                sNew = sOld == null ? new double[n] : sOld;
+                yNew = yOld == null ? new double[n] : yOld;
+            }
+
+            trial = next;
+            final PointValuePair previous = current;
+            current = new PointValuePair(trial.point, sign * trial.value);
+            if (checker != null && checker.converged(getIterations(), previous, current)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Searches a step along a descent direction.
+     *
+     * @param current Current point.
+     * @param d Search direction.
+     * @param gd Directional derivative at the current point (negative).
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @param sign Sign applied to the objective function.
+     * @return the new point, or {@code null} if no acceptable step was found.
+     */
+    private Trial lineSearch(final Trial current, final double[] d, final double gd,
+                             final double[] lower, final double[] upper,
+                             final double sign) {
+        final Trial start = new Trial(current.point, 0);
+        start.value    = current.value;
+        start.gradient = current.gradient;
+
+        // largest feasible step along the direction
+        double maxStep = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < d.length; ++i) {
+            if (d[i] < 0 && lower != null) {
+                maxStep = FastMath.min(maxStep, (lower[i] - start.point[i]) / d[i]);
+            } else if (d[i] > 0 && upper != null) {
+                maxStep = FastMath.min(maxStep, (upper[i] - start.point[i]) / d[i]);
+            }
+        }
+        return maxStep < 1 ?
+               projectedSearch(start, d, lower, upper, sign) :
+               wolfeSearch(start, d, gd, maxStep, lower, upper, sign);
+    }
+
+    /**
+     * Searches a step satisfying the strong Wolfe conditions.
+     * <p>
+     * This is algorithm 3.5 of Nocedal and Wright, <em>Numerical
+     * Optimization</em>: the step is increased from 1 until an interval
+     * containing acceptable steps is bracketed, which is then reduced by
+     * safeguarded cubic interpolation.
+     * </p>
+     *
+     * @param start Current point (step 0).
+     * @param d Search direction.
+     * @param gd Directional derivative at the current point (negative).
+     * @param maxStep Largest feasible step.
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @param sign Sign applied to the objective function.
+     * @return the new point, or {@code null} if no acceptable step was found.
+     */
+    private Trial wolfeSearch(final Trial start, final double[] d, final double gd,
+                              final double maxStep,
+                              final double[] lower, final double[] upper,
+                              final double sign) {
+        final double f0 = start.value;
+        Trial previous = start;
+        double step = 1;
+        for (int evaluations = 1; evaluations <= MAX_LINE_SEARCH; ++evaluations) {
+            final Trial t = evaluate(start, d, step, lower, upper, sign);
+            t.gradient(sign);
+            final double derivative = t.derivative(d);
+            if (!(t.value <= f0 + sufficientDecrease * step * gd) ||
+                (previous != start && t.value >= previous.value)) {
+                return zoom(start, d, gd, previous, t, evaluations, lower, upper, sign);
+            }
+            if (FastMath.abs(derivative) <= -curvature * gd) {
+                return t;
+            }
+            if (derivative >= 0) {
+                return zoom(start, d, gd, t, previous, evaluations, lower, upper, sign);
+            }
+            if (step >= maxStep) {
+                // a bound is reached while the objective still decreases
+                return t;
+            }
+            previous = t;
+            step = FastMath.min(4 * step, maxStep);
+        }
+        return null;
+    }
+
+    /**
+     * Reduces an interval containing steps satisfying the strong Wolfe
+     * conditions.
+     *
+     * @param start Current point (step 0).
+     * @param d Search direction.
+     * @param gd Directional derivative at the current point (negative).
+     * @param low Trial satisfying the sufficient decrease condition, with
+     * the lowest value found so far.
+     * @param high Other end of the interval.
+     * @param evaluations Number of evaluations already performed in the
+     * line search.
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @param sign Sign applied to the objective function.
+     * @return the new point, or {@code null} if no acceptable step was found.
+     */
+    private Trial zoom(final Trial start, final double[] d, final double gd,
+                       Trial low, Trial high, int evaluations,
+                       final double[] lower, final double[] upper,
+                       final double sign) {
+        final double f0 = start.value;
+        double dLow  = low.derivative(d);
+        double dHigh = high.derivative(d);
+        while (evaluations < MAX_LINE_SEARCH &&
+               FastMath.abs(high.step - low.step) > Precision.EPSILON * FastMath.max(low.step, high.step)) {
+            ++evaluations;
+
+            // minimum of the cubic interpolating the values and derivatives,
+            // kept away from the ends of the interval
+            final double a = low.step;
+            final double b = high.step;
+            final double d1 = dLow + dHigh - 3 * (low.value - high.value) / (a - b);
+            final double d2 = FastMath.signum(b - a) * FastMath.sqrt(d1 * d1 - dLow * dHigh);
+            double step = b - (b - a) * (dHigh + d2 - d1) / (dHigh - dLow + 2 * d2);
+            final double margin = 0.1 * FastMath.abs(b - a);
+            if (!(step >= FastMath.min(a, b) + margin && step <= FastMath.max(a, b) - margin)) {
+                step = 0.5 * (a + b);
+            }
+
+            final Trial t = evaluate(start, d, step, lower, upper, sign);
+            t.gradient(sign);
+            final double derivative = t.derivative(d);
+            if (!(t.value <= f0 + sufficientDecrease * step * gd) || t.value >= low.value) {
+                high  = t;
+                dHigh = derivative;
+            } else {
+                if (FastMath.abs(derivative) <= -curvature * gd) {
+                    return t;
+                }
+                if (derivative * (high.step - low.step) >= 0) {
+                    high  = low;
+                    dHigh = dLow;
+                }
+                low  = t;
+                dLow = derivative;
+            }
+        }
+
+        // the curvature condition could not be met, the best step
+        // still satisfies the sufficient decrease condition
+        return low == start ? null : low;
+    }
+
+    /**
+     * Searches a step along the projection of the direction on the
+     * feasible box, by backtracking.
+     *
+     * @param start Current point (step 0).
+     * @param d Search direction.
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @param sign Sign applied to the objective function.
+     * @return the new point, or {@code null} if no acceptable step was found.
+     */
+    private Trial projectedSearch(final Trial start, final double[] d,
+                                  final double[] lower, final double[] upper,
+                                  final double sign) {
+        double step = 1;
+        for (int evaluations = 1; evaluations <= MAX_LINE_SEARCH; ++evaluations) {
+            final Trial t = evaluate(start, d, step, lower, upper, sign);
+
+            // predicted decrease along the projected path
+            double decrease = 0;
+            for (int i = 0; i < d.length; ++i) {
+                decrease += start.gradient[i] * (t.point[i] - start.point[i]);
+            }
+            if (!(decrease < 0)) {
+                return null;
+            }
+            if (t.value <= start.value + sufficientDecrease * decrease) {
+                t.gradient(sign);
+                return t;
+            }
+            step *= 0.5;
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the objective function at a point along the search direction.
+     *
+     * @param start Current point (step 0).
+     * @param d Search direction.
+     * @param step Step.
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @param sign Sign applied to the objective function.
+     * @return the evaluated point (its gradient is not computed).
+     */
+    private Trial evaluate(final Trial start, final double[] d, final double step,
+                           final double[] lower, final double[] upper,
+                           final double sign) {
+        final double[] point = new double[d.length];
+        for (int i = 0; i < point.length; ++i) {
+            point[i] = project(start.point[i] + step * d[i], i, lower, upper);
+        }
+        final Trial t = new Trial(point, step);
+        t.value = sign * computeObjectiveValue(point);
+        return t;
+    }
+
+    /**
+     * Projects a component on the feasible interval.
+     *
+     * @param xi Component.
+     * @param i Index of the component.
+     * @param lower Lower bounds, or {@code null}.
+     * @param upper Upper bounds, or {@code null}.
+     * @return the nearest feasible value.
+     */
+    private static double project(final double xi, final int i,
+                                  final double[] lower, final double[] upper) {
+        if (lower != null && xi < lower[i]) {
+            return lower[i];
+        }
+        if (upper != null && xi > upper[i]) {
+            return upper[i];
+        }
+        return xi;
+    }
+
+    /**
+     * Computes the dot product of vectors restricted to some components.
+     *
+     * @param u First vector.
+     * @param v Second vector.
+     * @param mask Components to use.
+     * @return the dot product.
+     */
+    private static double dot(final double[] u, final double[] v, final boolean[] mask) {
+        double sum = 0;
+        for (int i = 0; i < u.length; ++i) {
+            if (mask[i]) {
+                sum += u[i] * v[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Adds a multiple of a vector to another one, on some components.
+     *
+     * @param a Multiplier.
+     * @param u Vector to add.
+     * @param v Vector to update.
+     * @param mask Components to update.
+     */
+    private static void axpy(final double a, final double[] u, final double[] v, final boolean[] mask) {
+        for (int i = 0; i < u.length; ++i) {
+            if (mask[i]) {
+                v[i] += a * u[i];
+            }
+        }
+    }
+
+    /** Point evaluated during a line search. */
+    private class Trial {
+        /** Point. */
+        private final double[] point;
+        /** Step along the search direction. */
+        private final double step;
+        /** Objective value (with the sign used for minimization). */
+        private double value;
+        /** Gradient (with the sign used for minimization), or {@code null}. */
+        private double[] gradient;
+
+        /**
+         * @param point Point.
+         * @param step Step along the search direction.
+         */
+        Trial(final double[] point, final double step) {
+            this.point = point;
+            this.step  = step;
+        }
+
+        /**
+         * Computes the gradient at the point.
+         *
+         * @param sign Sign applied to the objective function.
+         */
+        void gradient(final double sign) {
+            final double[] g = computeObjectiveGradient(point);
+            if (sign < 0) {
+                gradient = new double[g.length];
+                for (int i = 0; i < g.length; ++i) {
+                    gradient[i] = -g[i];
+                }
+            } else {
+                gradient = g;
+            }
+        }
+
+        /**
+         * Computes the directional derivative at the point.
+         *
+         * @param d Direction.
+         * @return the derivative along {@code d}.
+         */
+        double derivative(final double[] d) {
+            double sum = 0;
+            for (int i = 0; i < d.length; ++i) {
+                sum += gradient[i] * d[i];
+            }
+            return sum;
+        }
+    }
+}
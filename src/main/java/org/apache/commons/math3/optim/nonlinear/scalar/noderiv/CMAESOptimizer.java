@@ -20,7 +20,11 @@ package org.apache.commons.math3.optim.nonlinear.scalar.noderiv;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import org.apache.commons.math3.analysis.MultivariateFunction;
 import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NotPositiveException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -34,7 +38,10 @@ import org.apache.commons.math3.optim.OptimizationData;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.nonlinear.scalar.MultivariateOptimizer;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.MathArrays;
 
 /**
@@ -66,6 +73,14 @@ import org.apache.commons.math3.util.MathArrays;
  * <p>This implementation is translated and adapted from the Matlab version
  * of the CMA-ES algorithm as implemented in module {@code cmaes.m} version 3.51.</p>
  *
+ * <p>The offspring of a generation are sampled first, and then evaluated
+ * as a batch. When the optimizer is built with an {@link ExecutorService},
+ * the evaluations of a batch are distributed among its threads, which
+ * shortens the optimization of expensive objective functions by up to the
+ * number of threads; the objective function must then be thread-safe.
+ * The sampling does not depend on the executor, so the same random
+ * generator seed gives the same result with or without it.</p>
+ *
  * For more information, please refer to the following links:
  * <ul>
  *  <li><a href="http://www.lri.fr/~hansen/cmaes.m">Matlab code</a></li>
@@ -195,6 +210,18 @@ public class CMAESOptimizer
 
     /** Random generator. */
     private final RandomGenerator random;
+    /** Executor evaluating the offspring ({@code null} for the calling thread). */
+    private final ExecutorService executor;
+    /** Objective function. */
+    private MultivariateFunction objective;
+    /** Gaussian random values of the current offspring, reused between generations. */
+    private RealMatrix arz;
+    /** Argument vectors of the current offspring, reused between generations. */
+    private double[][] offspring;
+    /** Scaled difference vectors of the selected offspring, reused between generations. */
+    private double[][] arpos;
+    /** Transformed worst offspring for active CMA, reused between generations. */
+    private double[][] artmp;
 
     /** History of sigma values. */
     private final List<Double> statisticsSigmaHistory = new ArrayList<Double>();
@@ -228,6 +255,40 @@ public class CMAESOptimizer
                           RandomGenerator random,
                           boolean generateStatistics,
                           ConvergenceChecker<PointValuePair> checker) {
+        this(maxIterations, stopFitness, isActiveCMA, diagonalOnly,
+             checkFeasableCount, random, generateStatistics, checker, null);
+    }
+
+    /**
+     * @param maxIterations Maximal number of iterations.
+     * @param stopFitness Whether to stop if objective function value is smaller than
+     * {@code stopFitness}.
+     * @param isActiveCMA Chooses the covariance matrix update method.
+     * @param diagonalOnly Number of initial iterations, where the covariance matrix
+     * remains diagonal.
+     * @param checkFeasableCount Determines how often new random objective variables are
+     * generated in case they are out of bounds.
+     * @param random Random generator.
+     * @param generateStatistics Whether statistic data is collected. As the
+     * statistics keep copies of the mean and scaling of every generation, this
+     * should be {@code false} for long optimizations.
+     * @param checker Convergence checker.
+     * @param executor Executor evaluating the offspring of each generation
+     * (if {@code null}, they are evaluated one after the other in the calling
+     * thread). The objective function must be thread-safe if an executor is
+     * used.
+     *
+     * @since 3.3
+     */
+    public CMAESOptimizer(int maxIterations,
+                          double stopFitness,
+                          boolean isActiveCMA,
+                          int diagonalOnly,
+                          int checkFeasableCount,
+                          RandomGenerator random,
+                          boolean generateStatistics,
+                          ConvergenceChecker<PointValuePair> checker,
+                          ExecutorService executor) {
         super(checker);
         this.maxIterations = maxIterations;
         this.stopFitness = stopFitness;
@@ -236,6 +297,7 @@ public class CMAESOptimizer
         this.checkFeasableCount = checkFeasableCount;
         this.random = random;
         this.generateStatistics = generateStatistics;
+        this.executor = executor;
     }
 
     /**
@@ -374,6 +436,7 @@ public class CMAESOptimizer
         dimension = guess.length;
         initializeCMA(guess);
         iterations = 0;
+        incrementEvaluationCount();
         double bestValue = fitfun.value(guess);
         push(fitnessHistory, bestValue);
         PointValuePair optimum
@@ -387,46 +450,41 @@ public class CMAESOptimizer
         for (iterations = 1; iterations <= maxIterations; iterations++) {
             incrementIterationCount();
 
-            // Generate and evaluate lambda offspring
-            final RealMatrix arz = randn1(dimension, lambda);
-            final RealMatrix arx = zeros(dimension, lambda);
-            final double[] fitness = new double[lambda];
-            // generate random offspring
+            // Generate lambda offspring
+            randn1(arz);
             for (int k = 0; k < lambda; k++) {
-                RealMatrix arxk = null;
+                final double[] arxk = offspring[k];
                 for (int i = 0; i < checkFeasableCount + 1; i++) {
-                    if (diagonalOnly <= 0) {
-                        arxk = xmean.add(BD.multiply(arz.getColumnMatrix(k))
-                                         .scalarMultiply(sigma)); // m + sig * Normal(0,C)
-                    } else {
-                        arxk = xmean.add(times(diagD,arz.getColumnMatrix(k))
-                                         .scalarMultiply(sigma));
-                    }
+                    sample(k, arxk); // m + sig * Normal(0,C)
                     if (i >= checkFeasableCount ||
-                        fitfun.isFeasible(arxk.getColumn(0))) {
+                        fitfun.isFeasible(arxk)) {
                         break;
                     }
                     // regenerate random arguments for row
                     arz.setColumn(k, randn(dimension));
                 }
-                copyColumn(arxk, 0, arx, k);
-                try {
-                    fitness[k] = fitfun.value(arx.getColumn(k)); // compute fitness
-                } catch (TooManyEvaluationsException e) {
-                    break generationLoop;
+            }
+            // Evaluate them
+            final double[] fitness = new double[lambda];
+            try {
+                for (int k = 0; k < lambda; k++) {
+                    incrementEvaluationCount();
                 }
+            } catch (TooManyEvaluationsException e) {
+                break generationLoop;
             }
+            evaluate(fitfun, fitness);
             // Sort by fitness and compute weighted mean into xmean
             final int[] arindex = sortedIndices(fitness);
             // Calculate new xmean, this is selection and recombination
             final RealMatrix xold = xmean; // for speed up of Eq. (2) and (3)
-            final RealMatrix bestArx = selectColumns(arx, MathArrays.copyOf(arindex, mu));
+            final RealMatrix bestArx = selectOffspring(MathArrays.copyOf(arindex, mu));
             xmean = bestArx.multiply(weights);
             final RealMatrix bestArz = selectColumns(arz, MathArrays.copyOf(arindex, mu));
             final RealMatrix zmean = bestArz.multiply(weights);
             final boolean hsig = updateEvolutionPaths(zmean, xold);
             if (diagonalOnly <= 0) {
-                updateCovariance(hsig, bestArx, arz, arindex, xold);
+                updateCovariance(hsig, arz, arindex, xold);
             } else {
                 updateCovarianceDiagonalOnly(hsig, bestArz);
             }
@@ -529,6 +587,10 @@ public class CMAESOptimizer
         // The existing values (as set by the previous call) are reused if
         // not provided in the argument list.
         for (OptimizationData data : optData) {
+            if (data instanceof ObjectiveFunction) {
+                objective = ((ObjectiveFunction) data).getObjectiveFunction();
+                continue;
+            }
             if (data instanceof Sigma) {
                 inputSigma = ((Sigma) data).getSigma();
                 continue;
@@ -631,6 +693,84 @@ public class CMAESOptimizer
         for (int i = 0; i < historySize; i++) {
             fitnessHistory[i] = Double.MAX_VALUE;
         }
+        // buffers reused by all generations
+        arz = zeros(dimension, lambda);
+        offspring = new double[lambda][dimension];
+        arpos = new double[dimension][mu];
+        artmp = new double[dimension][mu];
+    }
+
+    /**
+     * Computes the arguments of an offspring from its Gaussian random values:
+     * {@code xmean + sigma * BD * arz(:, k)}, or
+     * {@code xmean + sigma * diagD .* arz(:, k)} for diagonalOnly.
+     *
+     * @param k Index of the offspring.
+     * @param arxk Array where the arguments are stored.
+     */
+    private void sample(int k, double[] arxk) {
+        for (int i = 0; i < dimension; i++) {
+            double sum;
+            if (diagonalOnly <= 0) {
+                sum = 0;
+                for (int j = 0; j < dimension; j++) {
+                    sum += BD.getEntry(i, j) * arz.getEntry(j, k);
+                }
+            } else {
+                sum = diagD.getEntry(i, 0) * arz.getEntry(i, k);
+            }
+            arxk[i] = xmean.getEntry(i, 0) + sum * sigma;
+        }
+    }
+
+    /**
+     * @param cols Offspring to select.
+     * @return Matrix whose columns are the arguments of the selected offspring.
+     */
+    private RealMatrix selectOffspring(final int[] cols) {
+        final double[][] d = new double[dimension][cols.length];
+        for (int c = 0; c < cols.length; c++) {
+            final double[] arxc = offspring[cols[c]];
+            for (int r = 0; r < dimension; r++) {
+                d[r][c] = arxc[r];
+            }
+        }
+        return new Array2DRowRealMatrix(d, false);
+    }
+
+    /**
+     * Evaluates the offspring of the current generation.
+     * The evaluations must already have been counted.
+     *
+     * @param fitfun Fitness function.
+     * @param fitness Array where the fitness values are stored.
+     * @throws MathIllegalStateException if the calling thread is interrupted
+     * while waiting for the executor.
+     */
+    private void evaluate(final FitnessFunction fitfun, final double[] fitness) {
+        if (executor == null) {
+            for (int k = 0; k < lambda; k++) {
+                fitness[k] = fitfun.value(offspring[k]);
+            }
+            return;
+        }
+
+        final int tasks = FastMath.min(lambda, 4 * ConcurrencyUtils.getDefaultParallelism());
+        final List<Callable<Void>> list = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            final int first = (lambda * t) / tasks;
+            final int last  = (lambda * (t + 1)) / tasks;
+            list.add(new Callable<Void>() {
+                /** {@inheritDoc} */
+                public Void call() {
+                    for (int k = first; k < last; k++) {
+                        fitness[k] = fitfun.value(offspring[k]);
+                    }
+                    return null;
+                }
+            });
+        }
+        ConcurrencyUtils.invokeAll(executor, list);
     }
 
     /**
@@ -642,16 +782,30 @@ public class CMAESOptimizer
      * @return hsig flag indicating a small correction.
      */
     private boolean updateEvolutionPaths(RealMatrix zmean, RealMatrix xold) {
-        ps = ps.scalarMultiply(1 - cs).add(
-                B.multiply(zmean).scalarMultiply(
-                        Math.sqrt(cs * (2 - cs) * mueff)));
-        normps = ps.getFrobeniusNorm();
+        // the paths are updated in place
+        final double[][] psData = dataRef(ps);
+        final double psFactor = Math.sqrt(cs * (2 - cs) * mueff);
+        double sum2 = 0;
+        for (int i = 0; i < dimension; i++) {
+            double bz = 0;
+            for (int k = 0; k < dimension; k++) {
+                bz += B.getEntry(i, k) * zmean.getEntry(k, 0);
+            }
+            psData[i][0] = psData[i][0] * (1 - cs) + bz * psFactor;
+            sum2 += psData[i][0] * psData[i][0];
+        }
+        normps = FastMath.sqrt(sum2);
         final boolean hsig = normps /
             Math.sqrt(1 - Math.pow(1 - cs, 2 * iterations)) /
             chiN < 1.4 + 2 / ((double) dimension + 1);
-        pc = pc.scalarMultiply(1 - cc);
-        if (hsig) {
-            pc = pc.add(xmean.subtract(xold).scalarMultiply(Math.sqrt(cc * (2 - cc) * mueff) / sigma));
+        final double[][] pcData = dataRef(pc);
+        final double pcFactor = Math.sqrt(cc * (2 - cc) * mueff) / sigma;
+        for (int i = 0; i < dimension; i++) {
+            pcData[i][0] = pcData[i][0] * (1 - cc);
+            if (hsig) {
+                pcData[i][0] = pcData[i][0] +
+                    (xmean.getEntry(i, 0) - xold.getEntry(i, 0)) * pcFactor;
+            }
         }
         return hsig;
     }
@@ -685,27 +839,33 @@ public class CMAESOptimizer
 
     /**
      * Update of the covariance matrix C.
+     * <p>
+     * The rank-one and rank-mu updates are accumulated in place into C,
+     * using buffers allocated once per optimization.
+     * </p>
      *
      * @param hsig Flag indicating a small correction.
-     * @param bestArx Fitness-sorted matrix of the argument vectors producing the
-     * current offspring.
      * @param arz Unsorted matrix containing the gaussian random values of the
      * current offspring.
      * @param arindex Indices indicating the fitness-order of the current offspring.
      * @param xold xmean matrix of the previous generation.
      */
-    private void updateCovariance(boolean hsig, final RealMatrix bestArx,
-                                  final RealMatrix arz, final int[] arindex,
-                                  final RealMatrix xold) {
+    private void updateCovariance(boolean hsig, final RealMatrix arz,
+                                  final int[] arindex, final RealMatrix xold) {
         double negccov = 0;
         if (ccov1 + ccovmu > 0) {
-            final RealMatrix arpos = bestArx.subtract(repmat(xold, 1, mu))
-                .scalarMultiply(1 / sigma); // mu difference vectors
-            final RealMatrix roneu = pc.multiply(pc.transpose())
-                .scalarMultiply(ccov1); // rank one update
+            // mu difference vectors
+            final double invSigma = 1 / sigma;
+            for (int k = 0; k < mu; k++) {
+                final double[] arxk = offspring[arindex[k]];
+                for (int i = 0; i < dimension; i++) {
+                    arpos[i][k] = (arxk[i] - xold.getEntry(i, 0)) * invSigma;
+                }
+            }
             // minor correction if hsig==false
             double oldFac = hsig ? 0 : ccov1 * cc * (2 - cc);
             oldFac += 1 - ccov1 - ccovmu;
+            double muFac = ccovmu;
             if (isActiveCMA) {
                 // Adapt covariance matrix C active CMA
                 negccov = (1 - ccovmu) * 0.25 * mueff /
@@ -717,39 +877,63 @@ public class CMAESOptimizer
                 final double negalphaold = 0.5;
                 // prepare vectors, compute negative updating matrix Cneg
                 final int[] arReverseIndex = reverse(arindex);
-                RealMatrix arzneg = selectColumns(arz, MathArrays.copyOf(arReverseIndex, mu));
-                RealMatrix arnorms = sqrt(sumRows(square(arzneg)));
-                final int[] idxnorms = sortedIndices(arnorms.getRow(0));
-                final RealMatrix arnormsSorted = selectColumns(arnorms, idxnorms);
+                final double[] arnorms = new double[mu];
+                for (int k = 0; k < mu; k++) {
+                    double sum = 0;
+                    for (int i = 0; i < dimension; i++) {
+                        final double z = arz.getEntry(i, arReverseIndex[k]);
+                        sum += z * z;
+                    }
+                    arnorms[k] = Math.sqrt(sum);
+                }
+                final int[] idxnorms = sortedIndices(arnorms);
                 final int[] idxReverse = reverse(idxnorms);
-                final RealMatrix arnormsReverse = selectColumns(arnorms, idxReverse);
-                arnorms = divide(arnormsReverse, arnormsSorted);
                 final int[] idxInv = inverse(idxnorms);
-                final RealMatrix arnormsInv = selectColumns(arnorms, idxInv);
+                final double[] arnormsInv = new double[mu];
+                double sumInv = 0;
+                for (int k = 0; k < mu; k++) {
+                    arnormsInv[k] = arnorms[idxReverse[idxInv[k]]] / arnorms[idxnorms[idxInv[k]]];
+                    sumInv += arnormsInv[k] * arnormsInv[k] * weights.getEntry(k, 0);
+                }
                 // check and set learning rate negccov
-                final double negcovMax = (1 - negminresidualvariance) /
-                    square(arnormsInv).multiply(weights).getEntry(0, 0);
+                final double negcovMax = (1 - negminresidualvariance) / sumInv;
                 if (negccov > negcovMax) {
                     negccov = negcovMax;
                 }
-                arzneg = times(arzneg, repmat(arnormsInv, dimension, 1));
-                final RealMatrix artmp = BD.multiply(arzneg);
-                final RealMatrix Cneg = artmp.multiply(diag(weights)).multiply(artmp.transpose());
+                // artmp = BD * (arzneg .* arnormsInv)
+                for (int i = 0; i < dimension; i++) {
+                    for (int k = 0; k < mu; k++) {
+                        double sum = 0;
+                        for (int l = 0; l < dimension; l++) {
+                            sum += BD.getEntry(i, l) *
+                                   (arz.getEntry(l, arReverseIndex[k]) * arnormsInv[k]);
+                        }
+                        artmp[i][k] = sum;
+                    }
+                }
                 oldFac += negalphaold * negccov;
-                C = C.scalarMultiply(oldFac)
-                    .add(roneu) // regard old matrix
-                    .add(arpos.scalarMultiply( // plus rank one update
-                                              ccovmu + (1 - negalphaold) * negccov) // plus rank mu update
-                         .multiply(times(repmat(weights, 1, dimension),
-                                         arpos.transpose())))
-                    .subtract(Cneg.scalarMultiply(negccov));
-            } else {
-                // Adapt covariance matrix C - nonactive
-                C = C.scalarMultiply(oldFac) // regard old matrix
-                    .add(roneu) // plus rank one update
-                    .add(arpos.scalarMultiply(ccovmu) // plus rank mu update
-                         .multiply(times(repmat(weights, 1, dimension),
-                                         arpos.transpose())));
+                muFac = ccovmu + (1 - negalphaold) * negccov;
+            }
+            // C = oldFac * C + ccov1 * pc pc' + muFac * arpos diag(w) arpos'
+            //     - negccov * artmp diag(w) artmp'
+            final double[][] c = dataRef(C);
+            for (int i = 0; i < dimension; i++) {
+                final double pci = pc.getEntry(i, 0);
+                for (int j = 0; j < dimension; j++) {
+                    double rankMu = 0;
+                    for (int k = 0; k < mu; k++) {
+                        rankMu += (arpos[i][k] * muFac) * (weights.getEntry(k, 0) * arpos[j][k]);
+                    }
+                    double cij = c[i][j] * oldFac + (pci * pc.getEntry(j, 0)) * ccov1 + rankMu;
+                    if (isActiveCMA) {
+                        double neg = 0;
+                        for (int k = 0; k < mu; k++) {
+                            neg += (artmp[i][k] * weights.getEntry(k, 0)) * artmp[j][k];
+                        }
+                        cij -= neg * negccov;
+                    }
+                    c[i][j] = cij;
+                }
             }
         }
         updateBD(negccov);
@@ -764,8 +948,13 @@ public class CMAESOptimizer
         if (ccov1 + ccovmu + negccov > 0 &&
             (iterations % 1. / (ccov1 + ccovmu + negccov) / dimension / 10.) < 1) {
             // to achieve O(N^2)
-            C = triu(C, 0).add(triu(C, 1).transpose());
             // enforce symmetry to prevent complex numbers
+            final double[][] c = dataRef(C);
+            for (int i = 1; i < dimension; i++) {
+                for (int j = 0; j < i; j++) {
+                    c[i][j] = c[j][i];
+                }
+            }
             final EigenDecomposition eig = new EigenDecomposition(C);
             B = eig.getV(); // eigen decomposition, B==normalized eigenvectors
             D = eig.getD();
@@ -777,12 +966,12 @@ public class CMAESOptimizer
                     }
                 }
                 final double tfac = max(diagD) / 1e14;
-                C = C.add(eye(dimension, dimension).scalarMultiply(tfac));
+                addToDiagonal(c, tfac);
                 diagD = diagD.add(ones(dimension, 1).scalarMultiply(tfac));
             }
             if (max(diagD) > 1e14 * min(diagD)) {
                 final double tfac = max(diagD) / 1e14 - min(diagD);
-                C = C.add(eye(dimension, dimension).scalarMultiply(tfac));
+                addToDiagonal(c, tfac);
                 diagD = diagD.add(ones(dimension, 1).scalarMultiply(tfac));
             }
             diagC = diag(C);
@@ -791,6 +980,32 @@ public class CMAESOptimizer
         }
     }
 
+    /**
+     * Get the entries of a matrix for in place modification.
+     * <p>
+     * The evolution paths and the covariance matrix are always built by
+     * this class as {@link Array2DRowRealMatrix} instances.
+     * </p>
+     *
+     * @param m Matrix built by this class.
+     * @return the underlying array of m.
+     */
+    private static double[][] dataRef(final RealMatrix m) {
+        return ((Array2DRowRealMatrix) m).getDataRef();
+    }
+
+    /**
+     * Adds a constant to the diagonal of a square matrix, in place.
+     *
+     * @param m Matrix entries.
+     * @param d Value to add.
+     */
+    private static void addToDiagonal(final double[][] m, final double d) {
+        for (int i = 0; i < m.length; i++) {
+            m[i][i] += d;
+        }
+    }
+
     /**
      * Pushes the current best fitness value in a history queue.
      *
@@ -874,8 +1089,14 @@ public class CMAESOptimizer
      * Normalizes fitness values to the range [0,1]. Adds a penalty to the
      * fitness value if out of range. The penalty is adjusted by calling
      * setValueRange().
+     * The {@link #value(double[]) value} method does not count the
+     * evaluations and may be called from several threads.
      */
     private class FitnessFunction {
+        /** Lower bounds. */
+        private final double[] lB;
+        /** Upper bounds. */
+        private final double[] uB;
         /** Determines the penalty for boundary violations */
         private double valueRange;
         /**
@@ -887,6 +1108,8 @@ public class CMAESOptimizer
         /** Simple constructor.
          */
         public FitnessFunction() {
+            lB = CMAESOptimizer.this.getLowerBound();
+            uB = CMAESOptimizer.this.getUpperBound();
             valueRange = 1;
             isRepairMode = true;
         }
@@ -899,10 +1122,10 @@ public class CMAESOptimizer
             double value;
             if (isRepairMode) {
                 double[] repaired = repair(point);
-                value = CMAESOptimizer.this.computeObjectiveValue(repaired) +
+                value = objective.value(repaired) +
                     penalty(point, repaired);
             } else {
-                value = CMAESOptimizer.this.computeObjectiveValue(point);
+                value = objective.value(point);
             }
             return isMinimize ? value : -value;
         }
@@ -912,9 +1135,6 @@ public class CMAESOptimizer
          * @return {@code true} if in bounds.
          */
         public boolean isFeasible(final double[] x) {
-            final double[] lB = CMAESOptimizer.this.getLowerBound();
-            final double[] uB = CMAESOptimizer.this.getUpperBound();
-
             for (int i = 0; i < x.length; i++) {
                 if (x[i] < lB[i]) {
                     return false;
@@ -938,9 +1158,6 @@ public class CMAESOptimizer
          * @return the repaired (i.e. all in bounds) objective variables.
          */
         private double[] repair(final double[] x) {
-            final double[] lB = CMAESOptimizer.this.getLowerBound();
-            final double[] uB = CMAESOptimizer.this.getUpperBound();
-
             final double[] repaired = new double[x.length];
             for (int i = 0; i < x.length; i++) {
                 if (x[i] < lB[i]) {
@@ -1029,21 +1246,6 @@ public class CMAESOptimizer
         return new Array2DRowRealMatrix(d, false);
     }
 
-    /**
-     * @param m Input matrix 1.
-     * @param n Input matrix 2.
-     * @return Matrix where the elements of m and n are element-wise divided.
-     */
-    private static RealMatrix divide(final RealMatrix m, final RealMatrix n) {
-        final double[][] d = new double[m.getRowDimension()][m.getColumnDimension()];
-        for (int r = 0; r < m.getRowDimension(); r++) {
-            for (int c = 0; c < m.getColumnDimension(); c++) {
-                d[r][c] = m.getEntry(r, c) / n.getEntry(r, c);
-            }
-        }
-        return new Array2DRowRealMatrix(d, false);
-    }
-
     /**
      * @param m Input matrix.
      * @param cols Columns to select.
@@ -1059,37 +1261,6 @@ public class CMAESOptimizer
         return new Array2DRowRealMatrix(d, false);
     }
 
-    /**
-     * @param m Input matrix.
-     * @param k Diagonal position.
-     * @return Upper triangular part of matrix.
-     */
-    private static RealMatrix triu(final RealMatrix m, int k) {
-        final double[][] d = new double[m.getRowDimension()][m.getColumnDimension()];
-        for (int r = 0; r < m.getRowDimension(); r++) {
-            for (int c = 0; c < m.getColumnDimension(); c++) {
-                d[r][c] = r <= c - k ? m.getEntry(r, c) : 0;
-            }
-        }
-        return new Array2DRowRealMatrix(d, false);
-    }
-
-    /**
-     * @param m Input matrix.
-     * @return Row matrix representing the sums of the rows.
-     */
-    private static RealMatrix sumRows(final RealMatrix m) {
-        final double[][] d = new double[1][m.getColumnDimension()];
-        for (int c = 0; c < m.getColumnDimension(); c++) {
-            double sum = 0;
-            for (int r = 0; r < m.getRowDimension(); r++) {
-                sum += m.getEntry(r, c);
-            }
-            d[0][c] = sum;
-        }
-        return new Array2DRowRealMatrix(d, false);
-    }
-
     /**
      * @param m Input matrix.
      * @return the diagonal n-by-n matrix if m is a column matrix or the column
@@ -1111,21 +1282,6 @@ public class CMAESOptimizer
         }
     }
 
-    /**
-     * Copies a column from m1 to m2.
-     *
-     * @param m1 Source matrix.
-     * @param col1 Source column.
-     * @param m2 Target matrix.
-     * @param col2 Target column.
-     */
-    private static void copyColumn(final RealMatrix m1, int col1,
-                                   RealMatrix m2, int col2) {
-        for (int i = 0; i < m1.getRowDimension(); i++) {
-            m2.setEntry(i, col2, m1.getEntry(i, col1));
-        }
-    }
-
     /**
      * @param n Number of rows.
      * @param m Number of columns.
@@ -1298,17 +1454,15 @@ public class CMAESOptimizer
     }
 
     /**
-     * @param size Number of rows.
-     * @param popSize Population size.
-     * @return a 2-dimensional matrix of Gaussian random numbers.
+     * Fills a matrix with Gaussian random numbers.
+     *
+     * @param m Matrix to fill, row by row.
      */
-    private RealMatrix randn1(int size, int popSize) {
-        final double[][] d = new double[size][popSize];
-        for (int r = 0; r < size; r++) {
-            for (int c = 0; c < popSize; c++) {
-                d[r][c] = random.nextGaussian();
+    private void randn1(RealMatrix m) {
+        for (int r = 0; r < m.getRowDimension(); r++) {
+            for (int c = 0; c < m.getColumnDimension(); c++) {
+                m.setEntry(r, c, random.nextGaussian());
             }
         }
-        return new Array2DRowRealMatrix(d, false);
     }
 }
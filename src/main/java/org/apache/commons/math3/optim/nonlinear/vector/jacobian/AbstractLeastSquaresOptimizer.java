@@ -267,7 +267,7 @@ public abstract class AbstractLeastSquaresOptimizer
      * @return the square-root of the weight matrix.
      */
     private RealMatrix squareRoot(RealMatrix m) {
-        if (m instanceof DiagonalMatrix) {
+        if (isDiagonal(m)) {
             final int dim = m.getRowDimension();
             final RealMatrix sqrtM = new DiagonalMatrix(dim);
             for (int i = 0; i < dim; i++) {
@@ -279,4 +279,29 @@ public abstract class AbstractLeastSquaresOptimizer
             return dec.getSquareRoot();
         }
     }
+
+    /**
+     * Checks whether a matrix is diagonal.
+     *
+     * @param m Matrix.
+     * @return {@code true} if {@code m} is a {@link DiagonalMatrix}, or a
+     * square matrix whose off-diagonal elements are all zero.
+     */
+    private static boolean isDiagonal(RealMatrix m) {
+        if (m instanceof DiagonalMatrix) {
+            return true;
+        }
+        final int dim = m.getRowDimension();
+        if (m.getColumnDimension() != dim) {
+            return false;
+        }
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                if (i != j && m.getEntry(i, j) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 }
@@ -17,15 +17,26 @@
 
 package org.apache.commons.math3.optim.univariate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.optim.EvaluationBudget;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.TargetValue;
 import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.OptimizerFactory;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Special implementation of the {@link UnivariateOptimizer} interface
@@ -34,6 +45,12 @@ import org.apache.commons.math3.optim.OptimizationData;
  * This class wraps an optimizer in order to use it several times in
  * turn with different starting points (trying to avoid being trapped
  * in a local extremum when looking for a global one).
+ * <br/>
+ * The starts can also be run concurrently by independent optimizers
+ * created by an {@link OptimizerFactory}; they then share the maximal
+ * number of evaluations. A {@link TargetValue} passed to the
+ * {@code optimize} method prevents further starts as soon as one of them
+ * reaches it, and interrupts the starts running concurrently.
  *
  * @version $Id$
  * @since 3.0
@@ -42,6 +59,12 @@ public class MultiStartUnivariateOptimizer
     extends UnivariateOptimizer {
     /** Underlying classical optimizer. */
     private final UnivariateOptimizer optimizer;
+    /** Factory creating an optimizer per start ({@code null} to reuse {@link #optimizer}). */
+    private final OptimizerFactory<? extends UnivariateOptimizer> factory;
+    /** Executor running the starts ({@code null} for the calling thread). */
+    private final ExecutorService executor;
+    /** Target value ({@code null} if none). */
+    private TargetValue target;
     /** Number of evaluations already performed for all starts. */
     private int totalEvaluations;
     /** Number of starts to go. */
@@ -76,6 +99,47 @@ public class MultiStartUnivariateOptimizer
     public MultiStartUnivariateOptimizer(final UnivariateOptimizer optimizer,
                                          final int starts,
                                          final RandomGenerator generator) {
+        this(optimizer, null, starts, generator, null);
+    }
+
+    /**
+     * Create a multi-start optimizer running independent optimizations.
+     * <p>
+     * A new optimizer is created for each start, and the starts are run by
+     * the tasks of an executor. The start values are drawn from the
+     * generator before the optimizations, so that the result does not
+     * depend on the executor (unless a target is reached, since the starts
+     * cancelled then depend on the scheduling).
+     * </p>
+     *
+     * @param factory Factory creating the single-start optimizers.
+     * @param starts Number of starts to perform.
+     * @param generator Random generator to use for restarts.
+     * @param executor Executor running the starts (if {@code null}, they
+     * are run one after the other in the calling thread).
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     * @since 3.3
+     */
+    public MultiStartUnivariateOptimizer(final OptimizerFactory<? extends UnivariateOptimizer> factory,
+                                         final int starts,
+                                         final RandomGenerator generator,
+                                         final ExecutorService executor) {
+        this(factory.create(), factory, starts, generator, executor);
+    }
+
+    /**
+     * @param optimizer Single-start optimizer.
+     * @param factory Factory creating the single-start optimizers, or {@code null}.
+     * @param starts Number of starts to perform.
+     * @param generator Random generator to use for restarts.
+     * @param executor Executor running the starts, or {@code null}.
+     * @throws NotStrictlyPositiveException if {@code starts < 1}.
+     */
+    private MultiStartUnivariateOptimizer(final UnivariateOptimizer optimizer,
+                                          final OptimizerFactory<? extends UnivariateOptimizer> factory,
+                                          final int starts,
+                                          final RandomGenerator generator,
+                                          final ExecutorService executor) {
         super(optimizer.getConvergenceChecker());
 
         if (starts < 1) {
@@ -83,8 +147,10 @@ public class MultiStartUnivariateOptimizer
         }
 
         this.optimizer = optimizer;
+        this.factory = factory;
         this.starts = starts;
         this.generator = generator;
+        this.executor = executor;
     }
 
     /** {@inheritDoc} */
@@ -105,7 +171,8 @@ public class MultiStartUnivariateOptimizer
      * runs that did converge first, sorted from best to worst
      * objective value (i.e in ascending order if minimizing and in
      * descending order if maximizing), followed by {@code null} elements
-     * corresponding to the runs that did not converge. This means all
+     * corresponding to the runs that did not converge or were not run
+     * because a {@link TargetValue target} was reached. This means all
      * elements will be {@code null} if the {@code optimize} method did throw
      * an exception.
      * This also means that if the first element is not {@code null}, it is
@@ -163,7 +230,6 @@ public class MultiStartUnivariateOptimizer
             throw new MathIllegalStateException();
         }
 
-        RuntimeException lastException = null;
         optima = new UnivariatePointValuePair[starts];
         totalEvaluations = 0;
 
@@ -172,6 +238,12 @@ public class MultiStartUnivariateOptimizer
         final double max = getMax();
         final double startValue = getStartValue();
 
+        if (factory != null) {
+            return optimizeIndependently(maxEval, min, max, startValue);
+        }
+
+        RuntimeException lastException = null;
+
         // Multi-start loop.
         for (int i = 0; i < starts; i++) {
             // CHECKSTYLE: stop IllegalCatch
@@ -192,6 +264,130 @@ public class MultiStartUnivariateOptimizer
             // CHECKSTYLE: resume IllegalCatch
 
             totalEvaluations += optimizer.getEvaluations();
+            if (isTargetReached(optima[i])) {
+                break;
+            }
+        }
+
+        sortPairs(getGoalType());
+
+        if (optima[0] == null) {
+            throw lastException; // Cannot be null if starts >= 1.
+        }
+
+        // Return the point with the best objective function value.
+        return optima[0];
+    }
+
+    /**
+     * Scans the list of (required and optional) optimization data that
+     * characterize the problem.
+     *
+     * @param optData Optimization data.
+     * The following data will be looked for:
+     * <ul>
+     *  <li>{@link TargetValue}</li>
+     * </ul>
+     */
+    @Override
+    protected void parseOptimizationData(OptimizationData... optData) {
+        // Allow base class to register its own data.
+        super.parseOptimizationData(optData);
+
+        target = null;
+        for (OptimizationData data : optData) {
+            if (data instanceof TargetValue) {
+                target = (TargetValue) data;
+                // If more data must be parsed, this statement _must_ be
+                // changed to "continue".
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs the starts with independent optimizers.
+     *
+     * @param maxEval Maximal number of evaluations for all the starts.
+     * @param min Lower bound of the search interval.
+     * @param max Upper bound of the search interval.
+     * @param startValue Start value of the first start.
+     * @return the best optimum.
+     */
+    private UnivariatePointValuePair optimizeIndependently(final int maxEval,
+                                                           final double min,
+                                                           final double max,
+                                                           final double startValue) {
+        // the start values are drawn beforehand, so that they do
+        // not depend on the scheduling of the optimizations
+        final double[] values = new double[starts];
+        values[0] = startValue;
+        for (int i = 1; i < starts; i++) {
+            values[i] = min + generator.nextDouble() * (max - min);
+        }
+
+        final EvaluationBudget budget = new EvaluationBudget(maxEval);
+        final AtomicInteger evaluations = new AtomicInteger(0);
+        final RuntimeException[] failures = new RuntimeException[starts];
+        final List<Callable<UnivariatePointValuePair>> tasks =
+            new ArrayList<Callable<UnivariatePointValuePair>>(starts);
+        for (int i = 0; i < starts; i++) {
+            final int index = i;
+            tasks.add(new Callable<UnivariatePointValuePair>() {
+                /** {@inheritDoc} */
+                public UnivariatePointValuePair call() {
+                    if (budget.isCancelled()) {
+                        return null;
+                    }
+                    final OptimizationData[] data = new OptimizationData[optimData.length];
+                    for (int k = 0; k < data.length; k++) {
+                        if (optimData[k] instanceof UnivariateObjectiveFunction) {
+                            final UnivariateFunction f =
+                                ((UnivariateObjectiveFunction) optimData[k]).getObjectiveFunction();
+                            data[k] = new UnivariateObjectiveFunction(new UnivariateFunction() {
+                                /** {@inheritDoc} */
+                                public double value(double x) {
+                                    budget.consume();
+                                    return f.value(x);
+                                }
+                            });
+                        } else {
+                            data[k] = optimData[k];
+                        }
+                    }
+                    data[maxEvalIndex]        = new MaxEval(maxEval);
+                    data[searchIntervalIndex] = new SearchInterval(min, max, values[index]);
+
+                    final UnivariateOptimizer startOptimizer = factory.create();
+                    // CHECKSTYLE: stop IllegalCatch
+                    try {
+                        final UnivariatePointValuePair result = startOptimizer.optimize(data);
+                        if (isTargetReached(result)) {
+                            budget.cancel();
+                        }
+                        return result;
+                    } catch (RuntimeException e) {
+                        if (!budget.isCancelled()) {
+                            failures[index] = e;
+                        }
+                        return null;
+                    } finally {
+                        evaluations.addAndGet(startOptimizer.getEvaluations());
+                    }
+                    // CHECKSTYLE: resume IllegalCatch
+                }
+            });
+        }
+        final List<UnivariatePointValuePair> results = ConcurrencyUtils.invokeAll(executor, tasks);
+        // evaluations rejected by the budget are counted by the optimizers
+        totalEvaluations = FastMath.min(evaluations.get(), maxEval);
+
+        RuntimeException lastException = null;
+        for (int i = 0; i < starts; i++) {
+            optima[i] = results.get(i);
+            if (failures[i] != null) {
+                lastException = failures[i];
+            }
         }
 
         sortPairs(getGoalType());
@@ -204,6 +400,17 @@ public class MultiStartUnivariateOptimizer
         return optima[0];
     }
 
+    /**
+     * Checks whether an optimum reaches the target.
+     *
+     * @param optimum Result of an optimization run (may be {@code null}).
+     * @return {@code true} if a target was set and {@code optimum} reaches it.
+     */
+    private boolean isTargetReached(final UnivariatePointValuePair optimum) {
+        return target != null && optimum != null &&
+               target.isReached(optimum.getValue(), getGoalType());
+    }
+
     /**
      * Sort the optima from best to worst, followed by {@code null} elements.
      *
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.random;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link RandomGenerator} that can be shared between threads without
+ * any locking.
+ * <p>
+ * Each thread calling the methods of this class is transparently given
+ * its own private generator, so no synchronization is needed when drawing
+ * numbers. The private generators are created lazily, the first time a
+ * thread uses this instance, and are seeded from a single master seed and
+ * a <em>stream index</em>: the first thread that draws a number uses
+ * stream 0, the second one stream 1, and so on. Two instances built with
+ * the same master seed therefore produce the same sequences, provided the
+ * threads first access them in the same order.
+ * </p>
+ * <p>
+ * When the order in which threads start is not deterministic (for example
+ * with a thread pool), strict reproducibility can be obtained by having
+ * each task draw its numbers from {@link #getStream(int)}, with a stream
+ * index that depends only on the task.
+ * </p>
+ * <p>
+ * Calling one of the {@code setSeed} methods resets the master seed for
+ * <em>all</em> threads: every thread will lazily re-create its private
+ * generator, stream indices being re-assigned from 0.
+ * </p>
+ * <p>
+ * By default the per-thread generators are {@link Well19937c} instances;
+ * another algorithm can be used by overriding {@link #createGenerator(int[])}.
+ * </p>
+ *
+ * @see SynchronizedRandomGenerator
+ * @since 3.3
+ * @version $Id$
+ */
+public class ThreadLocalRandomGenerator implements RandomGenerator {
+
+    /** Increment of the Weyl sequence used for deriving stream seeds. */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Number of {@code int} values in the seed of each per-thread generator. */
+    private static final int SEED_SIZE = 8;
+
+    /** Current master seed and stream counter. */
+    private volatile Seeding seeding;
+
+    /** Per-thread generators. */
+    private final ThreadLocal<LocalGenerator> local;
+
+    /**
+     * Creates an instance whose master seed is derived from the current
+     * time and the identity of the instance.
+     */
+    public ThreadLocalRandomGenerator() {
+        this(System.currentTimeMillis() + System.identityHashCode(new Object()));
+    }
+
+    /**
+     * Creates an instance with the given master seed.
+     *
+     * @param masterSeed Seed from which the seeds of all the per-thread
+     * generators are derived.
+     */
+    public ThreadLocalRandomGenerator(long masterSeed) {
+        seeding = new Seeding(masterSeed);
+        local   = new ThreadLocal<LocalGenerator>();
+    }
+
+    /**
+     * Creates a new generator for the given stream.
+     * <p>
+     * The returned generator is independent of this instance (it is not
+     * affected by later calls to {@code setSeed}) and is <em>not</em>
+     * thread-safe. Two calls with the same stream index, on instances with
+     * the same master seed, return generators producing the same sequence.
+     * </p>
+     *
+     * @param stream Stream index.
+     * @return a new generator seeded from the master seed and {@code stream}.
+     */
+    public RandomGenerator getStream(int stream) {
+        return createGenerator(streamSeed(seeding.masterSeed, stream));
+    }
+
+    /**
+     * Creates a per-thread generator.
+     * <p>
+     * This method is called at most once per thread and master seed. The
+     * default implementation returns a {@link Well19937c} instance.
+     * Subclasses may override it to use another algorithm; the returned
+     * generator need not be thread-safe.
+     * </p>
+     *
+     * @param seed Seed of the new generator.
+     * @return a new generator.
+     */
+    protected RandomGenerator createGenerator(int[] seed) {
+        return new Well19937c(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setSeed(int seed) {
+        setSeed((long) seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setSeed(int[] seed) {
+        // fold the array into a single long, in the spirit of
+        // what AbstractRandomGenerator.setSeed(int[]) does
+        final long prime = 4294967291l;
+        long combined = 0l;
+        for (int s : seed) {
+            combined = combined * prime + s;
+        }
+        setSeed(combined);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setSeed(long seed) {
+        seeding = new Seeding(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void nextBytes(byte[] bytes) {
+        current().nextBytes(bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int nextInt() {
+        return current().nextInt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int nextInt(int n) {
+        return current().nextInt(n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long nextLong() {
+        return current().nextLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean nextBoolean() {
+        return current().nextBoolean();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public float nextFloat() {
+        return current().nextFloat();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double nextDouble() {
+        return current().nextDouble();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public double nextGaussian() {
+        return current().nextGaussian();
+    }
+
+    /**
+     * Get the generator private to the calling thread, creating it if needed.
+     *
+     * @return the generator of the calling thread.
+     */
+    private RandomGenerator current() {
+        final Seeding s = seeding;
+        LocalGenerator g = local.get();
+        if (g == null || g.seeding != s) {
+            final int stream = s.nextStream.getAndIncrement();
+            g = new LocalGenerator(s, createGenerator(streamSeed(s.masterSeed, stream)));
+            local.set(g);
+        }
+        return g.generator;
+    }
+
+    /**
+     * Compute the seed of a stream.
+     * <p>
+     * The seed is built from the output of a SplitMix64 sequence. Its
+     * starting point is the master seed combined with the mixed stream
+     * index, so sequences of different streams do not overlap and seeds of
+     * neighbouring streams are statistically unrelated.
+     * </p>
+     *
+     * @param masterSeed Master seed.
+     * @param stream Stream index.
+     * @return the seed of the stream.
+     */
+    private static int[] streamSeed(long masterSeed, int stream) {
+        long state = mix(masterSeed ^ mix(stream * GOLDEN_GAMMA));
+        final int[] seed = new int[SEED_SIZE];
+        for (int i = 0; i < SEED_SIZE; i += 2) {
+            state += GOLDEN_GAMMA;
+            final long z = mix(state);
+            seed[i]     = (int) (z >>> 32);
+            seed[i + 1] = (int) z;
+        }
+        return seed;
+    }
+
+    /**
+     * SplitMix64 finalization function.
+     *
+     * @param z Value to mix.
+     * @return the mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Master seed together with the counter of streams already handed out. */
+    private static class Seeding {
+        /** Master seed. */
+        private final long masterSeed;
+        /** Next stream index to be assigned to a thread. */
+        private final AtomicInteger nextStream;
+
+        /**
+         * @param masterSeed Master seed.
+         */
+        Seeding(long masterSeed) {
+            this.masterSeed = masterSeed;
+            this.nextStream = new AtomicInteger(0);
+        }
+    }
+
+    /** Generator of one thread, tagged with the seeding it was built from. */
+    private static class LocalGenerator {
+        /** Seeding from which the generator was built. */
+        private final Seeding seeding;
+        /** Generator. */
+        private final RandomGenerator generator;
+
+        /**
+         * @param seeding Seeding from which the generator was built.
+         * @param generator Generator.
+         */
+        LocalGenerator(Seeding seeding, RandomGenerator generator) {
+            this.seeding   = seeding;
+            this.generator = generator;
+        }
+    }
+}
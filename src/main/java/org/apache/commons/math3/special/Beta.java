@@ -16,10 +16,14 @@
  */
 package org.apache.commons.math3.special;
 
+import org.apache.commons.math3.exception.ConvergenceException;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.OutOfRangeException;
-import org.apache.commons.math3.util.ContinuedFraction;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
 
 /**
  * <p>
@@ -55,6 +59,9 @@ public class Beta {
     /** Maximum allowed numerical error. */
     private static final double DEFAULT_EPSILON = 1E-14;
 
+    /** Threshold below which continued fraction terms are considered to be zero. */
+    private static final double CF_SMALL = 1e-50;
+
     /** The constant value of ½log 2π. */
     private static final double HALF_LOG_TWO_PI = .9189385332046727;
 
@@ -195,35 +202,157 @@ public class Beta {
         } else if (x > (a + 1.0) / (a + b + 2.0)) {
             ret = 1.0 - regularizedBeta(1.0 - x, b, a, epsilon, maxIterations);
         } else {
-            ContinuedFraction fraction = new ContinuedFraction() {
-
-                @Override
-                protected double getB(int n, double x) {
-                    double ret;
-                    double m;
-                    if (n % 2 == 0) { // even
-                        m = n / 2.0;
-                        ret = (m * (b - m) * x) /
-                            ((a + (2 * m) - 1) * (a + (2 * m)));
-                    } else {
-                        m = (n - 1.0) / 2.0;
-                        ret = -((a + m) * (a + b + m) * x) /
-                                ((a + (2 * m)) * (a + (2 * m) + 1.0));
+            ret = regularizedBetaFraction(x, a, b, logBeta(a, b), epsilon, maxIterations);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the regularized beta function I(x, a, b) for several values
+     * of {@code x}.
+     * <p>
+     * The result is the same as calling {@link #regularizedBeta(double, double, double)}
+     * for each element of {@code x}, but {@code log(B(a, b))} is computed
+     * only once.
+     * </p>
+     *
+     * @param x Values.
+     * @param a Parameter {@code a}.
+     * @param b Parameter {@code b}.
+     * @param out Array in which the values of I(x, a, b) are stored; it
+     * may be the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws org.apache.commons.math3.exception.MaxCountExceededException
+     * if the algorithm fails to converge.
+     * @since 3.3
+     */
+    public static void regularizedBeta(final double[] x,
+                                       final double a, final double b,
+                                       final double[] out)
+        throws DimensionMismatchException {
+        if (x.length != out.length) {
+            throw new DimensionMismatchException(out.length, x.length);
+        }
+        final boolean invalid = Double.isNaN(a) || Double.isNaN(b) || a <= 0.0 || b <= 0.0;
+        final double threshold = (a + 1.0) / (a + b + 2.0);
+        final double thresholdBA = (b + 1.0) / (a + b + 2.0);
+        // both orders are needed, as logBeta is not exactly symmetric
+        double logBetaAB = Double.NaN;
+        double logBetaBA = Double.NaN;
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (invalid || Double.isNaN(xi) || xi < 0 || xi > 1) {
+                out[i] = Double.NaN;
+            } else if (xi > threshold) {
+                final double yi = 1.0 - xi;
+                if (yi > thresholdBA) {
+                    // rounding near the threshold, use the general method
+                    out[i] = 1.0 - regularizedBeta(yi, b, a);
+                } else {
+                    if (Double.isNaN(logBetaBA)) {
+                        logBetaBA = logBeta(b, a);
                     }
-                    return ret;
+                    out[i] = 1.0 - regularizedBetaFraction(yi, b, a, logBetaBA,
+                                                           DEFAULT_EPSILON, Integer.MAX_VALUE);
                 }
-
-                @Override
-                protected double getA(int n, double x) {
-                    return 1.0;
+            } else {
+                if (Double.isNaN(logBetaAB)) {
+                    logBetaAB = logBeta(a, b);
                 }
-            };
-            ret = FastMath.exp((a * FastMath.log(x)) + (b * FastMath.log(1.0 - x)) -
-                FastMath.log(a) - logBeta(a, b)) *
-                1.0 / fraction.evaluate(x, epsilon, maxIterations);
+                out[i] = regularizedBetaFraction(xi, a, b, logBetaAB,
+                                                 DEFAULT_EPSILON, Integer.MAX_VALUE);
+            }
         }
+    }
 
-        return ret;
+    /**
+     * Computes I(x, a, b) by its continued fraction expansion, for
+     * {@code x <= (a + 1) / (a + b + 2)}.
+     * <p>
+     * The continued fraction is evaluated by the modified Lentz algorithm,
+     * as in {@link org.apache.commons.math3.util.ContinuedFraction
+     * ContinuedFraction}, but inlined to avoid creating an object per call.
+     * </p>
+     *
+     * @param x Value.
+     * @param a Parameter {@code a}.
+     * @param b Parameter {@code b}.
+     * @param logBetaAB Value of {@code log(B(a, b))}.
+     * @param epsilon Convergence threshold.
+     * @param maxIterations Maximum number of iterations.
+     * @return I(x, a, b).
+     * @throws ConvergenceException if the continued fraction diverges.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    private static double regularizedBetaFraction(final double x,
+                                                  final double a, final double b,
+                                                  final double logBetaAB,
+                                                  final double epsilon,
+                                                  final int maxIterations)
+        throws ConvergenceException, MaxCountExceededException {
+        // fraction terms are a_n = 1 and b_n given by the
+        // even and odd formulas below
+        double hPrev = 1.0;
+
+        int n = 1;
+        double dPrev = 0.0;
+        double cPrev = hPrev;
+        double hN = hPrev;
+
+        while (n < maxIterations) {
+            final double bn;
+            if (n % 2 == 0) { // even
+                final double m = n / 2.0;
+                bn = (m * (b - m) * x) /
+                     ((a + (2 * m) - 1) * (a + (2 * m)));
+            } else {
+                final double m = (n - 1.0) / 2.0;
+                bn = -((a + m) * (a + b + m) * x) /
+                      ((a + (2 * m)) * (a + (2 * m) + 1.0));
+            }
+
+            double dN = 1.0 + bn * dPrev;
+            if (Precision.equals(dN, 0.0, CF_SMALL)) {
+                dN = CF_SMALL;
+            }
+            double cN = 1.0 + bn / cPrev;
+            if (Precision.equals(cN, 0.0, CF_SMALL)) {
+                cN = CF_SMALL;
+            }
+
+            dN = 1 / dN;
+            final double deltaN = cN * dN;
+            hN = hPrev * deltaN;
+
+            if (Double.isInfinite(hN)) {
+                throw new ConvergenceException(LocalizedFormats.CONTINUED_FRACTION_INFINITY_DIVERGENCE,
+                                               x);
+            }
+            if (Double.isNaN(hN)) {
+                throw new ConvergenceException(LocalizedFormats.CONTINUED_FRACTION_NAN_DIVERGENCE,
+                                               x);
+            }
+
+            if (FastMath.abs(deltaN - 1.0) < epsilon) {
+                break;
+            }
+
+            dPrev = dN;
+            cPrev = cN;
+            hPrev = hN;
+            n++;
+        }
+
+        if (n >= maxIterations) {
+            throw new MaxCountExceededException(LocalizedFormats.NON_CONVERGENT_CONTINUED_FRACTION,
+                                                maxIterations, x);
+        }
+
+        return FastMath.exp((a * FastMath.log(x)) + (b * FastMath.log(1.0 - x)) -
+            FastMath.log(a) - logBetaAB) *
+            1.0 / hN;
     }
 
     /**
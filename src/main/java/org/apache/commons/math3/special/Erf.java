@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.special;
 
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.util.FastMath;
 
 /**
@@ -38,6 +39,9 @@ public class Erf {
      */
     private static final double X_CRIT = 0.4769362762044697;
 
+    /** Value of log(Gamma(0.5)), as computed by {@link Gamma#logGamma(double)}. */
+    private static final double LOG_GAMMA_HALF = Gamma.logGamma(0.5);
+
     /**
      * Default constructor.  Prohibit instantiation.
      */
@@ -67,7 +71,10 @@ public class Erf {
         if (FastMath.abs(x) > 40) {
             return x > 0 ? 1 : -1;
         }
-        final double ret = Gamma.regularizedGammaP(0.5, x * x, 1.0e-15, 10000);
+        if (Double.isNaN(x)) {
+            return Double.NaN;
+        }
+        final double ret = Gamma.regularizedGamma(0.5, x * x, LOG_GAMMA_HALF, true, 1.0e-15, 10000);
         return x < 0 ? -ret : ret;
     }
 
@@ -98,10 +105,65 @@ public class Erf {
         if (FastMath.abs(x) > 40) {
             return x > 0 ? 0 : 2;
         }
-        final double ret = Gamma.regularizedGammaQ(0.5, x * x, 1.0e-15, 10000);
+        if (Double.isNaN(x)) {
+            return Double.NaN;
+        }
+        final double ret = Gamma.regularizedGamma(0.5, x * x, LOG_GAMMA_HALF, false, 1.0e-15, 10000);
         return x < 0 ? 2 - ret : ret;
     }
 
+    /**
+     * Returns the error function for several values.
+     * <p>
+     * The result is the same as calling {@link #erf(double)} for each
+     * element of {@code x}.
+     * </p>
+     *
+     * @param x Values.
+     * @param out Array in which the values of erf(x) are stored; it may
+     * be the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws org.apache.commons.math3.exception.MaxCountExceededException
+     * if the algorithm fails to converge.
+     * @since 3.3
+     */
+    public static void erf(double[] x, double[] out)
+        throws DimensionMismatchException {
+        if (x.length != out.length) {
+            throw new DimensionMismatchException(out.length, x.length);
+        }
+        for (int i = 0; i < x.length; i++) {
+            out[i] = erf(x[i]);
+        }
+    }
+
+    /**
+     * Returns the complementary error function for several values.
+     * <p>
+     * The result is the same as calling {@link #erfc(double)} for each
+     * element of {@code x}.
+     * </p>
+     *
+     * @param x Values.
+     * @param out Array in which the values of erfc(x) are stored; it may
+     * be the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws org.apache.commons.math3.exception.MaxCountExceededException
+     * if the algorithm fails to converge.
+     * @since 3.3
+     */
+    public static void erfc(double[] x, double[] out)
+        throws DimensionMismatchException {
+        if (x.length != out.length) {
+            throw new DimensionMismatchException(out.length, x.length);
+        }
+        for (int i = 0; i < x.length; i++) {
+            out[i] = erfc(x[i]);
+        }
+    }
+
     /**
      * Returns the difference between erf(x1) and erf(x2).
      *
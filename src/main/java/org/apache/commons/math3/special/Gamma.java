@@ -16,11 +16,14 @@
  */
 package org.apache.commons.math3.special;
 
+import org.apache.commons.math3.exception.ConvergenceException;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MaxCountExceededException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
-import org.apache.commons.math3.util.ContinuedFraction;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.Precision;
 
 /**
  * <p>
@@ -68,6 +71,9 @@ public class Gamma {
     /** Maximum allowed numerical error. */
     private static final double DEFAULT_EPSILON = 10e-15;
 
+    /** Threshold below which continued fraction terms are considered to be zero. */
+    private static final double CF_SMALL = 1e-50;
+
     /** Lanczos coefficients */
     private static final double[] LANCZOS = {
         0.99999999999999709182,
@@ -320,34 +326,37 @@ public class Gamma {
         } else if (x >= a + 1) {
             // use regularizedGammaQ because it should converge faster in this
             // case.
-            ret = 1.0 - regularizedGammaQ(a, x, epsilon, maxIterations);
+            ret = 1.0 - regularizedGammaQFraction(a, x, logGamma(a), epsilon, maxIterations);
         } else {
-            // calculate series
-            double n = 0.0; // current element index
-            double an = 1.0 / a; // n-th element in the series
-            double sum = an; // partial sum
-            while (FastMath.abs(an/sum) > epsilon &&
-                   n < maxIterations &&
-                   sum < Double.POSITIVE_INFINITY) {
-                // compute next element in the series
-                n = n + 1.0;
-                an = an * (x / (a + n));
-
-                // update partial sum
-                sum = sum + an;
-            }
-            if (n >= maxIterations) {
-                throw new MaxCountExceededException(maxIterations);
-            } else if (Double.isInfinite(sum)) {
-                ret = 1.0;
-            } else {
-                ret = FastMath.exp(-x + (a * FastMath.log(x)) - logGamma(a)) * sum;
-            }
+            ret = regularizedGammaPSeries(a, x, logGamma(a), epsilon, maxIterations);
         }
 
         return ret;
     }
 
+    /**
+     * Returns the regularized gamma function P(a, x) for several values
+     * of {@code x}.
+     * <p>
+     * The result is the same as calling {@link #regularizedGammaP(double, double)}
+     * for each element of {@code x}, but {@code log(Gamma(a))} is computed
+     * only once.
+     * </p>
+     *
+     * @param a Parameter.
+     * @param x Values.
+     * @param out Array in which the values of P(a, x) are stored; it may
+     * be the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     * @since 3.3
+     */
+    public static void regularizedGammaP(double a, double[] x, double[] out)
+        throws DimensionMismatchException, MaxCountExceededException {
+        regularizedGamma(a, x, out, true, DEFAULT_EPSILON, Integer.MAX_VALUE);
+    }
+
     /**
      * Returns the regularized gamma function Q(a, x) = 1 - P(a, x).
      *
@@ -398,29 +407,212 @@ public class Gamma {
         } else if (x < a + 1.0) {
             // use regularizedGammaP because it should converge faster in this
             // case.
-            ret = 1.0 - regularizedGammaP(a, x, epsilon, maxIterations);
+            ret = 1.0 - regularizedGammaPSeries(a, x, logGamma(a), epsilon, maxIterations);
         } else {
-            // create continued fraction
-            ContinuedFraction cf = new ContinuedFraction() {
+            ret = regularizedGammaQFraction(a, x, logGamma(a), epsilon, maxIterations);
+        }
 
-                @Override
-                protected double getA(int n, double x) {
-                    return ((2.0 * n) + 1.0) - a + x;
-                }
+        return ret;
+    }
 
-                @Override
-                protected double getB(int n, double x) {
-                    return n * (a - n);
-                }
-            };
+    /**
+     * Returns the regularized gamma function Q(a, x) = 1 - P(a, x) for
+     * several values of {@code x}.
+     * <p>
+     * The result is the same as calling {@link #regularizedGammaQ(double, double)}
+     * for each element of {@code x}, but {@code log(Gamma(a))} is computed
+     * only once.
+     * </p>
+     *
+     * @param a Parameter.
+     * @param x Values.
+     * @param out Array in which the values of Q(a, x) are stored; it may
+     * be the same array as {@code x}.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     * @since 3.3
+     */
+    public static void regularizedGammaQ(double a, double[] x, double[] out)
+        throws DimensionMismatchException, MaxCountExceededException {
+        regularizedGamma(a, x, out, false, DEFAULT_EPSILON, Integer.MAX_VALUE);
+    }
 
-            ret = 1.0 / cf.evaluate(x, epsilon, maxIterations);
-            ret = FastMath.exp(-x + (a * FastMath.log(x)) - logGamma(a)) * ret;
+    /**
+     * Computes the regularized gamma functions P(a, x) or Q(a, x) for
+     * several values of {@code x}.
+     *
+     * @param a Parameter.
+     * @param x Values.
+     * @param out Array in which the values are stored; it may
+     * be the same array as {@code x}.
+     * @param p If {@code true}, P(a, x) is computed, otherwise Q(a, x) is.
+     * @param epsilon Convergence threshold.
+     * @param maxIterations Maximum number of iterations.
+     * @throws DimensionMismatchException if {@code x} and {@code out} do
+     * not have the same length.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    static void regularizedGamma(final double a, final double[] x, final double[] out,
+                                 final boolean p, final double epsilon, final int maxIterations)
+        throws DimensionMismatchException, MaxCountExceededException {
+        if (x.length != out.length) {
+            throw new DimensionMismatchException(out.length, x.length);
         }
+        final boolean invalidA = Double.isNaN(a) || (a <= 0.0);
+        final double logGammaA = invalidA ? Double.NaN : logGamma(a);
+        for (int i = 0; i < x.length; i++) {
+            final double xi = x[i];
+            if (invalidA || Double.isNaN(xi) || (xi < 0.0)) {
+                out[i] = Double.NaN;
+            } else {
+                out[i] = regularizedGamma(a, xi, logGammaA, p, epsilon, maxIterations);
+            }
+        }
+    }
 
-        return ret;
+    /**
+     * Computes the regularized gamma functions P(a, x) or Q(a, x) when
+     * {@code log(Gamma(a))} is already known.
+     *
+     * @param a Parameter, must be strictly positive.
+     * @param x Value, must be positive.
+     * @param logGammaA Value of {@code log(Gamma(a))}.
+     * @param p If {@code true}, P(a, x) is computed, otherwise Q(a, x) is.
+     * @param epsilon Convergence threshold.
+     * @param maxIterations Maximum number of iterations.
+     * @return P(a, x) or Q(a, x).
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    static double regularizedGamma(final double a, final double x, final double logGammaA,
+                                   final boolean p, final double epsilon, final int maxIterations)
+        throws MaxCountExceededException {
+        if (x == 0.0) {
+            return p ? 0.0 : 1.0;
+        } else if (x < a + 1.0) {
+            final double pValue = regularizedGammaPSeries(a, x, logGammaA, epsilon, maxIterations);
+            return p ? pValue : 1.0 - pValue;
+        } else {
+            final double qValue = regularizedGammaQFraction(a, x, logGammaA, epsilon, maxIterations);
+            return p ? 1.0 - qValue : qValue;
+        }
+    }
+
+    /**
+     * Computes P(a, x) by its series expansion, for {@code 0 < x < a + 1}.
+     *
+     * @param a Parameter.
+     * @param x Value.
+     * @param logGammaA Value of {@code log(Gamma(a))}.
+     * @param epsilon Convergence threshold.
+     * @param maxIterations Maximum number of iterations.
+     * @return P(a, x).
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    private static double regularizedGammaPSeries(final double a, final double x,
+                                                  final double logGammaA,
+                                                  final double epsilon,
+                                                  final int maxIterations)
+        throws MaxCountExceededException {
+        double n = 0.0; // current element index
+        double an = 1.0 / a; // n-th element in the series
+        double sum = an; // partial sum
+        while (FastMath.abs(an/sum) > epsilon &&
+               n < maxIterations &&
+               sum < Double.POSITIVE_INFINITY) {
+            // compute next element in the series
+            n = n + 1.0;
+            an = an * (x / (a + n));
+
+            // update partial sum
+            sum = sum + an;
+        }
+        if (n >= maxIterations) {
+            throw new MaxCountExceededException(maxIterations);
+        } else if (Double.isInfinite(sum)) {
+            return 1.0;
+        } else {
+            return FastMath.exp(-x + (a * FastMath.log(x)) - logGammaA) * sum;
+        }
     }
 
+    /**
+     * Computes Q(a, x) by its continued fraction expansion, for
+     * {@code x >= a + 1}.
+     * <p>
+     * The continued fraction is evaluated by the modified Lentz algorithm,
+     * as in {@link org.apache.commons.math3.util.ContinuedFraction
+     * ContinuedFraction}, but inlined to avoid creating an object per call.
+     * </p>
+     *
+     * @param a Parameter.
+     * @param x Value.
+     * @param logGammaA Value of {@code log(Gamma(a))}.
+     * @param epsilon Convergence threshold.
+     * @param maxIterations Maximum number of iterations.
+     * @return Q(a, x).
+     * @throws ConvergenceException if the continued fraction diverges.
+     * @throws MaxCountExceededException if the algorithm fails to converge.
+     */
+    private static double regularizedGammaQFraction(final double a, final double x,
+                                                    final double logGammaA,
+                                                    final double epsilon,
+                                                    final int maxIterations)
+        throws ConvergenceException, MaxCountExceededException {
+        // fraction terms are a_n = 2 n + 1 - a + x and b_n = n (a - n)
+        double hPrev = 1.0 - a + x;
+        if (Precision.equals(hPrev, 0.0, CF_SMALL)) {
+            hPrev = CF_SMALL;
+        }
+
+        int n = 1;
+        double dPrev = 0.0;
+        double cPrev = hPrev;
+        double hN = hPrev;
+
+        while (n < maxIterations) {
+            final double an = ((2.0 * n) + 1.0) - a + x;
+            final double bn = n * (a - n);
+
+            double dN = an + bn * dPrev;
+            if (Precision.equals(dN, 0.0, CF_SMALL)) {
+                dN = CF_SMALL;
+            }
+            double cN = an + bn / cPrev;
+            if (Precision.equals(cN, 0.0, CF_SMALL)) {
+                cN = CF_SMALL;
+            }
+
+            dN = 1 / dN;
+            final double deltaN = cN * dN;
+            hN = hPrev * deltaN;
+
+            if (Double.isInfinite(hN)) {
+                throw new ConvergenceException(LocalizedFormats.CONTINUED_FRACTION_INFINITY_DIVERGENCE,
+                                               x);
+            }
+            if (Double.isNaN(hN)) {
+                throw new ConvergenceException(LocalizedFormats.CONTINUED_FRACTION_NAN_DIVERGENCE,
+                                               x);
+            }
+
+            if (FastMath.abs(deltaN - 1.0) < epsilon) {
+                break;
+            }
+
+            dPrev = dN;
+            cPrev = cN;
+            hPrev = hN;
+            n++;
+        }
+
+        if (n >= maxIterations) {
+            throw new MaxCountExceededException(LocalizedFormats.NON_CONVERGENT_CONTINUED_FRACTION,
+                                                maxIterations, x);
+        }
+
+        return FastMath.exp(-x + (a * FastMath.log(x)) - logGammaA) * (1.0 / hN);
+    }
 
     /**
      * <p>Computes the digamma function of x.</p>
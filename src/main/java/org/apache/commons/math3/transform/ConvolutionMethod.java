@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+/**
+ * This enumeration defines the algorithms available for computing
+ * convolutions in {@link ConvolutionUtils}.
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public enum ConvolutionMethod {
+    /**
+     * Direct evaluation of the convolution sum. Its cost is proportional to
+     * the product of the lengths of the sequences; it is the fastest method
+     * when one of them is short.
+     */
+    DIRECT,
+
+    /**
+     * Product of the Fourier transforms of the zero-padded sequences. Its
+     * cost is proportional to {@code n log(n)}, where {@code n} is the length
+     * of the result.
+     */
+    FFT,
+
+    /**
+     * Overlap-add method: the longest sequence is split into blocks which
+     * are convolved with the shortest one by fast Fourier transforms of a
+     * size adapted to the shortest sequence. This is the fastest method when
+     * the lengths of the sequences are very different.
+     */
+    OVERLAP_ADD
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Convolution and cross-correlation of real sequences and arrays.
+ * <p>
+ * Unlike {@link MathArrays#convolve(double[], double[])}, which always
+ * evaluates the convolution sum, the methods of this class select the
+ * fastest {@link ConvolutionMethod method} from the sizes of their
+ * arguments: direct evaluation when one of them is short, product of
+ * Fourier transforms when they have similar lengths, and overlap-add
+ * block processing when one is much longer than the other. The three
+ * methods give the same results, up to rounding errors.
+ * </p>
+ * <p>
+ * Signals whose length is not known in advance can be filtered chunk by
+ * chunk with a {@link StreamingConvolver}.
+ * </p>
+ *
+ * @see StreamingConvolver
+ * @version $Id$
+ * @since 3.3
+ */
+public final class ConvolutionUtils {
+
+    /**
+     * Estimated cost of a real fast Fourier transform of size {@code n},
+     * divided by {@code n log2(n)}, in units of the cost of one
+     * multiply-add of the direct method.
+     */
+    private static final double FFT_COST = 1.5;
+
+    /** Class contains only static methods. */
+    private ConvolutionUtils() {}
+
+    /**
+     * Selects the fastest method for convolving two sequences.
+     *
+     * @param xLength Length of the first sequence.
+     * @param hLength Length of the second sequence.
+     * @return the method expected to be the fastest.
+     */
+    public static ConvolutionMethod selectMethod(final int xLength, final int hLength) {
+        final int m = FastMath.min(xLength, hLength);
+        final int n = FastMath.max(xLength, hLength);
+
+        ConvolutionMethod best = ConvolutionMethod.DIRECT;
+        double bestCost = (double) m * n;
+
+        final int size = transformSize(n + m - 1);
+        final double fftCost = 3 * realFftCost(size) + 2 * size;
+        if (fftCost < bestCost) {
+            best     = ConvolutionMethod.FFT;
+            bestCost = fftCost;
+        }
+
+        final int block = blockTransformSize(m);
+        if (block > 0 && block < size) {
+            final int blocks = (n + block - m) / (block - m + 1);
+            final double overlapAddCost = blocks * (2 * realFftCost(block) + 3 * block);
+            if (overlapAddCost < bestCost) {
+                best = ConvolutionMethod.OVERLAP_ADD;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Computes the convolution of two sequences, with the fastest method.
+     * <p>
+     * Elements located outside the input arrays are considered to be
+     * zero; element {@code k} of the result is the sum of
+     * {@code x[i] h[k - i]}.
+     * </p>
+     *
+     * @param x First sequence.
+     * @param h Second sequence.
+     * @return the convolution of {@code x} and {@code h} (length
+     * {@code x.length + h.length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     * @see #selectMethod(int, int)
+     */
+    public static double[] convolve(final double[] x, final double[] h)
+        throws NullArgumentException, NoDataException {
+        checkSequence(x);
+        checkSequence(h);
+        return convolve(x, h, selectMethod(x.length, h.length));
+    }
+
+    /**
+     * Computes the convolution of two sequences, with a given method.
+     *
+     * @param x First sequence.
+     * @param h Second sequence.
+     * @param method Method to use.
+     * @return the convolution of {@code x} and {@code h} (length
+     * {@code x.length + h.length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     */
+    public static double[] convolve(final double[] x, final double[] h,
+                                    final ConvolutionMethod method)
+        throws NullArgumentException, NoDataException {
+        checkSequence(x);
+        checkSequence(h);
+
+        // convolution is commutative, let h be the shortest sequence
+        final double[] signal = x.length >= h.length ? x : h;
+        final double[] kernel = x.length >= h.length ? h : x;
+        final int n = signal.length;
+        final int m = kernel.length;
+
+        switch (method) {
+        case DIRECT :
+            return MathArrays.convolve(signal, kernel);
+        case FFT : {
+            final RealFastFourierTransformPlan plan =
+                new RealFastFourierTransformPlan(transformSize(n + m - 1), DftNormalization.STANDARD);
+            final int size = plan.getSize();
+            final double[] padded = new double[size];
+            final double[] sRe = new double[plan.getSpectrumSize()];
+            final double[] sIm = new double[plan.getSpectrumSize()];
+            final double[] kRe = new double[plan.getSpectrumSize()];
+            final double[] kIm = new double[plan.getSpectrumSize()];
+            System.arraycopy(signal, 0, padded, 0, n);
+            plan.transform(padded, sRe, sIm);
+            System.arraycopy(kernel, 0, padded, 0, m);
+            for (int i = m; i < n; ++i) {
+                padded[i] = 0;
+            }
+            plan.transform(padded, kRe, kIm);
+            for (int k = 0; k < sRe.length; ++k) {
+                final double re = sRe[k];
+                sRe[k] = re * kRe[k] - sIm[k] * kIm[k];
+                sIm[k] = re * kIm[k] + sIm[k] * kRe[k];
+            }
+            plan.inverseTransform(sRe, sIm, padded);
+            final double[] y = new double[n + m - 1];
+            System.arraycopy(padded, 0, y, 0, y.length);
+            return y;
+        }
+        case OVERLAP_ADD : {
+            final StreamingConvolver convolver =
+                new StreamingConvolver(kernel, FastMath.max(blockTransformSize(m), 2 * m));
+            final double[] y = new double[n + m - 1];
+            convolver.process(signal, 0, y, 0, n);
+            System.arraycopy(convolver.flush(), 0, y, n, m - 1);
+            return y;
+        }
+        default :
+            // this should never happen
+            throw new IllegalArgumentException(method.toString());
+        }
+    }
+
+    /**
+     * Computes the cross-correlation of two sequences, with the fastest
+     * method.
+     * <p>
+     * Element {@code j} of the result is the correlation at lag
+     * {@code l = j - (y.length - 1)}, i.e. the sum of {@code x[i + l] y[i]},
+     * elements located outside the input arrays being considered to be zero.
+     * Lags range from {@code -(y.length - 1)} to {@code x.length - 1}.
+     * </p>
+     *
+     * @param x First sequence.
+     * @param y Second sequence.
+     * @return the cross-correlation of {@code x} and {@code y} (length
+     * {@code x.length + y.length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     */
+    public static double[] correlate(final double[] x, final double[] y)
+        throws NullArgumentException, NoDataException {
+        checkSequence(x);
+        checkSequence(y);
+        return correlate(x, y, selectMethod(x.length, y.length));
+    }
+
+    /**
+     * Computes the cross-correlation of two sequences, with a given method.
+     *
+     * @param x First sequence.
+     * @param y Second sequence.
+     * @param method Method to use.
+     * @return the cross-correlation of {@code x} and {@code y} (length
+     * {@code x.length + y.length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     * @see #correlate(double[], double[])
+     */
+    public static double[] correlate(final double[] x, final double[] y,
+                                     final ConvolutionMethod method)
+        throws NullArgumentException, NoDataException {
+        checkSequence(x);
+        checkSequence(y);
+        final double[] reversed = new double[y.length];
+        for (int i = 0; i < y.length; ++i) {
+            reversed[i] = y[y.length - 1 - i];
+        }
+        return convolve(x, reversed, method);
+    }
+
+    /**
+     * Computes the convolution of two rectangular arrays.
+     * <p>
+     * Element {@code [k][l]} of the result is the sum of
+     * {@code x[i][j] h[k - i][l - j]}, elements located outside the input
+     * arrays being considered to be zero. The convolution is computed
+     * directly or by a two-dimensional fast Fourier transform, whichever is
+     * expected to be the fastest.
+     * </p>
+     *
+     * @param x First array.
+     * @param h Second array.
+     * @return the convolution of {@code x} and {@code h} (dimensions
+     * {@code x.length + h.length - 1} and
+     * {@code x[0].length + h[0].length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     * @throws DimensionMismatchException if either array is not rectangular.
+     */
+    public static double[][] convolve(final double[][] x, final double[][] h)
+        throws NullArgumentException, NoDataException, DimensionMismatchException {
+        checkArray(x);
+        checkArray(h);
+        final int xr = x.length;
+        final int xc = x[0].length;
+        final int hr = h.length;
+        final int hc = h[0].length;
+        final int rows = xr + hr - 1;
+        final int cols = xc + hc - 1;
+
+        final double directCost = (double) xr * xc * hr * hc;
+        final int sizeR = transformSize(rows);
+        final int sizeC = transformSize(cols);
+        // one forward and one inverse complex transform, each costing
+        // about twice a real transform of the same size
+        final double fftCost = 4 * realFftCost(sizeR * sizeC) + 8 * sizeR * sizeC;
+
+        final double[][] y = new double[rows][cols];
+        if (directCost <= fftCost) {
+            for (int i = 0; i < xr; ++i) {
+                for (int j = 0; j < xc; ++j) {
+                    final double xij = x[i][j];
+                    for (int p = 0; p < hr; ++p) {
+                        final double[] hp = h[p];
+                        final double[] yip = y[i + p];
+                        for (int q = 0; q < hc; ++q) {
+                            yip[j + q] += xij * hp[q];
+                        }
+                    }
+                }
+            }
+            return y;
+        }
+
+        // transform z = x + i h: as x and h are real, their transforms are
+        // X[k] = (Z[k] + conj(Z[-k])) / 2 and H[k] = (Z[k] - conj(Z[-k])) / 2i
+        final MultiDimensionalFastFourierTransformPlan plan =
+            new MultiDimensionalFastFourierTransformPlan(new int[] { sizeR, sizeC },
+                                                         DftNormalization.STANDARD);
+        final double[] zRe = new double[sizeR * sizeC];
+        final double[] zIm = new double[sizeR * sizeC];
+        for (int i = 0; i < xr; ++i) {
+            System.arraycopy(x[i], 0, zRe, i * sizeC, xc);
+        }
+        for (int i = 0; i < hr; ++i) {
+            System.arraycopy(h[i], 0, zIm, i * sizeC, hc);
+        }
+        plan.transform(zRe, zIm, TransformType.FORWARD);
+
+        // X[k] H[k] = (Z[k]^2 - conj(Z[-k])^2) / 4i
+        final double[] pRe = new double[sizeR * sizeC];
+        final double[] pIm = new double[sizeR * sizeC];
+        for (int k0 = 0; k0 < sizeR; ++k0) {
+            final int m0 = k0 == 0 ? 0 : sizeR - k0;
+            for (int k1 = 0; k1 < sizeC; ++k1) {
+                final int m1 = k1 == 0 ? 0 : sizeC - k1;
+                final int k  = k0 * sizeC + k1;
+                final int mk = m0 * sizeC + m1;
+                final double ar = zRe[k] * zRe[k] - zIm[k] * zIm[k] -
+                                  (zRe[mk] * zRe[mk] - zIm[mk] * zIm[mk]);
+                final double ai = 2 * (zRe[k] * zIm[k] + zRe[mk] * zIm[mk]);
+                pRe[k] =  0.25 * ai;
+                pIm[k] = -0.25 * ar;
+            }
+        }
+        plan.transform(pRe, pIm, TransformType.INVERSE);
+
+        for (int i = 0; i < rows; ++i) {
+            System.arraycopy(pRe, i * sizeC, y[i], 0, cols);
+        }
+        return y;
+    }
+
+    /**
+     * Computes the cross-correlation of two rectangular arrays.
+     * <p>
+     * Element {@code [j][l]} of the result is the correlation at lags
+     * {@code (a, b) = (j - (y.length - 1), l - (y[0].length - 1))}, i.e.
+     * the sum of {@code x[i + a][k + b] y[i][k]}, elements located outside
+     * the input arrays being considered to be zero.
+     * </p>
+     *
+     * @param x First array.
+     * @param y Second array.
+     * @return the cross-correlation of {@code x} and {@code y} (dimensions
+     * {@code x.length + y.length - 1} and
+     * {@code x[0].length + y[0].length - 1}).
+     * @throws NullArgumentException if either array is {@code null}.
+     * @throws NoDataException if either array is empty.
+     * @throws DimensionMismatchException if either array is not rectangular.
+     */
+    public static double[][] correlate(final double[][] x, final double[][] y)
+        throws NullArgumentException, NoDataException, DimensionMismatchException {
+        checkArray(x);
+        checkArray(y);
+        final int rows = y.length;
+        final int cols = y[0].length;
+        final double[][] reversed = new double[rows][cols];
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < cols; ++j) {
+                reversed[i][j] = y[rows - 1 - i][cols - 1 - j];
+            }
+        }
+        return convolve(x, reversed);
+    }
+
+    /**
+     * Get the size of the transforms used for convolving blocks of a long
+     * sequence with a kernel.
+     *
+     * @param kernelLength Length of the kernel.
+     * @return the power of two minimizing the cost per output sample, or 0
+     * if direct convolution is cheaper.
+     */
+    static int blockTransformSize(final int kernelLength) {
+        int best = 0;
+        double bestCost = kernelLength;
+        for (int size = Integer.highestOneBit(FastMath.max(1, 2 * kernelLength - 1)) << 1, i = 0;
+             i < 6 && size > 0;
+             size <<= 1, ++i) {
+            final double cost = (2 * realFftCost(size) + 3 * size) / (size - kernelLength + 1);
+            if (cost < bestCost) {
+                best     = size;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the smallest efficient transform size not smaller than a length.
+     * <p>
+     * Efficient sizes are the even numbers whose prime factors are 2, 3 and 5.
+     * </p>
+     *
+     * @param length Minimal size.
+     * @return the smallest efficient size larger than or equal to {@code length}.
+     */
+    static int transformSize(final int length) {
+        for (int size = FastMath.max(2, length + (length & 0x1)); ; size += 2) {
+            int m = size;
+            while (m % 2 == 0) {
+                m /= 2;
+            }
+            while (m % 3 == 0) {
+                m /= 3;
+            }
+            while (m % 5 == 0) {
+                m /= 5;
+            }
+            if (m == 1) {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Estimate the cost of a real fast Fourier transform.
+     *
+     * @param size Size of the transform.
+     * @return the estimated cost, in units of multiply-adds.
+     */
+    private static double realFftCost(final int size) {
+        return FFT_COST * size * FastMath.log(2.0, FastMath.max(2, size));
+    }
+
+    /**
+     * Check a sequence.
+     *
+     * @param x Sequence.
+     * @throws NullArgumentException if {@code x} is {@code null}.
+     * @throws NoDataException if {@code x} is empty.
+     */
+    private static void checkSequence(final double[] x)
+        throws NullArgumentException, NoDataException {
+        MathUtils.checkNotNull(x);
+        if (x.length == 0) {
+            throw new NoDataException();
+        }
+    }
+
+    /**
+     * Check a two-dimensional array.
+     *
+     * @param x Array.
+     * @throws NullArgumentException if {@code x} is {@code null}.
+     * @throws NoDataException if {@code x} or its first row is empty.
+     * @throws DimensionMismatchException if {@code x} is not rectangular.
+     */
+    private static void checkArray(final double[][] x)
+        throws NullArgumentException, NoDataException, DimensionMismatchException {
+        MathUtils.checkNotNull(x);
+        if (x.length == 0 || x[0].length == 0) {
+            throw new NoDataException();
+        }
+        for (final double[] row : x) {
+            if (row.length != x[0].length) {
+                throw new DimensionMismatchException(row.length, x[0].length);
+            }
+        }
+    }
+
+}
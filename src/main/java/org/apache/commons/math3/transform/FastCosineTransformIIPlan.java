@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed fast cosine transform of type II (DCT-II) and its inverse.
+ * <p>
+ * The forward transform of a sequence {@code x} of size {@code N} is
+ * y<sub>n</sub> = s<sub>n</sub> &sum;<sub>k=0</sub><sup>N-1</sup>
+ * x<sub>k</sub> cos[&pi; n (2k + 1) / (2N)],
+ * and the inverse transform (DCT-III) recovers {@code x} from {@code y}.
+ * The scaling factors s<sub>n</sub> depend on the normalization convention:
+ * <ul>
+ * <li>{@link DftNormalization#STANDARD}: s<sub>n</sub> = 1; the inverse is
+ * x<sub>k</sub> = (1 / N) [y<sub>0</sub> + 2 &sum;<sub>n=1</sub><sup>N-1</sup>
+ * y<sub>n</sub> cos[&pi; n (2k + 1) / (2N)]],</li>
+ * <li>{@link DftNormalization#UNITARY}: s<sub>0</sub> = (1 / N)<sup>1/2</sup>
+ * and s<sub>n</sub> = (2 / N)<sup>1/2</sup> for n &gt; 0, which makes the
+ * transform orthogonal; the inverse is its transpose.</li>
+ * </ul>
+ * <p>
+ * This is the transform used by most block-based compression schemes. It
+ * is computed by reordering the sequence (even-indexed elements first,
+ * then odd-indexed elements in reverse order) and rotating the coefficients
+ * of a real Fourier transform of the same size (J. Makhoul, <em>A fast
+ * cosine transform in one and two dimensions</em>, IEEE Trans. ASSP 28(1),
+ * 1980). Any size is supported.
+ * </p>
+ *
+ * @see FastCosineTransformPlan
+ * @version $Id$
+ * @since 3.3
+ */
+public class FastCosineTransformIIPlan extends RealTransformPlan {
+
+    /** Normalization convention. */
+    private final DftNormalization normalization;
+
+    /** Underlying Fourier transform, of size {@code getSize()}. */
+    private final RealFastFourierTransformPlan fft;
+
+    /** Values of {@code cos(pi k / (2 getSize()))}, for {@code 0 <= k <= getSize() / 2}. */
+    private final double[] cos;
+
+    /** Values of {@code sin(pi k / (2 getSize()))}, for {@code 0 <= k <= getSize() / 2}. */
+    private final double[] sin;
+
+    /** Scaling factor of the first coefficient. */
+    private final double scale0;
+
+    /** Scaling factor of the other coefficients. */
+    private final double scale;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the sequences.
+     * @param normalization Normalization convention.
+     * @throws NotStrictlyPositiveException if {@code n <= 0}.
+     */
+    public FastCosineTransformIIPlan(final int n, final DftNormalization normalization)
+        throws NotStrictlyPositiveException {
+        super(n);
+        if (n <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NOT_POSITIVE_NUMBER_OF_SAMPLES, n);
+        }
+        this.normalization = normalization;
+
+        fft = new RealFastFourierTransformPlan(n, DftNormalization.STANDARD);
+        cos = new double[n / 2 + 1];
+        sin = new double[n / 2 + 1];
+        for (int k = 0; k <= n / 2; ++k) {
+            final double theta = FastMath.PI * k / (2.0 * n);
+            cos[k] = FastMath.cos(theta);
+            sin[k] = FastMath.sin(theta);
+        }
+
+        if (normalization == DftNormalization.UNITARY) {
+            scale0 = FastMath.sqrt(1.0 / n);
+            scale  = FastMath.sqrt(2.0 / n);
+        } else {
+            scale0 = 1.0;
+            scale  = 1.0;
+        }
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DftNormalization getNormalization() {
+        return normalization;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    double[][] createWorkspace() {
+        final int n = getSize();
+        return new double[][] {
+            new double[n], new double[n / 2 + 1], new double[n / 2 + 1]
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void transformBlock(final double[] data, final int offset,
+                        final TransformType type, final double[][] work) {
+        if (type == TransformType.FORWARD) {
+            forward(data, offset, work);
+        } else {
+            inverse(data, offset, work);
+        }
+    }
+
+    /**
+     * Computes a forward transform in place.
+     *
+     * @param data Array containing the sequence.
+     * @param offset Index of the first element of the sequence.
+     * @param work Work area of the calling thread.
+     */
+    private void forward(final double[] data, final int offset, final double[][] work) {
+        final int n = getSize();
+        final double[] v  = work[0];
+        final double[] re = work[1];
+        final double[] im = work[2];
+
+        // even-indexed elements in order, then odd-indexed elements reversed
+        for (int k = 0; 2 * k < n; ++k) {
+            v[k] = data[offset + 2 * k];
+        }
+        for (int k = 0; 2 * k + 1 < n; ++k) {
+            v[n - 1 - k] = data[offset + 2 * k + 1];
+        }
+        fft.transform(v, re, im);
+
+        // y[k] - i y[n - k] = exp(-i pi k / 2n) V[k]
+        data[offset] = scale0 * re[0];
+        for (int k = 1; k <= n / 2; ++k) {
+            final double c = cos[k];
+            final double s = sin[k];
+            data[offset + k]     = scale * (c * re[k] + s * im[k]);
+            data[offset + n - k] = scale * (s * re[k] - c * im[k]);
+        }
+    }
+
+    /**
+     * Computes an inverse transform in place.
+     *
+     * @param data Array containing the coefficients.
+     * @param offset Index of the first coefficient.
+     * @param work Work area of the calling thread.
+     */
+    private void inverse(final double[] data, final int offset, final double[][] work) {
+        final int n = getSize();
+        final double[] v  = work[0];
+        final double[] re = work[1];
+        final double[] im = work[2];
+
+        // V[k] = exp(i pi k / 2n) (y[k] - i y[n - k])
+        final double u = 1.0 / scale;
+        re[0] = data[offset] / scale0;
+        im[0] = 0;
+        for (int k = 1; k <= n / 2; ++k) {
+            final double c  = cos[k];
+            final double s  = sin[k];
+            final double a  = u * data[offset + k];
+            final double b  = u * data[offset + n - k];
+            re[k] = c * a + s * b;
+            im[k] = s * a - c * b;
+        }
+        fft.inverseTransform(re, im, v);
+
+        for (int k = 0; 2 * k < n; ++k) {
+            data[offset + 2 * k] = v[k];
+        }
+        for (int k = 0; 2 * k + 1 < n; ++k) {
+            data[offset + 2 * k + 1] = v[n - 1 - k];
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ArithmeticUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed fast cosine transform (DCT-I).
+ * <p>
+ * This plan computes the same transform as {@link FastCosineTransformer},
+ * with the same {@link DctNormalization normalization conventions}, on
+ * sequences of size {@code 2^k + 1}. The trigonometric tables and the
+ * underlying real Fourier transform of size {@code 2^k} are computed once.
+ * </p>
+ *
+ * @see FastCosineTransformer
+ * @version $Id$
+ * @since 3.3
+ */
+public class FastCosineTransformPlan extends RealTransformPlan {
+
+    /** Normalization convention. */
+    private final DctNormalization normalization;
+
+    /** Underlying Fourier transform, of size {@code getSize() - 1}. */
+    private final RealFastFourierTransformPlan fft;
+
+    /** Values of {@code sin(pi i / (getSize() - 1))}. */
+    private final double[] sin;
+
+    /** Values of {@code cos(pi i / (getSize() - 1))}. */
+    private final double[] cos;
+
+    /** Scaling factor applied after forward transforms. */
+    private final double forwardScale;
+
+    /** Scaling factor applied after inverse transforms. */
+    private final double inverseScale;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the sequences.
+     * @param normalization Normalization convention.
+     * @throws MathIllegalArgumentException if {@code n - 1} is not a power
+     * of two.
+     */
+    public FastCosineTransformPlan(final int n, final DctNormalization normalization)
+        throws MathIllegalArgumentException {
+        super(n);
+        if (n < 2 || !ArithmeticUtils.isPowerOfTwo(n - 1)) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NOT_POWER_OF_TWO_PLUS_ONE,
+                                                   Integer.valueOf(n));
+        }
+        this.normalization = normalization;
+
+        final int m = n - 1;
+        fft = m > 1 ? new RealFastFourierTransformPlan(m, DftNormalization.STANDARD) : null;
+        sin = new double[m >> 1];
+        cos = new double[m >> 1];
+        for (int i = 0; i < (m >> 1); ++i) {
+            sin[i] = FastMath.sin(i * FastMath.PI / m);
+            cos[i] = FastMath.cos(i * FastMath.PI / m);
+        }
+
+        final double s2 = 2.0 / m;
+        if (normalization == DctNormalization.ORTHOGONAL_DCT_I) {
+            forwardScale = FastMath.sqrt(s2);
+            inverseScale = forwardScale;
+        } else {
+            forwardScale = 1.0;
+            inverseScale = s2;
+        }
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DctNormalization getNormalization() {
+        return normalization;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    double[][] createWorkspace() {
+        final int m = getSize() - 1;
+        return new double[][] {
+            new double[m], new double[(m >> 1) + 1], new double[(m >> 1) + 1]
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void transformBlock(final double[] data, final int offset,
+                        final TransformType type, final double[][] work) {
+        final double scale = type == TransformType.FORWARD ? forwardScale : inverseScale;
+        final int n = getSize() - 1;
+        final double f0 = data[offset];
+        final double fn = data[offset + n];
+        if (n == 1) {
+            data[offset]     = scale * 0.5 * (f0 + fn);
+            data[offset + 1] = scale * 0.5 * (f0 - fn);
+            return;
+        }
+
+        // same algorithm as FastCosineTransformer.fct
+        final double[] x  = work[0];
+        final double[] re = work[1];
+        final double[] im = work[2];
+        x[0] = 0.5 * (f0 + fn);
+        x[n >> 1] = data[offset + (n >> 1)];
+        double t1 = 0.5 * (f0 - fn);
+        for (int i = 1; i < (n >> 1); i++) {
+            final double fi  = data[offset + i];
+            final double fni = data[offset + n - i];
+            final double a = 0.5 * (fi + fni);
+            final double b = sin[i] * (fi - fni);
+            final double c = cos[i] * (fi - fni);
+            x[i] = a - b;
+            x[n - i] = a + b;
+            t1 += c;
+        }
+        fft.transform(x, re, im);
+
+        data[offset]     = scale * re[0];
+        data[offset + 1] = scale * t1;
+        double previous = t1;
+        for (int i = 1; i < (n >> 1); i++) {
+            final double odd = previous - im[i];
+            data[offset + 2 * i]     = scale * re[i];
+            data[offset + 2 * i + 1] = scale * odd;
+            previous = odd;
+        }
+        data[offset + n] = scale * re[n >> 1];
+    }
+
+}
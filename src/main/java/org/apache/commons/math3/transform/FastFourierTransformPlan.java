@@ -0,0 +1,842 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ArithmeticUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed fast Fourier transform of a fixed size.
+ * <p>
+ * {@link FastFourierTransformer} is convenient for one-off transforms, but
+ * it works on newly allocated arrays and rebuilds its twiddle factors and
+ * bit-reversal permutation on each call. A plan does this setup once, in
+ * its constructor, and then transforms data stored as two separate arrays
+ * holding the real and imaginary parts, in place. This is the class of
+ * choice when many transforms of the same size must be computed, as in
+ * streaming spectral analysis.
+ * </p>
+ * <p>
+ * Any size is supported, the algorithm being selected by the constructor:
+ * </p>
+ * <ul>
+ *  <li>powers of two use an in-place radix-2 algorithm, which never
+ *  allocates memory,</li>
+ *  <li>sizes whose prime factors are all smaller than {@value
+ *  #MAX_PRIME_FACTOR} use a mixed-radix algorithm (with specialized
+ *  butterflies for radices 2, 3, 4 and 5),</li>
+ *  <li>other sizes use Bluestein's algorithm, which expresses the transform
+ *  as a convolution computed by power-of-two transforms.</li>
+ * </ul>
+ * <p>
+ * The last two algorithms need a work area, which is allocated the first
+ * time each thread uses the plan and reused afterwards.
+ * </p>
+ * <p>
+ * The conventions (sign of the exponent, normalization) are the same as
+ * those of {@link FastFourierTransformer#transformInPlace(double[][],
+ * DftNormalization, TransformType)}. The twiddle factors are however
+ * computed directly rather than through a recurrence, so results may
+ * differ from those of {@link FastFourierTransformer} in the last bits.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared by
+ * several threads transforming different buffers.
+ * </p>
+ *
+ * @see FastFourierTransformer
+ * @see RealFastFourierTransformPlan
+ * @version $Id$
+ * @since 3.3
+ */
+public class FastFourierTransformPlan {
+
+    /**
+     * Bound on the prime factors of the sizes handled by the mixed-radix
+     * algorithm; sizes with a larger prime factor use Bluestein's algorithm.
+     */
+    public static final int MAX_PRIME_FACTOR = 64;
+
+    /** Value of {@code sin(2 pi / 3)}. */
+    private static final double SIN_2PI_3 = FastMath.sqrt(3.0) / 2;
+
+    /** Value of {@code cos(2 pi / 5)}. */
+    private static final double COS_2PI_5 = FastMath.cos(2 * FastMath.PI / 5);
+
+    /** Value of {@code cos(4 pi / 5)}. */
+    private static final double COS_4PI_5 = FastMath.cos(4 * FastMath.PI / 5);
+
+    /** Value of {@code sin(2 pi / 5)}. */
+    private static final double SIN_2PI_5 = FastMath.sin(2 * FastMath.PI / 5);
+
+    /** Value of {@code sin(4 pi / 5)}. */
+    private static final double SIN_4PI_5 = FastMath.sin(4 * FastMath.PI / 5);
+
+    /** Size of the transform. */
+    private final int n;
+
+    /** Normalization convention. */
+    private final DftNormalization normalization;
+
+    /** Algorithm computing the unnormalized transform. */
+    private final Algorithm algorithm;
+
+    /** Scaling factor applied after forward transforms. */
+    private final double forwardScale;
+
+    /** Scaling factor applied after inverse transforms. */
+    private final double inverseScale;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the transform.
+     * @param normalization Normalization convention.
+     * @throws NotStrictlyPositiveException if {@code n <= 0}.
+     */
+    public FastFourierTransformPlan(final int n,
+                                    final DftNormalization normalization)
+        throws NotStrictlyPositiveException {
+        if (n <= 0) {
+            throw new NotStrictlyPositiveException(LocalizedFormats.NOT_POSITIVE_NUMBER_OF_SAMPLES,
+                                                   n);
+        }
+        this.n             = n;
+        this.normalization = normalization;
+
+        if (ArithmeticUtils.isPowerOfTwo(n)) {
+            algorithm = new Radix2(n);
+        } else {
+            final int[] factors = factorize(n);
+            if (factors == null) {
+                algorithm = new Bluestein(n);
+            } else {
+                algorithm = new MixedRadix(n, factors);
+            }
+        }
+
+        if (normalization == DftNormalization.UNITARY) {
+            forwardScale = 1.0 / FastMath.sqrt(n);
+            inverseScale = forwardScale;
+        } else {
+            forwardScale = 1.0;
+            inverseScale = 1.0 / n;
+        }
+    }
+
+    /**
+     * Get the size of the transform.
+     *
+     * @return the size of the transform.
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DftNormalization getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * Computes the transform of a complex sequence, in place.
+     *
+     * @param re Real parts of the data, replaced by the real parts of the
+     * transform.
+     * @param im Imaginary parts of the data, replaced by the imaginary parts
+     * of the transform.
+     * @param type Type of transform.
+     * @throws DimensionMismatchException if the length of {@code re} or
+     * {@code im} is not the size of the plan.
+     */
+    public void transform(final double[] re, final double[] im,
+                          final TransformType type)
+        throws DimensionMismatchException {
+        if (re.length != n) {
+            throw new DimensionMismatchException(re.length, n);
+        }
+        if (im.length != n) {
+            throw new DimensionMismatchException(im.length, n);
+        }
+        transform(re, im, 0, type);
+    }
+
+    /**
+     * Computes the transform of a complex sequence stored in a part of two
+     * arrays, in place.
+     * <p>
+     * The real and imaginary parts of the sequence are stored in
+     * {@code re[offset]...re[offset + n - 1]} and
+     * {@code im[offset]...im[offset + n - 1]}, where {@code n} is the size
+     * of the plan. This makes it possible to transform many sequences stored
+     * one after the other in a single pair of arrays.
+     * </p>
+     *
+     * @param re Real parts of the data, replaced by the real parts of the
+     * transform.
+     * @param im Imaginary parts of the data, replaced by the imaginary parts
+     * of the transform.
+     * @param offset Index of the first element of the sequence.
+     * @param type Type of transform.
+     * @throws OutOfRangeException if the sequence does not fit in {@code re}
+     * or {@code im}.
+     */
+    public void transform(final double[] re, final double[] im,
+                          final int offset, final TransformType type)
+        throws OutOfRangeException {
+        if (offset < 0 || offset > re.length - n) {
+            throw new OutOfRangeException(offset, 0, re.length - n);
+        }
+        if (offset > im.length - n) {
+            throw new OutOfRangeException(offset, 0, im.length - n);
+        }
+
+        if (n > 1) {
+            algorithm.transform(re, im, offset, type == TransformType.FORWARD ? -1.0 : 1.0);
+        }
+
+        final double scale = type == TransformType.FORWARD ? forwardScale : inverseScale;
+        if (scale != 1.0) {
+            final int end = offset + n;
+            for (int i = offset; i < end; ++i) {
+                re[i] *= scale;
+                im[i] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Computes twiddle factors.
+     * <p>
+     * Only the factors of the first octant are computed by trigonometric
+     * functions, the other ones are deduced by symmetry when {@code n}
+     * allows it. This is both faster and exactly symmetric.
+     * </p>
+     *
+     * @param n Size of the transform.
+     * @param cos Array where {@code cos(2 pi k / n)} is stored, for
+     * {@code 0 <= k < cos.length <= n}.
+     * @param sin Array where {@code sin(2 pi k / n)} is stored, for
+     * {@code 0 <= k < sin.length <= n}.
+     */
+    static void computeTwiddles(final int n, final double[] cos, final double[] sin) {
+        final int half    = (n & 0x1) == 0 ? n / 2 : n;
+        final int quarter = (n & 0x3) == 0 ? n / 4 : n;
+        final int eighth  = (n & 0x7) == 0 ? n / 8 : n;
+        for (int k = 0; k < cos.length; ++k) {
+            if (k >= half) {
+                // theta = pi + alpha
+                cos[k] = -cos[k - half];
+                sin[k] = -sin[k - half];
+            } else if (k > quarter) {
+                // theta = pi / 2 + alpha
+                cos[k] = -sin[k - quarter];
+                sin[k] =  cos[k - quarter];
+            } else if (k > eighth) {
+                // theta = pi / 2 - alpha
+                cos[k] = sin[quarter - k];
+                sin[k] = cos[quarter - k];
+            } else {
+                final double theta = 2 * FastMath.PI * k / n;
+                cos[k] = FastMath.cos(theta);
+                sin[k] = FastMath.sin(theta);
+            }
+        }
+    }
+
+    /**
+     * Splits a size into factors for the mixed-radix algorithm.
+     * <p>
+     * Factors 4 are extracted first, then factors 2, 3, 5 and the
+     * remaining primes in increasing order.
+     * </p>
+     *
+     * @param n Size to factorize.
+     * @return the factors, or {@code null} if {@code n} has a prime factor
+     * larger than {@link #MAX_PRIME_FACTOR}.
+     */
+    private static int[] factorize(final int n) {
+        final int[] factors = new int[32];
+        int count = 0;
+        int m = n;
+        while (m % 4 == 0) {
+            factors[count++] = 4;
+            m >>= 2;
+        }
+        for (int p = 2; p <= MAX_PRIME_FACTOR && m > 1; p = (p == 2) ? 3 : p + 2) {
+            while (m % p == 0) {
+                factors[count++] = p;
+                m /= p;
+            }
+        }
+        if (m > 1) {
+            return null;
+        }
+        final int[] result = new int[count];
+        System.arraycopy(factors, 0, result, 0, count);
+        return result;
+    }
+
+    /** Unnormalized transform of a fixed size. */
+    private abstract static class Algorithm {
+
+        /**
+         * Computes the unnormalized transform, in place.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param offset Index of the first element of the sequence.
+         * @param sign Sign of the exponent: -1 for forward transforms, +1 for
+         * inverse transforms.
+         */
+        abstract void transform(double[] re, double[] im, int offset, double sign);
+
+    }
+
+    /** In-place radix-2 algorithm, for powers of two. */
+    private static class Radix2 extends Algorithm {
+
+        /** Size of the transform. */
+        private final int n;
+
+        /**
+         * Index pairs {@code (i, j)}, with {@code i < j}, exchanged by the
+         * bit-reversal permutation, stored consecutively.
+         */
+        private final int[] swaps;
+
+        /** Values of {@code cos(2 pi k / n)}, for {@code 0 <= k < n / 2}. */
+        private final double[] cos;
+
+        /** Values of {@code sin(2 pi k / n)}, for {@code 0 <= k < n / 2}. */
+        private final double[] sin;
+
+        /**
+         * @param n Size of the transform (a power of two).
+         */
+        Radix2(final int n) {
+            this.n = n;
+
+            // bit-reversal permutation
+            int count = 0;
+            final int[] pairs = new int[n];
+            for (int i = 0, j = 0; i < n; ++i) {
+                if (i < j) {
+                    pairs[count++] = i;
+                    pairs[count++] = j;
+                }
+                int bit = n >> 1;
+                while (bit > 0 && (j & bit) != 0) {
+                    j  ^= bit;
+                    bit >>= 1;
+                }
+                j |= bit;
+            }
+            swaps = new int[count];
+            System.arraycopy(pairs, 0, swaps, 0, count);
+
+            // twiddle factors
+            final int half = n >> 1;
+            cos = new double[half];
+            sin = new double[half];
+            computeTwiddles(n, cos, sin);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void transform(final double[] re, final double[] im,
+                       final int offset, final double sign) {
+
+            // bit-reversal permutation
+            for (int s = 0; s < swaps.length; s += 2) {
+                final int i = offset + swaps[s];
+                final int j = offset + swaps[s + 1];
+                final double tr = re[i];
+                re[i] = re[j];
+                re[j] = tr;
+                final double ti = im[i];
+                im[i] = im[j];
+                im[j] = ti;
+            }
+
+            final int end = offset + n;
+
+            // first pass: two-points transforms, the twiddle factor is 1
+            for (int i = offset; i < end; i += 2) {
+                final double r = re[i + 1];
+                final double s = im[i + 1];
+                re[i + 1] = re[i] - r;
+                im[i + 1] = im[i] - s;
+                re[i]    += r;
+                im[i]    += s;
+            }
+
+            // next passes: combine pairs of half-size transforms
+            for (int half = 2, step = n >> 2; half < n; half <<= 1, step >>= 1) {
+                final int size = half << 1;
+                for (int start = offset; start < end; start += size) {
+                    for (int k = 0, t = 0; k < half; ++k, t += step) {
+                        final double wr = cos[t];
+                        final double wi = sign * sin[t];
+                        final int i = start + k;
+                        final int j = i + half;
+                        final double r = re[j] * wr - im[j] * wi;
+                        final double s = re[j] * wi + im[j] * wr;
+                        re[j]  = re[i] - r;
+                        im[j]  = im[i] - s;
+                        re[i] += r;
+                        im[i] += s;
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Mixed-radix decimation in time algorithm, for sizes with small prime
+     * factors.
+     * <p>
+     * The data are gathered in digit-reversed order into a work area, then
+     * each pass combines {@code p} transforms of size {@code m} into
+     * transforms of size {@code p m}, {@code p} being the next factor.
+     * </p>
+     */
+    private static class MixedRadix extends Algorithm {
+
+        /** Size of the transform. */
+        private final int n;
+
+        /** Factors of the size, in the order of the passes. */
+        private final int[] factors;
+
+        /** Source index of each element of the digit-reversed sequence. */
+        private final int[] permutation;
+
+        /** Values of {@code cos(2 pi k / n)}, for {@code 0 <= k < n}. */
+        private final double[] cos;
+
+        /** Values of {@code sin(2 pi k / n)}, for {@code 0 <= k < n}. */
+        private final double[] sin;
+
+        /** Per-thread work area. */
+        private final ThreadLocal<double[][]> workspace;
+
+        /**
+         * @param n Size of the transform.
+         * @param factors Factors of the size.
+         */
+        MixedRadix(final int n, final int[] factors) {
+            this.n       = n;
+            this.factors = factors;
+
+            permutation = new int[n];
+            for (int i = 0; i < n; ++i) {
+                int index  = i;
+                int length = n;
+                int pos    = 0;
+                for (int f = factors.length - 1; f >= 0; --f) {
+                    length /= factors[f];
+                    pos    += (index % factors[f]) * length;
+                    index  /= factors[f];
+                }
+                permutation[pos] = i;
+            }
+
+            cos = new double[n];
+            sin = new double[n];
+            computeTwiddles(n, cos, sin);
+
+            int maxFactor = 0;
+            for (final int f : factors) {
+                maxFactor = FastMath.max(maxFactor, f);
+            }
+            final int tempSize = maxFactor;
+            workspace = new ThreadLocal<double[][]>() {
+                /** {@inheritDoc} */
+                @Override
+                protected double[][] initialValue() {
+                    return new double[][] {
+                        new double[n], new double[n], new double[tempSize], new double[tempSize]
+                    };
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void transform(final double[] re, final double[] im,
+                       final int offset, final double sign) {
+            final double[][] w = workspace.get();
+            final double[] wr = w[0];
+            final double[] wi = w[1];
+
+            for (int i = 0; i < n; ++i) {
+                wr[i] = re[offset + permutation[i]];
+                wi[i] = im[offset + permutation[i]];
+            }
+
+            int m = 1;
+            for (final int p : factors) {
+                final int size   = m * p;
+                final int stride = n / size;
+                for (int base = 0; base < n; base += size) {
+                    for (int k = 0; k < m; ++k) {
+                        final int i0 = base + k;
+
+                        // twiddle the inputs of the butterfly
+                        if (k > 0) {
+                            for (int r = 1, t = k * stride; r < p; ++r, t += k * stride) {
+                                final int i = i0 + r * m;
+                                final double c = cos[t];
+                                final double s = sign * sin[t];
+                                final double x = wr[i];
+                                wr[i] = x * c - wi[i] * s;
+                                wi[i] = x * s + wi[i] * c;
+                            }
+                        }
+
+                        switch (p) {
+                        case 2 :
+                            butterfly2(wr, wi, i0, m);
+                            break;
+                        case 3 :
+                            butterfly3(wr, wi, i0, m, sign);
+                            break;
+                        case 4 :
+                            butterfly4(wr, wi, i0, m, sign);
+                            break;
+                        case 5 :
+                            butterfly5(wr, wi, i0, m, sign);
+                            break;
+                        default :
+                            butterfly(wr, wi, i0, m, p, sign, w[2], w[3]);
+                        }
+                    }
+                }
+                m = size;
+            }
+
+            System.arraycopy(wr, 0, re, offset, n);
+            System.arraycopy(wi, 0, im, offset, n);
+        }
+
+        /**
+         * Two-points butterfly.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param i0 Index of the first point.
+         * @param m Distance between points.
+         */
+        private static void butterfly2(final double[] re, final double[] im,
+                                       final int i0, final int m) {
+            final int i1 = i0 + m;
+            final double r = re[i1];
+            final double s = im[i1];
+            re[i1] = re[i0] - r;
+            im[i1] = im[i0] - s;
+            re[i0] += r;
+            im[i0] += s;
+        }
+
+        /**
+         * Three-points butterfly.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param i0 Index of the first point.
+         * @param m Distance between points.
+         * @param sign Sign of the exponent.
+         */
+        private static void butterfly3(final double[] re, final double[] im,
+                                       final int i0, final int m, final double sign) {
+            final int i1 = i0 + m;
+            final int i2 = i1 + m;
+            final double sr = re[i1] + re[i2];
+            final double si = im[i1] + im[i2];
+            final double h  = sign * SIN_2PI_3;
+            final double dr = h * (re[i1] - re[i2]);
+            final double di = h * (im[i1] - im[i2]);
+            final double ar = re[i0] - 0.5 * sr;
+            final double ai = im[i0] - 0.5 * si;
+            re[i0] += sr;
+            im[i0] += si;
+            re[i1]  = ar - di;
+            im[i1]  = ai + dr;
+            re[i2]  = ar + di;
+            im[i2]  = ai - dr;
+        }
+
+        /**
+         * Four-points butterfly.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param i0 Index of the first point.
+         * @param m Distance between points.
+         * @param sign Sign of the exponent.
+         */
+        private static void butterfly4(final double[] re, final double[] im,
+                                       final int i0, final int m, final double sign) {
+            final int i1 = i0 + m;
+            final int i2 = i1 + m;
+            final int i3 = i2 + m;
+            final double ar = re[i0] + re[i2];
+            final double ai = im[i0] + im[i2];
+            final double br = re[i0] - re[i2];
+            final double bi = im[i0] - im[i2];
+            final double cr = re[i1] + re[i3];
+            final double ci = im[i1] + im[i3];
+            // (sign * i) * (t1 - t3)
+            final double dr = -sign * (im[i1] - im[i3]);
+            final double di =  sign * (re[i1] - re[i3]);
+            re[i0] = ar + cr;
+            im[i0] = ai + ci;
+            re[i1] = br + dr;
+            im[i1] = bi + di;
+            re[i2] = ar - cr;
+            im[i2] = ai - ci;
+            re[i3] = br - dr;
+            im[i3] = bi - di;
+        }
+
+        /**
+         * Five-points butterfly.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param i0 Index of the first point.
+         * @param m Distance between points.
+         * @param sign Sign of the exponent.
+         */
+        private static void butterfly5(final double[] re, final double[] im,
+                                       final int i0, final int m, final double sign) {
+            final int i1 = i0 + m;
+            final int i2 = i1 + m;
+            final int i3 = i2 + m;
+            final int i4 = i3 + m;
+            final double s14r = re[i1] + re[i4];
+            final double s14i = im[i1] + im[i4];
+            final double d14r = re[i1] - re[i4];
+            final double d14i = im[i1] - im[i4];
+            final double s23r = re[i2] + re[i3];
+            final double s23i = im[i2] + im[i3];
+            final double d23r = re[i2] - re[i3];
+            final double d23i = im[i2] - im[i3];
+
+            final double a1r = re[i0] + COS_2PI_5 * s14r + COS_4PI_5 * s23r;
+            final double a1i = im[i0] + COS_2PI_5 * s14i + COS_4PI_5 * s23i;
+            final double a2r = re[i0] + COS_4PI_5 * s14r + COS_2PI_5 * s23r;
+            final double a2i = im[i0] + COS_4PI_5 * s14i + COS_2PI_5 * s23i;
+
+            // b1 = (sign * i) * (sin(2pi/5) d14 + sin(4pi/5) d23)
+            // b2 = (sign * i) * (sin(4pi/5) d14 - sin(2pi/5) d23)
+            final double b1r = -sign * (SIN_2PI_5 * d14i + SIN_4PI_5 * d23i);
+            final double b1i =  sign * (SIN_2PI_5 * d14r + SIN_4PI_5 * d23r);
+            final double b2r = -sign * (SIN_4PI_5 * d14i - SIN_2PI_5 * d23i);
+            final double b2i =  sign * (SIN_4PI_5 * d14r - SIN_2PI_5 * d23r);
+
+            re[i0] += s14r + s23r;
+            im[i0] += s14i + s23i;
+            re[i1]  = a1r + b1r;
+            im[i1]  = a1i + b1i;
+            re[i4]  = a1r - b1r;
+            im[i4]  = a1i - b1i;
+            re[i2]  = a2r + b2r;
+            im[i2]  = a2i + b2i;
+            re[i3]  = a2r - b2r;
+            im[i3]  = a2i - b2i;
+        }
+
+        /**
+         * Generic butterfly, computing a direct transform of the points.
+         *
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param i0 Index of the first point.
+         * @param m Distance between points.
+         * @param p Number of points.
+         * @param sign Sign of the exponent.
+         * @param tr Work array for real parts (length at least {@code p}).
+         * @param ti Work array for imaginary parts (length at least {@code p}).
+         */
+        private void butterfly(final double[] re, final double[] im,
+                               final int i0, final int m, final int p,
+                               final double sign,
+                               final double[] tr, final double[] ti) {
+            for (int r = 0; r < p; ++r) {
+                tr[r] = re[i0 + r * m];
+                ti[r] = im[i0 + r * m];
+            }
+            final int step = n / p;
+            for (int q = 0; q < p; ++q) {
+                double sr = tr[0];
+                double si = ti[0];
+                for (int r = 1, e = q; r < p; ++r, e = (e + q) % p) {
+                    final double c = cos[e * step];
+                    final double s = sign * sin[e * step];
+                    sr += tr[r] * c - ti[r] * s;
+                    si += tr[r] * s + ti[r] * c;
+                }
+                re[i0 + q * m] = sr;
+                im[i0 + q * m] = si;
+            }
+        }
+
+    }
+
+    /**
+     * Bluestein's algorithm, for sizes with a large prime factor.
+     * <p>
+     * Using {@code jk = (j<sup>2</sup> + k<sup>2</sup> - (k - j)<sup>2</sup>) / 2},
+     * the transform is written as the convolution of the data multiplied by
+     * a chirp with the conjugate chirp. The convolution is computed by
+     * power-of-two transforms of size at least {@code 2 n - 1}.
+     * </p>
+     */
+    private static class Bluestein extends Algorithm {
+
+        /** Size of the transform. */
+        private final int n;
+
+        /** Power-of-two transform used for the convolution. */
+        private final FastFourierTransformPlan convolution;
+
+        /** Real parts of the chirp {@code exp(i pi k<sup>2</sup> / n)}. */
+        private final double[] chirpRe;
+
+        /** Imaginary parts of the chirp {@code exp(i pi k<sup>2</sup> / n)}. */
+        private final double[] chirpIm;
+
+        /** Real parts of the transformed kernel, for forward transforms. */
+        private final double[] forwardKernelRe;
+
+        /** Imaginary parts of the transformed kernel, for forward transforms. */
+        private final double[] forwardKernelIm;
+
+        /** Real parts of the transformed kernel, for inverse transforms. */
+        private final double[] inverseKernelRe;
+
+        /** Imaginary parts of the transformed kernel, for inverse transforms. */
+        private final double[] inverseKernelIm;
+
+        /** Per-thread work area. */
+        private final ThreadLocal<double[][]> workspace;
+
+        /**
+         * @param n Size of the transform.
+         */
+        Bluestein(final int n) {
+            this.n = n;
+            final int m = Integer.highestOneBit(2 * n - 1) << 1;
+            convolution = new FastFourierTransformPlan(m, DftNormalization.STANDARD);
+
+            chirpRe = new double[n];
+            chirpIm = new double[n];
+            final long twoN = 2l * n;
+            for (int k = 0; k < n; ++k) {
+                // reduce k^2 modulo 2n to preserve accuracy
+                final double theta = FastMath.PI * (((long) k * k) % twoN) / n;
+                chirpRe[k] = FastMath.cos(theta);
+                chirpIm[k] = FastMath.sin(theta);
+            }
+
+            forwardKernelRe = new double[m];
+            forwardKernelIm = new double[m];
+            inverseKernelRe = new double[m];
+            inverseKernelIm = new double[m];
+            for (int k = 0; k < n; ++k) {
+                forwardKernelRe[k] = chirpRe[k];
+                forwardKernelIm[k] = chirpIm[k];
+                inverseKernelRe[k] = chirpRe[k];
+                inverseKernelIm[k] = -chirpIm[k];
+                if (k > 0) {
+                    forwardKernelRe[m - k] = forwardKernelRe[k];
+                    forwardKernelIm[m - k] = forwardKernelIm[k];
+                    inverseKernelRe[m - k] = inverseKernelRe[k];
+                    inverseKernelIm[m - k] = inverseKernelIm[k];
+                }
+            }
+            convolution.transform(forwardKernelRe, forwardKernelIm, TransformType.FORWARD);
+            convolution.transform(inverseKernelRe, inverseKernelIm, TransformType.FORWARD);
+
+            workspace = new ThreadLocal<double[][]>() {
+                /** {@inheritDoc} */
+                @Override
+                protected double[][] initialValue() {
+                    return new double[][] { new double[m], new double[m] };
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void transform(final double[] re, final double[] im,
+                       final int offset, final double sign) {
+            final double[][] w = workspace.get();
+            final double[] ar  = w[0];
+            final double[] ai  = w[1];
+            final int m = ar.length;
+
+            // the kernel is the chirp exp(-sign i pi k^2 / n)
+            final double[] kr = sign < 0 ? forwardKernelRe : inverseKernelRe;
+            final double[] ki = sign < 0 ? forwardKernelIm : inverseKernelIm;
+
+            // multiply the data by the conjugate chirp
+            for (int k = 0; k < n; ++k) {
+                final double cr = chirpRe[k];
+                final double ci = sign * chirpIm[k];
+                final double xr = re[offset + k];
+                final double xi = im[offset + k];
+                ar[k] = xr * cr - xi * ci;
+                ai[k] = xi * cr + xr * ci;
+            }
+            for (int k = n; k < m; ++k) {
+                ar[k] = 0;
+                ai[k] = 0;
+            }
+
+            // convolve with the chirp
+            convolution.transform(ar, ai, 0, TransformType.FORWARD);
+            for (int k = 0; k < m; ++k) {
+                final double x = ar[k];
+                ar[k] = x * kr[k] - ai[k] * ki[k];
+                ai[k] = x * ki[k] + ai[k] * kr[k];
+            }
+            convolution.transform(ar, ai, 0, TransformType.INVERSE);
+
+            // multiply the result by the conjugate chirp
+            for (int k = 0; k < n; ++k) {
+                final double cr = chirpRe[k];
+                final double ci = sign * chirpIm[k];
+                re[offset + k] = ar[k] * cr - ai[k] * ci;
+                im[offset + k] = ai[k] * cr + ar[k] * ci;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ArithmeticUtils;
+
+/**
+ * Precomputed fast Hadamard transform.
+ * <p>
+ * This plan computes the same transform as {@link FastHadamardTransformer},
+ * on sequences whose size is a power of two. The sequences are transformed
+ * in place by {@code log2(n)} passes of additions and subtractions, without
+ * any work area.
+ * </p>
+ *
+ * @see FastHadamardTransformer
+ * @version $Id$
+ * @since 3.3
+ */
+public class FastHadamardTransformPlan extends RealTransformPlan {
+
+    /** Scaling factor applied after inverse transforms. */
+    private final double inverseScale;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the sequences.
+     * @throws MathIllegalArgumentException if {@code n} is not a power of two.
+     */
+    public FastHadamardTransformPlan(final int n)
+        throws MathIllegalArgumentException {
+        super(n);
+        if (!ArithmeticUtils.isPowerOfTwo(n)) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NOT_POWER_OF_TWO,
+                                                   Integer.valueOf(n));
+        }
+        inverseScale = 1.0 / n;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    double[][] createWorkspace() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void transformBlock(final double[] data, final int offset,
+                        final TransformType type, final double[][] work) {
+        final int end = offset + getSize();
+        for (int h = 1; h < getSize(); h <<= 1) {
+            for (int i = offset; i < end; i += h << 1) {
+                for (int j = i; j < i + h; ++j) {
+                    final double a = data[j];
+                    final double b = data[j + h];
+                    data[j]     = a + b;
+                    data[j + h] = a - b;
+                }
+            }
+        }
+        if (type == TransformType.INVERSE) {
+            for (int i = offset; i < end; ++i) {
+                data[i] *= inverseScale;
+            }
+        }
+    }
+
+}
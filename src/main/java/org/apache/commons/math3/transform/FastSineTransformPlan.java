@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ArithmeticUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed fast sine transform (DST-I).
+ * <p>
+ * This plan computes the same transform as {@link FastSineTransformer},
+ * with the same {@link DstNormalization normalization conventions}, on
+ * sequences whose size is a power of two and whose first element is zero.
+ * The trigonometric table and the underlying real Fourier transform are
+ * computed once.
+ * </p>
+ *
+ * @see FastSineTransformer
+ * @version $Id$
+ * @since 3.3
+ */
+public class FastSineTransformPlan extends RealTransformPlan {
+
+    /** Normalization convention. */
+    private final DstNormalization normalization;
+
+    /** Underlying Fourier transform, of size {@code getSize()}. */
+    private final RealFastFourierTransformPlan fft;
+
+    /** Values of {@code sin(pi i / getSize())}. */
+    private final double[] sin;
+
+    /** Scaling factor applied after forward transforms. */
+    private final double forwardScale;
+
+    /** Scaling factor applied after inverse transforms. */
+    private final double inverseScale;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the sequences.
+     * @param normalization Normalization convention.
+     * @throws MathIllegalArgumentException if {@code n} is not a power of two.
+     */
+    public FastSineTransformPlan(final int n, final DstNormalization normalization)
+        throws MathIllegalArgumentException {
+        super(n);
+        if (!ArithmeticUtils.isPowerOfTwo(n)) {
+            throw new MathIllegalArgumentException(LocalizedFormats.NOT_POWER_OF_TWO_CONSIDER_PADDING,
+                                                   Integer.valueOf(n));
+        }
+        this.normalization = normalization;
+
+        fft = n > 1 ? new RealFastFourierTransformPlan(n, DftNormalization.STANDARD) : null;
+        sin = new double[n >> 1];
+        for (int i = 0; i < (n >> 1); ++i) {
+            sin[i] = FastMath.sin(i * FastMath.PI / n);
+        }
+
+        if (normalization == DstNormalization.ORTHOGONAL_DST_I) {
+            forwardScale = FastMath.sqrt(2.0 / n);
+            inverseScale = forwardScale;
+        } else {
+            forwardScale = 1.0;
+            inverseScale = 2.0 / n;
+        }
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DstNormalization getNormalization() {
+        return normalization;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    double[][] createWorkspace() {
+        final int n = getSize();
+        return new double[][] {
+            new double[n], new double[(n >> 1) + 1], new double[(n >> 1) + 1]
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws MathIllegalArgumentException if the first element of the
+     * sequence is not zero.
+     */
+    @Override
+    void checkBlock(final double[] data, final int offset)
+        throws MathIllegalArgumentException {
+        if (data[offset] != 0.0) {
+            throw new MathIllegalArgumentException(LocalizedFormats.FIRST_ELEMENT_NOT_ZERO,
+                                                   Double.valueOf(data[offset]));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void transformBlock(final double[] data, final int offset,
+                        final TransformType type, final double[][] work) {
+        final double scale = type == TransformType.FORWARD ? forwardScale : inverseScale;
+        final int n = getSize();
+        if (n == 1) {
+            data[offset] = 0.0;
+            return;
+        }
+
+        // same algorithm as FastSineTransformer.fst
+        final double[] x  = work[0];
+        final double[] re = work[1];
+        final double[] im = work[2];
+        x[0] = 0.0;
+        x[n >> 1] = 2.0 * data[offset + (n >> 1)];
+        for (int i = 1; i < (n >> 1); i++) {
+            final double fi  = data[offset + i];
+            final double fni = data[offset + n - i];
+            final double a = sin[i] * (fi + fni);
+            final double b = 0.5 * (fi - fni);
+            x[i]     = a + b;
+            x[n - i] = a - b;
+        }
+        fft.transform(x, re, im);
+
+        data[offset] = 0.0;
+        double previous = 0.5 * re[0];
+        data[offset + 1] = scale * previous;
+        for (int i = 1; i < (n >> 1); i++) {
+            final double odd = re[i] + previous;
+            data[offset + 2 * i]     = -scale * im[i];
+            data[offset + 2 * i + 1] = scale * odd;
+            previous = odd;
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed multi-dimensional fast Fourier transform.
+ * <p>
+ * This class is the counterpart of {@link FastFourierTransformPlan} for
+ * data having several dimensions, such as images (2D) or volumes (3D).
+ * Instead of the nested arrays of {@link org.apache.commons.math3.complex.Complex
+ * Complex} used by the deprecated {@link FastFourierTransformer#mdfft(Object,
+ * TransformType)}, the data are stored in two flat arrays holding the real
+ * and imaginary parts, in row-major order: for dimensions
+ * {@code (n0, n1, n2)}, element {@code (i0, i1, i2)} is stored at index
+ * {@code (i0 * n1 + i1) * n2 + i2}.
+ * </p>
+ * <p>
+ * The transform is computed one axis after the other, each axis being
+ * transformed by a one-dimensional plan applied to all the lines parallel
+ * to it. Lines along the last axis are contiguous and are transformed in
+ * place; lines along the other axes are gathered by blocks of neighbouring
+ * lines, which keeps memory accesses sequential. As the lines of an axis
+ * are independent, they can be distributed among the threads of an
+ * {@link ExecutorService}.
+ * </p>
+ * <p>
+ * The normalization applies to the whole transform; for example with
+ * {@link DftNormalization#STANDARD}, the inverse transform is divided by
+ * the total number of elements.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared by
+ * several threads transforming different buffers.
+ * </p>
+ *
+ * @see FastFourierTransformPlan
+ * @version $Id$
+ * @since 3.3
+ */
+public class MultiDimensionalFastFourierTransformPlan {
+
+    /** Number of lines gathered together when transforming along a non-contiguous axis. */
+    private static final int BLOCK = 16;
+
+    /** Dimensions of the data. */
+    private final int[] dimensions;
+
+    /** Total number of elements. */
+    private final int size;
+
+    /** Normalization convention. */
+    private final DftNormalization normalization;
+
+    /** One-dimensional plans, one per axis. */
+    private final FastFourierTransformPlan[] plans;
+
+    /**
+     * Creates a plan.
+     *
+     * @param dimensions Dimensions of the data.
+     * @param normalization Normalization convention.
+     * @throws NoDataException if {@code dimensions} is empty.
+     * @throws NotStrictlyPositiveException if a dimension is not strictly
+     * positive.
+     * @throws NumberIsTooLargeException if the total number of elements is
+     * larger than {@code Integer.MAX_VALUE}.
+     */
+    public MultiDimensionalFastFourierTransformPlan(final int[] dimensions,
+                                                    final DftNormalization normalization)
+        throws NoDataException, NotStrictlyPositiveException, NumberIsTooLargeException {
+        if (dimensions.length == 0) {
+            throw new NoDataException();
+        }
+        long total = 1;
+        for (final int n : dimensions) {
+            if (n <= 0) {
+                throw new NotStrictlyPositiveException(LocalizedFormats.NOT_POSITIVE_NUMBER_OF_SAMPLES, n);
+            }
+            total *= n;
+            if (total > Integer.MAX_VALUE) {
+                throw new NumberIsTooLargeException(total, Integer.MAX_VALUE, true);
+            }
+        }
+        this.dimensions    = dimensions.clone();
+        this.size          = (int) total;
+        this.normalization = normalization;
+
+        // with the same convention on each axis, the normalization
+        // factors multiply to the one of the whole transform
+        plans = new FastFourierTransformPlan[dimensions.length];
+        for (int axis = 0; axis < plans.length; ++axis) {
+            for (int previous = 0; previous < axis; ++previous) {
+                if (dimensions[previous] == dimensions[axis]) {
+                    plans[axis] = plans[previous];
+                }
+            }
+            if (plans[axis] == null) {
+                plans[axis] = new FastFourierTransformPlan(dimensions[axis], normalization);
+            }
+        }
+    }
+
+    /**
+     * Get the dimensions of the data.
+     *
+     * @return a copy of the dimensions of the data.
+     */
+    public int[] getDimensions() {
+        return dimensions.clone();
+    }
+
+    /**
+     * Get the total number of elements.
+     *
+     * @return the product of the dimensions.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DftNormalization getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * Computes the transform in place, in the calling thread.
+     *
+     * @param re Real parts of the data, in row-major order, replaced by the
+     * real parts of the transform.
+     * @param im Imaginary parts of the data, in row-major order, replaced by
+     * the imaginary parts of the transform.
+     * @param type Type of transform.
+     * @throws DimensionMismatchException if the length of {@code re} or
+     * {@code im} is not the {@link #getSize() size} of the plan.
+     */
+    public void transform(final double[] re, final double[] im, final TransformType type)
+        throws DimensionMismatchException {
+        transform(re, im, type, null);
+    }
+
+    /**
+     * Computes the transform in place, using an executor.
+     * <p>
+     * For each axis, the lines parallel to the axis are split into tasks
+     * submitted to the executor; this method returns once all axes have
+     * been transformed.
+     * </p>
+     *
+     * @param re Real parts of the data, in row-major order, replaced by the
+     * real parts of the transform.
+     * @param im Imaginary parts of the data, in row-major order, replaced by
+     * the imaginary parts of the transform.
+     * @param type Type of transform.
+     * @param executor Executor running the tasks (if {@code null}, the
+     * transform is computed in the calling thread).
+     * @throws DimensionMismatchException if the length of {@code re} or
+     * {@code im} is not the {@link #getSize() size} of the plan.
+     * @throws MathIllegalStateException if the calling thread is interrupted.
+     */
+    public void transform(final double[] re, final double[] im, final TransformType type,
+                          final ExecutorService executor)
+        throws DimensionMismatchException, MathIllegalStateException {
+        if (re.length != size) {
+            throw new DimensionMismatchException(re.length, size);
+        }
+        if (im.length != size) {
+            throw new DimensionMismatchException(im.length, size);
+        }
+
+        final int parallelism = executor == null ? 1 : 4 * ConcurrencyUtils.getDefaultParallelism();
+        int stride = 1;
+        for (int axis = dimensions.length - 1; axis >= 0; --axis) {
+            if (dimensions[axis] > 1) {
+                // a line is identified by its outer index and its inner index (< stride)
+                final int outer  = size / (dimensions[axis] * stride);
+                final int blocks = stride == 1 ? 1 : (stride + BLOCK - 1) / BLOCK;
+                final int units  = outer * blocks;
+                final int tasks  = FastMath.min(units, parallelism);
+                final List<Callable<Void>> list = new ArrayList<Callable<Void>>(tasks);
+                for (int t = 0; t < tasks; ++t) {
+                    final long first = ((long) units * t) / tasks;
+                    final long last  = ((long) units * (t + 1)) / tasks;
+                    list.add(new AxisTask(re, im, type, axis, stride, blocks,
+                                          (int) first, (int) last));
+                }
+                ConcurrencyUtils.invokeAll(executor, list);
+            }
+            stride *= dimensions[axis];
+        }
+    }
+
+    /** Transform of a range of lines along one axis. */
+    private class AxisTask implements Callable<Void> {
+
+        /** Real parts of the data. */
+        private final double[] re;
+
+        /** Imaginary parts of the data. */
+        private final double[] im;
+
+        /** Type of transform. */
+        private final TransformType type;
+
+        /** Axis. */
+        private final int axis;
+
+        /** Distance between consecutive elements of a line. */
+        private final int stride;
+
+        /** Number of blocks of lines per outer index. */
+        private final int blocks;
+
+        /** First unit (block of lines) to transform. */
+        private final int first;
+
+        /** Index after the last unit to transform. */
+        private final int last;
+
+        /**
+         * @param re Real parts of the data.
+         * @param im Imaginary parts of the data.
+         * @param type Type of transform.
+         * @param axis Axis.
+         * @param stride Distance between consecutive elements of a line.
+         * @param blocks Number of blocks of lines per outer index.
+         * @param first First unit (block of lines) to transform.
+         * @param last Index after the last unit to transform.
+         */
+        AxisTask(final double[] re, final double[] im, final TransformType type,
+                 final int axis, final int stride, final int blocks,
+                 final int first, final int last) {
+            this.re     = re;
+            this.im     = im;
+            this.type   = type;
+            this.axis   = axis;
+            this.stride = stride;
+            this.blocks = blocks;
+            this.first  = first;
+            this.last   = last;
+        }
+
+        /** {@inheritDoc} */
+        public Void call() {
+            final FastFourierTransformPlan plan = plans[axis];
+            final int n = dimensions[axis];
+
+            if (stride == 1) {
+                // contiguous lines
+                for (int u = first; u < last; ++u) {
+                    plan.transform(re, im, u * n, type);
+                }
+                return null;
+            }
+
+            // gather blocks of neighbouring lines into contiguous buffers
+            final double[] bufRe = new double[BLOCK * n];
+            final double[] bufIm = new double[BLOCK * n];
+            for (int u = first; u < last; ++u) {
+                final int o     = u / blocks;
+                final int start = (u % blocks) * BLOCK;
+                final int width = FastMath.min(BLOCK, stride - start);
+                final int base  = o * n * stride + start;
+
+                for (int k = 0; k < n; ++k) {
+                    final int src = base + k * stride;
+                    for (int j = 0; j < width; ++j) {
+                        bufRe[j * n + k] = re[src + j];
+                        bufIm[j * n + k] = im[src + j];
+                    }
+                }
+                for (int j = 0; j < width; ++j) {
+                    plan.transform(bufRe, bufIm, j * n, type);
+                }
+                for (int k = 0; k < n; ++k) {
+                    final int dst = base + k * stride;
+                    for (int j = 0; j < width; ++j) {
+                        re[dst + j] = bufRe[j * n + k];
+                        im[dst + j] = bufIm[j * n + k];
+                    }
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed fast Fourier transform of real sequences of a fixed size.
+ * <p>
+ * The transform of a real sequence {@code x} of size {@code n} is
+ * Hermitian: {@code y[n - k]} is the conjugate of {@code y[k]}. This class
+ * therefore only computes and stores the {@code n / 2 + 1} first
+ * coefficients (integer division), as two arrays holding their real and
+ * imaginary parts.
+ * </p>
+ * <p>
+ * For even sizes, the even- and odd-indexed samples are packed into a
+ * complex sequence of size {@code n / 2}, whose transform is then split;
+ * this halves both the work and the memory needed by a complex transform.
+ * Odd sizes are handled by a complex transform of size {@code n}. Like
+ * {@link FastFourierTransformPlan}, which it relies on, any size is
+ * supported.
+ * </p>
+ * <p>
+ * The normalization conventions are those of {@link
+ * FastFourierTransformPlan}: {@link #inverseTransform(double[], double[],
+ * double[])} is the inverse of {@link #transform(double[], double[],
+ * double[])}.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared by
+ * several threads transforming different buffers. Work areas, when needed,
+ * are allocated the first time each thread uses the plan.
+ * </p>
+ *
+ * @see FastFourierTransformPlan
+ * @version $Id$
+ * @since 3.3
+ */
+public class RealFastFourierTransformPlan {
+
+    /** Size of the transform. */
+    private final int n;
+
+    /** Normalization convention. */
+    private final DftNormalization normalization;
+
+    /**
+     * Underlying complex transform, with standard normalization: of size
+     * {@code n / 2} if {@code n} is even, of size {@code n} otherwise.
+     */
+    private final FastFourierTransformPlan complex;
+
+    /** Values of {@code cos(2 pi k / n)}, for {@code 0 <= k <= n / 4} ({@code n} even). */
+    private final double[] cos;
+
+    /** Values of {@code sin(2 pi k / n)}, for {@code 0 <= k <= n / 4} ({@code n} even). */
+    private final double[] sin;
+
+    /** Scaling factor applied after forward transforms. */
+    private final double forwardScale;
+
+    /** Scaling factor applied after inverse transforms. */
+    private final double inverseScale;
+
+    /** Per-thread work area. */
+    private final ThreadLocal<double[][]> workspace;
+
+    /**
+     * Creates a plan.
+     *
+     * @param n Size of the transform.
+     * @param normalization Normalization convention.
+     * @throws NotStrictlyPositiveException if {@code n <= 0}.
+     */
+    public RealFastFourierTransformPlan(final int n,
+                                        final DftNormalization normalization)
+        throws NotStrictlyPositiveException {
+        // creating the complex plan checks n
+        final boolean even = (n & 0x1) == 0;
+        complex = new FastFourierTransformPlan(even ? n / 2 : n, DftNormalization.STANDARD);
+        this.n             = n;
+        this.normalization = normalization;
+
+        if (even) {
+            final int quarter = n / 4;
+            cos = new double[quarter + 1];
+            sin = new double[quarter + 1];
+            FastFourierTransformPlan.computeTwiddles(n, cos, sin);
+        } else {
+            cos = null;
+            sin = null;
+        }
+
+        // the complex plan already divides inverse transforms by n
+        if (normalization == DftNormalization.UNITARY) {
+            forwardScale = 1.0 / FastMath.sqrt(n);
+            inverseScale = FastMath.sqrt(n);
+        } else {
+            forwardScale = 1.0;
+            inverseScale = 1.0;
+        }
+
+        final int workSize = complex.getSize();
+        workspace = new ThreadLocal<double[][]>() {
+            /** {@inheritDoc} */
+            @Override
+            protected double[][] initialValue() {
+                return new double[][] { new double[workSize], new double[workSize] };
+            }
+        };
+    }
+
+    /**
+     * Get the size of the transform.
+     *
+     * @return the size of the (real) data.
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Get the number of coefficients of the transform.
+     *
+     * @return {@code n / 2 + 1}, where {@code n} is the size of the data.
+     */
+    public int getSpectrumSize() {
+        return n / 2 + 1;
+    }
+
+    /**
+     * Get the normalization convention.
+     *
+     * @return the normalization convention.
+     */
+    public DftNormalization getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * Computes the forward transform of a real sequence.
+     *
+     * @param x Data (left unchanged).
+     * @param re Array where the real parts of the {@link #getSpectrumSize()}
+     * first coefficients of the transform are stored.
+     * @param im Array where the imaginary parts of the {@link
+     * #getSpectrumSize()} first coefficients of the transform are stored.
+     * @throws DimensionMismatchException if the length of {@code x} is not
+     * the size of the plan, or if the length of {@code re} or {@code im}
+     * is not the size of the spectrum.
+     */
+    public void transform(final double[] x, final double[] re, final double[] im)
+        throws DimensionMismatchException {
+        checkLengths(x, re, im);
+        final int size = complex.getSize();
+
+        if (size == n) {
+            // odd size: use a full complex transform
+            final double[][] w = workspace.get();
+            final double[] wr = w[0];
+            final double[] wi = w[1];
+            System.arraycopy(x, 0, wr, 0, n);
+            for (int i = 0; i < n; ++i) {
+                wi[i] = 0;
+            }
+            complex.transform(wr, wi, 0, TransformType.FORWARD);
+            for (int k = 0; k < re.length; ++k) {
+                re[k] = forwardScale * wr[k];
+                im[k] = forwardScale * wi[k];
+            }
+            return;
+        }
+
+        // pack even and odd samples as a complex sequence of size n / 2
+        final int h = size;
+        for (int j = 0; j < h; ++j) {
+            re[j] = x[2 * j];
+            im[j] = x[2 * j + 1];
+        }
+        complex.transform(re, im, 0, TransformType.FORWARD);
+
+        // split the transform: if z = e + i o, then Z[k] = E[k] + i O[k]
+        // and X[k] = E[k] + exp(-2 i pi k / n) O[k]
+        final double z0r = re[0];
+        final double z0i = im[0];
+        re[0] = forwardScale * (z0r + z0i);
+        im[0] = 0;
+        re[h] = forwardScale * (z0r - z0i);
+        im[h] = 0;
+        // as k <= n / 4, the twiddle factors are read from the table
+        for (int k = 1; k <= h - k; ++k) {
+            final int l = h - k;
+            final double er = 0.5 * (re[k] + re[l]);
+            final double ei = 0.5 * (im[k] - im[l]);
+            final double or = 0.5 * (im[k] + im[l]);
+            final double oi = 0.5 * (re[l] - re[k]);
+            final double wr = cos[k];
+            final double wi = -sin[k];
+            final double tr = wr * or - wi * oi;
+            final double ti = wr * oi + wi * or;
+            re[k] = forwardScale * (er + tr);
+            im[k] = forwardScale * (ei + ti);
+            re[l] = forwardScale * (er - tr);
+            im[l] = forwardScale * (ti - ei);
+        }
+    }
+
+    /**
+     * Computes the inverse transform of a Hermitian sequence.
+     * <p>
+     * Only the {@link #getSpectrumSize()} first coefficients of the sequence
+     * are provided, the other ones being their conjugates. The imaginary
+     * parts of the coefficients which must be real ({@code im[0]}, and
+     * {@code im[n / 2]} for even {@code n}) are ignored.
+     * </p>
+     *
+     * @param re Real parts of the coefficients (left unchanged).
+     * @param im Imaginary parts of the coefficients (left unchanged).
+     * @param x Array where the (real) inverse transform is stored.
+     * @throws DimensionMismatchException if the length of {@code x} is not
+     * the size of the plan, or if the length of {@code re} or {@code im}
+     * is not the size of the spectrum.
+     */
+    public void inverseTransform(final double[] re, final double[] im, final double[] x)
+        throws DimensionMismatchException {
+        checkLengths(x, re, im);
+        final int size = complex.getSize();
+        final double[][] w = workspace.get();
+        final double[] zr = w[0];
+        final double[] zi = w[1];
+
+        if (size == n) {
+            // odd size: rebuild the full sequence and use a complex transform
+            zr[0] = re[0];
+            zi[0] = 0;
+            for (int k = 1; k < re.length; ++k) {
+                zr[k]     = re[k];
+                zi[k]     = im[k];
+                zr[n - k] = re[k];
+                zi[n - k] = -im[k];
+            }
+            complex.transform(zr, zi, 0, TransformType.INVERSE);
+            for (int i = 0; i < n; ++i) {
+                x[i] = inverseScale * zr[i];
+            }
+            return;
+        }
+
+        // rebuild Z[k] = E[k] + i O[k], with E[k] = (X[k] + conj(X[h - k])) / 2
+        // and O[k] = exp(2 i pi k / n) (X[k] - conj(X[h - k])) / 2
+        final int h = size;
+        zr[0] = 0.5 * (re[0] + re[h]);
+        zi[0] = 0.5 * (re[0] - re[h]);
+        for (int k = 1; k <= h - k; ++k) {
+            final int l = h - k;
+            final double er = 0.5 * (re[k] + re[l]);
+            final double ei = 0.5 * (im[k] - im[l]);
+            final double dr = 0.5 * (re[k] - re[l]);
+            final double di = 0.5 * (im[k] + im[l]);
+            final double wr = cos[k];
+            final double wi = sin[k];
+            final double or = dr * wr - di * wi;
+            final double oi = dr * wi + di * wr;
+            zr[k] = er - oi;
+            zi[k] = ei + or;
+            zr[l] = er + oi;
+            zi[l] = or - ei;
+        }
+        complex.transform(zr, zi, 0, TransformType.INVERSE);
+
+        for (int j = 0; j < h; ++j) {
+            x[2 * j]     = inverseScale * zr[j];
+            x[2 * j + 1] = inverseScale * zi[j];
+        }
+    }
+
+    /**
+     * Check the lengths of the arrays.
+     *
+     * @param x Real data.
+     * @param re Real parts of the coefficients.
+     * @param im Imaginary parts of the coefficients.
+     * @throws DimensionMismatchException if a length is wrong.
+     */
+    private void checkLengths(final double[] x, final double[] re, final double[] im)
+        throws DimensionMismatchException {
+        if (x.length != n) {
+            throw new DimensionMismatchException(x.length, n);
+        }
+        final int spectrumSize = getSpectrumSize();
+        if (re.length != spectrumSize) {
+            throw new DimensionMismatchException(re.length, spectrumSize);
+        }
+        if (im.length != spectrumSize) {
+            throw new DimensionMismatchException(im.length, spectrumSize);
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.ConcurrencyUtils;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Precomputed in-place transform of real sequences of a fixed size.
+ * <p>
+ * This class is the base of the precomputed counterparts of the {@link
+ * RealTransformer} implementations. The constants of a transform (tables
+ * of trigonometric values, underlying Fourier transform) are computed
+ * once when the plan is built, and the data are transformed in place, so
+ * that transforming a sequence allocates no memory. This makes plans
+ * suited to transforming many short sequences, as in block-based signal
+ * or image processing.
+ * </p>
+ * <p>
+ * The sequences may be stored as consecutive blocks of a single array;
+ * {@link #transformBlocks(double[], int, int, TransformType, ExecutorService)
+ * transformBlocks} then transforms all of them, optionally distributing
+ * the blocks among the threads of an {@link ExecutorService}.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared by
+ * several threads transforming different buffers. Work areas, when needed,
+ * are allocated the first time each thread uses the plan.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public abstract class RealTransformPlan {
+
+    /** Size of the sequences. */
+    private final int size;
+
+    /** Per-thread work areas. */
+    private final ThreadLocal<double[][]> workspace;
+
+    /**
+     * Simple constructor.
+     *
+     * @param size Size of the sequences.
+     */
+    RealTransformPlan(final int size) {
+        this.size = size;
+        workspace = new ThreadLocal<double[][]>() {
+            /** {@inheritDoc} */
+            @Override
+            protected double[][] initialValue() {
+                return createWorkspace();
+            }
+        };
+    }
+
+    /**
+     * Get the size of the transform.
+     *
+     * @return the size of the sequences.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Transforms one sequence in place.
+     *
+     * @param data Array containing the sequence, replaced by its transform.
+     * @param offset Index of the first element of the sequence in {@code data}.
+     * @param type Type of transform.
+     * @throws OutOfRangeException if the sequence does not fit in {@code data}.
+     * @throws MathIllegalArgumentException if the sequence cannot be
+     * transformed.
+     */
+    public void transform(final double[] data, final int offset, final TransformType type)
+        throws OutOfRangeException, MathIllegalArgumentException {
+        if (offset < 0 || offset > data.length - size) {
+            throw new OutOfRangeException(offset, 0, data.length - size);
+        }
+        checkBlock(data, offset);
+        transformBlock(data, offset, type, workspace.get());
+    }
+
+    /**
+     * Transforms consecutive sequences in place, in the calling thread.
+     *
+     * @param data Array containing the sequences, replaced by their transforms.
+     * @param offset Index of the first element of the first sequence.
+     * @param count Number of sequences.
+     * @param type Type of transform.
+     * @throws OutOfRangeException if the sequences do not fit in {@code data}.
+     * @throws MathIllegalArgumentException if one of the sequences cannot be
+     * transformed.
+     */
+    public void transformBlocks(final double[] data, final int offset, final int count,
+                                final TransformType type)
+        throws OutOfRangeException, MathIllegalArgumentException {
+        transformBlocks(data, offset, count, type, null);
+    }
+
+    /**
+     * Transforms consecutive sequences in place, using an executor.
+     * <p>
+     * Sequence {@code b} occupies the elements of {@code data} from index
+     * {@code offset + b * getSize()} included to index
+     * {@code offset + (b + 1) * getSize()} excluded. All sequences are
+     * checked before any of them is transformed, so that {@code data} is
+     * left unchanged if an exception is thrown.
+     * </p>
+     *
+     * @param data Array containing the sequences, replaced by their transforms.
+     * @param offset Index of the first element of the first sequence.
+     * @param count Number of sequences.
+     * @param type Type of transform.
+     * @param executor Executor running the tasks (if {@code null}, the
+     * sequences are transformed in the calling thread).
+     * @throws OutOfRangeException if the sequences do not fit in {@code data}.
+     * @throws MathIllegalArgumentException if one of the sequences cannot be
+     * transformed.
+     * @throws MathIllegalStateException if the calling thread is interrupted.
+     */
+    public void transformBlocks(final double[] data, final int offset, final int count,
+                                final TransformType type, final ExecutorService executor)
+        throws OutOfRangeException, MathIllegalArgumentException, MathIllegalStateException {
+        if (offset < 0 || offset > data.length) {
+            throw new OutOfRangeException(offset, 0, data.length);
+        }
+        final int maxCount = (data.length - offset) / size;
+        if (count < 0 || count > maxCount) {
+            throw new OutOfRangeException(count, 0, maxCount);
+        }
+        for (int b = 0; b < count; ++b) {
+            checkBlock(data, offset + b * size);
+        }
+
+        final int parallelism = executor == null ? 1 : 4 * ConcurrencyUtils.getDefaultParallelism();
+        final int tasks = FastMath.min(count, parallelism);
+        final List<Callable<Void>> list = new ArrayList<Callable<Void>>(tasks);
+        for (int t = 0; t < tasks; ++t) {
+            final int first = (int) (((long) count * t) / tasks);
+            final int last  = (int) (((long) count * (t + 1)) / tasks);
+            list.add(new Callable<Void>() {
+                /** {@inheritDoc} */
+                public Void call() {
+                    final double[][] work = workspace.get();
+                    for (int b = first; b < last; ++b) {
+                        transformBlock(data, offset + b * size, type, work);
+                    }
+                    return null;
+                }
+            });
+        }
+        ConcurrencyUtils.invokeAll(executor, list);
+    }
+
+    /**
+     * Creates the work area of one thread.
+     *
+     * @return a work area, or {@code null} if the transform needs none.
+     */
+    abstract double[][] createWorkspace();
+
+    /**
+     * Checks that a sequence can be transformed.
+     * <p>
+     * This implementation accepts all sequences.
+     * </p>
+     *
+     * @param data Array containing the sequence.
+     * @param offset Index of the first element of the sequence.
+     * @throws MathIllegalArgumentException if the sequence cannot be
+     * transformed.
+     */
+    void checkBlock(final double[] data, final int offset)
+        throws MathIllegalArgumentException {
+    }
+
+    /**
+     * Transforms one sequence in place.
+     *
+     * @param data Array containing the sequence.
+     * @param offset Index of the first element of the sequence.
+     * @param type Type of transform.
+     * @param work Work area of the calling thread.
+     */
+    abstract void transformBlock(double[] data, int offset, TransformType type, double[][] work);
+
+}
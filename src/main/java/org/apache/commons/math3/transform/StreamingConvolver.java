@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathUtils;
+
+/**
+ * Convolution of an unbounded signal with a finite kernel.
+ * <p>
+ * This class filters a signal received in chunks of arbitrary lengths, as
+ * a finite impulse response filter would: the output sample {@code y[n]}
+ * is the sum of {@code h[k] x[n - k]}, where {@code h} is the kernel and
+ * {@code x} the concatenation of all the chunks received so far. Each call
+ * to {@link #process(double[], int, double[], int, int) process} returns
+ * as many output samples as it receives input samples, without latency;
+ * the contributions of the last samples to the following outputs are kept
+ * until the next call, or until {@link #flush()} is called at the end of
+ * the signal.
+ * </p>
+ * <p>
+ * The chunks are processed by the overlap-add method: they are split into
+ * segments which are convolved with the kernel and added to the pending
+ * contributions. Segments are convolved either directly, for short kernels,
+ * or by fast Fourier transforms of a size chosen for the kernel; the
+ * transform of the kernel is computed only once. Apart from the
+ * convenience methods returning new arrays, no memory is allocated after
+ * construction.
+ * </p>
+ * <p>
+ * Instances of this class hold the state of one signal and are <em>not</em>
+ * thread-safe.
+ * </p>
+ *
+ * @see ConvolutionUtils
+ * @version $Id$
+ * @since 3.3
+ */
+public class StreamingConvolver {
+
+    /** Length of the segments when the convolution is computed directly. */
+    private static final int DIRECT_SEGMENT = 1024;
+
+    /** Kernel. */
+    private final double[] kernel;
+
+    /** Maximal length of the segments. */
+    private final int segment;
+
+    /** Transform of size {@code segment + kernel.length - 1} ({@code null} for direct convolution). */
+    private final RealFastFourierTransformPlan plan;
+
+    /** Real part of the transform of the kernel. */
+    private final double[] kernelRe;
+
+    /** Imaginary part of the transform of the kernel. */
+    private final double[] kernelIm;
+
+    /** Real part of the spectrum of the current segment. */
+    private final double[] spectrumRe;
+
+    /** Imaginary part of the spectrum of the current segment. */
+    private final double[] spectrumIm;
+
+    /** Current segment, zero-padded. */
+    private final double[] buffer;
+
+    /** Convolution of the current segment with the kernel. */
+    private final double[] convolution;
+
+    /** Pending contributions to the next {@code kernel.length - 1} outputs. */
+    private final double[] tail;
+
+    /**
+     * Creates a convolver, choosing the method according to the length of
+     * the kernel.
+     *
+     * @param kernel Kernel (impulse response of the filter).
+     * @throws NullArgumentException if {@code kernel} is {@code null}.
+     * @throws NoDataException if {@code kernel} is empty.
+     */
+    public StreamingConvolver(final double[] kernel)
+        throws NullArgumentException, NoDataException {
+        this(check(kernel), ConvolutionUtils.blockTransformSize(kernel.length));
+    }
+
+    /**
+     * Creates a convolver using fast Fourier transforms of a given size.
+     * <p>
+     * The segments have length {@code fftSize - kernel.length + 1}; a size
+     * of a few times the length of the kernel is usually a good choice.
+     * </p>
+     *
+     * @param kernel Kernel (impulse response of the filter).
+     * @param fftSize Size of the transforms, or 0 for direct convolution of
+     * the segments.
+     * @throws NullArgumentException if {@code kernel} is {@code null}.
+     * @throws NoDataException if {@code kernel} is empty.
+     * @throws NumberIsTooSmallException if {@code fftSize} is neither 0 nor
+     * at least {@code kernel.length}.
+     */
+    public StreamingConvolver(final double[] kernel, final int fftSize)
+        throws NullArgumentException, NoDataException, NumberIsTooSmallException {
+        check(kernel);
+        final int m = kernel.length;
+        if (fftSize != 0 && fftSize < m) {
+            throw new NumberIsTooSmallException(fftSize, m, true);
+        }
+        this.kernel = kernel.clone();
+        this.tail   = new double[m - 1];
+
+        if (fftSize == 0) {
+            segment     = DIRECT_SEGMENT;
+            plan        = null;
+            kernelRe    = null;
+            kernelIm    = null;
+            spectrumRe  = null;
+            spectrumIm  = null;
+            buffer      = null;
+            convolution = new double[segment + m - 1];
+        } else {
+            segment     = fftSize - m + 1;
+            plan        = new RealFastFourierTransformPlan(fftSize, DftNormalization.STANDARD);
+            kernelRe    = new double[plan.getSpectrumSize()];
+            kernelIm    = new double[plan.getSpectrumSize()];
+            spectrumRe  = new double[plan.getSpectrumSize()];
+            spectrumIm  = new double[plan.getSpectrumSize()];
+            buffer      = new double[fftSize];
+            convolution = new double[fftSize];
+            System.arraycopy(kernel, 0, buffer, 0, m);
+            plan.transform(buffer, kernelRe, kernelIm);
+        }
+    }
+
+    /**
+     * Get the length of the kernel.
+     *
+     * @return the length of the kernel.
+     */
+    public int getKernelLength() {
+        return kernel.length;
+    }
+
+    /**
+     * Get the size of the Fourier transforms.
+     *
+     * @return the size of the Fourier transforms, or 0 if the segments are
+     * convolved directly.
+     */
+    public int getTransformSize() {
+        return plan == null ? 0 : plan.getSize();
+    }
+
+    /**
+     * Filters the next chunk of the signal.
+     *
+     * @param x Next chunk of the signal.
+     * @return the filtered chunk (same length as {@code x}).
+     */
+    public double[] process(final double[] x) {
+        final double[] y = new double[x.length];
+        process(x, 0, y, 0, x.length);
+        return y;
+    }
+
+    /**
+     * Filters the next chunk of the signal.
+     * <p>
+     * The input and output arrays may be the same array, provided the
+     * offsets are equal: the signal is then filtered in place.
+     * </p>
+     *
+     * @param in Array containing the next chunk of the signal.
+     * @param inOffset Index of the first sample of the chunk in {@code in}.
+     * @param out Array where the filtered chunk is stored.
+     * @param outOffset Index where the first filtered sample is stored.
+     * @param length Length of the chunk.
+     * @throws OutOfRangeException if the chunk does not fit in {@code in}
+     * or {@code out}.
+     */
+    public void process(final double[] in, final int inOffset,
+                        final double[] out, final int outOffset,
+                        final int length)
+        throws OutOfRangeException {
+        if (length < 0 || length > in.length) {
+            throw new OutOfRangeException(length, 0, in.length);
+        }
+        if (inOffset < 0 || inOffset > in.length - length) {
+            throw new OutOfRangeException(inOffset, 0, in.length - length);
+        }
+        if (outOffset < 0 || outOffset > out.length - length) {
+            throw new OutOfRangeException(outOffset, 0, out.length - length);
+        }
+
+        final int m = kernel.length;
+        for (int done = 0; done < length; done += segment) {
+            final int r = FastMath.min(segment, length - done);
+
+            // convolve the segment with the kernel, the result has r + m - 1 samples
+            if (plan == null) {
+                convolveDirect(in, inOffset + done, r);
+            } else {
+                convolveFft(in, inOffset + done, r);
+            }
+
+            // add the pending contributions, output the complete samples
+            // and keep the contributions to the next samples
+            for (int j = 0; j < m - 1; ++j) {
+                convolution[j] += tail[j];
+            }
+            System.arraycopy(convolution, 0, out, outOffset + done, r);
+            System.arraycopy(convolution, r, tail, 0, m - 1);
+        }
+    }
+
+    /**
+     * Ends the signal.
+     * <p>
+     * The last {@code kernel.length - 1} output samples, which depend only
+     * on the end of the signal, are returned and the convolver is reset, so
+     * that it can be used for a new signal.
+     * </p>
+     *
+     * @return the last samples of the filtered signal.
+     */
+    public double[] flush() {
+        final double[] last = tail.clone();
+        reset();
+        return last;
+    }
+
+    /**
+     * Discards the pending contributions of the signal received so far.
+     */
+    public void reset() {
+        for (int j = 0; j < tail.length; ++j) {
+            tail[j] = 0;
+        }
+    }
+
+    /**
+     * Convolves a segment directly.
+     *
+     * @param in Array containing the segment.
+     * @param offset Index of the first sample of the segment.
+     * @param r Length of the segment.
+     */
+    private void convolveDirect(final double[] in, final int offset, final int r) {
+        final int m = kernel.length;
+        for (int j = 0; j < r + m - 1; ++j) {
+            double sum = 0;
+            final int kMax = FastMath.min(m - 1, j);
+            for (int k = FastMath.max(0, j - r + 1); k <= kMax; ++k) {
+                sum += kernel[k] * in[offset + j - k];
+            }
+            convolution[j] = sum;
+        }
+    }
+
+    /**
+     * Convolves a segment by fast Fourier transform.
+     *
+     * @param in Array containing the segment.
+     * @param offset Index of the first sample of the segment.
+     * @param r Length of the segment.
+     */
+    private void convolveFft(final double[] in, final int offset, final int r) {
+        System.arraycopy(in, offset, buffer, 0, r);
+        for (int j = r; j < buffer.length; ++j) {
+            buffer[j] = 0;
+        }
+        plan.transform(buffer, spectrumRe, spectrumIm);
+        for (int k = 0; k < spectrumRe.length; ++k) {
+            final double re = spectrumRe[k];
+            spectrumRe[k] = re * kernelRe[k] - spectrumIm[k] * kernelIm[k];
+            spectrumIm[k] = re * kernelIm[k] + spectrumIm[k] * kernelRe[k];
+        }
+        plan.inverseTransform(spectrumRe, spectrumIm, convolution);
+    }
+
+    /**
+     * Check a kernel.
+     *
+     * @param kernel Kernel.
+     * @return the kernel.
+     * @throws NullArgumentException if {@code kernel} is {@code null}.
+     * @throws NoDataException if {@code kernel} is empty.
+     */
+    private static double[] check(final double[] kernel)
+        throws NullArgumentException, NoDataException {
+        MathUtils.checkNotNull(kernel);
+        if (kernel.length == 0) {
+            throw new NoDataException();
+        }
+        return kernel;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Utilities for running the parts of a computation concurrently.
+ * <p>
+ * The classes of the library that can split their work never create
+ * threads by themselves: they accept an {@link ExecutorService} managed by
+ * the caller, and run in the calling thread when none is given.
+ * </p>
+ *
+ * @version $Id$
+ * @since 3.3
+ */
+public final class ConcurrencyUtils {
+
+    /**
+     * Class contains only static methods.
+     */
+    private ConcurrencyUtils() {}
+
+    /**
+     * Get a default number of tasks for splitting a computation.
+     *
+     * @return the number of processors available to the virtual machine.
+     */
+    public static int getDefaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs tasks and waits for their completion.
+     * <p>
+     * If {@code executor} is {@code null}, the tasks are run one after
+     * the other in the calling thread. Otherwise they are submitted to the
+     * executor, and this method returns when all of them have completed.
+     * </p>
+     * <p>
+     * If a task fails with an unchecked exception or an error, it is
+     * rethrown as is; checked exceptions are wrapped in a {@link
+     * MathIllegalStateException}. If the calling thread is interrupted
+     * while waiting, its interrupted status is restored and a {@link
+     * MathIllegalStateException} is thrown.
+     * </p>
+     *
+     * @param <T> Type of the results of the tasks.
+     * @param executor Executor (may be {@code null}).
+     * @param tasks Tasks to run.
+     * @return the results of the tasks, in the same order as the tasks.
+     * @throws MathIllegalStateException if a task failed with a checked
+     * exception, or if the calling thread was interrupted.
+     */
+    public static <T> List<T> invokeAll(final ExecutorService executor,
+                                        final List<? extends Callable<T>> tasks)
+        throws MathIllegalStateException {
+        final List<T> results = new ArrayList<T>(tasks.size());
+        try {
+            if (executor == null || tasks.size() < 2) {
+                for (final Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+            } else {
+                for (final Future<T> future : executor.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            }
+        } catch (ExecutionException ee) {
+            throw rethrow(ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new MathIllegalStateException(ie, LocalizedFormats.SIMPLE_MESSAGE, ie);
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+        return results;
+    }
+
+    /**
+     * Rethrows the failure of a task.
+     *
+     * @param cause Failure of the task.
+     * @return never returns (declared to allow {@code throw rethrow(cause)}).
+     */
+    private static RuntimeException rethrow(final Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new MathIllegalStateException(cause, LocalizedFormats.SIMPLE_MESSAGE, cause);
+    }
+
+}
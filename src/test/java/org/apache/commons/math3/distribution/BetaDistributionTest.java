@@ -16,6 +16,7 @@
  */
 package org.apache.commons.math3.distribution;
 
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -303,4 +304,29 @@ public class BetaDistributionTest {
         Assert.assertEquals(dist.getNumericalMean(), 2.0 / 7.0, tol);
         Assert.assertEquals(dist.getNumericalVariance(), 10.0 / (49.0 * 8.0), tol);
     }
+
+    @Test
+    public void testBatchDensitySingularEnd() {
+        final BetaDistribution d = new BetaDistribution(2, 0.5);
+        final double[] x = { 0.25, 0.5, 1.0, 0.75 };
+        final double[] out = { -1, -1, -1, -1 };
+        try {
+            d.density(x, out);
+            Assert.fail("an exception should have been thrown");
+        } catch (NumberIsTooSmallException e) {
+            // expected
+        }
+        for (final double o : out) {
+            Assert.assertEquals(-1, o, 0);
+        }
+
+        // in-place evaluation must not overwrite the points either
+        try {
+            d.density(x, x);
+            Assert.fail("an exception should have been thrown");
+        } catch (NumberIsTooSmallException e) {
+            // expected
+        }
+        Assert.assertArrayEquals(new double[] { 0.25, 0.5, 1.0, 0.75 }, x, 0);
+    }
 }
@@ -30,8 +30,10 @@ import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.analysis.integration.BaseAbstractUnivariateIntegrator;
 import org.apache.commons.math3.analysis.integration.IterativeLegendreGaussIntegrator;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.exception.OutOfRangeException;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -276,6 +278,52 @@ public abstract class RealDistributionAbstractTest {
         verifyLogDensities();
     }
 
+    /**
+     * Verifies that the batch evaluation methods give the same results as
+     * the single point ones
+     */
+    @Test
+    public void testBatchEvaluation() {
+        final AbstractRealDistribution dist = (AbstractRealDistribution) distribution;
+        final int n = cumulativeTestPoints.length;
+        final double[] out = new double[n];
+
+        dist.density(cumulativeTestPoints, out);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(dist.density(cumulativeTestPoints[i]), out[i], 0);
+        }
+
+        dist.cumulativeProbability(cumulativeTestPoints, out);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(dist.cumulativeProbability(cumulativeTestPoints[i]), out[i], 0);
+        }
+
+        final double[] inverse = new double[inverseCumulativeTestPoints.length];
+        dist.inverseCumulativeProbability(inverseCumulativeTestPoints, inverse);
+        for (int i = 0; i < inverse.length; i++) {
+            Assert.assertEquals(dist.inverseCumulativeProbability(inverseCumulativeTestPoints[i]),
+                                inverse[i], 0);
+        }
+
+        // in-place evaluation
+        final double[] inPlace = cumulativeTestPoints.clone();
+        dist.cumulativeProbability(inPlace, inPlace);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(dist.cumulativeProbability(cumulativeTestPoints[i]), inPlace[i], 0);
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testBatchEvaluationDimensionMismatch() {
+        ((AbstractRealDistribution) distribution).density(new double[2], new double[3]);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testBatchInverseOutOfRange() {
+        ((AbstractRealDistribution) distribution).inverseCumulativeProbability(new double[] { 0.5, 1.5 },
+                                                                               new double[2]);
+    }
+
     /**
      * Verifies that probability computations are consistent
      */
@@ -158,4 +158,20 @@ public class TDistributionTest extends RealDistributionAbstractTest {
         }
         return res;
     }
+
+    @Test
+    public void testBatchCumulativeProbabilitySigns() {
+        final TDistribution td = new TDistribution(5);
+        final double[] x = { -3.5, -0.0, 0.0, 1.25, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY };
+        final double[] out = new double[x.length];
+        td.cumulativeProbability(x, out);
+        final double[] inPlace = x.clone();
+        td.cumulativeProbability(inPlace, inPlace);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(td.cumulativeProbability(x[i]), out[i], 0);
+            Assert.assertEquals(td.cumulativeProbability(x[i]), inPlace[i], 0);
+        }
+        Assert.assertEquals(0.0, out[4], 0);
+        Assert.assertEquals(1.0, out[5], 0);
+    }
 }
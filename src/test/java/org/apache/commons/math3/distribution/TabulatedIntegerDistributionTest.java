@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.distribution;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for TabulatedIntegerDistribution. Extends IntegerDistributionAbstractTest.
+ * See class javadoc for IntegerDistributionAbstractTest for details.
+ * The reference values are those of {@link BinomialDistributionTest}.
+ *
+ * @version $Id$
+ */
+public class TabulatedIntegerDistributionTest extends IntegerDistributionAbstractTest {
+
+    /**
+     * Constructor to override default tolerance.
+     */
+    public TabulatedIntegerDistributionTest() {
+        setTolerance(1e-12);
+    }
+
+    // -------------- Implementations for abstract methods
+    // -----------------------
+
+    /** Creates the default discrete distribution instance to use in tests. */
+    @Override
+    public IntegerDistribution makeDistribution() {
+        return new TabulatedIntegerDistribution(new BinomialDistribution(10, 0.70));
+    }
+
+    /** Creates the default probability density test input values. */
+    @Override
+    public int[] makeDensityTestPoints() {
+        return new int[] { -1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+    }
+
+    /**
+     * Creates the default probability density test expected values.
+     * Reference values are from R, version 2.15.3.
+     */
+    @Override
+    public double[] makeDensityTestValues() {
+        return new double[] { 0d, 0.0000059049d, 0.000137781d, 0.0014467005,
+            0.009001692, 0.036756909, 0.1029193452, 0.200120949, 0.266827932,
+            0.2334744405, 0.121060821, 0.0282475249, 0d };
+    }
+
+    /** Creates the default cumulative probability density test input values */
+    @Override
+    public int[] makeCumulativeTestPoints() {
+        return makeDensityTestPoints();
+    }
+
+    /**
+     * Creates the default cumulative probability density test expected values.
+     * Reference values are from R, version 2.15.3.
+     */
+    @Override
+    public double[] makeCumulativeTestValues() {
+        return new double[] { 0d, 5.9049e-06, 0.0001436859, 0.0015903864, 0.0105920784,  0.0473489874,
+            0.1502683326, 0.3503892816, 0.6172172136, 0.8506916541, 0.9717524751, 1d, 1d };
+    }
+
+    /** Creates the default inverse cumulative probability test input values */
+    @Override
+    public double[] makeInverseCumulativeTestPoints() {
+        return new double[] { 0, 0.001d, 0.010d, 0.025d, 0.050d, 0.100d,
+                0.999d, 0.990d, 0.975d, 0.950d, 0.900d, 1 };
+    }
+
+    /**
+     * Creates the default inverse cumulative probability density test expected
+     * values
+     */
+    @Override
+    public int[] makeInverseCumulativeTestValues() {
+        return new int[] { 0, 2, 3, 4, 5, 5, 10, 10, 10, 9, 9, 10 };
+    }
+
+    // ----------------- Additional test cases ---------------------------------
+
+    @Test
+    public void testSameAsWrapped() {
+        checkSameAsWrapped(new BinomialDistribution(1000000, 0.3), 0, 1000);
+        checkSameAsWrapped(new BinomialDistribution(500, 0.05), 0, 500);
+        checkSameAsWrapped(new PoissonDistribution(3.5), 0, 100);
+        checkSameAsWrapped(new PoissonDistribution(20000), 19000, 21000);
+        checkSameAsWrapped(new HypergeometricDistribution(500, 60, 200), 0, 60);
+        checkSameAsWrapped(new PascalDistribution(5, 0.3), 0, 100);
+    }
+
+    @Test
+    public void testSmallTable() {
+        // most quantiles and probabilities fall outside of the table
+        final PoissonDistribution poisson = new PoissonDistribution(1000);
+        final TabulatedIntegerDistribution tabulated =
+            new TabulatedIntegerDistribution(new Well19937c(100), poisson, 10);
+        final RandomGenerator random = new Well19937c(200);
+        for (int i = 0; i < 1000; i++) {
+            final double p = random.nextDouble();
+            Assert.assertEquals(poisson.inverseCumulativeProbability(p),
+                                tabulated.inverseCumulativeProbability(p));
+        }
+        for (int x = 800; x < 1200; x++) {
+            Assert.assertEquals(poisson.cumulativeProbability(x),
+                                tabulated.cumulativeProbability(x), 0);
+        }
+    }
+
+    @Test
+    public void testDegenerate() {
+        final TabulatedIntegerDistribution dist =
+            new TabulatedIntegerDistribution(new BinomialDistribution(5, 1.0));
+        Assert.assertEquals(5, dist.inverseCumulativeProbability(0.1));
+        Assert.assertEquals(5, dist.inverseCumulativeProbability(0.5));
+        Assert.assertEquals(5, dist.sample());
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidTableSize() {
+        new TabulatedIntegerDistribution(new Well19937c(), new PoissonDistribution(2), 0);
+    }
+
+    private void checkSameAsWrapped(final IntegerDistribution wrapped,
+                                    final int xMin, final int xMax) {
+        final TabulatedIntegerDistribution tabulated = new TabulatedIntegerDistribution(wrapped);
+        final RandomGenerator random = new Well19937c(1234);
+        for (int i = 0; i < 1000; i++) {
+            double p = random.nextDouble();
+            if (i % 10 == 0) {
+                // exact cumulative probability of a support point
+                p = wrapped.cumulativeProbability(wrapped.inverseCumulativeProbability(p));
+            }
+            Assert.assertEquals(wrapped.inverseCumulativeProbability(p),
+                                tabulated.inverseCumulativeProbability(p));
+        }
+        for (int x = xMin - 1; x <= xMax; x++) {
+            Assert.assertEquals(wrapped.cumulativeProbability(x),
+                                tabulated.cumulativeProbability(x), 0);
+        }
+    }
+}
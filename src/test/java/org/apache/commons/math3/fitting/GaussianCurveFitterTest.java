@@ -16,8 +16,14 @@
  */
 package org.apache.commons.math3.fitting;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.analysis.function.Gaussian;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -234,6 +240,30 @@ public class GaussianCurveFitterTest {
     /**
      * Zero points is not enough observed points.
      */
+    @Test
+    public void testWithExecutor() {
+        final Gaussian g = new Gaussian(2.5, 1.2, 0.7);
+        final RandomGenerator random = new Well19937c(0x6ac21efdl);
+        final WeightedObservedPoints obs = new WeightedObservedPoints();
+        for (int i = 0; i < 20000; i++) {
+            final double x = 6 * random.nextDouble() - 2;
+            obs.add(x, g.value(x) + 0.01 * random.nextGaussian());
+        }
+
+        final double[] sequential = GaussianCurveFitter.create().fit(obs.toList());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final double[] parallel =
+                GaussianCurveFitter.create().withExecutor(executor).fit(obs.toList());
+            Assert.assertArrayEquals(sequential, parallel, 0);
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(2.5, sequential[0], 1e-2);
+        Assert.assertEquals(1.2, sequential[1], 1e-2);
+        Assert.assertEquals(0.7, sequential[2], 1e-2);
+    }
+
     @Test(expected=MathIllegalArgumentException.class)
     public void testFit02() {
         GaussianCurveFitter.create().fit(new WeightedObservedPoints().toList());
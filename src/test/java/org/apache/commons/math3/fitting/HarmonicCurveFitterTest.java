@@ -19,6 +19,8 @@ package org.apache.commons.math3.fitting;
 import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.math3.optim.nonlinear.vector.jacobian.LevenbergMarquardtOptimizer;
 import org.apache.commons.math3.analysis.function.HarmonicOscillator;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
@@ -62,6 +64,33 @@ public class HarmonicCurveFitterTest {
         }
     }
 
+    @Test
+    public void testWithExecutor() {
+        final double a = 0.2;
+        final double w = 3.4;
+        final double p = 4.1;
+        final HarmonicOscillator f = new HarmonicOscillator(a, w, p);
+
+        final WeightedObservedPoints points = new WeightedObservedPoints();
+        for (int i = 0; i < 20000; i++) {
+            final double x = 1.3e-4 * i;
+            points.add(1 + (i % 3), x, f.value(x));
+        }
+
+        final double[] sequential = HarmonicCurveFitter.create().fit(points.toList());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final double[] parallel =
+                HarmonicCurveFitter.create().withExecutor(executor).fit(points.toList());
+            Assert.assertArrayEquals(sequential, parallel, 0);
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(a, sequential[0], 1e-12);
+        Assert.assertEquals(w, sequential[1], 1e-12);
+        Assert.assertEquals(p, MathUtils.normalizeAngle(sequential[2], p), 1e-12);
+    }
+
     @Test
     public void test1PercentError() {
         final Random randomizer = new Random(64925784252L);
@@ -25,7 +25,10 @@ import org.apache.commons.math3.exception.ConvergenceException;
 import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.BlockRealMatrix;
+import org.apache.commons.math3.linear.LUDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.DiagonalMatrix;
 import org.apache.commons.math3.optim.PointVectorValuePair;
@@ -685,6 +688,149 @@ public abstract class AbstractLeastSquaresOptimizerAbstractTest<T extends Abstra
         doTestStRD(StatisticalReferenceDatasetFactory.createHahn1(), 1E-7, 1E-4);
     }
 
+    @Test
+    public void testDiagonalWeights() {
+        final double[][] factors = { { 1, 0 }, { 1, 1 }, { 1, 2 }, { 1, 3 }, { 1, 4 } };
+        final double[] target = { 1.0, 2.5, 2.9, 4.6, 4.8 };
+        final double[] w = { 1, 4, 0.5, 2, 3 };
+        final LinearProblem problem = new LinearProblem(factors, target);
+
+        // weighted least-squares solution, from the normal equations
+        final RealMatrix f = new Array2DRowRealMatrix(factors);
+        final RealMatrix ftw = f.transpose().multiply(new DiagonalMatrix(w));
+        final double[] expected =
+            new LUDecomposition(ftw.multiply(f)).getSolver().solve(new ArrayRealVector(ftw.operate(target))).toArray();
+
+        final double[][] dense = new double[w.length][w.length];
+        for (int i = 0; i < w.length; i++) {
+            dense[i][i] = w[i];
+        }
+        for (int k = 0; k < 3; k++) {
+            final T optimizer = createOptimizer()
+                .withMaxEvaluations(100)
+                .withMaxIterations(getMaxIterations())
+                .withModelAndJacobian(problem.getModelFunction(),
+                                      problem.getModelFunctionJacobian())
+                .withTarget(target)
+                .withStartPoint(new double[] { 0, 0 });
+            if (k == 0) {
+                optimizer.withWeight(new DiagonalMatrix(w));
+            } else if (k == 1) {
+                optimizer.withWeight(new Array2DRowRealMatrix(dense));
+            } else {
+                optimizer.withDiagonalWeight(w);
+            }
+            Assert.assertTrue(optimizer.getWeight() instanceof DiagonalMatrix);
+            Assert.assertEquals(FastMath.sqrt(w[2]), optimizer.getWeightSquareRoot().getEntry(2, 2), 0);
+
+            final double[] point = optimizer.optimize().getPoint();
+            Assert.assertEquals(expected[0], point[0], 1e-10);
+            Assert.assertEquals(expected[1], point[1], 1e-10);
+        }
+    }
+
+    @Test
+    public void testSparseJacobian() {
+        // groups of observations y = c[g] exp(-r x), with a shared rate r
+        final int groups = 40;
+        final int perGroup = 25;
+        final int n = groups * perGroup;
+        final double rate = 0.3;
+        final double[] x = new double[n];
+        final double[] target = new double[n];
+        final double[] weights = new double[n];
+        final int[][] pattern = new int[n][];
+        for (int i = 0; i < n; i++) {
+            final int g = i / perGroup;
+            x[i] = 0.2 * (i % perGroup);
+            target[i] = (1 + 0.1 * g) * FastMath.exp(-rate * x[i]);
+            weights[i] = 1 + (i % 3);
+            pattern[i] = new int[] { g, groups };
+        }
+        final MultivariateVectorFunction model = new MultivariateVectorFunction() {
+            public double[] value(double[] p) {
+                final double[] y = new double[n];
+                for (int i = 0; i < n; i++) {
+                    y[i] = p[i / perGroup] * FastMath.exp(-p[groups] * x[i]);
+                }
+                return y;
+            }
+        };
+        final SparseJacobianFunction jacobian = new SparseJacobianFunction() {
+            public int[][] getSparsityPattern() {
+                return pattern;
+            }
+            public double[][] value(double[] p) {
+                final double[][] d = new double[n][2];
+                for (int i = 0; i < n; i++) {
+                    final double e = FastMath.exp(-p[groups] * x[i]);
+                    d[i][0] = e;
+                    d[i][1] = -x[i] * p[i / perGroup] * e;
+                }
+                return d;
+            }
+        };
+        final double[] start = new double[groups + 1];
+        Arrays.fill(start, 1.0);
+        start[groups] = 0.25;
+
+        final T optimizer = createOptimizer()
+            .withMaxEvaluations(100)
+            .withMaxIterations(getMaxIterations())
+            .withModelAndSparseJacobian(model, jacobian)
+            .withTarget(target)
+            .withDiagonalWeight(weights)
+            .withStartPoint(start);
+        Assert.assertSame(jacobian, optimizer.getSparseJacobian());
+        final double[] point = optimizer.optimize().getPoint();
+        for (int g = 0; g < groups; g++) {
+            Assert.assertEquals(1 + 0.1 * g, point[g], 1e-8);
+        }
+        Assert.assertEquals(rate, point[groups], 1e-8);
+
+        // the expanded Jacobian matches the sparse one
+        final double[][] dense = optimizer.getJacobian().value(point);
+        Assert.assertEquals(n, dense.length);
+        Assert.assertEquals(groups + 1, dense[0].length);
+        Assert.assertEquals(0.0, dense[0][1], 0);
+        Assert.assertEquals(jacobian.value(point)[30][1], dense[30][groups], 0);
+
+        // covariances are computed from the sparse Jacobian
+        final double[][] cov = optimizer.computeCovariances(point, 1e-14);
+        optimizer.withModelAndJacobian(model, optimizer.getJacobian());
+        Assert.assertNull(optimizer.getSparseJacobian());
+        final double[][] denseCov = optimizer.computeCovariances(point, 1e-14);
+        for (int i = 0; i <= groups; i++) {
+            for (int j = 0; j <= groups; j++) {
+                Assert.assertEquals(denseCov[i][j], cov[i][j], 1e-12 * FastMath.abs(denseCov[i][i]));
+            }
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testSparseJacobianWrongValues() {
+        final SparseJacobianFunction jacobian = new SparseJacobianFunction() {
+            public int[][] getSparsityPattern() {
+                return new int[][] { { 0 }, { 0, 1 } };
+            }
+            public double[][] value(double[] p) {
+                return new double[][] { { 1 }, { 1 } };
+            }
+        };
+        createOptimizer()
+            .withMaxEvaluations(100)
+            .withMaxIterations(getMaxIterations())
+            .withModelAndSparseJacobian(new MultivariateVectorFunction() {
+                    public double[] value(double[] p) {
+                        return new double[] { p[0], p[0] + p[1] };
+                    }
+                }, jacobian)
+            .withTarget(new double[] { 1, 2 })
+            .withDiagonalWeight(new double[] { 1, 1 })
+            .withStartPoint(new double[] { 0, 0 })
+            .optimize();
+    }
+
     static class LinearProblem {
         private final RealMatrix factors;
         private final double[] target;
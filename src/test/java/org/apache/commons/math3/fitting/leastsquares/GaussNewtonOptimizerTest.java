@@ -21,8 +21,15 @@ import java.io.IOException;
 import org.apache.commons.math3.exception.ConvergenceException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 import org.apache.commons.math3.optim.SimpleVectorValueChecker;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.DiagonalMatrix;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.util.FastMath;
 import org.junit.Test;
 import org.junit.Assert;
 
@@ -110,6 +117,86 @@ public class GaussNewtonOptimizerTest
         optimizer.optimize();
     }
 
+    @Test
+    public void testNonDiagonalWeights() {
+        // generalized least squares: (F^T W F) p = F^T W y
+        final double[][] factors = { { 1, 0 }, { 1, 1 }, { 1, 2 }, { 1, 3 } };
+        final double[] target = { 1.0, 2.5, 2.9, 4.6 };
+        final double[][] weights = {
+            { 2.0, 0.5, 0.0, 0.0 },
+            { 0.5, 1.0, 0.2, 0.0 },
+            { 0.0, 0.2, 3.0, 0.1 },
+            { 0.0, 0.0, 0.1, 0.5 }
+        };
+        final RealMatrix f = new Array2DRowRealMatrix(factors);
+        final RealMatrix ftw = f.transpose().multiply(new Array2DRowRealMatrix(weights));
+        final double[] expected =
+            new LUDecomposition(ftw.multiply(f)).getSolver().solve(new ArrayRealVector(ftw.operate(target))).toArray();
+
+        final LinearProblem problem = new LinearProblem(factors, target);
+        final double[] point = createOptimizer()
+            .withMaxEvaluations(100)
+            .withMaxIterations(getMaxIterations())
+            .withModelAndJacobian(problem.getModelFunction(), problem.getModelFunctionJacobian())
+            .withTarget(target)
+            .withWeight(new Array2DRowRealMatrix(weights))
+            .withStartPoint(new double[] { 0, 0 })
+            .optimize().getPoint();
+        Assert.assertEquals(expected[0], point[0], 1e-10);
+        Assert.assertEquals(expected[1], point[1], 1e-10);
+    }
+
+    @Test
+    public void testWeightedNonLinearFit() {
+        // y = a exp(-b x), with noisy data and non-unit weights
+        final double[] x = { 0.0, 0.5, 1.0, 1.5, 2.0, 2.5, 3.0 };
+        final double[] target = { 2.02, 1.21, 0.76, 0.43, 0.29, 0.15, 0.11 };
+        final double[] w = { 4.0, 2.0, 1.0, 0.5, 3.0, 1.5, 0.25 };
+        final MultivariateVectorFunction model = new MultivariateVectorFunction() {
+            public double[] value(double[] p) {
+                final double[] y = new double[x.length];
+                for (int i = 0; i < x.length; i++) {
+                    y[i] = p[0] * FastMath.exp(-p[1] * x[i]);
+                }
+                return y;
+            }
+        };
+        final MultivariateMatrixFunction jacobian = new MultivariateMatrixFunction() {
+            public double[][] value(double[] p) {
+                final double[][] d = new double[x.length][2];
+                for (int i = 0; i < x.length; i++) {
+                    final double e = FastMath.exp(-p[1] * x[i]);
+                    d[i][0] = e;
+                    d[i][1] = -x[i] * p[0] * e;
+                }
+                return d;
+            }
+        };
+        final double[] point = createOptimizer()
+            .withConvergenceChecker(new SimpleVectorValueChecker(1e-14, 1e-14))
+            .withMaxEvaluations(100)
+            .withMaxIterations(getMaxIterations())
+            .withModelAndJacobian(model, jacobian)
+            .withTarget(target)
+            .withDiagonalWeight(w)
+            .withStartPoint(new double[] { 1, 1 })
+            .optimize().getPoint();
+
+        // the gradient of the weighted cost vanishes at the optimum
+        final double[] y = model.value(point);
+        final double[][] d = jacobian.value(point);
+        double g0 = 0;
+        double g1 = 0;
+        for (int i = 0; i < x.length; i++) {
+            g0 += w[i] * (target[i] - y[i]) * d[i][0];
+            g1 += w[i] * (target[i] - y[i]) * d[i][1];
+        }
+        Assert.assertEquals(0, g0, 1e-12);
+        Assert.assertEquals(0, g1, 1e-12);
+        Assert.assertEquals(2.017143396107, point[0], 1e-10);
+        Assert.assertEquals(0.996666692004, point[1], 1e-10);
+    }
+
     @Override
     @Test(expected=ConvergenceException.class)
     public void testCircleFittingBadInit() {
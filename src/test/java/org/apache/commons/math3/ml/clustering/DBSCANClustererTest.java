@@ -16,11 +16,18 @@
  */
 package org.apache.commons.math3.ml.clustering;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.ml.distance.ChebyshevDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -159,6 +166,75 @@ public class DBSCANClustererTest {
         Assert.assertTrue(clusters.get(0).getPoints().containsAll(clusterOne));
     }
     
+    @Test
+    public void testDuplicatePoints() {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < 3; ++i) {
+            points.add(new DoublePoint(new double[] { 1.0, 2.0 }));
+        }
+        points.add(new DoublePoint(new double[] { 10.0, 2.0 }));
+
+        final DBSCANClusterer<DoublePoint> clusterer = new DBSCANClusterer<DoublePoint>(0.5, 2);
+        final List<Cluster<DoublePoint>> clusters = clusterer.cluster(points);
+
+        // equal points are distinct points of the data set
+        Assert.assertEquals(1, clusters.size());
+        Assert.assertEquals(3, clusters.get(0).getPoints().size());
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertSame(points.get(i), clusters.get(0).getPoints().get(i));
+        }
+    }
+
+    @Test
+    public void testIndexedNeighborhoods() {
+        final RandomGenerator random = new Well19937c(0x5ac11e3e0c3d49b1l);
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int blob = 0; blob < 10; ++blob) {
+            final double cx = 100 * random.nextDouble();
+            final double cy = 100 * random.nextDouble();
+            for (int i = 0; i < 200; ++i) {
+                points.add(new DoublePoint(new double[] {
+                    cx + 3 * random.nextGaussian(), cy + 3 * random.nextGaussian()
+                }));
+            }
+        }
+        for (int i = 0; i < 200; ++i) {
+            points.add(new DoublePoint(new double[] {
+                100 * random.nextDouble(), 100 * random.nextDouble()
+            }));
+        }
+
+        // subclasses of the supported measures are scanned linearly
+        checkSameClusters(points, new EuclideanDistance(), new EuclideanDistance() {
+            private static final long serialVersionUID = 1L;
+        });
+        checkSameClusters(points, new ManhattanDistance(), new ManhattanDistance() {
+            private static final long serialVersionUID = 1L;
+        });
+        checkSameClusters(points, new ChebyshevDistance(), new ChebyshevDistance() {
+            private static final long serialVersionUID = 1L;
+        });
+    }
+
+    private void checkSameClusters(final List<DoublePoint> points,
+                                   final DistanceMeasure indexed,
+                                   final DistanceMeasure scanned) {
+        final List<Cluster<DoublePoint>> expected =
+                new DBSCANClusterer<DoublePoint>(1.0, 4, scanned).cluster(points);
+        final List<Cluster<DoublePoint>> actual =
+                new DBSCANClusterer<DoublePoint>(1.0, 4, indexed).cluster(points);
+        Assert.assertTrue(expected.size() > 5);
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int c = 0; c < expected.size(); ++c) {
+            final List<DoublePoint> e = expected.get(c).getPoints();
+            final List<DoublePoint> a = actual.get(c).getPoints();
+            Assert.assertEquals(e.size(), a.size());
+            for (int i = 0; i < e.size(); ++i) {
+                Assert.assertSame(e.get(i), a.get(i));
+            }
+        }
+    }
+
     @Test
     public void testGetEps() {
         final DBSCANClusterer<DoublePoint> transformer = new DBSCANClusterer<DoublePoint>(2.0, 5);
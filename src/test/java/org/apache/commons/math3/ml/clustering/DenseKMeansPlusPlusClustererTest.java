@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ml.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.ml.distance.CanberraDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DenseKMeansPlusPlusClustererTest {
+
+    private RandomGenerator random;
+
+    @Before
+    public void setUp() {
+        random = new JDKRandomGenerator();
+        random.setSeed(1746432956321l);
+    }
+
+    @Test
+    public void testPerformClusterAnalysisDegenerate() {
+        DenseKMeansPlusPlusClusterer<DoublePoint> transformer =
+                new DenseKMeansPlusPlusClusterer<DoublePoint>(1, 1);
+
+        DoublePoint[] points = new DoublePoint[] {
+                new DoublePoint(new int[] { 1959, 325100 }),
+                new DoublePoint(new int[] { 1960, 373200 }), };
+        List<CentroidCluster<DoublePoint>> clusters = transformer.cluster(Arrays.asList(points));
+        Assert.assertEquals(1, clusters.size());
+        Assert.assertEquals(2, (clusters.get(0).getPoints().size()));
+        Assert.assertSame(points[0], clusters.get(0).getPoints().get(0));
+        Assert.assertSame(points[1], clusters.get(0).getPoints().get(1));
+        Assert.assertArrayEquals(new double[] { 1959.5, 349150 },
+                                 clusters.get(0).getCenter().getPoint(), 1.0e-10);
+    }
+
+    @Test
+    public void testCertainSpace() {
+        KMeansPlusPlusClusterer.EmptyClusterStrategy[] strategies = {
+            KMeansPlusPlusClusterer.EmptyClusterStrategy.LARGEST_VARIANCE,
+            KMeansPlusPlusClusterer.EmptyClusterStrategy.LARGEST_POINTS_NUMBER,
+            KMeansPlusPlusClusterer.EmptyClusterStrategy.FARTHEST_POINT
+        };
+        for (KMeansPlusPlusClusterer.EmptyClusterStrategy strategy : strategies) {
+            int numberOfVariables = 27;
+            int position1 = 1;
+            int position2 = position1 + numberOfVariables;
+            int position3 = position2 + numberOfVariables;
+            int position4 = position3 + numberOfVariables;
+            int multiplier = 1000000;
+
+            DoublePoint[] breakingPoints = new DoublePoint[numberOfVariables];
+            for (int i = 0; i < numberOfVariables; i++) {
+                int points[] = { position1, position2, position3, position4 };
+                for (int j = 0; j < points.length; j++) {
+                    points[j] = points[j] * multiplier;
+                }
+                breakingPoints[i] = new DoublePoint(points);
+                position1 = position1 + numberOfVariables;
+                position2 = position2 + numberOfVariables;
+                position3 = position3 + numberOfVariables;
+                position4 = position4 + numberOfVariables;
+            }
+
+            for (int n = 2; n < 27; ++n) {
+                DenseKMeansPlusPlusClusterer<DoublePoint> transformer =
+                    new DenseKMeansPlusPlusClusterer<DoublePoint>(n, 100, new EuclideanDistance(), random, strategy);
+
+                List<CentroidCluster<DoublePoint>> clusters =
+                        transformer.cluster(Arrays.asList(breakingPoints));
+
+                Assert.assertEquals(n, clusters.size());
+                int sum = 0;
+                for (Cluster<DoublePoint> cluster : clusters) {
+                    sum += cluster.getPoints().size();
+                }
+                Assert.assertEquals(numberOfVariables, sum);
+            }
+        }
+
+    }
+
+    @Test
+    public void testSameResultAsKMeansPlusPlusClusterer() {
+        final List<DoublePoint> points = createBlobs(5, 200, 3);
+        random.setSeed(42);
+        final List<CentroidCluster<DoublePoint>> expected =
+            new KMeansPlusPlusClusterer<DoublePoint>(5, 100, new EuclideanDistance(), random).cluster(points);
+        random.setSeed(42);
+        final List<CentroidCluster<DoublePoint>> actual =
+            new DenseKMeansPlusPlusClusterer<DoublePoint>(5, 100, new EuclideanDistance(), random).cluster(points);
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assert.assertArrayEquals(expected.get(i).getCenter().getPoint(),
+                                     actual.get(i).getCenter().getPoint(), 1.0e-10);
+            Assert.assertEquals(expected.get(i).getPoints(), actual.get(i).getPoints());
+        }
+    }
+
+    @Test
+    public void testFlatAndRows() {
+        final List<DoublePoint> points = createBlobs(4, 100, 2);
+        final double[][] rows = new double[points.size()][];
+        final double[] flat = new double[2 * points.size()];
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = points.get(i).getPoint();
+            System.arraycopy(rows[i], 0, flat, 2 * i, 2);
+        }
+        final int[] rowAssignments = new int[rows.length];
+        final int[] flatAssignments = new int[rows.length];
+        random.setSeed(7);
+        final double[][] rowCenters =
+            new DenseKMeansPlusPlusClusterer<DoublePoint>(4, -1, new ManhattanDistance(), random).computeCenters(rows, rowAssignments);
+        random.setSeed(7);
+        final double[][] flatCenters =
+            new DenseKMeansPlusPlusClusterer<DoublePoint>(4, -1, new ManhattanDistance(), random).computeCenters(flat, 2, flatAssignments);
+        Assert.assertArrayEquals(rowAssignments, flatAssignments);
+        for (int c = 0; c < 4; ++c) {
+            Assert.assertArrayEquals(rowCenters[c], flatCenters[c], 0.0);
+        }
+
+        // each center is the centroid of its points
+        for (int c = 0; c < 4; ++c) {
+            final double[] centroid = new double[2];
+            int count = 0;
+            for (int i = 0; i < rows.length; ++i) {
+                if (rowAssignments[i] == c) {
+                    centroid[0] += rows[i][0];
+                    centroid[1] += rows[i][1];
+                    ++count;
+                }
+            }
+            Assert.assertTrue(count > 0);
+            Assert.assertEquals(centroid[0] / count, rowCenters[c][0], 1.0e-10);
+            Assert.assertEquals(centroid[1] / count, rowCenters[c][1], 1.0e-10);
+        }
+    }
+
+    @Test
+    public void testMultiTrials() {
+        final List<DoublePoint> points = createBlobs(3, 50, 2);
+        final MultiKMeansPlusPlusClusterer<DoublePoint> clusterer =
+            new MultiKMeansPlusPlusClusterer<DoublePoint>(new DenseKMeansPlusPlusClusterer<DoublePoint>(3, 100), 5);
+        final List<CentroidCluster<DoublePoint>> clusters = clusterer.cluster(points);
+        Assert.assertEquals(3, clusters.size());
+        for (final CentroidCluster<DoublePoint> cluster : clusters) {
+            Assert.assertEquals(50, cluster.getPoints().size());
+        }
+    }
+
+    @Test
+    public void testPruningDoesNotChangeResult() {
+        // overlapping groups, so that many iterations are needed
+        final List<DoublePoint> points = createBlobs(20, 100, 3);
+        final double[] flat = new double[3 * points.size()];
+        for (int i = 0; i < points.size(); ++i) {
+            System.arraycopy(points.get(i).getPoint(), 0, flat, 3 * i, 3);
+        }
+        for (int i = 0; i < flat.length; ++i) {
+            flat[i] += 50 * random.nextGaussian();
+        }
+
+        // subclasses of the metrics are not recognized, hence not pruned
+        final DistanceMeasure[][] measures = {
+            { new EuclideanDistance(), new EuclideanDistance() { private static final long serialVersionUID = 1L; } },
+            { new ManhattanDistance(), new ManhattanDistance() { private static final long serialVersionUID = 1L; } }
+        };
+        for (final DistanceMeasure[] pair : measures) {
+            final int[] pruned = new int[points.size()];
+            final int[] reference = new int[points.size()];
+            random.setSeed(11);
+            final double[][] prunedCenters =
+                new DenseKMeansPlusPlusClusterer<DoublePoint>(25, -1, pair[0], random).computeCenters(flat, 3, pruned);
+            random.setSeed(11);
+            final double[][] referenceCenters =
+                new DenseKMeansPlusPlusClusterer<DoublePoint>(25, -1, pair[1], random).computeCenters(flat, 3, reference);
+            Assert.assertArrayEquals(reference, pruned);
+            for (int c = 0; c < referenceCenters.length; ++c) {
+                Assert.assertArrayEquals(referenceCenters[c], prunedCenters[c], 1.0e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testExecutorDoesNotChangeResult() {
+        final List<DoublePoint> points = createBlobs(10, 300, 4);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final DistanceMeasure measure : new DistanceMeasure[] { new EuclideanDistance(), new CanberraDistance() }) {
+                final DenseKMeansPlusPlusClusterer<DoublePoint> clusterer =
+                    new DenseKMeansPlusPlusClusterer<DoublePoint>(10, -1, measure, random);
+                random.setSeed(5);
+                final List<CentroidCluster<DoublePoint>> sequential = clusterer.cluster(points);
+                random.setSeed(5);
+                final List<CentroidCluster<DoublePoint>> parallel = clusterer.cluster(points, executor);
+                for (int c = 0; c < sequential.size(); ++c) {
+                    Assert.assertArrayEquals(sequential.get(c).getCenter().getPoint(),
+                                             parallel.get(c).getCenter().getPoint(), 0.0);
+                    Assert.assertEquals(sequential.get(c).getPoints(), parallel.get(c).getPoints());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelTrials() {
+        final List<DoublePoint> points = createBlobs(4, 100, 2);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final MultiKMeansPlusPlusClusterer<DoublePoint> clusterer =
+                new MultiKMeansPlusPlusClusterer<DoublePoint>(new DenseKMeansPlusPlusClusterer<DoublePoint>(4, 100, new EuclideanDistance(), random), 6);
+            random.setSeed(17);
+            final List<CentroidCluster<DoublePoint>> sequential = clusterer.cluster(points, null);
+            random.setSeed(17);
+            final List<CentroidCluster<DoublePoint>> parallel = clusterer.cluster(points, executor);
+            Assert.assertEquals(4, parallel.size());
+            for (int c = 0; c < sequential.size(); ++c) {
+                Assert.assertEquals(100, parallel.get(c).getPoints().size());
+                Assert.assertEquals(sequential.get(c).getPoints(), parallel.get(c).getPoints());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionMismatch() {
+        new DenseKMeansPlusPlusClusterer<DoublePoint>(1).computeCenters(new double[5], 2, new int[2]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testAssignmentsMismatch() {
+        new DenseKMeansPlusPlusClusterer<DoublePoint>(1).computeCenters(new double[4][2], new int[3]);
+    }
+
+    @Test(expected=NumberIsTooSmallException.class)
+    public void testPerformClusterAnalysisToManyClusters() {
+        DenseKMeansPlusPlusClusterer<DoublePoint> transformer =
+            new DenseKMeansPlusPlusClusterer<DoublePoint>(3, 1, new EuclideanDistance(), random);
+
+        Collection<DoublePoint> points = new ArrayList<DoublePoint>();
+        points.add(new DoublePoint(new int[] { 1959, 325100 }));
+        points.add(new DoublePoint(new int[] { 1960, 373200 }));
+        transformer.cluster(points);
+    }
+
+    /**
+     * Creates well separated groups of points.
+     * @param groups number of groups
+     * @param size number of points per group
+     * @param dimension dimension of the points
+     * @return points, group after group
+     */
+    private List<DoublePoint> createBlobs(final int groups, final int size, final int dimension) {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int g = 0; g < groups; ++g) {
+            for (int i = 0; i < size; ++i) {
+                final double[] point = new double[dimension];
+                for (int j = 0; j < dimension; ++j) {
+                    point[j] = 100.0 * g * (j + 1) + random.nextGaussian();
+                }
+                points.add(new DoublePoint(point));
+            }
+        }
+        return points;
+    }
+
+}
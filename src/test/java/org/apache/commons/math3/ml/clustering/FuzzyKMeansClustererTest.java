@@ -22,13 +22,21 @@ import org.junit.Assert;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.ml.distance.CanberraDistance;
 import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
 import org.apache.commons.math3.random.JDKRandomGenerator;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.FastMath;
 import org.junit.Test;
 
 /**
@@ -107,4 +115,109 @@ public class FuzzyKMeansClustererTest {
         Assert.assertThat(clusterer.getRandomGenerator(), CoreMatchers.is(random));
     }
 
+    @Test
+    public void testMemberships() {
+        final List<DoublePoint> points = createPoints(500);
+        for (final double fuzziness : new double[] { 1.5, 2.0, 3.0 }) {
+            final FuzzyKMeansClusterer<DoublePoint> clusterer =
+                    new FuzzyKMeansClusterer<DoublePoint>(4, fuzziness, 50, new EuclideanDistance(),
+                                                          1e-6, new Well19937c(0x9d2c5f0b7e13a846l));
+            final List<CentroidCluster<DoublePoint>> clusters = clusterer.cluster(points);
+            final RealMatrix u = clusterer.getMembershipMatrix();
+            Assert.assertEquals(points.size(), u.getRowDimension());
+            Assert.assertEquals(4, u.getColumnDimension());
+
+            // memberships must follow the definition for the final centers
+            final double exponent = 2.0 / (fuzziness - 1.0);
+            for (int i = 0; i < points.size(); i++) {
+                int best = 0;
+                for (int j = 0; j < 4; j++) {
+                    final double dj = clusterer.distance(points.get(i), clusters.get(j).getCenter());
+                    double sum = 0;
+                    for (int l = 0; l < 4; l++) {
+                        final double dl = clusterer.distance(points.get(i), clusters.get(l).getCenter());
+                        sum += FastMath.pow(dj / dl, exponent);
+                    }
+                    Assert.assertEquals(1.0 / sum, u.getEntry(i, j), 1.0e-12);
+                    Assert.assertEquals(u.getEntry(i, j), clusterer.getMembership(i, j), 0.0);
+                    if (u.getEntry(i, j) > u.getEntry(i, best)) {
+                        best = j;
+                    }
+                }
+                Assert.assertTrue(clusters.get(best).getPoints().contains(points.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testPointOnCenter() {
+        // with two clusters and three points, one center is exactly on a point
+        final List<DoublePoint> points = Arrays.asList(new DoublePoint(new double[] { 0.0 }),
+                                                       new DoublePoint(new double[] { 0.0 }),
+                                                       new DoublePoint(new double[] { 1.0 }));
+        final FuzzyKMeansClusterer<DoublePoint> clusterer =
+                new FuzzyKMeansClusterer<DoublePoint>(2, 2.0, 100, new EuclideanDistance(),
+                                                      1e-10, new Well19937c(0x3f0c8e2a61b7d594l));
+        final List<CentroidCluster<DoublePoint>> clusters = clusterer.cluster(points);
+        for (int i = 0; i < points.size(); i++) {
+            Assert.assertEquals(1.0, clusterer.getMembership(i, 0) + clusterer.getMembership(i, 1), 1.0e-15);
+        }
+        Assert.assertEquals(0.0, clusterer.getMembership(2, 0) * clusterer.getMembership(2, 1), 1.0e-10);
+        Assert.assertEquals(3, clusters.get(0).getPoints().size() + clusters.get(1).getPoints().size());
+    }
+
+    @Test
+    public void testExecutor() {
+        final List<DoublePoint> points = createPoints(2000);
+        final FuzzyKMeansClusterer<DoublePoint> serial =
+                new FuzzyKMeansClusterer<DoublePoint>(5, 2.0, 30, new EuclideanDistance(),
+                                                      1e-6, new Well19937c(0x1b6e0d9f4a3c7528l));
+        final FuzzyKMeansClusterer<DoublePoint> parallel =
+                new FuzzyKMeansClusterer<DoublePoint>(5, 2.0, 30, new EuclideanDistance(),
+                                                      1e-6, new Well19937c(0x1b6e0d9f4a3c7528l));
+        final List<CentroidCluster<DoublePoint>> expected = serial.cluster(points);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<CentroidCluster<DoublePoint>> actual = parallel.cluster(points, executor);
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                Assert.assertArrayEquals(expected.get(j).getCenter().getPoint(),
+                                         actual.get(j).getCenter().getPoint(), 0.0);
+                Assert.assertEquals(expected.get(j).getPoints(), actual.get(j).getPoints());
+            }
+            for (int i = 0; i < points.size(); i++) {
+                for (int j = 0; j < 5; j++) {
+                    Assert.assertEquals(serial.getMembership(i, j), parallel.getMembership(i, j), 0.0);
+                }
+            }
+            Assert.assertEquals(serial.getObjectiveFunctionValue(), parallel.getObjectiveFunctionValue(), 0.0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = MathIllegalStateException.class)
+    public void testMembershipBeforeCluster() {
+        new FuzzyKMeansClusterer<DoublePoint>(3, 2.0).getMembership(0, 0);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void testMembershipOutOfRange() {
+        final FuzzyKMeansClusterer<DoublePoint> clusterer = new FuzzyKMeansClusterer<DoublePoint>(2, 2.0);
+        clusterer.cluster(createPoints(10));
+        clusterer.getMembership(0, 2);
+    }
+
+    private List<DoublePoint> createPoints(final int n) {
+        final RandomGenerator random = new Well19937c(0x6c1a9e3d0f25b847l);
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < n; i++) {
+            final double c = 10 * (i % 4);
+            points.add(new DoublePoint(new double[] {
+                c + random.nextGaussian(), c + random.nextGaussian()
+            }));
+        }
+        return points;
+    }
+
 }
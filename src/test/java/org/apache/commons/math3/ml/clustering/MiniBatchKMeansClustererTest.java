@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ml.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.random.JDKRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MiniBatchKMeansClustererTest {
+
+    private RandomGenerator random;
+
+    @Before
+    public void setUp() {
+        random = new JDKRandomGenerator();
+        random.setSeed(1746432956321l);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidBatchSize() {
+        new MiniBatchKMeansClusterer<DoublePoint>(2, 0);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testInvalidMaxIterations() {
+        new MiniBatchKMeansClusterer<DoublePoint>(2, 10, 0,
+                                                  new EuclideanDistance(), new JDKRandomGenerator());
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNegativeMaxIterations() {
+        new MiniBatchKMeansClusterer<DoublePoint>(2, 10, -1,
+                                                  new EuclideanDistance(), new JDKRandomGenerator());
+    }
+
+    @Test
+    public void testNotInitialized() {
+        final MiniBatchKMeansClusterer<DoublePoint> clusterer =
+            new MiniBatchKMeansClusterer<DoublePoint>(3, 10);
+        clusterer.partialFit(Arrays.asList(new DoublePoint(new double[] { 1, 2 }),
+                                           new DoublePoint(new double[] { 3, 4 })));
+        Assert.assertFalse(clusterer.isInitialized());
+        try {
+            clusterer.getClusters();
+            Assert.fail("an exception should have been thrown");
+        } catch (MathIllegalStateException e) {
+            // expected
+        }
+        clusterer.partialFit(Collections.singletonList(new DoublePoint(new double[] { 5, 6 })));
+        Assert.assertTrue(clusterer.isInitialized());
+        Assert.assertEquals(3, clusterer.getClusters().size());
+        long total = 0;
+        for (final long count : clusterer.getCounts()) {
+            total += count;
+        }
+        Assert.assertEquals(3, total);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionMismatch() {
+        final MiniBatchKMeansClusterer<DoublePoint> clusterer =
+            new MiniBatchKMeansClusterer<DoublePoint>(1, 10);
+        clusterer.partialFit(Arrays.asList(new DoublePoint(new double[] { 1, 2 }),
+                                           new DoublePoint(new double[] { 3 })));
+    }
+
+    @Test
+    public void testSingleClusterIsRunningMean() {
+        final List<DoublePoint> points = createBlobs(3, 200, 4);
+        final MiniBatchKMeansClusterer<DoublePoint> clusterer =
+            new MiniBatchKMeansClusterer<DoublePoint>(1, 7, 10, new EuclideanDistance(), random);
+        final List<CentroidCluster<DoublePoint>> clusters = clusterer.fit(points.iterator());
+        final double[] mean = new double[4];
+        for (final DoublePoint point : points) {
+            for (int j = 0; j < 4; ++j) {
+                mean[j] += point.getPoint()[j] / points.size();
+            }
+        }
+        Assert.assertArrayEquals(mean, clusters.get(0).getCenter().getPoint(), 1.0e-10);
+        Assert.assertEquals(points.size(), clusterer.getCounts()[0]);
+    }
+
+    @Test
+    public void testStreamingFindsGroups() {
+        final List<DoublePoint> points = createBlobs(5, 2000, 3);
+        Collections.shuffle(points, new Random(3));
+        final MiniBatchKMeansClusterer<DoublePoint> clusterer =
+            new MiniBatchKMeansClusterer<DoublePoint>(5, 100, 100, new EuclideanDistance(), random);
+        final List<CentroidCluster<DoublePoint>> clusters = clusterer.fit(points.iterator());
+        Assert.assertEquals(5, clusters.size());
+        for (int g = 0; g < 5; ++g) {
+            final double[] expected = center(g, 3);
+            double min = Double.POSITIVE_INFINITY;
+            for (final CentroidCluster<DoublePoint> cluster : clusters) {
+                min = FastMath.min(min, MathArrays.distance(expected, cluster.getCenter().getPoint()));
+            }
+            Assert.assertEquals(0.0, min, 0.2);
+        }
+        for (final DoublePoint point : points.subList(0, 100)) {
+            final int g = (int) FastMath.round(point.getPoint()[0] / 100.0);
+            final double[] found = clusters.get(clusterer.getNearestCluster(point)).getCenter().getPoint();
+            Assert.assertEquals(0.0, MathArrays.distance(center(g, 3), found), 0.2);
+        }
+    }
+
+    @Test
+    public void testCluster() {
+        final List<DoublePoint> points = createBlobs(4, 150, 2);
+        final MiniBatchKMeansClusterer<DoublePoint> clusterer =
+            new MiniBatchKMeansClusterer<DoublePoint>(4, 50, 50, new EuclideanDistance(), random);
+        final List<CentroidCluster<DoublePoint>> clusters = clusterer.cluster(points);
+        Assert.assertEquals(4, clusters.size());
+        for (final CentroidCluster<DoublePoint> cluster : clusters) {
+            Assert.assertEquals(150, cluster.getPoints().size());
+        }
+    }
+
+    /**
+     * Creates well separated groups of points.
+     * @param groups number of groups
+     * @param size number of points per group
+     * @param dimension dimension of the points
+     * @return points, group after group
+     */
+    private List<DoublePoint> createBlobs(final int groups, final int size, final int dimension) {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int g = 0; g < groups; ++g) {
+            final double[] center = center(g, dimension);
+            for (int i = 0; i < size; ++i) {
+                final double[] point = new double[dimension];
+                for (int j = 0; j < dimension; ++j) {
+                    point[j] = center[j] + random.nextGaussian();
+                }
+                points.add(new DoublePoint(point));
+            }
+        }
+        return points;
+    }
+
+    private double[] center(final int group, final int dimension) {
+        final double[] center = new double[dimension];
+        for (int j = 0; j < dimension; ++j) {
+            center[j] = 100.0 * group * (j + 1);
+        }
+        return center;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.ml.neighbors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.ml.clustering.DoublePoint;
+import org.apache.commons.math3.ml.distance.CanberraDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EarthMoversDistance;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BallTreeTest {
+
+    @Test
+    public void testRange() {
+        for (final DistanceMeasure measure : new DistanceMeasure[] {
+            new EuclideanDistance(), new ManhattanDistance(),
+            new CanberraDistance(), new EarthMoversDistance()
+        }) {
+            final List<DoublePoint> points = createPoints(1500, 4, 0x71f3a2b6c9d04e58l);
+            final BallTree<DoublePoint> tree = new BallTree<DoublePoint>(points, measure);
+            final RandomGenerator random = new Well19937c(0x1c5e9b7a3f286d40l);
+            for (int q = 0; q < 50; ++q) {
+                final double[] center = points.get(random.nextInt(points.size())).getPoint();
+                final double radius = 0.5 * random.nextDouble();
+                final List<Integer> expected = new ArrayList<Integer>();
+                for (int i = 0; i < points.size(); ++i) {
+                    if (measure.compute(points.get(i).getPoint(), center) <= radius) {
+                        expected.add(i);
+                    }
+                }
+                final int[] actual = tree.rangeIndices(center, radius);
+                Assert.assertEquals(expected.size(), actual.length);
+                for (int i = 0; i < actual.length; ++i) {
+                    Assert.assertEquals(expected.get(i).intValue(), actual[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        for (final DistanceMeasure measure : new DistanceMeasure[] {
+            new EuclideanDistance(), new CanberraDistance(), new EarthMoversDistance()
+        }) {
+            final List<DoublePoint> points = createPoints(1500, 4, 0x5d03c8e1f7a26b94l);
+            final BallTree<DoublePoint> tree = new BallTree<DoublePoint>(points, measure);
+            final RandomGenerator random = new Well19937c(0x39e6b0d4a7c15f82l);
+            for (int q = 0; q < 50; ++q) {
+                final double[] center = new double[4];
+                for (int k = 0; k < center.length; ++k) {
+                    center[k] = random.nextDouble();
+                }
+                for (final int k : new int[] { 1, 10 }) {
+                    Assert.assertArrayEquals(KDTreeTest.nearestByScan(points, measure, center, k),
+                                             tree.nearestIndices(center, k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testApproximateNearest() {
+        final DistanceMeasure measure = new EuclideanDistance();
+        final List<DoublePoint> points = createPoints(2000, 6, 0x6a2f84c1e3b9d075l);
+        final BallTree<DoublePoint> tree = new BallTree<DoublePoint>(points, measure);
+        final RandomGenerator random = new Well19937c(0x0f7d3b95c2e8a146l);
+        final double epsilon = 0.5;
+        for (int q = 0; q < 50; ++q) {
+            final double[] center = new double[6];
+            for (int k = 0; k < center.length; ++k) {
+                center[k] = random.nextDouble();
+            }
+            final int[] exact  = tree.nearestIndices(center, 5);
+            final int[] approx = tree.nearestIndices(center, 5, epsilon);
+            Assert.assertEquals(exact.length, approx.length);
+            for (int i = 0; i < exact.length; ++i) {
+                final double e = measure.compute(points.get(exact[i]).getPoint(), center);
+                final double a = measure.compute(points.get(approx[i]).getPoint(), center);
+                Assert.assertTrue(a >= e);
+                Assert.assertTrue(a <= (1 + epsilon) * e);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchQueries() {
+        final List<DoublePoint> points = createPoints(1000, 3, 0x4e91d6a3b0c7f258l);
+        final BallTree<DoublePoint> tree = new BallTree<DoublePoint>(points, new ManhattanDistance());
+        final double[][] centers = new double[37][];
+        for (int q = 0; q < centers.length; ++q) {
+            centers[q] = points.get(q * 13).getPoint();
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final int[][] nearest = tree.nearestIndices(centers, 4, 0, executor);
+            final int[][] range   = tree.rangeIndices(centers, 0.2, executor);
+            final int[][] serial  = tree.rangeIndices(centers, 0.2, null);
+            for (int q = 0; q < centers.length; ++q) {
+                Assert.assertArrayEquals(tree.nearestIndices(centers[q], 4), nearest[q]);
+                Assert.assertEquals(q * 13, nearest[q][0]);
+                Assert.assertArrayEquals(tree.rangeIndices(centers[q], 0.2), range[q]);
+                Assert.assertArrayEquals(serial[q], range[q]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIdenticalPoints() {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < 50; ++i) {
+            points.add(new DoublePoint(new double[] { 1.0, 1.0 }));
+        }
+        final BallTree<DoublePoint> tree = new BallTree<DoublePoint>(points, new EuclideanDistance());
+        Assert.assertEquals(50, tree.rangeIndices(new double[] { 1.0, 1.0 }, 0.0).length);
+        Assert.assertArrayEquals(new int[] { 0, 1, 2 },
+                                 tree.nearestIndices(new double[] { 0.0, 0.0 }, 3));
+        Assert.assertSame(points.get(7), tree.getPoint(7));
+    }
+
+    @Test
+    public void testEmpty() {
+        final BallTree<DoublePoint> tree =
+                new BallTree<DoublePoint>(Collections.<DoublePoint>emptyList(), new CanberraDistance());
+        Assert.assertEquals(0, tree.nearestIndices(new double[] { 1.0 }, 3).length);
+        Assert.assertEquals(0, tree.rangeIndices(new double[] { 1.0 }, 3.0).length);
+    }
+
+    @Test(expected = NotStrictlyPositiveException.class)
+    public void testZeroNeighbors() {
+        new BallTree<DoublePoint>(createPoints(10, 2, 1l), new EuclideanDistance()).
+            nearestIndices(new double[2], 0);
+    }
+
+    @Test(expected = NotPositiveException.class)
+    public void testNegativeEpsilon() {
+        new BallTree<DoublePoint>(createPoints(10, 2, 1l), new EuclideanDistance()).
+            nearestIndices(new double[2], 1, -0.1);
+    }
+
+    private List<DoublePoint> createPoints(final int n, final int dimension, final long seed) {
+        // clustered points, with positive coordinates summing to 1
+        // so that they are valid histograms for the earth mover's distance
+        final RandomGenerator random = new Well19937c(seed);
+        final double[][] centers = new double[8][dimension];
+        for (final double[] c : centers) {
+            for (int k = 0; k < dimension; ++k) {
+                c[k] = random.nextDouble();
+            }
+        }
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < n; ++i) {
+            final double[] c = centers[random.nextInt(centers.length)];
+            final double[] p = new double[dimension];
+            double sum = 0;
+            for (int k = 0; k < dimension; ++k) {
+                p[k] = FastMath.abs(c[k] + 0.05 * random.nextGaussian());
+                sum += p[k];
+            }
+            for (int k = 0; k < dimension; ++k) {
+                p[k] /= sum;
+            }
+            points.add(new DoublePoint(p));
+        }
+        return points;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.ml.neighbors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.ml.clustering.DoublePoint;
+import org.apache.commons.math3.ml.distance.CanberraDistance;
+import org.apache.commons.math3.ml.distance.ChebyshevDistance;
+import org.apache.commons.math3.ml.distance.DistanceMeasure;
+import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import org.apache.commons.math3.ml.distance.ManhattanDistance;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KDTreeTest {
+
+    @Test
+    public void testEuclidean() {
+        checkRange(new EuclideanDistance());
+    }
+
+    @Test
+    public void testManhattan() {
+        checkRange(new ManhattanDistance());
+    }
+
+    @Test
+    public void testChebyshev() {
+        checkRange(new ChebyshevDistance());
+    }
+
+    @Test
+    public void testNearest() {
+        final RandomGenerator random = new Well19937c(0x2b8e61c4a0f3d957l);
+        for (final DistanceMeasure measure : new DistanceMeasure[] {
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance()
+        }) {
+            final List<DoublePoint> points = new ArrayList<DoublePoint>();
+            for (int i = 0; i < 1000; ++i) {
+                points.add(new DoublePoint(new double[] {
+                    FastMath.floor(40 * random.nextDouble()) / 4,
+                    FastMath.floor(40 * random.nextDouble()) / 4,
+                    random.nextGaussian()
+                }));
+            }
+            final KDTree<DoublePoint> tree = new KDTree<DoublePoint>(points, measure);
+            for (int q = 0; q < 50; ++q) {
+                final double[] center = new double[] {
+                    12 * random.nextDouble() - 1, 12 * random.nextDouble() - 1, 0.0
+                };
+                for (final int k : new int[] { 1, 7, 40 }) {
+                    Assert.assertArrayEquals(nearestByScan(points, measure, center, k),
+                                             tree.nearestIndices(center, k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearestMoreThanSize() {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < 5; ++i) {
+            points.add(new DoublePoint(new double[] { -i }));
+        }
+        final KDTree<DoublePoint> tree = new KDTree<DoublePoint>(points, new EuclideanDistance());
+        Assert.assertArrayEquals(new int[] { 2, 1, 3, 0, 4 },
+                                 tree.nearestIndices(new double[] { -1.75 }, 10));
+        Assert.assertEquals(Arrays.asList(points.get(2), points.get(1)),
+                            tree.nearest(new DoublePoint(new double[] { -1.75 }), 2));
+    }
+
+    @Test
+    public void testDuplicates() {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < 100; ++i) {
+            points.add(new DoublePoint(new double[] { i % 3, 1.0 }));
+        }
+        final KDTree<DoublePoint> tree = new KDTree<DoublePoint>(points, new EuclideanDistance());
+        final int[] found = tree.rangeIndices(new double[] { 1.0, 1.0 }, 0.0);
+        Assert.assertEquals(33, found.length);
+        for (int i = 0; i < found.length; ++i) {
+            Assert.assertEquals(3 * i + 1, found[i]);
+        }
+    }
+
+    @Test
+    public void testRangePoints() {
+        final List<DoublePoint> points = new ArrayList<DoublePoint>();
+        for (int i = 0; i < 50; ++i) {
+            points.add(new DoublePoint(new double[] { i }));
+        }
+        final KDTree<DoublePoint> tree = new KDTree<DoublePoint>(points, new ManhattanDistance());
+        Assert.assertEquals(50, tree.size());
+        final List<DoublePoint> found = tree.range(new DoublePoint(new double[] { 20.5 }), 2.0);
+        Assert.assertEquals(points.subList(19, 23), found);
+    }
+
+    @Test
+    public void testEmpty() {
+        final KDTree<DoublePoint> tree =
+                new KDTree<DoublePoint>(Collections.<DoublePoint>emptyList(), new EuclideanDistance());
+        Assert.assertEquals(0, tree.size());
+        Assert.assertEquals(0, tree.rangeIndices(new double[] { 0.0, 0.0 }, 1.0).length);
+    }
+
+    @Test
+    public void testSupports() {
+        Assert.assertTrue(KDTree.supports(new EuclideanDistance()));
+        Assert.assertTrue(KDTree.supports(new ManhattanDistance()));
+        Assert.assertTrue(KDTree.supports(new ChebyshevDistance()));
+        Assert.assertFalse(KDTree.supports(new CanberraDistance()));
+        Assert.assertFalse(KDTree.supports(new EuclideanDistance() {
+            private static final long serialVersionUID = 1L;
+        }));
+    }
+
+    @Test(expected = MathIllegalArgumentException.class)
+    public void testUnsupportedMeasure() {
+        new KDTree<DoublePoint>(Arrays.asList(new DoublePoint(new double[] { 1.0 })),
+                                new CanberraDistance());
+    }
+
+    @Test(expected = DimensionMismatchException.class)
+    public void testInconsistentDimensions() {
+        new KDTree<DoublePoint>(Arrays.asList(new DoublePoint(new double[] { 1.0 }),
+                                              new DoublePoint(new double[] { 1.0, 2.0 })),
+                                new EuclideanDistance());
+    }
+
+    @Test(expected = DimensionMismatchException.class)
+    public void testWrongQueryDimension() {
+        new KDTree<DoublePoint>(Arrays.asList(new DoublePoint(new double[] { 1.0 })),
+                                new EuclideanDistance()).rangeIndices(new double[2], 1.0);
+    }
+
+    static int[] nearestByScan(final List<DoublePoint> points, final DistanceMeasure measure,
+                               final double[] center, final int k) {
+        final Integer[] order = new Integer[points.size()];
+        final double[] distances = new double[points.size()];
+        for (int i = 0; i < order.length; ++i) {
+            order[i]     = i;
+            distances[i] = measure.compute(points.get(i).getPoint(), center);
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(final Integer i, final Integer j) {
+                final int c = Double.compare(distances[i], distances[j]);
+                return c != 0 ? c : i.compareTo(j);
+            }
+        });
+        final int[] nearest = new int[FastMath.min(k, order.length)];
+        for (int i = 0; i < nearest.length; ++i) {
+            nearest[i] = order[i];
+        }
+        return nearest;
+    }
+
+    private void checkRange(final DistanceMeasure measure) {
+        final RandomGenerator random = new Well19937c(0x4a1c6e0c7c5d2f8bl);
+        for (final int dimension : new int[] { 1, 2, 3, 5 }) {
+            final List<DoublePoint> points = new ArrayList<DoublePoint>();
+            for (int i = 0; i < 1000; ++i) {
+                final double[] p = new double[dimension];
+                for (int k = 0; k < dimension; ++k) {
+                    // coarse coordinates, to have ties and points on the boundaries
+                    p[k] = FastMath.floor(20 * random.nextDouble()) / 4;
+                }
+                points.add(new DoublePoint(p));
+            }
+            final KDTree<DoublePoint> tree = new KDTree<DoublePoint>(points, measure);
+
+            for (int q = 0; q < 100; ++q) {
+                final double[] center = points.get(random.nextInt(points.size())).getPoint().clone();
+                center[0] += random.nextInt(3) * 0.125;
+                final double radius = random.nextInt(8) * 0.25;
+                final List<Integer> expected = new ArrayList<Integer>();
+                for (int i = 0; i < points.size(); ++i) {
+                    if (measure.compute(points.get(i).getPoint(), center) <= radius) {
+                        expected.add(i);
+                    }
+                }
+                final int[] actual = tree.rangeIndices(center, radius);
+                Assert.assertEquals(expected.size(), actual.length);
+                for (int i = 0; i < actual.length; ++i) {
+                    Assert.assertEquals(expected.get(i).intValue(), actual[i]);
+                }
+            }
+        }
+    }
+
+}
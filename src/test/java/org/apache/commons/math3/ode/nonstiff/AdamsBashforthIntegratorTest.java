@@ -18,15 +18,22 @@
 package org.apache.commons.math3.ode.nonstiff;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MaxCountExceededException;
 import org.apache.commons.math3.exception.NoBracketingException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
 import org.apache.commons.math3.ode.FirstOrderIntegrator;
 import org.apache.commons.math3.ode.TestProblem1;
 import org.apache.commons.math3.ode.TestProblem5;
 import org.apache.commons.math3.ode.TestProblem6;
 import org.apache.commons.math3.ode.TestProblemHandler;
+import org.apache.commons.math3.ode.events.EventHandler;
+import org.apache.commons.math3.ode.sampling.StepHandler;
+import org.apache.commons.math3.ode.sampling.StepInterpolator;
 import org.apache.commons.math3.util.FastMath;
 import org.junit.Assert;
 import org.junit.Test;
@@ -155,4 +162,102 @@ public class AdamsBashforthIntegratorTest {
 
     }
 
+    @Test
+    public void resetState()
+            throws DimensionMismatchException, NumberIsTooSmallException,
+            MaxCountExceededException, NoBracketingException {
+
+        // harmonic oscillator, with a state reset at the third zero crossing
+        final FirstOrderDifferentialEquations ode = new FirstOrderDifferentialEquations() {
+            public int getDimension() {
+                return 2;
+            }
+            public void computeDerivatives(double t, double[] y, double[] yDot) {
+                yDot[0] =  y[1];
+                yDot[1] = -y[0];
+            }
+        };
+        final List<Double> events = new ArrayList<Double>();
+        AdamsBashforthIntegrator integ = new AdamsBashforthIntegrator(4, 1.0e-8, 1.0, 1.0e-9, 1.0e-9);
+        integ.addEventHandler(new EventHandler() {
+            public void init(double t0, double[] y0, double t) {
+            }
+            public double g(double t, double[] y) {
+                return y[0];
+            }
+            public Action eventOccurred(double t, double[] y, boolean increasing) {
+                events.add(t);
+                return (events.size() == 3) ? Action.RESET_STATE : Action.CONTINUE;
+            }
+            public void resetState(double t, double[] y) {
+            }
+        }, 0.1, 1.0e-10, 1000);
+
+        final double[] y = new double[] { 1.0, 0.0 };
+        Assert.assertEquals(10.0, integ.integrate(ode, 0.0, y, 10.0, y), 1.0e-15);
+        Assert.assertEquals(3, events.size());
+        for (int i = 0; i < events.size(); ++i) {
+            Assert.assertEquals((i + 0.5) * FastMath.PI, events.get(i), 1.0e-7);
+        }
+        Assert.assertEquals(FastMath.cos(10.0), y[0], 1.0e-6);
+
+        // the starter integrator is used again only once, right after the reset
+        Assert.assertTrue(integ.getEvaluations() < 500);
+
+    }
+
+    @Test
+    public void resetStateRestart()
+            throws DimensionMismatchException, NumberIsTooSmallException,
+            MaxCountExceededException, NoBracketingException {
+
+        // harmonic oscillator, whose velocity is doubled at the third zero crossing
+        final FirstOrderDifferentialEquations ode = new FirstOrderDifferentialEquations() {
+            public int getDimension() {
+                return 2;
+            }
+            public void computeDerivatives(double t, double[] y, double[] yDot) {
+                yDot[0] =  y[1];
+                yDot[1] = -y[0];
+            }
+        };
+        final List<Double> events = new ArrayList<Double>();
+        AdamsBashforthIntegrator integ = new AdamsBashforthIntegrator(4, 1.0e-8, 1.0, 1.0e-9, 1.0e-9);
+        integ.addEventHandler(new EventHandler() {
+            public void init(double t0, double[] y0, double t) {
+            }
+            public double g(double t, double[] y) {
+                return y[0];
+            }
+            public Action eventOccurred(double t, double[] y, boolean increasing) {
+                events.add(t);
+                return (events.size() == 3) ? Action.RESET_STATE : Action.CONTINUE;
+            }
+            public void resetState(double t, double[] y) {
+                y[1] *= 2;
+            }
+        }, 0.1, 1.0e-10, 1000);
+
+        // the integration restarts from the reset time and state, time never goes back
+        integ.addStepHandler(new StepHandler() {
+            private double previous;
+            public void init(double t0, double[] y0, double t) {
+                previous = t0;
+            }
+            public void handleStep(StepInterpolator interpolator, boolean isLast) {
+                Assert.assertEquals(previous, interpolator.getPreviousTime(), 1.0e-12);
+                Assert.assertTrue(interpolator.getCurrentTime() > previous);
+                previous = interpolator.getCurrentTime();
+            }
+        });
+
+        final double[] y = new double[] { 1.0, 0.0 };
+        Assert.assertEquals(10.0, integ.integrate(ode, 0.0, y, 10.0, y), 1.0e-15);
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(2.5 * FastMath.PI, events.get(2), 1.0e-7);
+        Assert.assertEquals(2 * FastMath.cos(10.0), y[0], 2.0e-6);
+        Assert.assertEquals(-2 * FastMath.sin(10.0), y[1], 2.0e-6);
+
+    }
+
 }
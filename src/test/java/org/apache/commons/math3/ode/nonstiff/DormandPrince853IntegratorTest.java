@@ -27,6 +27,7 @@ import org.apache.commons.math3.ode.TestProblem1;
 import org.apache.commons.math3.ode.TestProblem3;
 import org.apache.commons.math3.ode.TestProblem4;
 import org.apache.commons.math3.ode.TestProblem5;
+import org.apache.commons.math3.ode.TestProblemAbstract;
 import org.apache.commons.math3.ode.TestProblemHandler;
 import org.apache.commons.math3.ode.events.EventHandler;
 import org.apache.commons.math3.ode.sampling.StepHandler;
@@ -240,6 +241,42 @@ public class DormandPrince853IntegratorTest {
       Assert.assertEquals("Dormand-Prince 8 (5, 3)", integ.getName());
   }
 
+  @Test
+  public void testReuseAcrossProblems()
+      throws DimensionMismatchException, NumberIsTooSmallException,
+             MaxCountExceededException, NoBracketingException {
+
+      // the same integrator is used on problems with different dimensions,
+      // its internal work arrays must be reallocated or reused transparently
+      FirstOrderIntegrator reused = new DormandPrince853Integrator(0.0, 1.0, 1.0e-10, 1.0e-10);
+      TestProblemAbstract[] problems = {
+          new TestProblem1(), new TestProblem3(), new TestProblem1(), new TestProblem1()
+      };
+      for (TestProblemAbstract pb : problems) {
+
+          FirstOrderIntegrator fresh = new DormandPrince853Integrator(0.0, 1.0, 1.0e-10, 1.0e-10);
+          fresh.addStepHandler(new TestProblemHandler(pb, fresh));
+          double[] yFresh = new double[pb.getDimension()];
+          fresh.integrate(pb, pb.getInitialTime(), pb.getInitialState(),
+                          pb.getFinalTime(), yFresh);
+
+          TestProblemHandler handler = new TestProblemHandler(pb, reused);
+          reused.clearStepHandlers();
+          reused.addStepHandler(handler);
+          double[] yReused = new double[pb.getDimension()];
+          reused.integrate(pb, pb.getInitialTime(), pb.getInitialState(),
+                           pb.getFinalTime(), yReused);
+
+          Assert.assertEquals(fresh.getEvaluations(), reused.getEvaluations());
+          for (int i = 0; i < yFresh.length; ++i) {
+              Assert.assertEquals(yFresh[i], yReused[i], 0.0);
+          }
+          Assert.assertTrue(handler.getMaximalValueError() < 1.0e-7);
+
+      }
+
+  }
+
   @Test
   public void testEvents()
       throws DimensionMismatchException, NumberIsTooSmallException,
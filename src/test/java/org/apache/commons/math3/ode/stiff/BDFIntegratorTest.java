@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NoBracketingException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.ode.FirstOrderIntegrator;
+import org.apache.commons.math3.ode.TestProblem1;
+import org.apache.commons.math3.ode.TestProblem4;
+import org.apache.commons.math3.ode.TestProblem5;
+import org.apache.commons.math3.ode.TestProblemHandler;
+import org.apache.commons.math3.ode.events.EventHandler;
+import org.apache.commons.math3.ode.nonstiff.DormandPrince853Integrator;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class BDFIntegratorTest {
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionCheck()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+        TestProblem1 pb = new TestProblem1();
+        BDFIntegrator integrator = new BDFIntegrator(0.0, 1.0, 1.0e-10, 1.0e-10);
+        integrator.integrate(pb,
+                             0.0, new double[pb.getDimension()+10],
+                             1.0, new double[pb.getDimension()+10]);
+    }
+
+    @Test
+    public void testIncreasingTolerance()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        int previousCalls = Integer.MAX_VALUE;
+        for (int i = -10; i < -2; ++i) {
+            TestProblem1 pb = new TestProblem1();
+            double minStep = 0;
+            double maxStep = pb.getFinalTime() - pb.getInitialTime();
+            double scalAbsoluteTolerance = FastMath.pow(10.0, i);
+            double scalRelativeTolerance = 0.01 * scalAbsoluteTolerance;
+
+            BDFIntegrator integ = new BDFIntegrator(minStep, maxStep,
+                                                        scalAbsoluteTolerance,
+                                                        scalRelativeTolerance);
+            TestProblemHandler handler = new TestProblemHandler(pb, integ);
+            integ.addStepHandler(handler);
+            integ.integrate(pb,
+                            pb.getInitialTime(), pb.getInitialState(),
+                            pb.getFinalTime(), new double[pb.getDimension()]);
+
+            // the 15.0 factor is only valid for this test
+            // and has been obtained from trial and error
+            // there is no general relation between local and global errors
+            Assert.assertTrue(handler.getMaximalValueError() < (15.0 * scalAbsoluteTolerance));
+            Assert.assertEquals(0, handler.getMaximalTimeError(), 1.0e-12);
+
+            int calls = pb.getCalls();
+            Assert.assertEquals(integ.getEvaluations(), calls);
+            Assert.assertTrue(calls <= previousCalls);
+            previousCalls = calls;
+
+        }
+
+    }
+
+    @Test
+    public void testBackward()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        TestProblem5 pb = new TestProblem5();
+        double minStep = 0;
+        double maxStep = pb.getFinalTime() - pb.getInitialTime();
+        double scalAbsoluteTolerance = 1.0e-8;
+        double scalRelativeTolerance = 0.01 * scalAbsoluteTolerance;
+
+        FirstOrderIntegrator integ = new BDFIntegrator(minStep, maxStep,
+                                                         scalAbsoluteTolerance,
+                                                         scalRelativeTolerance);
+        TestProblemHandler handler = new TestProblemHandler(pb, integ);
+        integ.addStepHandler(handler);
+        integ.integrate(pb, pb.getInitialTime(), pb.getInitialState(),
+                        pb.getFinalTime(), new double[pb.getDimension()]);
+
+        Assert.assertTrue(handler.getLastError() < 2.0e-5);
+        Assert.assertTrue(handler.getMaximalValueError() < 2.0e-5);
+        Assert.assertEquals(0, handler.getMaximalTimeError(), 1.0e-12);
+        Assert.assertEquals("BDF", integ.getName());
+
+    }
+
+    @Test
+    public void testEvents()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        TestProblem4 pb = new TestProblem4();
+        double minStep = 0;
+        double maxStep = pb.getFinalTime() - pb.getInitialTime();
+        double scalAbsoluteTolerance = 1.0e-8;
+        double scalRelativeTolerance = 0.01 * scalAbsoluteTolerance;
+
+        FirstOrderIntegrator integ = new BDFIntegrator(minStep, maxStep,
+                                                         scalAbsoluteTolerance,
+                                                         scalRelativeTolerance);
+        TestProblemHandler handler = new TestProblemHandler(pb, integ);
+        integ.addStepHandler(handler);
+        EventHandler[] functions = pb.getEventsHandlers();
+        double convergence = 1.0e-8 * maxStep;
+        for (int l = 0; l < functions.length; ++l) {
+            integ.addEventHandler(functions[l], Double.POSITIVE_INFINITY, convergence, 1000);
+        }
+        integ.integrate(pb,
+                        pb.getInitialTime(), pb.getInitialState(),
+                        pb.getFinalTime(), new double[pb.getDimension()]);
+
+        Assert.assertTrue(handler.getMaximalValueError() < 5.0e-6);
+        Assert.assertEquals(0, handler.getMaximalTimeError(), convergence);
+        Assert.assertEquals(12.0, handler.getLastTime(), convergence);
+
+    }
+
+    @Test
+    public void testRobertson()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        double[] absoluteTolerance = { 1.0e-10, 1.0e-14, 1.0e-10 };
+        double[] relativeTolerance = { 1.0e-6, 1.0e-6, 1.0e-6 };
+
+        RobertsonProblem pb = new RobertsonProblem();
+        BDFIntegrator integ = new BDFIntegrator(0, 40, absoluteTolerance, relativeTolerance);
+        double[] y = new double[3];
+        integ.integrate(pb, 0, new double[] { 1, 0, 0 }, 40, y);
+        for (int i = 0; i < y.length; ++i) {
+            Assert.assertEquals(RobertsonProblem.REFERENCE_40[i], y[i],
+                                1.0e-5 * FastMath.abs(RobertsonProblem.REFERENCE_40[i]));
+        }
+
+        // exact jacobian and LU decomposition are reused across many steps
+        Assert.assertEquals(integ.getJacobianEvaluations(), pb.getJacobianCalls());
+        Assert.assertTrue(integ.getJacobianEvaluations() < 10);
+        Assert.assertTrue(integ.getDecompositions() < 100);
+        Assert.assertEquals(pb.getCalls(), integ.getEvaluations());
+        Assert.assertTrue(integ.getEvaluations() < 500);
+
+        // the same problem is out of reach of explicit integrators
+        RobertsonProblem explicit = new RobertsonProblem();
+        DormandPrince853Integrator dp853 =
+                new DormandPrince853Integrator(0, 40, absoluteTolerance, relativeTolerance);
+        dp853.integrate(explicit, 0, new double[] { 1, 0, 0 }, 40, new double[3]);
+        Assert.assertTrue(explicit.getCalls() > 100 * integ.getEvaluations());
+
+    }
+
+    @Test
+    public void testMaxOrder()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        double[] absoluteTolerance = { 1.0e-10, 1.0e-14, 1.0e-10 };
+        double[] relativeTolerance = { 1.0e-6, 1.0e-6, 1.0e-6 };
+
+        int previousCalls = Integer.MAX_VALUE;
+        for (int maxOrder = 1; maxOrder <= 5; ++maxOrder) {
+            RobertsonProblem pb = new RobertsonProblem();
+            BDFIntegrator integ = new BDFIntegrator(maxOrder, 0, 40, absoluteTolerance, relativeTolerance);
+            Assert.assertEquals(maxOrder, integ.getMaxOrder());
+            double[] y = new double[3];
+            integ.integrate(pb, 0, new double[] { 1, 0, 0 }, 40, y);
+            for (int i = 0; i < y.length; ++i) {
+                Assert.assertEquals(RobertsonProblem.REFERENCE_40[i], y[i],
+                                    5.0e-4 * FastMath.abs(RobertsonProblem.REFERENCE_40[i]));
+            }
+            Assert.assertTrue(pb.getCalls() < previousCalls);
+            previousCalls = pb.getCalls();
+        }
+
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testWrongMaxOrder() {
+        new BDFIntegrator(6, 0.0, 1.0, 1.0e-10, 1.0e-10);
+    }
+
+    @Test
+    public void testFiniteDifferencesJacobian()
+        throws DimensionMismatchException, NumberIsTooSmallException,
+               MaxCountExceededException, NoBracketingException {
+
+        double[] absoluteTolerance = { 1.0e-10, 1.0e-14, 1.0e-10 };
+        double[] relativeTolerance = { 1.0e-6, 1.0e-6, 1.0e-6 };
+
+        RobertsonProblem exact = new RobertsonProblem();
+        BDFIntegrator integ = new BDFIntegrator(0, 40, absoluteTolerance, relativeTolerance);
+        double[] yExact = new double[3];
+        integ.integrate(exact, 0, new double[] { 1, 0, 0 }, 40, yExact);
+        int exactEvaluations = integ.getEvaluations();
+
+        RobertsonProblem pb = new RobertsonProblem();
+        double[] y = new double[3];
+        integ.integrate(pb.withoutJacobian(), 0, new double[] { 1, 0, 0 }, 40, y);
+        Assert.assertEquals(0, pb.getJacobianCalls());
+        for (int i = 0; i < y.length; ++i) {
+            Assert.assertEquals(yExact[i], y[i], 1.0e-6 * FastMath.abs(yExact[i]));
+        }
+
+        // each finite differences jacobian costs one evaluation per component
+        Assert.assertEquals(exactEvaluations + 3 * integ.getJacobianEvaluations(),
+                            integ.getEvaluations(), 0.05 * exactEvaluations);
+
+    }
+
+}
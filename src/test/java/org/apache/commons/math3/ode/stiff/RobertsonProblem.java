@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.math3.ode.stiff;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.MainStateJacobianProvider;
+
+/**
+ * This class is used in the junit tests for the stiff ODE integrators.
+ *
+ * <p>This is the Robertson chemical kinetics problem, a classical stiff
+ * problem whose eigenvalues range from 0 to about -10<sup>4</sup>:
+ * <pre>
+ *    y1' = -0.04 y1 + 10<sup>4</sup> y2 y3
+ *    y2' =  0.04 y1 - 10<sup>4</sup> y2 y3 - 3 10<sup>7</sup> y2<sup>2</sup>
+ *    y3' =  3 10<sup>7</sup> y2<sup>2</sup>
+ * </pre>
+ * with y(0) = (1, 0, 0). The reference solution at t = 40 is taken from
+ * Hairer and Wanner, <i>Solving Ordinary Differential Equations II</i>.</p>
+ */
+public class RobertsonProblem implements MainStateJacobianProvider {
+
+    /** Reference solution at t = 40. */
+    public static final double[] REFERENCE_40 = {
+        0.7158270687193685, 9.185534764557217e-06, 0.2841637457458670
+    };
+
+    /** Number of derivatives evaluations. */
+    private int calls;
+
+    /** Number of jacobian evaluations. */
+    private int jacobianCalls;
+
+    public int getDimension() {
+        return 3;
+    }
+
+    public void computeDerivatives(double t, double[] y, double[] yDot) {
+        ++calls;
+        yDot[0] = -0.04 * y[0] + 1.0e4 * y[1] * y[2];
+        yDot[2] = 3.0e7 * y[1] * y[1];
+        yDot[1] = -yDot[0] - yDot[2];
+    }
+
+    public void computeMainStateJacobian(double t, double[] y, double[] yDot, double[][] dFdY) {
+        ++jacobianCalls;
+        dFdY[0][0] = -0.04;
+        dFdY[0][1] = 1.0e4 * y[2];
+        dFdY[0][2] = 1.0e4 * y[1];
+        dFdY[2][0] = 0;
+        dFdY[2][1] = 6.0e7 * y[1];
+        dFdY[2][2] = 0;
+        for (int j = 0; j < 3; ++j) {
+            dFdY[1][j] = -dFdY[0][j] - dFdY[2][j];
+        }
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public int getJacobianCalls() {
+        return jacobianCalls;
+    }
+
+    /** Get a view of the problem hiding its jacobian.
+     * @return equations without analytical jacobian
+     */
+    public FirstOrderDifferentialEquations withoutJacobian() {
+        return new FirstOrderDifferentialEquations() {
+            public int getDimension() {
+                return RobertsonProblem.this.getDimension();
+            }
+            public void computeDerivatives(double t, double[] y, double[] yDot) {
+                RobertsonProblem.this.computeDerivatives(t, y, yDot);
+            }
+        };
+    }
+
+}
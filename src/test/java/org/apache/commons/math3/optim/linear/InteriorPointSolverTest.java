@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well1024a;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InteriorPointSolverTest {
+    private static final MaxIter DEFAULT_MAX_ITER = new MaxIter(100);
+
+    @Test
+    public void testSimplexSolver() {
+        LinearObjectiveFunction f =
+            new LinearObjectiveFunction(new double[] { 15, 10 }, 7);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 3));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 4));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2.0, solution.getPoint()[0], 1e-8);
+        Assert.assertEquals(2.0, solution.getPoint()[1], 1e-8);
+        Assert.assertEquals(57.0, solution.getValue(), 1e-7);
+    }
+
+    @Test
+    public void testSolutionWithNegativeDecisionVariable() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -2, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 14));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(-2.0, solution.getPoint()[0], 1e-8);
+        Assert.assertEquals(8.0, solution.getPoint()[1], 1e-8);
+        Assert.assertEquals(12.0, solution.getValue(), 1e-7);
+    }
+
+    @Test
+    public void testRestrictVariablesToNonNegative() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 409, 523, 70, 204, 339 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {    43,   56, 345,  56,    5 }, Relationship.LEQ,  4567456));
+        constraints.add(new LinearConstraint(new double[] {    12,   45,   7,  56,   23 }, Relationship.LEQ,    56454));
+        constraints.add(new LinearConstraint(new double[] {     8,  768,   0,  34, 7456 }, Relationship.LEQ,  1923421));
+        constraints.add(new LinearConstraint(new double[] { 12342, 2342,  34, 678, 2342 }, Relationship.GEQ,     4356));
+        constraints.add(new LinearConstraint(new double[] {    45,  678,  76,  52,   23 }, Relationship.EQ,    456356));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2902.92783505155, solution.getPoint()[0], 1e-5);
+        Assert.assertEquals(480.419243986254, solution.getPoint()[1], 1e-5);
+        Assert.assertEquals(0.0, solution.getPoint()[2], 1e-5);
+        Assert.assertEquals(0.0, solution.getPoint()[3], 1e-5);
+        Assert.assertEquals(0.0, solution.getPoint()[4], 1e-5);
+        Assert.assertEquals(1438556.7491409, solution.getValue(), 1e-3);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.GEQ, 3));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleAndUnbounded() {
+        // the dual problem is infeasible too, but the constraints are checked first
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.GEQ, 3));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15, 10 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.EQ, 2));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedFreeVariables() {
+        // the ray (-1, 1, 1) is feasible and improves the objective by 3 per unit,
+        // a primal certificate must not be reported for it
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -1, 1, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 4, 4, 0 }, Relationship.EQ, 12));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleZeroRow() {
+        // the first row can never be satisfied, and the other constraints have no
+        // strictly feasible point, so the multipliers of the iterates grow without bound
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 0, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 0, 0 }, Relationship.EQ, 9));
+        constraints.add(new LinearConstraint(new double[] { 3, 0 }, Relationship.EQ, 5));
+        constraints.add(new LinearConstraint(new double[] { 3, 2 }, Relationship.LEQ, 5));
+
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test(expected = TooManyIterationsException.class)
+    public void testMaxIter() {
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        LinearObjectiveFunction f = assignment(5, constraints);
+        new InteriorPointSolver().optimize(new MaxIter(2), f, new LinearConstraintSet(constraints),
+                                           GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test
+    public void testSameOptimumAsSimplexSolver() {
+        RandomGenerator random = new Well1024a(0x7a4c7d57a8d27c3fl);
+        for (int k = 0; k < 300; ++k) {
+            final int n = 1 + random.nextInt(10);
+            final int m = 1 + random.nextInt(10);
+            double[] c = new double[n];
+            for (int j = 0; j < n; ++j) {
+                c[j] = random.nextInt(21) - 10;
+            }
+            LinearObjectiveFunction f = new LinearObjectiveFunction(c, 0);
+            List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (int i = 0; i < m; ++i) {
+                double[] a = new double[n];
+                for (int j = 0; j < n; ++j) {
+                    a[j] = random.nextBoolean() ? 0 : random.nextInt(11) - 3;
+                }
+                constraints.add(new LinearConstraint(a, Relationship.values()[random.nextInt(3)],
+                                                     random.nextInt(21) - 5));
+            }
+            final GoalType goal = random.nextBoolean() ? GoalType.MINIMIZE : GoalType.MAXIMIZE;
+            final boolean nonNegative = random.nextBoolean();
+
+            String expected;
+            try {
+                expected = Double.toString(new SimplexSolver().optimize(new MaxIter(1000), f,
+                                                                        new LinearConstraintSet(constraints),
+                                                                        goal,
+                                                                        new NonNegativeConstraint(nonNegative)).getValue());
+            } catch (NoFeasibleSolutionException e) {
+                expected = "infeasible";
+            } catch (UnboundedSolutionException e) {
+                expected = "unbounded";
+            }
+
+            try {
+                PointValuePair solution = new InteriorPointSolver().optimize(new MaxIter(100), f,
+                                                                             new LinearConstraintSet(constraints),
+                                                                             goal,
+                                                                             new NonNegativeConstraint(nonNegative));
+                final double value = Double.parseDouble(expected);
+                Assert.assertEquals(value, solution.getValue(), 1e-7 * FastMath.max(1, FastMath.abs(value)));
+                for (LinearConstraint constraint : constraints) {
+                    checkConstraint(constraint, solution.getPoint(), 1e-7);
+                }
+                for (int j = 0; nonNegative && j < n; ++j) {
+                    Assert.assertTrue(solution.getPoint()[j] > -1e-7);
+                }
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertEquals("infeasible", expected);
+            } catch (UnboundedSolutionException e) {
+                Assert.assertEquals("unbounded", expected);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeSparseAssignment() {
+        // 2500 variables with 2 non-zero coefficients each, factorized as a sparse matrix
+        final int n = 50;
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        LinearObjectiveFunction f = assignment(n, constraints);
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(0, solution.getValue(), 1e-6);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Assert.assertEquals(i == j ? 1 : 0, solution.getPoint()[i * n + j], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testProjectionOnSimplex() {
+        // minimize |x - p|^2 / 2 subject to sum(x) = 1, x >= 0
+        RandomGenerator random = new Well1024a(0x3a9cd52b1e6f4e07l);
+        final int n = 20;
+        final double[] p = new double[n];
+        for (int j = 0; j < n; ++j) {
+            p[j] = random.nextGaussian();
+        }
+        final double[] expected = projectOnSimplex(p);
+
+        final double[][] q = new double[n][n];
+        final double[] c = new double[n];
+        final double[] ones = new double[n];
+        for (int j = 0; j < n; ++j) {
+            q[j][j] = 1;
+            c[j] = -p[j];
+            ones[j] = 1;
+        }
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution =
+            solver.optimize(DEFAULT_MAX_ITER, new QuadraticObjectiveFunction(q, c, 0),
+                            new LinearConstraintSet(new LinearConstraint(ones, Relationship.EQ, 1)),
+                            GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertArrayEquals(expected, solution.getPoint(), 1e-8);
+
+        // same problem as a maximization
+        for (int j = 0; j < n; ++j) {
+            q[j][j] = -1;
+            c[j] = p[j];
+        }
+        solution = solver.optimize(new QuadraticObjectiveFunction(q, c, 0), GoalType.MAXIMIZE);
+        Assert.assertArrayEquals(expected, solution.getPoint(), 1e-8);
+    }
+
+    @Test
+    public void testQuadraticWithFreeVariables() {
+        // minimize (x - 1)^2 + (x - y)^2 subject to x + y <= 1
+        final double[][] q = { { 4, -2 }, { -2, 2 } };
+        InteriorPointSolver solver = new InteriorPointSolver();
+        PointValuePair solution =
+            solver.optimize(DEFAULT_MAX_ITER, new QuadraticObjectiveFunction(q, new double[] { -2, 0 }, 1),
+                            new LinearConstraintSet(new LinearConstraint(new double[] { 1, 1 },
+                                                                         Relationship.LEQ, 1)),
+                            GoalType.MINIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(0.6, solution.getPoint()[0], 1e-8);
+        Assert.assertEquals(0.4, solution.getPoint()[1], 1e-8);
+        Assert.assertEquals(0.2, solution.getValue(), 1e-8);
+    }
+
+    @Test
+    public void testLinearAfterQuadratic() {
+        InteriorPointSolver solver = new InteriorPointSolver();
+        LinearConstraintSet constraints =
+            new LinearConstraintSet(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 3));
+        PointValuePair solution =
+            solver.optimize(DEFAULT_MAX_ITER, new QuadraticObjectiveFunction(new double[][] { { 2 } },
+                                                                              new double[] { -2 }, 0),
+                            constraints, GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(1, solution.getPoint()[0], 1e-8);
+        solution = solver.optimize(new LinearObjectiveFunction(new double[] { -2 }, 0));
+        Assert.assertEquals(3, solution.getPoint()[0], 1e-8);
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedQuadratic() {
+        // minimize x^2 - y, with y free
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER,
+                        new QuadraticObjectiveFunction(new double[][] { { 2, 0 }, { 0, 0 } },
+                                                       new double[] { 0, -1 }, 0),
+                        new LinearConstraintSet(new LinearConstraint(new double[] { 1, 0 },
+                                                                     Relationship.LEQ, 3)),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = NonPositiveDefiniteMatrixException.class)
+    public void testNonConvex() {
+        final double[][] q = { { -1, 0 }, { 0, -1 } };
+        InteriorPointSolver solver = new InteriorPointSolver();
+        solver.optimize(DEFAULT_MAX_ITER, new QuadraticObjectiveFunction(q, new double[2], 0),
+                        new LinearConstraintSet(new LinearConstraint(new double[] { 1, 1 },
+                                                                     Relationship.EQ, 1)),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test
+    public void testQuadraticObjectiveFunction() {
+        QuadraticObjectiveFunction f =
+            new QuadraticObjectiveFunction(new double[][] { { 2, 1 }, { 0, 4 } }, new double[] { 1, -1 }, 3);
+        // 1/2 (2 x^2 + x y + 4 y^2) + x - y + 3
+        Assert.assertEquals(3, f.value(new double[] { 0, 0 }), 1e-15);
+        Assert.assertEquals(5, f.value(new double[] { 1, 0 }), 1e-15);
+        Assert.assertEquals(6.5, f.value(new double[] { 1, 1 }), 1e-15);
+    }
+
+    @Test(expected = NonSquareMatrixException.class)
+    public void testQuadraticObjectiveFunctionNonSquare() {
+        new QuadraticObjectiveFunction(new double[][] { { 1, 0 } }, new double[] { 1 }, 0);
+    }
+
+    @Test(expected = DimensionMismatchException.class)
+    public void testQuadraticObjectiveFunctionMismatch() {
+        new QuadraticObjectiveFunction(new double[][] { { 1, 0 }, { 0, 1 } }, new double[] { 1 }, 0);
+    }
+
+    /**
+     * Projects a point on the unit simplex.
+     *
+     * @param p Point.
+     * @return the closest point with non-negative coordinates summing to one.
+     */
+    private double[] projectOnSimplex(final double[] p) {
+        final double[] sorted = p.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        double theta = 0;
+        for (int k = sorted.length - 1; k >= 0; --k) {
+            sum += sorted[k];
+            theta = (sum - 1) / (sorted.length - k);
+            if (k == 0 || sorted[k - 1] <= theta) {
+                break;
+            }
+        }
+        final double[] x = new double[p.length];
+        for (int j = 0; j < p.length; ++j) {
+            x[j] = FastMath.max(0, p[j] - theta);
+        }
+        return x;
+    }
+
+    /**
+     * Builds an assignment problem whose only optimum is the identity.
+     *
+     * @param n Number of rows and columns.
+     * @param constraints List where the constraints are added.
+     * @return the objective function.
+     */
+    private LinearObjectiveFunction assignment(final int n, final List<LinearConstraint> constraints) {
+        OpenMapRealVector c = new OpenMapRealVector(n * n);
+        for (int i = 0; i < n; ++i) {
+            OpenMapRealVector row = new OpenMapRealVector(n * n);
+            OpenMapRealVector column = new OpenMapRealVector(n * n);
+            for (int j = 0; j < n; ++j) {
+                c.setEntry(i * n + j, (i - j) * (i - j));
+                row.setEntry(i * n + j, 1);
+                column.setEntry(j * n + i, 1);
+            }
+            constraints.add(new LinearConstraint(row, Relationship.EQ, 1));
+            constraints.add(new LinearConstraint(column, Relationship.EQ, 1));
+        }
+        return new LinearObjectiveFunction(c, 0);
+    }
+
+    private void checkConstraint(final LinearConstraint constraint, final double[] point,
+                                 final double tolerance) {
+        double lhs = 0;
+        for (int j = 0; j < point.length; ++j) {
+            lhs += constraint.getCoefficients().getEntry(j) * point[j];
+        }
+        switch (constraint.getRelationship()) {
+        case LEQ :
+            Assert.assertTrue(lhs <= constraint.getValue() + tolerance);
+            break;
+        case GEQ :
+            Assert.assertTrue(lhs >= constraint.getValue() - tolerance);
+            break;
+        default :
+            Assert.assertEquals(constraint.getValue(), lhs, tolerance);
+        }
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.linear;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.OptimizationData;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well1024a;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RevisedSimplexSolverTest {
+    private static final MaxIter DEFAULT_MAX_ITER = new MaxIter(100);
+
+    @Test
+    public void testSimplexSolver() {
+        LinearObjectiveFunction f =
+            new LinearObjectiveFunction(new double[] { 15, 10 }, 7);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.LEQ, 2));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.LEQ, 3));
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.EQ, 4));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2.0, solution.getPoint()[0], 1e-12);
+        Assert.assertEquals(2.0, solution.getPoint()[1], 1e-12);
+        Assert.assertEquals(57.0, solution.getValue(), 1e-12);
+    }
+
+    @Test
+    public void testMath434NegativeVariable() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] {0.0, 0.0, 1.0}, 0.0d);
+        ArrayList<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {1, 1, 0}, Relationship.EQ, 5));
+        constraints.add(new LinearConstraint(new double[] {0, 0, 1}, Relationship.GEQ, -10));
+
+        double epsilon = 1e-6;
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(false));
+
+        Assert.assertEquals(5.0, solution.getPoint()[0] + solution.getPoint()[1], epsilon);
+        Assert.assertEquals(-10.0, solution.getPoint()[2], epsilon);
+        Assert.assertEquals(-10.0, solution.getValue(), epsilon);
+    }
+
+    @Test
+    public void testDegeneracy() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 0.8, 0.7 }, 0 );
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.LEQ, 18.0));
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.GEQ, 10.0));
+        constraints.add(new LinearConstraint(new double[] { 0, 1 }, Relationship.GEQ, 8.0));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(13.6, solution.getValue(), .0000001);
+    }
+
+    @Test
+    public void testSolutionWithNegativeDecisionVariable() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { -2, 1 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 1 }, Relationship.GEQ, 6));
+        constraints.add(new LinearConstraint(new double[] { 1, 2 }, Relationship.LEQ, 14));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+        Assert.assertEquals(-2.0, solution.getPoint()[0], 1e-12);
+        Assert.assertEquals(8.0, solution.getPoint()[1], 1e-12);
+        Assert.assertEquals(12.0, solution.getValue(), 1e-12);
+    }
+
+    @Test
+    public void testRestrictVariablesToNonNegative() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 409, 523, 70, 204, 339 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] {    43,   56, 345,  56,    5 }, Relationship.LEQ,  4567456));
+        constraints.add(new LinearConstraint(new double[] {    12,   45,   7,  56,   23 }, Relationship.LEQ,    56454));
+        constraints.add(new LinearConstraint(new double[] {     8,  768,   0,  34, 7456 }, Relationship.LEQ,  1923421));
+        constraints.add(new LinearConstraint(new double[] { 12342, 2342,  34, 678, 2342 }, Relationship.GEQ,     4356));
+        constraints.add(new LinearConstraint(new double[] {    45,  678,  76,  52,   23 }, Relationship.EQ,    456356));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                                                  GoalType.MAXIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(2902.92783505155, solution.getPoint()[0], .0000001);
+        Assert.assertEquals(480.419243986254, solution.getPoint()[1], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[2], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[3], .0000001);
+        Assert.assertEquals(0.0, solution.getPoint()[4], .0000001);
+        Assert.assertEquals(1438556.7491409, solution.getValue(), .0000001);
+    }
+
+    @Test(expected = NoFeasibleSolutionException.class)
+    public void testInfeasibleSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.LEQ, 1));
+        constraints.add(new LinearConstraint(new double[] { 1 }, Relationship.GEQ, 3));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = UnboundedSolutionException.class)
+    public void testUnboundedSolution() {
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 15, 10 }, 0);
+        Collection<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        constraints.add(new LinearConstraint(new double[] { 1, 0 }, Relationship.EQ, 2));
+
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(constraints),
+                        GoalType.MAXIMIZE, new NonNegativeConstraint(false));
+    }
+
+    @Test(expected = TooManyIterationsException.class)
+    public void testMaxIter() {
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        LinearObjectiveFunction f = assignment(20, constraints);
+        new RevisedSimplexSolver().optimize(new MaxIter(10), f, new LinearConstraintSet(constraints),
+                                            GoalType.MINIMIZE, new NonNegativeConstraint(true));
+    }
+
+    @Test(expected = NotStrictlyPositiveException.class)
+    public void testWrongRefactorization() {
+        new RevisedSimplexSolver(1e-6, 0);
+    }
+
+    @Test
+    public void testSameOptimumAsSimplexSolver() {
+        RandomGenerator random = new Well1024a(0x7a4c7d57a8d27c3fl);
+        for (int k = 0; k < 300; ++k) {
+            final int n = 1 + random.nextInt(10);
+            final int m = 1 + random.nextInt(10);
+            double[] c = new double[n];
+            for (int j = 0; j < n; ++j) {
+                c[j] = random.nextInt(21) - 10;
+            }
+            LinearObjectiveFunction f = new LinearObjectiveFunction(c, 0);
+            List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (int i = 0; i < m; ++i) {
+                double[] a = new double[n];
+                for (int j = 0; j < n; ++j) {
+                    a[j] = random.nextBoolean() ? 0 : random.nextInt(11) - 3;
+                }
+                constraints.add(new LinearConstraint(a, Relationship.values()[random.nextInt(3)],
+                                                     random.nextInt(21) - 5));
+            }
+            for (int j = 0; j < n; ++j) {
+                // keep most problems bounded
+                double[] a = new double[n];
+                a[j] = 1;
+                constraints.add(new LinearConstraint(a, Relationship.LEQ, 10));
+                constraints.add(new LinearConstraint(a, Relationship.GEQ, -10));
+            }
+            final GoalType goal = random.nextBoolean() ? GoalType.MINIMIZE : GoalType.MAXIMIZE;
+            final boolean nonNegative = random.nextBoolean();
+
+            String expected;
+            try {
+                expected = Double.toString(new SimplexSolver().optimize(new MaxIter(1000), f,
+                                                                        new LinearConstraintSet(constraints),
+                                                                        goal,
+                                                                        new NonNegativeConstraint(nonNegative)).getValue());
+            } catch (NoFeasibleSolutionException e) {
+                expected = "infeasible";
+            }
+
+            // frequent refactorizations exercise both the factorization and its updates
+            for (final RevisedSimplexSolver solver : new RevisedSimplexSolver[] {
+                new RevisedSimplexSolver(), new RevisedSimplexSolver(1e-6, 2)
+            }) {
+                try {
+                    PointValuePair solution = solver.optimize(new MaxIter(1000), f,
+                                                              new LinearConstraintSet(constraints),
+                                                              goal,
+                                                              new NonNegativeConstraint(nonNegative));
+                    Assert.assertEquals(Double.parseDouble(expected), solution.getValue(), 1e-9);
+                    for (LinearConstraint constraint : constraints) {
+                        checkConstraint(constraint, solution.getPoint(), 1e-9);
+                    }
+                    for (int j = 0; nonNegative && j < n; ++j) {
+                        Assert.assertTrue(solution.getPoint()[j] > -1e-9);
+                    }
+                } catch (NoFeasibleSolutionException e) {
+                    Assert.assertEquals("infeasible", expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeSparseAssignment() {
+        // 10000 variables with 2 non-zero coefficients each, highly degenerate
+        final int n = 100;
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        LinearObjectiveFunction f = assignment(n, constraints);
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(new MaxIter(100000), f, new LinearConstraintSet(constraints),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(0, solution.getValue(), 1e-10);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Assert.assertEquals(i == j ? 1 : 0, solution.getPoint()[i * n + j], 1e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testWarmStart() {
+        RandomGenerator random = new Well1024a(0x3c1f3b2e5e2d7a61l);
+        int warmIterations = 0;
+        int coldIterations = 0;
+        for (int k = 0; k < 300; ++k) {
+            final int n = 1 + random.nextInt(10);
+            final int m = 1 + random.nextInt(10);
+            double[] c = new double[n];
+            for (int j = 0; j < n; ++j) {
+                c[j] = random.nextInt(21) - 10;
+            }
+            List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+            for (int i = 0; i < m; ++i) {
+                constraints.add(randomConstraint(random, n));
+            }
+            for (int j = 0; j < n; ++j) {
+                double[] a = new double[n];
+                a[j] = 1;
+                constraints.add(new LinearConstraint(a, Relationship.LEQ, 10));
+                constraints.add(new LinearConstraint(a, Relationship.GEQ, -10));
+            }
+            final GoalType goal = random.nextBoolean() ? GoalType.MINIMIZE : GoalType.MAXIMIZE;
+            final boolean nonNegative = random.nextBoolean();
+
+            RevisedSimplexSolver solver = new RevisedSimplexSolver();
+            try {
+                solver.optimize(new MaxIter(1000), new LinearObjectiveFunction(c, 0),
+                                new LinearConstraintSet(constraints),
+                                goal, new NonNegativeConstraint(nonNegative));
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertNull(solver.getBasis());
+                continue;
+            }
+
+            // modify the objective function, a right hand side, or add or remove a constraint
+            final OptimizationData modified;
+            switch (random.nextInt(4)) {
+            case 0 :
+                c[random.nextInt(n)] += random.nextInt(11) - 5;
+                modified = new LinearObjectiveFunction(c, 0);
+                break;
+            case 1 : {
+                final int i = random.nextInt(m);
+                final LinearConstraint old = constraints.get(i);
+                constraints.set(i, new LinearConstraint(old.getCoefficients(), old.getRelationship(),
+                                                        old.getValue() + random.nextInt(11) - 5));
+                modified = new LinearConstraintSet(constraints);
+                break;
+            }
+            case 2 :
+                constraints.add(randomConstraint(random, n));
+                modified = new LinearConstraintSet(constraints);
+                break;
+            default :
+                constraints.remove(constraints.size() - 1);
+                modified = new LinearConstraintSet(constraints);
+            }
+
+            String expected;
+            RevisedSimplexSolver cold = new RevisedSimplexSolver();
+            try {
+                expected = Double.toString(cold.optimize(new MaxIter(1000), new LinearObjectiveFunction(c, 0),
+                                                         new LinearConstraintSet(constraints),
+                                                         goal, new NonNegativeConstraint(nonNegative)).getValue());
+                coldIterations += cold.getIterations();
+            } catch (NoFeasibleSolutionException e) {
+                expected = "infeasible";
+            } catch (UnboundedSolutionException e) {
+                expected = "unbounded";
+            }
+
+            // only the modified data and the basis are given again
+            try {
+                PointValuePair solution = solver.optimize(modified, solver.getBasis());
+                Assert.assertEquals(Double.parseDouble(expected), solution.getValue(), 1e-9);
+                for (LinearConstraint constraint : constraints) {
+                    checkConstraint(constraint, solution.getPoint(), 1e-9);
+                }
+                for (int j = 0; nonNegative && j < n; ++j) {
+                    Assert.assertTrue(solution.getPoint()[j] > -1e-9);
+                }
+                Assert.assertNotNull(solver.getBasis());
+                warmIterations += solver.getIterations();
+            } catch (NoFeasibleSolutionException e) {
+                Assert.assertEquals("infeasible", expected);
+            } catch (UnboundedSolutionException e) {
+                Assert.assertEquals("unbounded", expected);
+            }
+        }
+        Assert.assertTrue(warmIterations < coldIterations / 2);
+    }
+
+    @Test
+    public void testWarmStartObjectiveChange() {
+        final int n = 30;
+        List<LinearConstraint> constraints = new ArrayList<LinearConstraint>();
+        LinearObjectiveFunction f = assignment(n, constraints);
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        solver.optimize(new MaxIter(100000), f, new LinearConstraintSet(constraints),
+                        GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        final int coldIterations = solver.getIterations();
+        final SimplexBasis basis = solver.getBasis();
+        Assert.assertEquals(2 * n, basis.getNumberOfConstraints());
+
+        // make the assignment of rows 0 and 1 to columns 1 and 0 cheaper than the identity
+        OpenMapRealVector c = new OpenMapRealVector(f.getCoefficients());
+        c.setEntry(1, -1);
+        c.setEntry(n, -1);
+        PointValuePair solution = solver.optimize(new LinearObjectiveFunction(c, 0), basis);
+        Assert.assertEquals(-2, solution.getValue(), 1e-10);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                final boolean swapped = (i == 0 && j == 1) || (i == 1 && j == 0);
+                Assert.assertEquals((i == j && i > 1) || swapped ? 1 : 0,
+                                    solution.getPoint()[i * n + j], 1e-10);
+            }
+        }
+        Assert.assertTrue(solver.getIterations() < coldIterations / 10);
+    }
+
+    @Test
+    public void testWarmStartRemovedConstraints() {
+        // the basis of the larger problem cannot be used, the problem is solved from scratch
+        LinearObjectiveFunction f = new LinearObjectiveFunction(new double[] { 1, 1 }, 0);
+        LinearConstraint c1 = new LinearConstraint(new double[] { 1, 0 }, Relationship.GEQ, 1);
+        LinearConstraint c2 = new LinearConstraint(new double[] { 0, 1 }, Relationship.GEQ, 2);
+        RevisedSimplexSolver solver = new RevisedSimplexSolver();
+        PointValuePair solution = solver.optimize(DEFAULT_MAX_ITER, f, new LinearConstraintSet(c1, c2),
+                                                  GoalType.MINIMIZE, new NonNegativeConstraint(true));
+        Assert.assertEquals(3, solution.getValue(), 1e-10);
+        Assert.assertArrayEquals(new int[] { 0, 1 }, solver.getBasis().getBasicVariables());
+        Assert.assertEquals(0, solver.getBasis().getBasicConstraints().length);
+        solution = solver.optimize(new LinearConstraintSet(c2), solver.getBasis());
+        Assert.assertEquals(2, solution.getValue(), 1e-10);
+        Assert.assertArrayEquals(new double[] { 0, 2 }, solution.getPoint(), 1e-10);
+    }
+
+    private LinearConstraint randomConstraint(final RandomGenerator random, final int n) {
+        double[] a = new double[n];
+        for (int j = 0; j < n; ++j) {
+            a[j] = random.nextBoolean() ? 0 : random.nextInt(11) - 3;
+        }
+        return new LinearConstraint(a, Relationship.values()[random.nextInt(3)],
+                                    random.nextInt(21) - 5);
+    }
+
+    /**
+     * Builds an assignment problem whose only optimum is the identity.
+     *
+     * @param n Number of rows and columns.
+     * @param constraints List where the constraints are added.
+     * @return the objective function.
+     */
+    private LinearObjectiveFunction assignment(final int n, final List<LinearConstraint> constraints) {
+        OpenMapRealVector c = new OpenMapRealVector(n * n);
+        for (int i = 0; i < n; ++i) {
+            OpenMapRealVector row = new OpenMapRealVector(n * n);
+            OpenMapRealVector column = new OpenMapRealVector(n * n);
+            for (int j = 0; j < n; ++j) {
+                c.setEntry(i * n + j, (i - j) * (i - j));
+                row.setEntry(i * n + j, 1);
+                column.setEntry(j * n + i, 1);
+            }
+            constraints.add(new LinearConstraint(row, Relationship.EQ, 1));
+            constraints.add(new LinearConstraint(column, Relationship.EQ, 1));
+        }
+        return new LinearObjectiveFunction(c, 0);
+    }
+
+    private void checkConstraint(final LinearConstraint constraint, final double[] point,
+                                 final double tolerance) {
+        double lhs = 0;
+        for (int j = 0; j < point.length; ++j) {
+            lhs += constraint.getCoefficients().getEntry(j) * point[j];
+        }
+        switch (constraint.getRelationship()) {
+        case LEQ :
+            Assert.assertTrue(lhs <= constraint.getValue() + tolerance);
+            break;
+        case GEQ :
+            Assert.assertTrue(lhs >= constraint.getValue() - tolerance);
+            break;
+        default :
+            Assert.assertEquals(constraint.getValue(), lhs, tolerance);
+        }
+    }
+
+}
@@ -16,10 +16,15 @@
  */
 package org.apache.commons.math3.optim.nonlinear.scalar;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.OptimizerFactory;
 import org.apache.commons.math3.optim.PointValuePair;
 import org.apache.commons.math3.optim.SimpleValueChecker;
 import org.apache.commons.math3.optim.nonlinear.scalar.gradient.CircleScalar;
@@ -104,6 +109,96 @@ public class MultiStartMultivariateOptimizerTest {
         Assert.assertTrue(optimum.getValue() < 8e-4);
     }
 
+    @Test
+    public void testIndependentStarts() {
+        final CircleScalar circle = createCircle();
+        final PointValuePair[] sequential = fitCircle(circle, null, 10, new MaxEval(200)).getOptima();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final MultiStartMultivariateOptimizer optimizer =
+                fitCircle(circle, executor, 10, new MaxEval(200));
+            final PointValuePair[] parallel = optimizer.getOptima();
+            Assert.assertEquals(10, parallel.length);
+            Assert.assertEquals(sequential.length, parallel.length);
+            for (int i = 0; i < parallel.length; i++) {
+                Assert.assertEquals(sequential[i].getValue(), parallel[i].getValue(), 0);
+                Assert.assertArrayEquals(sequential[i].getPoint(), parallel[i].getPoint(), 0);
+            }
+            Assert.assertEquals(3.1267527, parallel[0].getValue(), 1e-8);
+            Assert.assertTrue(optimizer.getEvaluations() > 70);
+            Assert.assertTrue(optimizer.getEvaluations() < 90);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTargetValue() {
+        // the first start reaches the target, the other ones are not run
+        final MultiStartMultivariateOptimizer optimizer =
+            fitCircle(createCircle(), null, 10, new MaxEval(200), new TargetValue(3.2));
+        Assert.assertEquals(1, optimizer.getOptima().length);
+        Assert.assertTrue(optimizer.getEvaluations() < 20);
+    }
+
+    @Test
+    public void testGlobalBudget() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // the budget is shared by all the starts, some of them fail
+            final MultiStartMultivariateOptimizer optimizer =
+                fitCircle(createCircle(), executor, 10, new MaxEval(40));
+            Assert.assertTrue(optimizer.getOptima().length < 10);
+            Assert.assertTrue(optimizer.getEvaluations() <= 40);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=TooManyEvaluationsException.class)
+    public void testBudgetTooSmall() {
+        fitCircle(createCircle(), null, 10, new MaxEval(3));
+    }
+
+    private static CircleScalar createCircle() {
+        CircleScalar circle = new CircleScalar();
+        circle.addPoint( 30.0,  68.0);
+        circle.addPoint( 50.0,  -6.0);
+        circle.addPoint(110.0, -20.0);
+        circle.addPoint( 35.0,  15.0);
+        circle.addPoint( 45.0,  97.0);
+        return circle;
+    }
+
+    private static MultiStartMultivariateOptimizer fitCircle(final CircleScalar circle,
+                                                             final ExecutorService executor,
+                                                             final int starts,
+                                                             final MaxEval maxEval,
+                                                             final TargetValue ... target) {
+        final OptimizerFactory<GradientMultivariateOptimizer> factory =
+            new OptimizerFactory<GradientMultivariateOptimizer>() {
+                public GradientMultivariateOptimizer create() {
+                    return new NonLinearConjugateGradientOptimizer(NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+                                                                   new SimpleValueChecker(1e-10, 1e-10));
+                }
+            };
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(753289573253l);
+        RandomVectorGenerator generator
+            = new UncorrelatedRandomVectorGenerator(new double[] { 50, 50 },
+                                                    new double[] { 10, 10 },
+                                                    new GaussianRandomGenerator(g));
+        MultiStartMultivariateOptimizer optimizer
+            = new MultiStartMultivariateOptimizer(factory, starts, generator, executor);
+        optimizer.optimize(maxEval,
+                           circle.getObjectiveFunction(),
+                           circle.getObjectiveFunctionGradient(),
+                           GoalType.MINIMIZE,
+                           target.length == 0 ? null : target[0],
+                           new InitialGuess(new double[] { 98.680, 47.345 }));
+        return optimizer;
+    }
+
     private static class Rosenbrock implements MultivariateFunction {
         private int count;
 
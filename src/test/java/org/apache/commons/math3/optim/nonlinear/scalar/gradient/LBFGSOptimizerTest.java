@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.optim.nonlinear.scalar.gradient;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.InitialGuess;
+import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleBounds;
+import org.apache.commons.math3.optim.SimpleValueChecker;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link LBFGSOptimizer}.
+ *
+ * @version $Id$
+ */
+public class LBFGSOptimizerTest {
+
+    @Test
+    public void testRosenbrock() {
+        final LBFGSOptimizer optimizer = new LBFGSOptimizer(null);
+        final PointValuePair optimum =
+            optimizer.optimize(new MaxEval(1000),
+                               new ObjectiveFunction(new Rosenbrock()),
+                               new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                               GoalType.MINIMIZE,
+                               new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(1, optimum.getPoint()[0], 1e-8);
+        Assert.assertEquals(1, optimum.getPoint()[1], 1e-8);
+        Assert.assertEquals(0, optimum.getValue(), 1e-15);
+        Assert.assertTrue(optimizer.getIterations() > 0);
+        Assert.assertTrue(optimizer.getEvaluations() < 200);
+    }
+
+    @Test
+    public void testValueChecker() {
+        final LBFGSOptimizer optimizer = new LBFGSOptimizer(5, new SimpleValueChecker(1e-12, 1e-12));
+        final PointValuePair optimum =
+            optimizer.optimize(new MaxEval(1000),
+                               new ObjectiveFunction(new Rosenbrock()),
+                               new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                               GoalType.MINIMIZE,
+                               new InitialGuess(new double[] { -1.2, 1 }));
+        Assert.assertEquals(5, optimizer.getMemory());
+        Assert.assertEquals(1, optimum.getPoint()[0], 1e-4);
+        Assert.assertEquals(1, optimum.getPoint()[1], 1e-4);
+    }
+
+    @Test
+    public void testLargeRosenbrock() {
+        // memory and time per iteration are linear in the number of parameters
+        final int n = 50000;
+        final double[] start = new double[n];
+        for (int i = 0; i < n; i += 2) {
+            start[i]     = -1.2;
+            start[i + 1] = 1;
+        }
+        final LBFGSOptimizer optimizer = new LBFGSOptimizer(null);
+        final PointValuePair optimum =
+            optimizer.optimize(new MaxEval(2000),
+                               new ObjectiveFunction(new Rosenbrock()),
+                               new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                               GoalType.MINIMIZE,
+                               new InitialGuess(start));
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(1, optimum.getPoint()[i], 1e-6);
+        }
+        Assert.assertEquals(0, optimum.getValue(), 1e-10);
+    }
+
+    @Test
+    public void testMaximize() {
+        final MultivariateFunction f = new MultivariateFunction() {
+            public double value(double[] x) {
+                return 2 - (x[0] - 3) * (x[0] - 3) - 10 * (x[1] + 1) * (x[1] + 1);
+            }
+        };
+        final MultivariateVectorFunction g = new MultivariateVectorFunction() {
+            public double[] value(double[] x) {
+                return new double[] { -2 * (x[0] - 3), -20 * (x[1] + 1) };
+            }
+        };
+        final PointValuePair optimum =
+            new LBFGSOptimizer(null).optimize(new MaxEval(100),
+                                              new ObjectiveFunction(f),
+                                              new ObjectiveFunctionGradient(g),
+                                              GoalType.MAXIMIZE,
+                                              new InitialGuess(new double[] { 0, 0 }));
+        Assert.assertEquals(3, optimum.getPoint()[0], 1e-10);
+        Assert.assertEquals(-1, optimum.getPoint()[1], 1e-10);
+        Assert.assertEquals(2, optimum.getValue(), 1e-15);
+    }
+
+    @Test
+    public void testBoundedRosenbrock() {
+        final PointValuePair optimum =
+            new LBFGSOptimizer(null).optimize(new MaxEval(1000),
+                                              new ObjectiveFunction(new Rosenbrock()),
+                                              new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                                              GoalType.MINIMIZE,
+                                              new InitialGuess(new double[] { -1.2, 1 }),
+                                              new SimpleBounds(new double[] { -2, -2 },
+                                                               new double[] { 0.5, 2 }));
+        Assert.assertEquals(0.5, optimum.getPoint()[0], 0);
+        Assert.assertEquals(0.25, optimum.getPoint()[1], 1e-8);
+        Assert.assertEquals(0.25, optimum.getValue(), 1e-12);
+    }
+
+    @Test
+    public void testBoundedQuadratic() {
+        // separable problem, whose solution is the projection of the
+        // unconstrained minimum on the box
+        final int n = 1000;
+        final RandomGenerator random = new Well19937c(0x3c2a8e5fl);
+        final double[] center = new double[n];
+        final double[] scale  = new double[n];
+        for (int i = 0; i < n; i++) {
+            center[i] = 3 * random.nextDouble() - 1;
+            scale[i]  = 1 + 99 * random.nextDouble();
+        }
+        final MultivariateFunction f = new MultivariateFunction() {
+            public double value(double[] x) {
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += scale[i] * (x[i] - center[i]) * (x[i] - center[i]);
+                }
+                return sum;
+            }
+        };
+        final MultivariateVectorFunction g = new MultivariateVectorFunction() {
+            public double[] value(double[] x) {
+                final double[] gradient = new double[n];
+                for (int i = 0; i < n; i++) {
+                    gradient[i] = 2 * scale[i] * (x[i] - center[i]);
+                }
+                return gradient;
+            }
+        };
+        final double[] lower = new double[n];
+        final double[] upper = new double[n];
+        final double[] start = new double[n];
+        Arrays.fill(upper, 1);
+        Arrays.fill(start, 0.5);
+
+        final PointValuePair optimum =
+            new LBFGSOptimizer(null).optimize(new MaxEval(1000),
+                                              new ObjectiveFunction(f),
+                                              new ObjectiveFunctionGradient(g),
+                                              GoalType.MINIMIZE,
+                                              new InitialGuess(start),
+                                              new SimpleBounds(lower, upper));
+        for (int i = 0; i < n; i++) {
+            final double expected = FastMath.max(0, FastMath.min(1, center[i]));
+            Assert.assertEquals(expected, optimum.getPoint()[i], 1e-8);
+        }
+    }
+
+    @Test(expected=NumberIsTooSmallException.class)
+    public void testStartOutsideBounds() {
+        new LBFGSOptimizer(null).optimize(new MaxEval(100),
+                                          new ObjectiveFunction(new Rosenbrock()),
+                                          new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                                          GoalType.MINIMIZE,
+                                          new InitialGuess(new double[] { -1.2, 1 }),
+                                          new SimpleBounds(new double[] { -1, -1 },
+                                                           new double[] { 1, 1 }));
+    }
+
+    @Test(expected=TooManyEvaluationsException.class)
+    public void testMaxEvaluations() {
+        new LBFGSOptimizer(null).optimize(new MaxEval(10),
+                                          new ObjectiveFunction(new Rosenbrock()),
+                                          new ObjectiveFunctionGradient(new RosenbrockGradient()),
+                                          GoalType.MINIMIZE,
+                                          new InitialGuess(new double[] { -1.2, 1 }));
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testZeroMemory() {
+        new LBFGSOptimizer(0, null);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testWrongLineSearchParameters() {
+        new LBFGSOptimizer(5, 0.5, 0.1, null);
+    }
+
+    /** Extended Rosenbrock function, on pairs of consecutive parameters. */
+    private static class Rosenbrock implements MultivariateFunction {
+        public double value(double[] x) {
+            double sum = 0;
+            for (int i = 0; i < x.length; i += 2) {
+                final double a = 1 - x[i];
+                final double b = x[i + 1] - x[i] * x[i];
+                sum += a * a + 100 * b * b;
+            }
+            return sum;
+        }
+    }
+
+    /** Gradient of the extended Rosenbrock function. */
+    private static class RosenbrockGradient implements MultivariateVectorFunction {
+        public double[] value(double[] x) {
+            final double[] g = new double[x.length];
+            for (int i = 0; i < x.length; i += 2) {
+                final double b = x[i + 1] - x[i] * x[i];
+                g[i]     = -2 * (1 - x[i]) - 400 * x[i] * b;
+                g[i + 1] = 200 * b;
+            }
+            return g;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.apache.commons.math3.optim.nonlinear.scalar.noderiv;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.math3.Retry;
 import org.apache.commons.math3.RetryRunner;
 import org.apache.commons.math3.analysis.MultivariateFunction;
@@ -451,7 +453,42 @@ public class CMAESOptimizerTest {
         Assert.assertEquals(resNoBound, resNearLo, 1e-3);
         Assert.assertEquals(resNoBound, resNearHi, 1e-3);
     }
- 
+
+    @Test
+    public void testWithExecutor() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int diagonalOnly = 0; diagonalOnly <= 1; diagonalOnly++) {
+                final PointValuePair[] results = new PointValuePair[2];
+                final int[] evaluations = new int[2];
+                for (int i = 0; i < 2; i++) {
+                    final CMAESOptimizer optim
+                        = new CMAESOptimizer(30000, 1e-13, true, diagonalOnly,
+                                             1, new MersenneTwister(2713l), false, null,
+                                             i == 0 ? null : executor);
+                    results[i] = optim.optimize(new MaxEval(20000),
+                                                new ObjectiveFunction(new Rosen()),
+                                                GoalType.MINIMIZE,
+                                                new InitialGuess(point(DIM, 0.1)),
+                                                new SimpleBounds(point(DIM, -0.5), point(DIM, 2)),
+                                                new CMAESOptimizer.Sigma(point(DIM, 0.1)),
+                                                new CMAESOptimizer.PopulationSize(LAMBDA));
+                    evaluations[i] = optim.getEvaluations();
+                }
+
+                // the executor does not change the sampling
+                Assert.assertEquals(evaluations[0], evaluations[1]);
+                Assert.assertEquals(results[0].getValue(), results[1].getValue(), 0);
+                Assert.assertArrayEquals(results[0].getPoint(), results[1].getPoint(), 0);
+                if (diagonalOnly == 0) {
+                    Assert.assertEquals(0, results[1].getValue(), 1e-12);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * @param func Function to optimize.
      * @param startPoint Starting point.
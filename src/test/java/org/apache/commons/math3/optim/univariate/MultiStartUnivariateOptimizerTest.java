@@ -16,11 +16,16 @@
  */
 package org.apache.commons.math3.optim.univariate;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.commons.math3.analysis.QuinticFunction;
 import org.apache.commons.math3.analysis.UnivariateFunction;
 import org.apache.commons.math3.analysis.function.Sin;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.MaxEval;
+import org.apache.commons.math3.optim.OptimizerFactory;
+import org.apache.commons.math3.optim.nonlinear.scalar.TargetValue;
 import org.apache.commons.math3.random.JDKRandomGenerator;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.exception.MathIllegalStateException;
@@ -71,6 +76,75 @@ public class MultiStartUnivariateOptimizerTest {
         Assert.assertTrue(optimizer.getEvaluations() < 300);
     }
 
+    @Test
+    public void testIndependentStarts() {
+        final UnivariateFunction f = new Sin();
+        final OptimizerFactory<UnivariateOptimizer> factory = new OptimizerFactory<UnivariateOptimizer>() {
+            public UnivariateOptimizer create() {
+                return new BrentOptimizer(1e-10, 1e-14);
+            }
+        };
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(44428400075l);
+        MultiStartUnivariateOptimizer sequential =
+            new MultiStartUnivariateOptimizer(new BrentOptimizer(1e-10, 1e-14), 10, g);
+        sequential.optimize(new MaxEval(300),
+                            new UnivariateObjectiveFunction(f),
+                            GoalType.MINIMIZE,
+                            new SearchInterval(-100.0, 100.0));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            g.setSeed(44428400075l);
+            MultiStartUnivariateOptimizer parallel =
+                new MultiStartUnivariateOptimizer(factory, 10, g, executor);
+            UnivariatePointValuePair optimum =
+                parallel.optimize(new MaxEval(300),
+                                  new UnivariateObjectiveFunction(f),
+                                  GoalType.MINIMIZE,
+                                  new SearchInterval(-100.0, 100.0));
+            Assert.assertEquals(-1.0, optimum.getValue(), 1.0e-10);
+            Assert.assertEquals(sequential.getEvaluations(), parallel.getEvaluations());
+            UnivariatePointValuePair[] expected = sequential.getOptima();
+            UnivariatePointValuePair[] optima = parallel.getOptima();
+            Assert.assertEquals(expected.length, optima.length);
+            for (int i = 0; i < optima.length; ++i) {
+                Assert.assertEquals(expected[i].getPoint(), optima[i].getPoint(), 0);
+                Assert.assertEquals(expected[i].getValue(), optima[i].getValue(), 0);
+            }
+
+            // the budget is shared by all the starts
+            g.setSeed(44428400075l);
+            parallel = new MultiStartUnivariateOptimizer(factory, 10, g, executor);
+            parallel.optimize(new MaxEval(100),
+                              new UnivariateObjectiveFunction(f),
+                              GoalType.MINIMIZE,
+                              new SearchInterval(-100.0, 100.0));
+            Assert.assertTrue(parallel.getEvaluations() <= 100);
+            Assert.assertNull(parallel.getOptima()[9]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTargetValue() {
+        UnivariateOptimizer underlying = new BrentOptimizer(1e-10, 1e-14);
+        JDKRandomGenerator g = new JDKRandomGenerator();
+        g.setSeed(44428400075l);
+        MultiStartUnivariateOptimizer optimizer = new MultiStartUnivariateOptimizer(underlying, 10, g);
+        UnivariatePointValuePair optimum =
+            optimizer.optimize(new MaxEval(300),
+                               new UnivariateObjectiveFunction(new Sin()),
+                               GoalType.MINIMIZE,
+                               new TargetValue(-0.99),
+                               new SearchInterval(-100.0, 100.0));
+        Assert.assertEquals(-1.0, optimum.getValue(), 1.0e-10);
+        Assert.assertNotNull(optimizer.getOptima()[0]);
+        Assert.assertNull(optimizer.getOptima()[1]);
+        Assert.assertTrue(optimizer.getEvaluations() < 50);
+    }
+
     @Test
     public void testQuinticMin() {
         // The quintic function has zeros at 0, +-0.5 and +-1.
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.random;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ThreadLocalRandomGeneratorTest extends RandomGeneratorAbstractTest {
+
+    @Override
+    protected RandomGenerator makeGenerator() {
+        return new ThreadLocalRandomGenerator(1000);
+    }
+
+    @Test
+    public void testSameMasterSeed() {
+        final RandomGenerator g1 = new ThreadLocalRandomGenerator(12345);
+        final RandomGenerator g2 = new ThreadLocalRandomGenerator(12345);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(g1.nextLong(), g2.nextLong());
+        }
+    }
+
+    @Test
+    public void testFirstThreadUsesStreamZero() {
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(12345);
+        final RandomGenerator stream = g.getStream(0);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(stream.nextInt(), g.nextInt());
+        }
+    }
+
+    @Test
+    public void testStreamsDiffer() {
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(12345);
+        final RandomGenerator s0 = g.getStream(0);
+        final RandomGenerator s1 = g.getStream(1);
+        int same = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (s0.nextInt() == s1.nextInt()) {
+                ++same;
+            }
+        }
+        Assert.assertTrue(same < 5);
+    }
+
+    @Test
+    public void testNeighbouringStreamSeedsShareNothing() {
+        final List<int[]> seeds = new ArrayList<int[]>();
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(12345) {
+            @Override
+            protected RandomGenerator createGenerator(int[] seed) {
+                seeds.add(seed.clone());
+                return super.createGenerator(seed);
+            }
+        };
+        for (int stream = 0; stream < 10; stream++) {
+            g.getStream(stream);
+        }
+        for (int k = 1; k < seeds.size(); k++) {
+            for (final int a : seeds.get(k - 1)) {
+                for (final int b : seeds.get(k)) {
+                    Assert.assertTrue(a != b);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSetSeedResetsStreams() {
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(1);
+        final double first = g.nextDouble();
+        g.nextDouble();
+        g.setSeed(1l);
+        Assert.assertEquals(first, g.nextDouble(), 0);
+        g.setSeed(2l);
+        Assert.assertEquals(new ThreadLocalRandomGenerator(2).nextDouble(), g.nextDouble(), 0);
+    }
+
+    @Test
+    public void testThreadsGetDistinctStreams() throws Exception {
+        final int numThreads = 4;
+        final int numSamples = 1000;
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(12345);
+        // ensures each task runs in its own thread
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+
+        final List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+        for (int i = 0; i < numThreads; i++) {
+            tasks.add(new Callable<int[]>() {
+                public int[] call() throws Exception {
+                    barrier.await();
+                    final int[] values = new int[numSamples];
+                    for (int j = 0; j < numSamples; j++) {
+                        values[j] = g.nextInt();
+                    }
+                    return values;
+                }
+            });
+        }
+
+        final ExecutorService exec = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<int[]>> results = exec.invokeAll(tasks);
+
+            // each thread must have received one of the streams 0 to numThreads - 1,
+            // and no two threads may share a stream
+            final boolean[] used = new boolean[numThreads];
+            for (final Future<int[]> result : results) {
+                final int[] values = result.get();
+                int found = -1;
+                for (int s = 0; s < numThreads; s++) {
+                    final RandomGenerator stream = g.getStream(s);
+                    boolean match = true;
+                    for (int j = 0; match && j < numSamples; j++) {
+                        match = stream.nextInt() == values[j];
+                    }
+                    if (match) {
+                        found = s;
+                    }
+                }
+                Assert.assertTrue(found >= 0);
+                Assert.assertFalse(used[found]);
+                used[found] = true;
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreateGeneratorOverride() {
+        final ThreadLocalRandomGenerator g = new ThreadLocalRandomGenerator(12345) {
+            @Override
+            protected RandomGenerator createGenerator(int[] seed) {
+                return new MersenneTwister(seed);
+            }
+        };
+        Assert.assertTrue(g.getStream(3) instanceof MersenneTwister);
+    }
+}
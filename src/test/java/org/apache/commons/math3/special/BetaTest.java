@@ -20,6 +20,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.exception.OutOfRangeException;
@@ -956,4 +957,30 @@ public class BetaTest {
             builder.append(a).append(", ").append(b);
             Assert.assertEquals(builder.toString(), expected, actual, tol);
         }
-    }}
+    }
+
+    @Test
+    public void testRegularizedBetaArray() {
+        final double[] x = { -0.1, 0, 1e-10, 0.1, 0.25, 0.5, 0.75, 0.9, 1 - 1e-10, 1, 1.1, Double.NaN };
+        final double[] out = new double[x.length];
+        final double[][] ab = { { 0.5, 0.5 }, { 1, 1 }, { 2, 5 }, { 100, 0.1 }, { 1e-3, 1e3 } };
+        for (final double[] params : ab) {
+            Beta.regularizedBeta(x, params[0], params[1], out);
+            for (int i = 0; i < x.length; i++) {
+                Assert.assertEquals(Beta.regularizedBeta(x[i], params[0], params[1]), out[i], 0);
+            }
+        }
+
+        // in place evaluation
+        final double[] y = x.clone();
+        Beta.regularizedBeta(y, 2, 3, y);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(Beta.regularizedBeta(x[i], 2, 3), y[i], 0);
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testRegularizedBetaArrayDimensionMismatch() {
+        Beta.regularizedBeta(new double[3], 1, 1, new double[2]);
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.commons.math3.special;
 
 import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.util.FastMath;
 
 import org.junit.Test;
@@ -259,4 +260,26 @@ public class ErfTest {
             Assert.assertEquals(x, Erf.erfcInv(y), 1.0e-15 / dydxAbs);
         }
     }
+
+    @Test
+    public void testErfArray() {
+        final double[] x = new double[201];
+        for (int i = 0; i < x.length - 1; i++) {
+            x[i] = -50 + 0.5 * i;
+        }
+        x[x.length - 1] = Double.NaN;
+        final double[] erf = new double[x.length];
+        final double[] erfc = new double[x.length];
+        Erf.erf(x, erf);
+        Erf.erfc(x, erfc);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(Erf.erf(x[i]), erf[i], 0);
+            Assert.assertEquals(Erf.erfc(x[i]), erfc[i], 0);
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testErfArrayDimensionMismatch() {
+        Erf.erf(new double[3], new double[2]);
+    }
 }
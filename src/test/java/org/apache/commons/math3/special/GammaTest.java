@@ -17,6 +17,7 @@
 package org.apache.commons.math3.special;
 
 import org.apache.commons.math3.TestUtils;
+import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
 import org.apache.commons.math3.exception.NumberIsTooSmallException;
 import org.apache.commons.math3.util.FastMath;
@@ -966,4 +967,37 @@ public class GammaTest {
 
         Assert.assertEquals(msg, expected, actual, FastMath.abs(tolerance * actual));
     }
+
+    @Test
+    public void testRegularizedGammaArray() {
+        final double[] x = { -1, 0, 0.01, 0.5, 1, 2.5, 3.5, 4.5, 10, 100, 1000, Double.NaN };
+        final double[] p = new double[x.length];
+        final double[] q = new double[x.length];
+        for (final double a : new double[] { 0.1, 1, 3.5, 50 }) {
+            Gamma.regularizedGammaP(a, x, p);
+            Gamma.regularizedGammaQ(a, x, q);
+            for (int i = 0; i < x.length; i++) {
+                Assert.assertEquals(Gamma.regularizedGammaP(a, x[i]), p[i], 0);
+                Assert.assertEquals(Gamma.regularizedGammaQ(a, x[i]), q[i], 0);
+            }
+        }
+
+        // in place evaluation
+        final double[] y = x.clone();
+        Gamma.regularizedGammaP(2.0, y, y);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertEquals(Gamma.regularizedGammaP(2.0, x[i]), y[i], 0);
+        }
+
+        // invalid parameter
+        Gamma.regularizedGammaP(-1.0, x, p);
+        for (int i = 0; i < x.length; i++) {
+            Assert.assertTrue(Double.isNaN(p[i]));
+        }
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testRegularizedGammaArrayDimensionMismatch() {
+        Gamma.regularizedGammaQ(1.0, new double[3], new double[2]);
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.special;
+
+import org.apache.commons.math3.PerfTestUtils;
+import org.apache.commons.math3.util.ContinuedFraction;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Test;
+
+/**
+ * Performance tests for the regularized gamma and beta functions.
+ * Not enabled by default, as the class does not end in Test.
+ * <p>
+ * Each test compares a reference implementation based on an anonymous
+ * {@link ContinuedFraction} (as used up to version 3.2), the current
+ * single point methods and the array methods.
+ * </p>
+ * Invoke by running<br/>
+ * {@code mvn test -Dtest=SpecialFunctionsTestPerformance}<br/>
+ * or by running<br/>
+ * {@code mvn test -Dtest=SpecialFunctionsTestPerformance -DargLine="-DtestRuns=1234 -server"}<br/>
+ */
+public class SpecialFunctionsTestPerformance {
+    private static final int RUNS = Integer.parseInt(System.getProperty("testRuns", "1000"));
+    private static final int SIZE = 1000;
+
+    @Test
+    public void testRegularizedGammaQ() {
+        final double a = 3.5;
+        final double[] x = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            x[i] = a + 1 + 0.05 * i;
+        }
+        final double[] out = new double[SIZE];
+
+        PerfTestUtils.timeAndReport("regularizedGammaQ",
+                                    RUNS,
+                                    10,
+                                    false,
+                                    new PerfTestUtils.RunTest("ContinuedFraction") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                sum += referenceGammaQ(a, x[i]);
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("scalar") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                sum += Gamma.regularizedGammaQ(a, x[i]);
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("array") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            Gamma.regularizedGammaQ(a, x, out);
+                                            return out[SIZE - 1];
+                                        }
+                                    });
+    }
+
+    @Test
+    public void testRegularizedBeta() {
+        final double a = 2.5;
+        final double b = 7.5;
+        final double[] x = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            x[i] = (i + 0.5) / SIZE;
+        }
+        final double[] out = new double[SIZE];
+
+        PerfTestUtils.timeAndReport("regularizedBeta",
+                                    RUNS,
+                                    10,
+                                    false,
+                                    new PerfTestUtils.RunTest("ContinuedFraction") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                sum += referenceBeta(x[i], a, b);
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("scalar") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                sum += Beta.regularizedBeta(x[i], a, b);
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("array") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            Beta.regularizedBeta(x, a, b, out);
+                                            return out[SIZE - 1];
+                                        }
+                                    });
+    }
+
+    @Test
+    public void testErf() {
+        final double[] x = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            x[i] = -6 + 12.0 * i / SIZE;
+        }
+        final double[] out = new double[SIZE];
+
+        PerfTestUtils.timeAndReport("erf",
+                                    RUNS,
+                                    10,
+                                    false,
+                                    new PerfTestUtils.RunTest("regularizedGammaP") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                final double xi = x[i];
+                                                final double r = Gamma.regularizedGammaP(0.5, xi * xi, 1.0e-15, 10000);
+                                                sum += xi < 0 ? -r : r;
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("scalar") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            double sum = 0;
+                                            for (int i = 0; i < SIZE; i++) {
+                                                sum += Erf.erf(x[i]);
+                                            }
+                                            return sum;
+                                        }
+                                    },
+                                    new PerfTestUtils.RunTest("array") {
+                                        @Override
+                                        public Double call() throws Exception {
+                                            Erf.erf(x, out);
+                                            return out[SIZE - 1];
+                                        }
+                                    });
+    }
+
+    /**
+     * Reference implementation of Q(a, x), for x &ge; a + 1.
+     */
+    private static double referenceGammaQ(final double a, final double x) {
+        final ContinuedFraction cf = new ContinuedFraction() {
+            @Override
+            protected double getA(int n, double x) {
+                return ((2.0 * n) + 1.0) - a + x;
+            }
+
+            @Override
+            protected double getB(int n, double x) {
+                return n * (a - n);
+            }
+        };
+        final double ret = 1.0 / cf.evaluate(x, 10e-15, Integer.MAX_VALUE);
+        return FastMath.exp(-x + (a * FastMath.log(x)) - Gamma.logGamma(a)) * ret;
+    }
+
+    /**
+     * Reference implementation of I(x, a, b).
+     */
+    private static double referenceBeta(final double x, final double a, final double b) {
+        if (x > (a + 1.0) / (a + b + 2.0)) {
+            return 1.0 - referenceBeta(1.0 - x, b, a);
+        }
+        final ContinuedFraction fraction = new ContinuedFraction() {
+            @Override
+            protected double getB(int n, double x) {
+                double ret;
+                double m;
+                if (n % 2 == 0) { // even
+                    m = n / 2.0;
+                    ret = (m * (b - m) * x) /
+                        ((a + (2 * m) - 1) * (a + (2 * m)));
+                } else {
+                    m = (n - 1.0) / 2.0;
+                    ret = -((a + m) * (a + b + m) * x) /
+                            ((a + (2 * m)) * (a + (2 * m) + 1.0));
+                }
+                return ret;
+            }
+
+            @Override
+            protected double getA(int n, double x) {
+                return 1.0;
+            }
+        };
+        return FastMath.exp((a * FastMath.log(x)) + (b * FastMath.log(1.0 - x)) -
+            FastMath.log(a) - Beta.logBeta(a, b)) *
+            1.0 / fraction.evaluate(x, 1E-14, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.util.MathArrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link ConvolutionUtils}.
+ *
+ * @version $Id$
+ */
+public final class ConvolutionUtilsTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=NullArgumentException.class)
+    public void testNull() {
+        ConvolutionUtils.convolve(null, new double[1]);
+    }
+
+    @Test(expected=NoDataException.class)
+    public void testEmpty() {
+        ConvolutionUtils.correlate(new double[1], new double[0]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testNotRectangular() {
+        ConvolutionUtils.convolve(new double[][] { { 1, 2 }, { 3 } }, new double[2][2]);
+    }
+
+    @Test
+    public void testSelectMethod() {
+        Assert.assertEquals(ConvolutionMethod.DIRECT, ConvolutionUtils.selectMethod(1000, 4));
+        Assert.assertEquals(ConvolutionMethod.DIRECT, ConvolutionUtils.selectMethod(4, 1000));
+        Assert.assertEquals(ConvolutionMethod.FFT, ConvolutionUtils.selectMethod(20000, 20000));
+        Assert.assertEquals(ConvolutionMethod.OVERLAP_ADD, ConvolutionUtils.selectMethod(1000000, 500));
+    }
+
+    @Test
+    public void testMethodsAgainstDirectSum() {
+        final Random random = new Random(SEED);
+        final int[][] lengths = {
+            { 1, 1 }, { 1, 7 }, { 10, 3 }, { 3, 10 }, { 100, 100 }, { 1000, 17 }, { 999, 130 }, { 4096, 1000 }
+        };
+        for (final int[] l : lengths) {
+            final double[] x = createData(random, l[0]);
+            final double[] h = createData(random, l[1]);
+            final double[] expected = MathArrays.convolve(x, h);
+            for (final ConvolutionMethod method : ConvolutionMethod.values()) {
+                final double[] y = ConvolutionUtils.convolve(x, h, method);
+                Assert.assertEquals(expected.length, y.length);
+                for (int i = 0; i < y.length; i++) {
+                    Assert.assertEquals(method + ", " + l[0] + ", " + l[1] + ", " + i,
+                                        expected[i], y[i], 1.0e-12);
+                }
+            }
+            Assert.assertArrayEquals(expected, ConvolutionUtils.convolve(x, h), 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testCorrelate() {
+        final Random random = new Random(SEED);
+        final double[] x = createData(random, 300);
+        final double[] y = createData(random, 40);
+        for (final ConvolutionMethod method : ConvolutionMethod.values()) {
+            final double[] c = ConvolutionUtils.correlate(x, y, method);
+            Assert.assertEquals(x.length + y.length - 1, c.length);
+            for (int j = 0; j < c.length; j++) {
+                final int lag = j - (y.length - 1);
+                double sum = 0;
+                for (int i = 0; i < y.length; i++) {
+                    if (i + lag >= 0 && i + lag < x.length) {
+                        sum += x[i + lag] * y[i];
+                    }
+                }
+                Assert.assertEquals(sum, c[j], 1.0e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testLagOfShiftedSignal() {
+        final Random random = new Random(SEED);
+        final double[] y = createData(random, 200);
+        final int shift = 37;
+        final double[] x = new double[500];
+        System.arraycopy(y, 0, x, shift, y.length);
+        final double[] c = ConvolutionUtils.correlate(x, y);
+        int best = 0;
+        for (int j = 1; j < c.length; j++) {
+            if (c[j] > c[best]) {
+                best = j;
+            }
+        }
+        Assert.assertEquals(shift, best - (y.length - 1));
+    }
+
+    @Test
+    public void testConvolve2D() {
+        final Random random = new Random(SEED);
+        // small sizes use the direct method, large ones the Fourier transform
+        final int[][] dims = { { 3, 4, 2, 2 }, { 20, 30, 7, 5 }, { 64, 50, 33, 40 } };
+        for (final int[] d : dims) {
+            final double[][] x = new double[d[0]][];
+            for (int i = 0; i < d[0]; i++) {
+                x[i] = createData(random, d[1]);
+            }
+            final double[][] h = new double[d[2]][];
+            for (int i = 0; i < d[2]; i++) {
+                h[i] = createData(random, d[3]);
+            }
+            final double[][] expected = new double[d[0] + d[2] - 1][d[1] + d[3] - 1];
+            for (int i = 0; i < d[0]; i++) {
+                for (int j = 0; j < d[1]; j++) {
+                    for (int p = 0; p < d[2]; p++) {
+                        for (int q = 0; q < d[3]; q++) {
+                            expected[i + p][j + q] += x[i][j] * h[p][q];
+                        }
+                    }
+                }
+            }
+            final double[][] y = ConvolutionUtils.convolve(x, h);
+            Assert.assertEquals(expected.length, y.length);
+            for (int i = 0; i < y.length; i++) {
+                Assert.assertArrayEquals(expected[i], y[i], 1.0e-11);
+            }
+        }
+    }
+
+    @Test
+    public void testCorrelate2D() {
+        final Random random = new Random(SEED);
+        final double[][] x = new double[5][];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = createData(random, 6);
+        }
+        final double[][] y = new double[3][];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = createData(random, 2);
+        }
+        final double[][] c = ConvolutionUtils.correlate(x, y);
+        for (int j = 0; j < c.length; j++) {
+            for (int l = 0; l < c[j].length; l++) {
+                final int a = j - (y.length - 1);
+                final int b = l - (y[0].length - 1);
+                double sum = 0;
+                for (int i = 0; i < y.length; i++) {
+                    for (int k = 0; k < y[0].length; k++) {
+                        if (i + a >= 0 && i + a < x.length && k + b >= 0 && k + b < x[0].length) {
+                            sum += x[i + a][k + b] * y[i][k];
+                        }
+                    }
+                }
+                Assert.assertEquals(sum, c[j][l], 1.0e-13);
+            }
+        }
+    }
+
+    private static double[] createData(final Random random, final int n) {
+        final double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        return data;
+    }
+}
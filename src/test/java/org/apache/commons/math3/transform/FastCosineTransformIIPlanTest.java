@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link FastCosineTransformIIPlan}.
+ *
+ * @version $Id$
+ */
+public final class FastCosineTransformIIPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNotStrictlyPositiveSize() {
+        new FastCosineTransformIIPlan(0, DftNormalization.STANDARD);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testOffsetOutOfRange() {
+        new FastCosineTransformIIPlan(8, DftNormalization.STANDARD).transform(new double[16], 9, TransformType.FORWARD);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testTooManyBlocks() {
+        new FastCosineTransformIIPlan(8, DftNormalization.STANDARD).transformBlocks(new double[20], 2, 3, TransformType.FORWARD);
+    }
+
+    @Test
+    public void testAgainstDefinition() {
+        final Random random = new Random(SEED);
+        final int[] sizes = { 1, 2, 3, 4, 5, 8, 12, 15, 16, 64, 100, 127 };
+        for (final int n : sizes) {
+            for (final DftNormalization normalization : DftNormalization.values()) {
+                final FastCosineTransformIIPlan plan = new FastCosineTransformIIPlan(n, normalization);
+                final double[] x = new double[n];
+                for (int k = 0; k < n; k++) {
+                    x[k] = 2.0 * random.nextDouble() - 1.0;
+                }
+
+                final double[] y = x.clone();
+                plan.transform(y, 0, TransformType.FORWARD);
+                for (int j = 0; j < n; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < n; k++) {
+                        sum += x[k] * FastMath.cos(FastMath.PI * j * (2 * k + 1) / (2.0 * n));
+                    }
+                    if (normalization == DftNormalization.UNITARY) {
+                        sum *= FastMath.sqrt((j == 0 ? 1.0 : 2.0) / n);
+                    }
+                    Assert.assertEquals(n + ", " + j, sum, y[j], 1.0e-13 * n);
+                }
+
+                plan.transform(y, 0, TransformType.INVERSE);
+                Assert.assertArrayEquals(x, y, 1.0e-14 * n);
+            }
+        }
+    }
+
+    @Test
+    public void testOrthogonal() {
+        final int n = 12;
+        final FastCosineTransformIIPlan plan = new FastCosineTransformIIPlan(n, DftNormalization.UNITARY);
+        final double[] basis = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            basis[i * n + i] = 1;
+        }
+        plan.transformBlocks(basis, 0, n, TransformType.FORWARD);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double dot = 0;
+                for (int k = 0; k < n; k++) {
+                    dot += basis[i * n + k] * basis[j * n + k];
+                }
+                Assert.assertEquals(i == j ? 1.0 : 0.0, dot, 1.0e-14);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBlocks() {
+        final Random random = new Random(SEED);
+        final int n = 64;
+        final int count = 1000;
+        final FastCosineTransformIIPlan plan = new FastCosineTransformIIPlan(n, DftNormalization.UNITARY);
+        final double[] data = new double[count * n + 5];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        final double[] sequential = data.clone();
+        plan.transformBlocks(sequential, 5, count, TransformType.FORWARD);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final double[] parallel = data.clone();
+            plan.transformBlocks(parallel, 5, count, TransformType.FORWARD, executor);
+            Assert.assertArrayEquals(sequential, parallel, 0.0);
+            plan.transformBlocks(parallel, 5, count, TransformType.INVERSE, executor);
+            Assert.assertArrayEquals(data, parallel, 1.0e-14);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link FastCosineTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class FastCosineTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=MathIllegalArgumentException.class)
+    public void testInvalidSize() {
+        new FastCosineTransformPlan(16, DctNormalization.STANDARD_DCT_I);
+    }
+
+    @Test
+    public void testAgainstTransformer() {
+        final Random random = new Random(SEED);
+        for (int n = 2; n <= 1025; n = 2 * n - 1) {
+            for (final DctNormalization normalization : DctNormalization.values()) {
+                final FastCosineTransformer transformer = new FastCosineTransformer(normalization);
+                final FastCosineTransformPlan plan = new FastCosineTransformPlan(n, normalization);
+                for (final TransformType type : TransformType.values()) {
+                    final double[] x = new double[n + 3];
+                    for (int i = 0; i < x.length; i++) {
+                        x[i] = 2.0 * random.nextDouble() - 1.0;
+                    }
+                    final double[] expected = new double[n];
+                    System.arraycopy(x, 3, expected, 0, n);
+                    final double[] y = transformer.transform(expected, type);
+                    plan.transform(x, 3, type);
+                    for (int i = 0; i < n; i++) {
+                        Assert.assertEquals(y[i], x[i + 3], 1.0e-14 * n);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link FastFourierTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class FastFourierTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNotStrictlyPositiveSize() {
+        new FastFourierTransformPlan(0, DftNormalization.STANDARD);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionMismatch() {
+        final FastFourierTransformPlan plan =
+            new FastFourierTransformPlan(16, DftNormalization.STANDARD);
+        plan.transform(new double[16], new double[8], TransformType.FORWARD);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testOffsetOutOfRange() {
+        final FastFourierTransformPlan plan =
+            new FastFourierTransformPlan(16, DftNormalization.STANDARD);
+        plan.transform(new double[32], new double[32], 17, TransformType.FORWARD);
+    }
+
+    @Test
+    public void testAgainstDft() {
+        for (int n = 1; n <= 512; n *= 2) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                for (TransformType type : TransformType.values()) {
+                    doTestAgainstDft(n, 1.0e-14, normalization, type);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMixedRadixAgainstDft() {
+        // sizes with factors 2, 3, 4, 5 and larger primes
+        final int[] sizes = { 3, 5, 6, 7, 12, 15, 49, 60, 61, 100, 105, 210, 1000 };
+        for (final int n : sizes) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                for (TransformType type : TransformType.values()) {
+                    doTestAgainstDft(n, 1.0e-14, normalization, type);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBluesteinAgainstDft() {
+        // sizes with a prime factor larger than MAX_PRIME_FACTOR
+        final int[] sizes = { 67, 134, 257, 3 * 331, 1009 };
+        for (final int n : sizes) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                for (TransformType type : TransformType.values()) {
+                    doTestAgainstDft(n, 1.0e-14, normalization, type);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAgainstTransformer() {
+        final Random random = new Random(SEED);
+        for (int n = 1; n <= 4096; n *= 2) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                final FastFourierTransformPlan plan =
+                    new FastFourierTransformPlan(n, normalization);
+                for (TransformType type : TransformType.values()) {
+                    final double[][] expected = createData(random, n);
+                    final double[] re = expected[0].clone();
+                    final double[] im = expected[1].clone();
+                    FastFourierTransformer.transformInPlace(expected, normalization, type);
+                    plan.transform(re, im, type);
+                    for (int i = 0; i < n; i++) {
+                        Assert.assertEquals(expected[0][i], re[i], 1.0e-12 * FastMath.sqrt(n));
+                        Assert.assertEquals(expected[1][i], im[i], 1.0e-12 * FastMath.sqrt(n));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(SEED);
+        for (final int n : new int[] { 1024, 1000, 44100, 4099 }) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                final FastFourierTransformPlan plan =
+                    new FastFourierTransformPlan(n, normalization);
+                final double[][] x = createData(random, plan.getSize());
+                final double[] re = x[0].clone();
+                final double[] im = x[1].clone();
+                plan.transform(re, im, TransformType.FORWARD);
+                plan.transform(re, im, TransformType.INVERSE);
+                for (int i = 0; i < plan.getSize(); i++) {
+                    Assert.assertEquals(x[0][i], re[i], 1.0e-13);
+                    Assert.assertEquals(x[1][i], im[i], 1.0e-13);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        for (final int n : new int[] { 64, 60, 67 }) {
+            doTestOffset(n);
+        }
+    }
+
+    private void doTestOffset(final int n) {
+        final Random random = new Random(SEED);
+        final int count = 5;
+        final FastFourierTransformPlan plan =
+            new FastFourierTransformPlan(n, DftNormalization.STANDARD);
+        final double[][] all = createData(random, n * count);
+        final double[] re = all[0].clone();
+        final double[] im = all[1].clone();
+        for (int b = 0; b < count; b++) {
+            plan.transform(re, im, b * n, TransformType.FORWARD);
+        }
+        for (int b = 0; b < count; b++) {
+            final double[] blockRe = new double[n];
+            final double[] blockIm = new double[n];
+            System.arraycopy(all[0], b * n, blockRe, 0, n);
+            System.arraycopy(all[1], b * n, blockIm, 0, n);
+            plan.transform(blockRe, blockIm, TransformType.FORWARD);
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(blockRe[i], re[b * n + i], 0.0);
+                Assert.assertEquals(blockIm[i], im[b * n + i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testTwiddles() {
+        for (final int n : new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 12, 15, 16, 20, 24, 40, 64, 97, 360, 1000, 1024 }) {
+            // full table, half table and quarter table, as used by the plans
+            for (final int length : new int[] { n, n / 2, n / 4 + 1 }) {
+                if (length > n) {
+                    continue;
+                }
+                final double[] cos = new double[length];
+                final double[] sin = new double[length];
+                FastFourierTransformPlan.computeTwiddles(n, cos, sin);
+                for (int k = 0; k < length; k++) {
+                    final double theta = 2 * FastMath.PI * k / n;
+                    final String msg = n + ", " + length + ", " + k;
+                    Assert.assertEquals(msg, FastMath.cos(theta), cos[k], 1.0e-15);
+                    Assert.assertEquals(msg, FastMath.sin(theta), sin[k], 1.0e-15);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        for (final int n : new int[] { 256, 360, 131 }) {
+            doTestSharedBetweenThreads(n);
+        }
+    }
+
+    private void doTestSharedBetweenThreads(final int n) throws Exception {
+        final int tasks = 16;
+        final FastFourierTransformPlan plan =
+            new FastFourierTransformPlan(n, DftNormalization.UNITARY);
+        final Random random = new Random(SEED);
+        final double[][][] data = new double[tasks][][];
+        final double[][][] expected = new double[tasks][][];
+        for (int t = 0; t < tasks; t++) {
+            data[t] = createData(random, n);
+            expected[t] = new double[][] { data[t][0].clone(), data[t][1].clone() };
+            plan.transform(expected[t][0], expected[t][1], TransformType.FORWARD);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?>[] futures = new Future<?>[tasks];
+            for (int t = 0; t < tasks; t++) {
+                final double[][] x = data[t];
+                futures[t] = executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int k = 0; k < 100; k++) {
+                            plan.transform(x[0], x[1], TransformType.FORWARD);
+                            plan.transform(x[0], x[1], TransformType.INVERSE);
+                        }
+                        plan.transform(x[0], x[1], TransformType.FORWARD);
+                        return null;
+                    }
+                });
+            }
+            for (int t = 0; t < tasks; t++) {
+                futures[t].get();
+                for (int i = 0; i < n; i++) {
+                    Assert.assertEquals(expected[t][0][i], data[t][0][i], 1.0e-12);
+                    Assert.assertEquals(expected[t][1][i], data[t][1][i], 1.0e-12);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double[][] createData(final Random random, final int n) {
+        final double[][] data = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            data[0][i] = 2.0 * random.nextDouble() - 1.0;
+            data[1][i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        return data;
+    }
+
+    private static void doTestAgainstDft(final int n, final double tol,
+                                         final DftNormalization normalization,
+                                         final TransformType type) {
+        final double[][] x = createData(new Random(SEED), n);
+        final double sgn = type == TransformType.FORWARD ? -1 : 1;
+        final double s;
+        if (normalization == DftNormalization.UNITARY) {
+            s = 1.0 / FastMath.sqrt(n);
+        } else {
+            s = type == TransformType.FORWARD ? 1.0 : 1.0 / n;
+        }
+
+        final double[] re = x[0].clone();
+        final double[] im = x[1].clone();
+        new FastFourierTransformPlan(n, normalization).transform(re, im, type);
+
+        for (int k = 0; k < n; k++) {
+            double yr = 0;
+            double yi = 0;
+            for (int j = 0; j < n; j++) {
+                final double arg = 2.0 * FastMath.PI * ((k * j) % n) / n;
+                final double c = FastMath.cos(arg);
+                final double d = sgn * FastMath.sin(arg);
+                yr += c * x[0][j] - d * x[1][j];
+                yi += d * x[0][j] + c * x[1][j];
+            }
+            final String msg = String.format("%s, %s, %d, %d", normalization, type, n, k);
+            Assert.assertEquals(msg, s * yr, re[k], tol * n);
+            Assert.assertEquals(msg, s * yi, im[k], tol * n);
+        }
+    }
+}
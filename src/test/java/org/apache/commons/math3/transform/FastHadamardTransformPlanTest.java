@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link FastHadamardTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class FastHadamardTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=MathIllegalArgumentException.class)
+    public void testInvalidSize() {
+        new FastHadamardTransformPlan(6);
+    }
+
+    @Test
+    public void testAgainstTransformer() {
+        final Random random = new Random(SEED);
+        final FastHadamardTransformer transformer = new FastHadamardTransformer();
+        for (int n = 1; n <= 1024; n *= 2) {
+            final FastHadamardTransformPlan plan = new FastHadamardTransformPlan(n);
+            for (final TransformType type : TransformType.values()) {
+                final double[] x = new double[n];
+                for (int i = 0; i < n; i++) {
+                    x[i] = random.nextInt(100) - 50;
+                }
+                final double[] y = transformer.transform(x, type);
+                plan.transform(x, 0, type);
+                Assert.assertArrayEquals(y, x, 1.0e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final FastHadamardTransformPlan plan = new FastHadamardTransformPlan(8);
+        final double[] x = { 1, 4, -2, 3, 0, 1, 4, -1 };
+        final double[] y = x.clone();
+        plan.transform(y, 0, TransformType.FORWARD);
+        plan.transform(y, 0, TransformType.INVERSE);
+        Assert.assertArrayEquals(x, y, 0.0);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link FastSineTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class FastSineTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=MathIllegalArgumentException.class)
+    public void testInvalidSize() {
+        new FastSineTransformPlan(17, DstNormalization.STANDARD_DST_I);
+    }
+
+    @Test
+    public void testFirstElementNotZeroLeavesDataUnchanged() {
+        final FastSineTransformPlan plan = new FastSineTransformPlan(4, DstNormalization.STANDARD_DST_I);
+        final double[] data = { 0, 1, 2, 3, 4, 5, 6, 7 };
+        try {
+            plan.transformBlocks(data, 0, 2, TransformType.FORWARD);
+            Assert.fail("an exception should have been thrown");
+        } catch (MathIllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertArrayEquals(new double[] { 0, 1, 2, 3, 4, 5, 6, 7 }, data, 0.0);
+    }
+
+    @Test
+    public void testAgainstTransformer() {
+        final Random random = new Random(SEED);
+        for (int n = 1; n <= 1024; n *= 2) {
+            for (final DstNormalization normalization : DstNormalization.values()) {
+                final FastSineTransformer transformer = new FastSineTransformer(normalization);
+                final FastSineTransformPlan plan = new FastSineTransformPlan(n, normalization);
+                for (final TransformType type : TransformType.values()) {
+                    final double[] x = new double[3 * n];
+                    for (int i = 0; i < x.length; i++) {
+                        x[i] = i % n == 0 ? 0.0 : 2.0 * random.nextDouble() - 1.0;
+                    }
+                    final double[][] expected = new double[3][];
+                    for (int b = 0; b < 3; b++) {
+                        final double[] block = new double[n];
+                        System.arraycopy(x, b * n, block, 0, n);
+                        expected[b] = transformer.transform(block, type);
+                    }
+                    plan.transformBlocks(x, 0, 3, type);
+                    for (int i = 0; i < x.length; i++) {
+                        final double y = expected[i / n][i % n];
+                        Assert.assertEquals(y, x[i], 1.0e-14 * n);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link MultiDimensionalFastFourierTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class MultiDimensionalFastFourierTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=NoDataException.class)
+    public void testNoDimensions() {
+        new MultiDimensionalFastFourierTransformPlan(new int[0], DftNormalization.STANDARD);
+    }
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNotStrictlyPositiveDimension() {
+        new MultiDimensionalFastFourierTransformPlan(new int[] { 4, 0 }, DftNormalization.STANDARD);
+    }
+
+    @Test(expected=NumberIsTooLargeException.class)
+    public void testTooLarge() {
+        new MultiDimensionalFastFourierTransformPlan(new int[] { 1 << 16, 1 << 16 },
+                                                     DftNormalization.STANDARD);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDimensionMismatch() {
+        final MultiDimensionalFastFourierTransformPlan plan =
+            new MultiDimensionalFastFourierTransformPlan(new int[] { 4, 8 }, DftNormalization.STANDARD);
+        plan.transform(new double[32], new double[31], TransformType.FORWARD);
+    }
+
+    @Test
+    public void testAgainstMdfft2D() {
+        final Random random = new Random(SEED);
+        final int n0 = 8;
+        final int n1 = 32;
+        for (DftNormalization normalization : DftNormalization.values()) {
+            for (TransformType type : TransformType.values()) {
+                final Complex[][] x = new Complex[n0][n1];
+                final double[] re = new double[n0 * n1];
+                final double[] im = new double[n0 * n1];
+                for (int i = 0; i < n0; i++) {
+                    for (int j = 0; j < n1; j++) {
+                        x[i][j] = new Complex(random.nextDouble(), random.nextDouble());
+                        re[i * n1 + j] = x[i][j].getReal();
+                        im[i * n1 + j] = x[i][j].getImaginary();
+                    }
+                }
+                final Complex[][] y =
+                    (Complex[][]) new FastFourierTransformer(normalization).mdfft(x, type);
+                new MultiDimensionalFastFourierTransformPlan(new int[] { n0, n1 }, normalization).
+                    transform(re, im, type);
+                for (int i = 0; i < n0; i++) {
+                    for (int j = 0; j < n1; j++) {
+                        Assert.assertEquals(y[i][j].getReal(), re[i * n1 + j], 1.0e-12);
+                        Assert.assertEquals(y[i][j].getImaginary(), im[i * n1 + j], 1.0e-12);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAgainstAxisByAxis3D() {
+        final Random random = new Random(SEED);
+        // non power-of-two sizes, block widths not dividing the strides
+        final int[] dims = { 6, 5, 21 };
+        final int size = dims[0] * dims[1] * dims[2];
+        for (DftNormalization normalization : DftNormalization.values()) {
+            for (TransformType type : TransformType.values()) {
+                final double[] re = new double[size];
+                final double[] im = new double[size];
+                for (int i = 0; i < size; i++) {
+                    re[i] = random.nextDouble();
+                    im[i] = random.nextDouble();
+                }
+                final double[] expectedRe = re.clone();
+                final double[] expectedIm = im.clone();
+                int stride = 1;
+                for (int axis = dims.length - 1; axis >= 0; axis--) {
+                    transformAxis(expectedRe, expectedIm, dims, axis, stride, normalization, type);
+                    stride *= dims[axis];
+                }
+
+                new MultiDimensionalFastFourierTransformPlan(dims, normalization).transform(re, im, type);
+                for (int i = 0; i < size; i++) {
+                    Assert.assertEquals(expectedRe[i], re[i], 1.0e-13);
+                    Assert.assertEquals(expectedIm[i], im[i], 1.0e-13);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(SEED);
+        final int[] dims = { 12, 1, 64, 3 };
+        final MultiDimensionalFastFourierTransformPlan plan =
+            new MultiDimensionalFastFourierTransformPlan(dims, DftNormalization.UNITARY);
+        final double[] re = new double[plan.getSize()];
+        final double[] im = new double[plan.getSize()];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = random.nextDouble();
+            im[i] = random.nextDouble();
+        }
+        final double[] yRe = re.clone();
+        final double[] yIm = im.clone();
+        plan.transform(yRe, yIm, TransformType.FORWARD);
+        plan.transform(yRe, yIm, TransformType.INVERSE);
+        Assert.assertArrayEquals(re, yRe, 1.0e-14);
+        Assert.assertArrayEquals(im, yIm, 1.0e-14);
+    }
+
+    @Test
+    public void testParallel() {
+        final Random random = new Random(SEED);
+        final int[] dims = { 100, 72 };
+        final MultiDimensionalFastFourierTransformPlan plan =
+            new MultiDimensionalFastFourierTransformPlan(dims, DftNormalization.STANDARD);
+        final double[] re = new double[plan.getSize()];
+        final double[] im = new double[plan.getSize()];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = random.nextDouble();
+            im[i] = random.nextDouble();
+        }
+        final double[] expectedRe = re.clone();
+        final double[] expectedIm = im.clone();
+        plan.transform(expectedRe, expectedIm, TransformType.FORWARD);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            plan.transform(re, im, TransformType.FORWARD, executor);
+        } finally {
+            executor.shutdown();
+        }
+        // the lines are transformed by the same code, the results are identical
+        Assert.assertArrayEquals(expectedRe, re, 0.0);
+        Assert.assertArrayEquals(expectedIm, im, 0.0);
+    }
+
+    private static void transformAxis(final double[] re, final double[] im,
+                                      final int[] dims, final int axis, final int stride,
+                                      final DftNormalization normalization,
+                                      final TransformType type) {
+        final int n = dims[axis];
+        final int size = re.length;
+        final FastFourierTransformPlan plan = new FastFourierTransformPlan(n, normalization);
+        final double[] lineRe = new double[n];
+        final double[] lineIm = new double[n];
+        for (int start = 0; start < size; start++) {
+            // start is the first element of a line if its index along the axis is 0
+            if ((start / stride) % n != 0) {
+                continue;
+            }
+            for (int k = 0; k < n; k++) {
+                lineRe[k] = re[start + k * stride];
+                lineIm[k] = im[start + k * stride];
+            }
+            plan.transform(lineRe, lineIm, type);
+            for (int k = 0; k < n; k++) {
+                re[start + k * stride] = lineRe[k];
+                im[start + k * stride] = lineIm[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.util.FastMath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link RealFastFourierTransformPlan}.
+ *
+ * @version $Id$
+ */
+public final class RealFastFourierTransformPlanTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    /** Sizes covering odd and even sizes, with all kinds of factors. */
+    private static final int[] SIZES = {
+        1, 2, 3, 4, 5, 6, 8, 12, 15, 16, 30, 60, 64, 67, 100, 134, 1000, 1024, 2018
+    };
+
+    @Test(expected=NotStrictlyPositiveException.class)
+    public void testNotStrictlyPositiveSize() {
+        new RealFastFourierTransformPlan(0, DftNormalization.STANDARD);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testDataDimensionMismatch() {
+        final RealFastFourierTransformPlan plan =
+            new RealFastFourierTransformPlan(16, DftNormalization.STANDARD);
+        plan.transform(new double[15], new double[9], new double[9]);
+    }
+
+    @Test(expected=DimensionMismatchException.class)
+    public void testSpectrumDimensionMismatch() {
+        final RealFastFourierTransformPlan plan =
+            new RealFastFourierTransformPlan(15, DftNormalization.STANDARD);
+        plan.inverseTransform(new double[8], new double[7], new double[15]);
+    }
+
+    @Test
+    public void testSpectrumSize() {
+        Assert.assertEquals(9, new RealFastFourierTransformPlan(16, DftNormalization.STANDARD).getSpectrumSize());
+        Assert.assertEquals(8, new RealFastFourierTransformPlan(15, DftNormalization.STANDARD).getSpectrumSize());
+        Assert.assertEquals(1, new RealFastFourierTransformPlan(1, DftNormalization.STANDARD).getSpectrumSize());
+    }
+
+    @Test
+    public void testAgainstComplexTransform() {
+        final Random random = new Random(SEED);
+        for (final int n : SIZES) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                final RealFastFourierTransformPlan plan =
+                    new RealFastFourierTransformPlan(n, normalization);
+                final double[] x = createData(random, n);
+                final double[] re = new double[plan.getSpectrumSize()];
+                final double[] im = new double[plan.getSpectrumSize()];
+                plan.transform(x, re, im);
+
+                final double[] expectedRe = x.clone();
+                final double[] expectedIm = new double[n];
+                new FastFourierTransformPlan(n, normalization).transform(expectedRe, expectedIm,
+                                                                         TransformType.FORWARD);
+                final double tol = 1.0e-13 * FastMath.sqrt(n);
+                for (int k = 0; k < re.length; k++) {
+                    final String msg = normalization + ", " + n + ", " + k;
+                    Assert.assertEquals(msg, expectedRe[k], re[k], tol);
+                    Assert.assertEquals(msg, expectedIm[k], im[k], tol);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInverseAgainstComplexTransform() {
+        final Random random = new Random(SEED);
+        for (final int n : SIZES) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                final RealFastFourierTransformPlan plan =
+                    new RealFastFourierTransformPlan(n, normalization);
+
+                // build a Hermitian spectrum
+                final double[] re = createData(random, plan.getSpectrumSize());
+                final double[] im = createData(random, plan.getSpectrumSize());
+                im[0] = 0;
+                if (n % 2 == 0) {
+                    im[n / 2] = 0;
+                }
+                final double[] fullRe = new double[n];
+                final double[] fullIm = new double[n];
+                for (int k = 0; k < re.length; k++) {
+                    fullRe[k] = re[k];
+                    fullIm[k] = im[k];
+                    if (k > 0) {
+                        fullRe[n - k] = re[k];
+                        fullIm[n - k] = -im[k];
+                    }
+                }
+                new FastFourierTransformPlan(n, normalization).transform(fullRe, fullIm,
+                                                                         TransformType.INVERSE);
+
+                final double[] x = new double[n];
+                plan.inverseTransform(re, im, x);
+                for (int i = 0; i < n; i++) {
+                    final String msg = normalization + ", " + n + ", " + i;
+                    Assert.assertEquals(msg, fullRe[i], x[i], 1.0e-13);
+                    Assert.assertEquals(msg, 0.0, fullIm[i], 1.0e-13);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(SEED);
+        for (final int n : new int[] { 1024, 1000, 44100, 4099 }) {
+            for (DftNormalization normalization : DftNormalization.values()) {
+                final RealFastFourierTransformPlan plan =
+                    new RealFastFourierTransformPlan(n, normalization);
+                final double[] x = createData(random, n);
+                final double[] re = new double[plan.getSpectrumSize()];
+                final double[] im = new double[plan.getSpectrumSize()];
+                final double[] y = new double[n];
+                plan.transform(x, re, im);
+                plan.inverseTransform(re, im, y);
+                Assert.assertArrayEquals(x, y, 1.0e-13);
+            }
+        }
+    }
+
+    private static double[] createData(final Random random, final int n) {
+        final double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        return data;
+    }
+}
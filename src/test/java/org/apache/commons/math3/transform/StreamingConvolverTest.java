@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.transform;
+
+import java.util.Random;
+
+import org.apache.commons.math3.exception.NoDataException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.util.FastMath;
+import org.apache.commons.math3.util.MathArrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link StreamingConvolver}.
+ *
+ * @version $Id$
+ */
+public final class StreamingConvolverTest {
+    /** The common seed of all random number generators used in this test. */
+    private final static long SEED = 20131019L;
+
+    @Test(expected=NoDataException.class)
+    public void testEmptyKernel() {
+        new StreamingConvolver(new double[0]);
+    }
+
+    @Test(expected=NumberIsTooSmallException.class)
+    public void testTransformTooSmall() {
+        new StreamingConvolver(new double[10], 9);
+    }
+
+    @Test(expected=OutOfRangeException.class)
+    public void testChunkOutOfRange() {
+        new StreamingConvolver(new double[10]).process(new double[10], 5, new double[10], 0, 6);
+    }
+
+    @Test
+    public void testMethodSelection() {
+        Assert.assertEquals(0, new StreamingConvolver(new double[4]).getTransformSize());
+        Assert.assertTrue(new StreamingConvolver(new double[500]).getTransformSize() >= 1000);
+    }
+
+    @Test
+    public void testChunksAgainstFullConvolution() {
+        final Random random = new Random(SEED);
+        final double[] x = createData(random, 5000);
+        for (final int m : new int[] { 1, 5, 64, 300 }) {
+            final double[] h = createData(random, m);
+            final double[] expected = MathArrays.convolve(x, h);
+            for (final int fftSize : new int[] { 0, m, 2 * m + 3, 1024 }) {
+                final StreamingConvolver convolver = new StreamingConvolver(h, fftSize);
+                final double[] y = new double[expected.length];
+                int done = 0;
+                while (done < x.length) {
+                    // chunks of random lengths, including empty chunks
+                    final int length = FastMath.min(random.nextInt(700), x.length - done);
+                    convolver.process(x, done, y, done, length);
+                    done += length;
+                }
+                System.arraycopy(convolver.flush(), 0, y, x.length, m - 1);
+                for (int i = 0; i < y.length; i++) {
+                    Assert.assertEquals(m + ", " + fftSize + ", " + i, expected[i], y[i], 1.0e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        final Random random = new Random(SEED);
+        final double[] x = createData(random, 3000);
+        final double[] h = createData(random, 100);
+        final double[] expected = MathArrays.convolve(x, h);
+        final StreamingConvolver convolver = new StreamingConvolver(h);
+        final double[] y = x.clone();
+        convolver.process(y, 0, y, 0, 1234);
+        convolver.process(y, 1234, y, 1234, y.length - 1234);
+        for (int i = 0; i < y.length; i++) {
+            Assert.assertEquals(expected[i], y[i], 1.0e-12);
+        }
+    }
+
+    @Test
+    public void testFlushResets() {
+        final Random random = new Random(SEED);
+        final double[] h = createData(random, 50);
+        final double[] x1 = createData(random, 400);
+        final double[] x2 = createData(random, 300);
+        final StreamingConvolver convolver = new StreamingConvolver(h);
+        convolver.process(x1);
+        convolver.flush();
+        final double[] y = convolver.process(x2);
+        final double[] expected = MathArrays.convolve(x2, h);
+        for (int i = 0; i < y.length; i++) {
+            Assert.assertEquals(expected[i], y[i], 1.0e-12);
+        }
+        convolver.reset();
+        Assert.assertArrayEquals(new double[h.length - 1], convolver.flush(), 0.0);
+    }
+
+    private static double[] createData(final Random random, final int n) {
+        final double[] data = new double[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = 2.0 * random.nextDouble() - 1.0;
+        }
+        return data;
+    }
+}
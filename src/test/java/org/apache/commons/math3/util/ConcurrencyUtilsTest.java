@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.math3.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.NotPositiveException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link ConcurrencyUtils} class.
+ *
+ * @version $Id$
+ */
+public class ConcurrencyUtilsTest {
+
+    @Test
+    public void testResultsOrder() {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final ExecutorService e : new ExecutorService[] { null, executor }) {
+                final List<Integer> results = ConcurrencyUtils.invokeAll(e, createTasks(20));
+                Assert.assertEquals(20, results.size());
+                for (int i = 0; i < results.size(); i++) {
+                    Assert.assertEquals(i * i, results.get(i).intValue());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testUncheckedExceptionSequential() {
+        ConcurrencyUtils.invokeAll(null, createFailingTasks(new NotPositiveException(-1)));
+    }
+
+    @Test(expected=NotPositiveException.class)
+    public void testUncheckedExceptionParallel() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ConcurrencyUtils.invokeAll(executor, createFailingTasks(new NotPositiveException(-1)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckedException() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (final ExecutorService e : new ExecutorService[] { null, executor }) {
+                try {
+                    ConcurrencyUtils.invokeAll(e, createFailingTasks(new IOException("boom")));
+                    Assert.fail("an exception should have been thrown");
+                } catch (MathIllegalStateException mise) {
+                    Assert.assertTrue(mise.getCause() instanceof IOException);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultParallelism() {
+        Assert.assertTrue(ConcurrencyUtils.getDefaultParallelism() > 0);
+    }
+
+    private static List<Callable<Integer>> createTasks(final int n) {
+        final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            tasks.add(new Callable<Integer>() {
+                public Integer call() {
+                    return index * index;
+                }
+            });
+        }
+        return tasks;
+    }
+
+    private static List<Callable<Integer>> createFailingTasks(final Exception failure) {
+        final List<Callable<Integer>> tasks = createTasks(4);
+        tasks.add(new Callable<Integer>() {
+            public Integer call() throws Exception {
+                throw failure;
+            }
+        });
+        return tasks;
+    }
+}